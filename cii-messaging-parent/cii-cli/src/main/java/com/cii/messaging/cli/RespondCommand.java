@@ -5,8 +5,12 @@ import com.cii.messaging.reader.OrderReader;
 import com.cii.messaging.reader.CIIReaderException;
 import com.cii.messaging.writer.CIIWriterException;
 import com.cii.messaging.writer.generation.AcknowledgementCodes;
+import com.cii.messaging.writer.generation.LineDecisionRules;
+import com.cii.messaging.writer.generation.OrderResponseEngine;
 import com.cii.messaging.writer.generation.OrderResponseGenerationOptions;
 import com.cii.messaging.writer.generation.OrderResponseGenerator;
+import com.cii.messaging.writer.generation.StreamingOrderResponseGenerator;
+import com.cii.messaging.writer.generation.XsltOrderResponseGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine.Command;
@@ -19,7 +23,15 @@ import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 /**
  * Commande CLI générant automatiquement un ORDER_RESPONSE (ORDERSP) depuis un fichier ORDER.
@@ -29,11 +41,13 @@ public class RespondCommand extends AbstractCommand implements Callable<Integer>
 
     private static final Logger logger = LoggerFactory.getLogger(RespondCommand.class);
     private static final DateTimeFormatter ISSUE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final String RESPONSE_SUFFIX = "-ordersp";
 
-    @Parameters(index = "0", paramLabel = "INPUT", description = "Fichier ORDER XML d'entrée")
+    @Parameters(index = "0", paramLabel = "INPUT", description = "Fichier ORDER XML d'entrée ou répertoire de commandes")
     private Path inputFile;
 
-    @Option(names = {"-o", "--output"}, paramLabel = "FILE", description = "Fichier ORDER_RESPONSE de sortie")
+    @Option(names = {"-o", "--output"}, paramLabel = "FILE",
+            description = "Fichier ORDER_RESPONSE de sortie (répertoire de sortie si INPUT est un répertoire)")
     private Path outputFile;
 
     @Option(names = "--response-id", description = "Identifiant explicite du ORDER_RESPONSE généré")
@@ -54,12 +68,40 @@ public class RespondCommand extends AbstractCommand implements Callable<Integer>
             description = "Code UNECE ActionCode/1229 appliqué à toutes les lignes (ex: 3=Changement, 5=Accepté, 10=Non trouvé)")
     private String lineStatusCode;
 
+    @Option(names = "--streaming",
+            description = "Transformer en continu (StAX) sans charger la commande en mémoire")
+    private boolean streaming;
+
+    @Option(names = "--streaming-threshold",
+            description = "Taille (Mo) à partir de laquelle la transformation en continu remplace automatiquement le moteur MAPPER",
+            defaultValue = "32")
+    private long streamingThresholdMb = 32;
+
+    @Option(names = "--engine",
+            description = "Moteur de transformation : ${COMPLETION-CANDIDATES} (défaut : ${DEFAULT-VALUE})",
+            defaultValue = "MAPPER")
+    private OrderResponseEngine engine = OrderResponseEngine.MAPPER;
+
+    @Option(names = "--rules", paramLabel = "FILE",
+            description = "Table de règles par ligne (CSV ou JSON) : acceptation, modification ou rejet par produit")
+    private Path rulesFile;
+
+    @Option(names = "--stock", paramLabel = "FILE",
+            description = "Instantané de stock (CSV ou JSON) utilisé avec --rules pour plafonner les quantités")
+    private Path stockFile;
+
+    @Option(names = "--threads",
+            description = "Nombre de commandes traitées en parallèle lorsque INPUT est un répertoire (0 = nombre de processeurs)",
+            defaultValue = "0")
+    private int threads;
+
     @Override
     public Integer call() {
         configureLogging();
 
         Path resolvedInput = inputFile.toAbsolutePath().normalize();
-        if (!Files.exists(resolvedInput) || !Files.isRegularFile(resolvedInput)) {
+        boolean directory = Files.isDirectory(resolvedInput);
+        if (!Files.exists(resolvedInput) || (!directory && !Files.isRegularFile(resolvedInput))) {
             logger.error("Fichier d'entrée introuvable : {}", resolvedInput);
             return 1;
         }
@@ -68,13 +110,12 @@ public class RespondCommand extends AbstractCommand implements Callable<Integer>
             return 1;
         }
 
-        Path resolvedOutput = resolveOutputPath(resolvedInput);
-
         try {
-            Order order = new OrderReader().read(resolvedInput.toFile());
             OrderResponseGenerationOptions options = buildOptions();
-            String message = OrderResponseGenerator.genererOrderResponse(order, resolvedOutput.toString(), options);
-            logger.info(message);
+            if (directory) {
+                return respondDirectory(resolvedInput, options);
+            }
+            logger.info(respond(resolvedInput, resolveOutputPath(resolvedInput), options, new OrderReader()));
             return 0;
         } catch (CIIReaderException e) {
             logger.error("Impossible de lire le fichier ORDER : {}", e.getMessage());
@@ -94,7 +135,82 @@ public class RespondCommand extends AbstractCommand implements Callable<Integer>
         }
     }
 
-    private OrderResponseGenerationOptions buildOptions() {
+    private String respond(Path input, Path output, OrderResponseGenerationOptions options, OrderReader reader)
+            throws IOException, CIIReaderException, CIIWriterException {
+        if (engine == OrderResponseEngine.XSLT) {
+            logger.info("Moteur XSLT utilisé pour {}", input.getFileName());
+            return XsltOrderResponseGenerator.genererOrderResponse(input, output, options);
+        }
+        if (useStreaming(input, options)) {
+            logger.info("Moteur en continu (StAX) utilisé pour {}", input.getFileName());
+            return StreamingOrderResponseGenerator.genererOrderResponse(input, output, options);
+        }
+        logger.info("Moteur MAPPER utilisé pour {}", input.getFileName());
+        Order order = reader.read(input.toFile());
+        return OrderResponseGenerator.genererOrderResponse(order, output.toString(), options);
+    }
+
+    private int respondDirectory(Path directory, OrderResponseGenerationOptions options) throws IOException {
+        if (options.getResponseId() != null) {
+            throw new IllegalArgumentException("--response-id ne peut pas être utilisé pour un répertoire de commandes");
+        }
+        Path outputDirectory = outputFile != null ? outputFile.toAbsolutePath().normalize() : directory;
+        Files.createDirectories(outputDirectory);
+
+        List<Path> orders;
+        try (Stream<Path> files = Files.list(directory)) {
+            orders = files.filter(Files::isRegularFile)
+                    .filter(RespondCommand::isOrderFile)
+                    .sorted()
+                    .toList();
+        }
+        if (orders.isEmpty()) {
+            logger.warn("Aucun fichier ORDER trouvé dans {}", directory);
+            return 0;
+        }
+
+        int parallelism = Math.min(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), orders.size());
+        OrderReader reader = new OrderReader();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<String>> results = new ArrayList<>(orders.size());
+            for (Path order : orders) {
+                Path target = outputDirectory.resolve(responseFileName(order));
+                results.add(executor.submit(() -> respond(order, target, options, reader)));
+            }
+
+            int failures = 0;
+            for (int i = 0; i < orders.size(); i++) {
+                try {
+                    logger.info(results.get(i).get());
+                } catch (ExecutionException e) {
+                    failures++;
+                    logger.error("Échec de la génération pour {} : {}", orders.get(i).getFileName(),
+                            e.getCause().getMessage());
+                    logger.debug("Erreur complète", e.getCause());
+                }
+            }
+            logger.info("{} ORDER_RESPONSE générés, {} échec(s) sur {} commandes",
+                    orders.size() - failures, failures, orders.size());
+            return failures == 0 ? 0 : 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Traitement du répertoire interrompu");
+            return 1;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean useStreaming(Path resolvedInput, OrderResponseGenerationOptions options) throws IOException {
+        if (streaming) {
+            return true;
+        }
+        return options.getLineDecisions() == null
+                && Files.size(resolvedInput) >= streamingThresholdMb * 1024 * 1024;
+    }
+
+    private OrderResponseGenerationOptions buildOptions() throws IOException {
         OrderResponseGenerationOptions.Builder builder = OrderResponseGenerationOptions.builder()
                 .withResponseIdPrefix(responseIdPrefix)
                 .withAcknowledgementCode(acknowledgementCode);
@@ -108,6 +224,17 @@ public class RespondCommand extends AbstractCommand implements Callable<Integer>
         if (lineStatusCode != null && !lineStatusCode.isBlank()) {
             builder.withLineStatusCode(lineStatusCode);
         }
+        if (streaming && engine == OrderResponseEngine.XSLT) {
+            throw new IllegalArgumentException("--streaming ne peut pas être combiné avec --engine XSLT");
+        }
+        if (streaming && rulesFile != null) {
+            throw new IllegalArgumentException("--streaming ne peut pas être combiné avec --rules");
+        }
+        if (rulesFile != null) {
+            builder.withLineDecisions(LineDecisionRules.charger(rulesFile, stockFile));
+        } else if (stockFile != null) {
+            throw new IllegalArgumentException("--stock nécessite --rules");
+        }
         return builder.build();
     }
 
@@ -115,15 +242,23 @@ public class RespondCommand extends AbstractCommand implements Callable<Integer>
         if (outputFile != null) {
             return outputFile.toAbsolutePath().normalize();
         }
-        String fileName = resolvedInput.getFileName().toString();
-        int dotIndex = fileName.lastIndexOf('.');
-        String base = dotIndex >= 0 ? fileName.substring(0, dotIndex) : fileName;
-        String extension = dotIndex >= 0 ? fileName.substring(dotIndex) : ".xml";
-        String targetName = base + "-ordersp" + extension;
         Path parent = resolvedInput.getParent();
         if (parent == null) {
             parent = Path.of(".");
         }
-        return parent.resolve(targetName).toAbsolutePath().normalize();
+        return parent.resolve(responseFileName(resolvedInput)).toAbsolutePath().normalize();
+    }
+
+    private static String responseFileName(Path order) {
+        String fileName = order.getFileName().toString();
+        int dotIndex = fileName.lastIndexOf('.');
+        String base = dotIndex >= 0 ? fileName.substring(0, dotIndex) : fileName;
+        String extension = dotIndex >= 0 ? fileName.substring(dotIndex) : ".xml";
+        return base + RESPONSE_SUFFIX + extension;
+    }
+
+    private static boolean isOrderFile(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return fileName.endsWith(".xml") && !fileName.endsWith(RESPONSE_SUFFIX + ".xml");
     }
 }
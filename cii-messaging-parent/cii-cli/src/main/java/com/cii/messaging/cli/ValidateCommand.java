@@ -1,17 +1,27 @@
 package com.cii.messaging.cli;
 
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.validator.PhaseTiming;
 import com.cii.messaging.validator.SchemaVersion;
 import com.cii.messaging.validator.ValidationResult;
 import com.cii.messaging.validator.ValidationWarning;
 import com.cii.messaging.validator.impl.CompositeValidator;
+import com.cii.messaging.validator.impl.CompositeValidatorOptions;
+import com.cii.messaging.validator.impl.SchematronProfiler;
+import com.cii.messaging.validator.impl.SchematronRuleSets;
+import com.cii.messaging.validator.impl.SchematronSizePolicy;
+import com.cii.messaging.validator.impl.ValidationPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.concurrent.Callable;
 
 @Command(name = "validate", description = "Valider un fichier XML CII contre les schémas UNECE")
@@ -26,9 +36,67 @@ public class ValidateCommand extends AbstractCommand implements Callable<Integer
             description = "Version de schéma UNECE à utiliser (ex: D23B, D24A)")
     private String schemaVersion;
 
+    @Option(names = "--detect-context",
+            description = "Déduit la version et le profil de l'identifiant de spécification du document "
+                    + "(GuidelineSpecifiedDocumentContextParameter) ; --schema-version s'applique à défaut, un --profile "
+                    + "autre que le profil par défaut l'emporte")
+    private boolean detectContext;
+
+    @Option(names = "--rule-timings",
+            description = "Affiche le nombre d'évaluations et la durée cumulée de chaque règle et motif Schematron")
+    private boolean ruleTimings;
+
+    @Option(names = "--phase-timings",
+            description = "Affiche la durée de chaque phase (lecture, détection, schéma, analyse XSD, Schematron, SVRL) par validateur")
+    private boolean phaseTimings;
+
+    @Option(names = "--calculation-precheck",
+            description = "Contrôle d'abord en Java les règles de calcul EN 16931 des factures (BR-CO-10 à BR-CO-17, "
+                    + "bases imposables par catégorie BR-S-08, BR-Z-08, BR-E-08...)")
+    private boolean calculationPrecheck;
+
+    @Option(names = "--profile", paramLabel = "PROFIL",
+            description = "Profil Schematron appliqué aux factures (EN16931, EN16931-SUBSET, XRECHNUNG-SUBSET ; "
+                    + "défaut : ${DEFAULT-VALUE})",
+            defaultValue = SchematronRuleSets.DEFAULT_PROFILE)
+    private String profile;
+
     @Option(names = "--fail-on-warning", description = "Considère les avertissements comme des erreurs")
     private boolean failOnWarning;
 
+    @Option(names = "--parallel", description = "Exécute les validations XSD et Schematron simultanément")
+    private boolean parallel;
+
+    @Option(names = "--validator-timeout", paramLabel = "MS",
+            description = "Durée maximale accordée à chaque validateur, en millisecondes")
+    private Long validatorTimeoutMs;
+
+    @Option(names = "--single-parse",
+            description = "Analyse le document une seule fois pour les validations XSD et Schematron")
+    private boolean singleParse;
+
+    @Option(names = "--streaming",
+            description = "Valide le fichier en un seul passage, sans le charger en mémoire")
+    private boolean streaming;
+
+    @Option(names = "--schematron-max-bytes", paramLabel = "OCTETS",
+            description = "Taille au-delà de laquelle le Schematron est traité selon --schematron-size-policy")
+    private Long schematronMaxBytes;
+
+    @Option(names = "--schematron-size-policy", paramLabel = "POLICY",
+            description = "Schematron au-delà de --schematron-max-bytes : ${COMPLETION-CANDIDATES} (défaut : ${DEFAULT-VALUE})",
+            defaultValue = "SKIP")
+    private SchematronSizePolicy schematronSizePolicy;
+
+    @Option(names = "--policy", paramLabel = "POLICY",
+            description = "Politique d'enchaînement des validateurs : ${COMPLETION-CANDIDATES} (défaut : ${DEFAULT-VALUE})",
+            defaultValue = "FULL")
+    private ValidationPolicy policy;
+
+    @Option(names = "--max-errors", paramLabel = "N",
+            description = "Nombre maximal d'erreurs rapportées avant l'arrêt de la validation")
+    private Integer maxErrors;
+
     @Override
     public Integer call() throws Exception {
         configureLogging();
@@ -54,11 +122,61 @@ public class ValidateCommand extends AbstractCommand implements Callable<Integer
             return 1;
         }
 
-        CompositeValidator validator = new CompositeValidator();
+        if (!SchematronRuleSets.isRegistered(MessageType.INVOICE, version, profile)) {
+            logger.error("Profil Schematron inconnu : {}", profile);
+            return 1;
+        }
+
+        if (validatorTimeoutMs != null && validatorTimeoutMs <= 0) {
+            logger.error("Le délai par validateur doit être strictement positif : {}", validatorTimeoutMs);
+            return 1;
+        }
+
+        if (maxErrors != null && maxErrors <= 0) {
+            logger.error("Le nombre maximal d'erreurs doit être strictement positif : {}", maxErrors);
+            return 1;
+        }
+
+        if (schematronMaxBytes != null && schematronMaxBytes <= 0) {
+            logger.error("La taille maximale du Schematron doit être strictement positive : {}", schematronMaxBytes);
+            return 1;
+        }
+
+        SchematronProfiler profiler = ruleTimings ? new SchematronProfiler() : null;
+        CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                .parallel(parallel)
+                .validatorTimeout(validatorTimeoutMs != null ? Duration.ofMillis(validatorTimeoutMs) : null)
+                .singleParse(singleParse)
+                .schematronProfile(profile)
+                .calculationPreCheck(calculationPrecheck)
+                .schematronProfiler(profiler)
+                .policy(policy)
+                .maxErrors(maxErrors != null ? maxErrors : 0)
+                .streaming(streaming)
+                .schematronMaxBytes(schematronMaxBytes != null ? schematronMaxBytes : 0)
+                .schematronSizePolicy(schematronSizePolicy)
+                .detectDocumentContext(detectContext)
+                .build());
         validator.setSchemaVersion(version);
-        ValidationResult result = validator.validate(resolvedInput.toFile());
+        ValidationResult result;
+        if (streaming) {
+            try (InputStream inputStream = Files.newInputStream(resolvedInput)) {
+                result = validator.validate(inputStream);
+            }
+        } else {
+            result = validator.validate(resolvedInput.toFile());
+        }
 
         logValidationSummary(result, version);
+        if (phaseTimings) {
+            logger.info("Durées par phase :{}{}", System.lineSeparator(), formatPhaseTimings(result));
+        }
+        if (profiler != null) {
+            profiler.unprofiledRuleSets().forEach(ruleSet -> logger.warn(
+                    "Durées par règle indisponibles pour {} : la feuille n'a pas été générée par SchematronCompiler",
+                    ruleSet));
+            logger.info("Profil d'exécution des règles Schematron :{}{}", System.lineSeparator(), profiler.report());
+        }
         return determineExitCode(result);
     }
 
@@ -87,6 +205,16 @@ public class ValidateCommand extends AbstractCommand implements Callable<Integer
         }
     }
 
+    static String formatPhaseTimings(ValidationResult result) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "%-20s %-28s %12s%n", "Validateur", "Phase", "Durée (ms)"));
+        for (PhaseTiming timing : result.getTimings()) {
+            report.append(String.format(Locale.ROOT, "%-20s %-28s %12.3f%n",
+                    timing.getValidator(), timing.getPhase().getLabel(), timing.getMillis()));
+        }
+        return report.toString();
+    }
+
     int determineExitCode(ValidationResult result) {
         if (!result.isValid()) {
             return 1;
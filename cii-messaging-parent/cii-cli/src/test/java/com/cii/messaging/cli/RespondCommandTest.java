@@ -76,6 +76,131 @@ class RespondCommandTest {
         assertThat(expected).exists();
     }
 
+    @Test
+    void genereOrderResponseEnModeContinu() throws Exception {
+        Path input = copierEchantillon("/order-sample.xml");
+        Path output = tempDir.resolve("ordersp-streaming.xml");
+
+        int exitCode = new CommandLine(new RespondCommand()).execute(
+                input.toString(),
+                "--output", output.toString(),
+                "--streaming",
+                "--ack-code", "42",
+                "--line-status-code", "5",
+                "--issue-date", "20240305120000"
+        );
+
+        assertThat(exitCode).isZero();
+
+        OrderResponse response = lireOrderResponse(output);
+        assertThat(response.getExchangedDocument().getID().getValue()).isEqualTo("ORDRSP-ORD-2024-001");
+        assertThat(response.getExchangedDocument().getPurposeCode().getValue()).isEqualTo("42");
+        assertThat(response.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem())
+                .hasSize(2)
+                .allSatisfy(line -> assertThat(line.getAssociatedDocumentLineDocument().getLineStatusCode().getValue())
+                        .isEqualTo("5"));
+    }
+
+    @Test
+    void genereOrderResponseAvecLeMoteurXslt() throws Exception {
+        Path input = copierEchantillon("/order-sample.xml");
+        Path output = tempDir.resolve("ordersp-xslt.xml");
+
+        int exitCode = new CommandLine(new RespondCommand()).execute(
+                input.toString(),
+                "--output", output.toString(),
+                "--engine", "XSLT",
+                "--line-status-code", "5",
+                "--issue-date", "20240305120000"
+        );
+
+        assertThat(exitCode).isZero();
+
+        OrderResponse response = lireOrderResponse(output);
+        assertThat(response.getExchangedDocument().getID().getValue()).isEqualTo("ORDRSP-ORD-2024-001");
+        assertThat(response.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem())
+                .hasSize(2)
+                .allSatisfy(line -> assertThat(line.getAssociatedDocumentLineDocument().getLineStatusCode().getValue())
+                        .isEqualTo("5"));
+    }
+
+    @Test
+    void conserveLeMoteurXsltAuDelaDuSeuilDeTransformationEnContinu() throws Exception {
+        Path input = copierEchantillon("/order-sample.xml");
+        Path output = tempDir.resolve("ordersp-xslt-seuil.xml");
+
+        int exitCode = new CommandLine(new RespondCommand()).execute(
+                input.toString(),
+                "--output", output.toString(),
+                "--engine", "XSLT",
+                "--streaming-threshold", "0"
+        );
+
+        assertThat(exitCode).isZero();
+        // le moteur en continu recopierait l'événement de livraison demandé, que le moteur XSLT ne reprend pas
+        assertThat(lireOrderResponse(output).getSupplyChainTradeTransaction().getApplicableHeaderTradeDelivery()
+                .getRequestedDeliverySupplyChainEvent()).isEmpty();
+    }
+
+    @Test
+    void refuseLeModeContinuAvecLeMoteurXslt() throws Exception {
+        Path input = copierEchantillon("/order-sample.xml");
+        Path output = tempDir.resolve("ordersp-conflit.xml");
+
+        int exitCode = new CommandLine(new RespondCommand()).execute(
+                input.toString(),
+                "--output", output.toString(),
+                "--engine", "XSLT",
+                "--streaming"
+        );
+
+        assertThat(exitCode).isNotZero();
+        assertThat(output).doesNotExist();
+    }
+
+    @Test
+    void refuseLeModeContinuAvecUneTableDeRegles() throws Exception {
+        Path input = copierEchantillon("/order-sample.xml");
+        Path output = tempDir.resolve("ordersp-regles.xml");
+        Path rules = Files.writeString(tempDir.resolve("rules.csv"), "productId;action\n*;ACCEPT\n");
+
+        int exitCode = new CommandLine(new RespondCommand()).execute(
+                input.toString(),
+                "--output", output.toString(),
+                "--rules", rules.toString(),
+                "--streaming"
+        );
+
+        assertThat(exitCode).isNotZero();
+        assertThat(output).doesNotExist();
+    }
+
+    @Test
+    void traiteUnRepertoireDeCommandesAvecUneTableDeRegles() throws Exception {
+        Path orders = Files.createDirectories(tempDir.resolve("orders"));
+        Files.copy(Path.of(getClass().getResource("/order-sample.xml").toURI()), orders.resolve("a.xml"));
+        Files.copy(Path.of(getClass().getResource("/order-sample.xml").toURI()), orders.resolve("b.xml"));
+        Path rules = Files.writeString(tempDir.resolve("rules.csv"),
+                "productId;action\n4012345678902;REJECT\n*;ACCEPT\n");
+        Path output = tempDir.resolve("responses");
+
+        int exitCode = new CommandLine(new RespondCommand()).execute(
+                orders.toString(),
+                "--output", output.toString(),
+                "--rules", rules.toString(),
+                "--threads", "2",
+                "--issue-date", "20240305120000"
+        );
+
+        assertThat(exitCode).isZero();
+        for (String name : new String[] {"a-ordersp.xml", "b-ordersp.xml"}) {
+            OrderResponse response = lireOrderResponse(output.resolve(name));
+            assertThat(response.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem())
+                    .extracting(line -> line.getAssociatedDocumentLineDocument().getLineStatusCode().getValue())
+                    .containsExactly("5", "7");
+        }
+    }
+
     @Test
     void renvoieErreurSiFichierManquant() {
         Path missing = tempDir.resolve("missing.xml");
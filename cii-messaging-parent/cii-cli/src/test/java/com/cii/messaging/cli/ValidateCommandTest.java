@@ -1,5 +1,6 @@
 package com.cii.messaging.cli;
 
+import com.cii.messaging.validator.PhaseTiming;
 import com.cii.messaging.validator.ValidationResult;
 import com.cii.messaging.validator.ValidationWarning;
 import org.junit.jupiter.api.Test;
@@ -37,6 +38,109 @@ class ValidateCommandTest {
         assertThat(exitCode).isZero();
     }
 
+    @Test
+    void echantillonValideReussitEnModeParallele() throws Exception {
+        Path sample = copyToTemp("order-valid.xml");
+        int exitCode = new CommandLine(new ValidateCommand()).execute(
+                sample.toString(),
+                "--schema-version", "D23B",
+                "--parallel",
+                "--single-parse",
+                "--validator-timeout", "60000"
+        );
+        assertThat(exitCode).isZero();
+    }
+
+    @Test
+    void echantillonInvalideEchoueEnModeFailFast() throws Exception {
+        Path sample = Path.of(getClass().getResource("/order-sample.xml").toURI());
+        int exitCode = new CommandLine(new ValidateCommand()).execute(
+                sample.toString(),
+                "--policy", "FAIL_FAST",
+                "--max-errors", "1"
+        );
+        assertThat(exitCode).isEqualTo(1);
+    }
+
+    @Test
+    void echantillonValideReussitAvecProfilageDesRegles() throws Exception {
+        Path sample = copyToTemp("order-valid.xml");
+        int exitCode = new CommandLine(new ValidateCommand()).execute(
+                sample.toString(),
+                "--schema-version", "D23B",
+                "--rule-timings",
+                "--calculation-precheck"
+        );
+        assertThat(exitCode).isZero();
+    }
+
+    @Test
+    void echantillonValideReussitEnFluxAvecLimiteDuSchematron() throws Exception {
+        Path sample = copyToTemp("order-valid.xml");
+        int exitCode = new CommandLine(new ValidateCommand()).execute(
+                sample.toString(),
+                "--schema-version", "D23B",
+                "--streaming",
+                "--schematron-max-bytes", "1000",
+                "--schematron-size-policy", "WARN"
+        );
+        assertThat(exitCode).isZero();
+    }
+
+    @Test
+    void versionDeduiteDuContexteDuDocument() throws Exception {
+        Path sample = copyToTemp("order-valid.xml");
+        Files.writeString(sample, Files.readString(sample).replace("<rsm:ExchangedDocumentContext/>", """
+                <rsm:ExchangedDocumentContext>
+                    <ram:GuidelineSpecifiedDocumentContextParameter>
+                        <ram:ID>urn:partenaire:commande:D24A</ram:ID>
+                    </ram:GuidelineSpecifiedDocumentContextParameter>
+                </rsm:ExchangedDocumentContext>"""));
+
+        int configured = new CommandLine(new ValidateCommand()).execute(sample.toString(), "--schema-version", "D23B");
+        // la commande, conforme à D23B, est validée contre le schéma D24A désigné par son contexte
+        int detected = new CommandLine(new ValidateCommand()).execute(
+                sample.toString(),
+                "--schema-version", "D23B",
+                "--detect-context"
+        );
+
+        assertThat(configured).isZero();
+        assertThat(detected).isNotZero();
+    }
+
+    @Test
+    void dureesParPhaseAffichees() throws Exception {
+        Path sample = copyToTemp("order-valid.xml");
+        int exitCode = new CommandLine(new ValidateCommand()).execute(
+                sample.toString(),
+                "--schema-version", "D23B",
+                "--phase-timings"
+        );
+        assertThat(exitCode).isZero();
+
+        ValidationResult result = ValidationResult.builder().valid(true).build();
+        result.addTiming("XSDValidator", PhaseTiming.Phase.XSD_PARSE, 1_500_000);
+        assertThat(ValidateCommand.formatPhaseTimings(result))
+                .contains("XSDValidator")
+                .contains("analyse XSD")
+                .contains("1.500");
+    }
+
+    @Test
+    void profilSchematronInconnuRefuse() throws Exception {
+        Path sample = copyToTemp("order-valid.xml");
+        int exitCode = new CommandLine(new ValidateCommand()).execute(sample.toString(), "--profile", "INCONNU");
+        assertThat(exitCode).isEqualTo(1);
+    }
+
+    @Test
+    void nombreMaximalDErreursNulRefuse() throws Exception {
+        Path sample = copyToTemp("order-valid.xml");
+        int exitCode = new CommandLine(new ValidateCommand()).execute(sample.toString(), "--max-errors", "0");
+        assertThat(exitCode).isEqualTo(1);
+    }
+
     @Test
     void optionEchecSurAvertissementPropagee() {
         ValidateCommand command = new ValidateCommand();
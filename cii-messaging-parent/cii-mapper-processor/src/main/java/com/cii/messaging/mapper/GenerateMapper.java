@@ -0,0 +1,47 @@
+package com.cii.messaging.mapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Demande la génération, à la compilation, d'un mapper typé entre deux racines de messages UNECE.
+ *
+ * <p>Le processeur parcourt les propriétés JAXB de la racine source et émet une méthode de copie directe
+ * pour chaque couple de types de même structure rencontré (même nom de propriété, types homonymes dans le
+ * package cible). Les propriétés sans équivalent compatible côté cible sont ignorées.</p>
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+@Repeatable(GenerateMapper.List.class)
+public @interface GenerateMapper {
+
+    /**
+     * Type racine source (ex. {@code CrossIndustryOrderType}).
+     */
+    Class<?> source();
+
+    /**
+     * Type racine cible (ex. {@code CrossIndustryInvoiceType}).
+     */
+    Class<?> target();
+
+    /**
+     * Nom simple de la classe générée, placée dans le package du type annoté.
+     */
+    String name();
+
+    /**
+     * Conteneur permettant de déclarer plusieurs mappers sur un même type.
+     */
+    @Documented
+    @Retention(RetentionPolicy.SOURCE)
+    @Target(ElementType.TYPE)
+    @interface List {
+        GenerateMapper[] value();
+    }
+}
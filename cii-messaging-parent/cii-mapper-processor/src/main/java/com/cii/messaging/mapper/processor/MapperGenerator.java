@@ -0,0 +1,421 @@
+package com.cii.messaging.mapper.processor;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Produit le code source d'un mapper entre deux racines JAXB structurellement proches.
+ *
+ * <p>Le parcours part du couple racine et découvre de proche en proche les couples de types imbriqués
+ * (classes homonymes des deux packages, énumérations). Chaque couple donne lieu à une méthode
+ * {@code mapXxx} (instanciation) et, pour les classes, {@code copyXxx} (recopie dans une instance existante).
+ * Le code émis n'utilise que des appels d'accesseurs directs. Une table {@code conversion(source, cible)}
+ * expose ces méthodes par couple de classes exactes, pour les appelants génériques.</p>
+ */
+final class MapperGenerator {
+
+    private static final String INDENT = "    ";
+
+    private final Elements elements;
+    private final Types types;
+    private final TypeElement sourceRoot;
+    private final TypeElement targetRoot;
+    private final String sourcePackage;
+    private final String targetPackage;
+    private final TypeMirror listType;
+
+    private final Map<String, TypePair> pairs = new LinkedHashMap<>();
+    private final Set<String> usedNames = new HashSet<>();
+    private final Deque<TypePair> pending = new ArrayDeque<>();
+
+    MapperGenerator(Elements elements, Types types, TypeElement sourceRoot, TypeElement targetRoot) {
+        this.elements = elements;
+        this.types = types;
+        this.sourceRoot = sourceRoot;
+        this.targetRoot = targetRoot;
+        this.sourcePackage = elements.getPackageOf(sourceRoot).getQualifiedName().toString();
+        this.targetPackage = elements.getPackageOf(targetRoot).getQualifiedName().toString();
+        this.listType = types.erasure(elements.getTypeElement("java.util.List").asType());
+    }
+
+    String generate(String packageName, String className) {
+        TypePair root = pairFor(sourceRoot, targetRoot);
+
+        StringBuilder methods = new StringBuilder();
+        while (!pending.isEmpty()) {
+            TypePair pair = pending.poll();
+            methods.append(System.lineSeparator());
+            if (pair.isEnum()) {
+                appendEnumMethod(methods, pair);
+            } else {
+                appendClassMethods(methods, pair);
+            }
+        }
+
+        String sourceName = qualifiedName(sourceRoot);
+        String targetName = qualifiedName(targetRoot);
+        StringBuilder code = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            code.append("package ").append(packageName).append(";").append(System.lineSeparator())
+                    .append(System.lineSeparator());
+        }
+        line(code, 0, "/**");
+        line(code, 0, " * Mapper généré entre {@link " + sourceName + "} et {@link " + targetName + "}.");
+        line(code, 0, " *");
+        line(code, 0, " * <p>Ne pas modifier : ce fichier est produit à la compilation par {@code "
+                + MapperProcessor.class.getSimpleName() + "}.</p>");
+        line(code, 0, " */");
+        line(code, 0, "@javax.annotation.processing.Generated(\"" + MapperProcessor.class.getName() + "\")");
+        line(code, 0, "public final class " + className + " {");
+        code.append(System.lineSeparator());
+        appendConversionTable(code);
+        code.append(System.lineSeparator());
+        line(code, 1, "private " + className + "() {");
+        line(code, 2, "// utilitaire");
+        line(code, 1, "}");
+        code.append(System.lineSeparator());
+        line(code, 1, "/**");
+        line(code, 1, " * Convertit la racine source en une nouvelle racine cible.");
+        line(code, 1, " *");
+        line(code, 1, " * @param source message source (peut être {@code null})");
+        line(code, 1, " * @return message converti ou {@code null}");
+        line(code, 1, " */");
+        line(code, 1, "public static " + targetName + " map(" + sourceName + " source) {");
+        line(code, 2, "return " + root.methodName + "(source);");
+        line(code, 1, "}");
+        code.append(System.lineSeparator());
+        line(code, 1, "/**");
+        line(code, 1, " * Recopie la racine source dans une instance cible existante (ex. sous-classe de modèle).");
+        line(code, 1, " *");
+        line(code, 1, " * @param source message source non nul");
+        line(code, 1, " * @param target message cible non nul");
+        line(code, 1, " */");
+        line(code, 1, "public static void copy(" + sourceName + " source, " + targetName + " target) {");
+        line(code, 2, "java.util.Objects.requireNonNull(source, \"source\");");
+        line(code, 2, "java.util.Objects.requireNonNull(target, \"target\");");
+        line(code, 2, copyName(root) + "(source, target);");
+        line(code, 1, "}");
+        code.append(System.lineSeparator());
+        line(code, 1, "/**");
+        line(code, 1, " * Retourne la conversion générée pour un couple de classes exactes, afin qu'un appelant");
+        line(code, 1, " * générique puisse l'utiliser en priorité et se replier sur son propre mécanisme sinon.");
+        line(code, 1, " *");
+        line(code, 1, " * @param sourceType classe exacte de la valeur source");
+        line(code, 1, " * @param targetType classe cible attendue");
+        line(code, 1, " * @return conversion directe, ou {@code null} si le couple n'est pas couvert par ce mapper");
+        line(code, 1, " */");
+        line(code, 1, "public static java.util.function.Function<Object, Object> conversion(Class<?> sourceType, "
+                + "Class<?> targetType) {");
+        line(code, 2, "return CONVERSIONS.get(sourceType.getName() + \"->\" + targetType.getName());");
+        line(code, 1, "}");
+        code.append(methods);
+        line(code, 0, "}");
+        return code.toString();
+    }
+
+    private void appendConversionTable(StringBuilder out) {
+        line(out, 1, "private static final java.util.Map<String, java.util.function.Function<Object, Object>> "
+                + "CONVERSIONS = java.util.Map.ofEntries(");
+        int remaining = pairs.size();
+        for (TypePair pair : pairs.values()) {
+            String key = elements.getBinaryName(pair.source) + "->" + elements.getBinaryName(pair.target);
+            line(out, 3, "java.util.Map.entry(\"" + key + "\", value -> " + pair.methodName + "(("
+                    + qualifiedName(pair.source) + ") value))" + (--remaining > 0 ? "," : ");"));
+        }
+    }
+
+    private void appendClassMethods(StringBuilder out, TypePair pair) {
+        String source = qualifiedName(pair.source);
+        String target = qualifiedName(pair.target);
+
+        line(out, 1, "public static " + target + " " + pair.methodName + "(" + source + " source) {");
+        line(out, 2, "if (source == null) {");
+        line(out, 3, "return null;");
+        line(out, 2, "}");
+        line(out, 2, target + " target = new " + target + "();");
+        line(out, 2, copyName(pair) + "(source, target);");
+        line(out, 2, "return target;");
+        line(out, 1, "}");
+        out.append(System.lineSeparator());
+
+        line(out, 1, "public static void " + copyName(pair) + "(" + source + " source, " + target + " target) {");
+        Map<String, ExecutableElement> targetMethods = publicMethods(pair.target);
+        for (ExecutableElement getter : getters(pair.source)) {
+            String getterName = getter.getSimpleName().toString();
+            String property = getterName.startsWith("is") ? getterName.substring(2) : getterName.substring(3);
+            TypeMirror sourceType = getter.getReturnType();
+
+            if (isList(sourceType)) {
+                ExecutableElement targetGetter = targetMethods.get("get" + property + "/0");
+                if (targetGetter == null) {
+                    continue;
+                }
+                if (!isList(targetGetter.getReturnType())) {
+                    line(out, 2, "// ignoré : " + property + " (liste côté source uniquement)");
+                    continue;
+                }
+                TypeMirror sourceElement = elementType(sourceType);
+                TypeMirror targetElement = elementType(targetGetter.getReturnType());
+                String conversion = conversion(sourceElement, targetElement, "item");
+                if (conversion == null) {
+                    line(out, 2, "// ignoré : " + property + " (types d'éléments incompatibles)");
+                    continue;
+                }
+                line(out, 2, "for (" + typeName(sourceElement) + " item : source." + getterName + "()) {");
+                if (conversion.equals("item")) {
+                    line(out, 3, "if (item != null) {");
+                    line(out, 4, "target." + targetGetter.getSimpleName() + "().add(item);");
+                } else {
+                    line(out, 3, typeName(targetElement) + " converted = " + conversion + ";");
+                    line(out, 3, "if (converted != null) {");
+                    line(out, 4, "target." + targetGetter.getSimpleName() + "().add(converted);");
+                }
+                line(out, 3, "}");
+                line(out, 2, "}");
+                continue;
+            }
+
+            ExecutableElement setter = targetMethods.get("set" + property + "/1");
+            if (setter == null) {
+                continue;
+            }
+            TypeMirror targetType = setter.getParameters().get(0).asType();
+            String read = "source." + getterName + "()";
+            String conversion = conversion(sourceType, targetType, read);
+            if (conversion == null) {
+                line(out, 2, "// ignoré : " + property + " (types incompatibles)");
+                continue;
+            }
+            if (targetType.getKind().isPrimitive() && !sourceType.getKind().isPrimitive()) {
+                line(out, 2, "if (" + read + " != null) {");
+                line(out, 3, "target." + setter.getSimpleName() + "(" + conversion + ");");
+                line(out, 2, "}");
+            } else {
+                line(out, 2, "target." + setter.getSimpleName() + "(" + conversion + ");");
+            }
+        }
+        line(out, 1, "}");
+    }
+
+    private void appendEnumMethod(StringBuilder out, TypePair pair) {
+        String source = qualifiedName(pair.source);
+        String target = qualifiedName(pair.target);
+        Set<String> targetConstants = enumConstants(pair.target);
+
+        line(out, 1, "public static " + target + " " + pair.methodName + "(" + source + " value) {");
+        line(out, 2, "if (value == null) {");
+        line(out, 3, "return null;");
+        line(out, 2, "}");
+        line(out, 2, "return switch (value) {");
+        for (String constant : enumConstants(pair.source)) {
+            if (targetConstants.contains(constant)) {
+                line(out, 3, "case " + constant + " -> " + target + "." + constant + ";");
+            }
+        }
+        line(out, 3, "default -> throw new IllegalArgumentException(\"Valeur sans équivalent dans "
+                + pair.target.getSimpleName() + " : \" + value);");
+        line(out, 2, "};");
+        line(out, 1, "}");
+    }
+
+    /**
+     * Retourne l'expression convertissant {@code expression} du type source vers le type cible,
+     * ou {@code null} si les types ne sont pas compatibles.
+     */
+    private String conversion(TypeMirror sourceType, TypeMirror targetType, String expression) {
+        TypeMirror boxedSource = boxed(sourceType);
+        TypeMirror boxedTarget = boxed(targetType);
+        if (types.isSameType(boxedSource, boxedTarget)) {
+            return expression;
+        }
+        if (boxedSource.getKind() == TypeKind.DECLARED && boxedTarget.getKind() == TypeKind.DECLARED) {
+            TypeElement sourceElement = (TypeElement) ((DeclaredType) boxedSource).asElement();
+            TypeElement targetElement = (TypeElement) ((DeclaredType) boxedTarget).asElement();
+            if (isMappable(sourceElement, targetElement)) {
+                return pairFor(sourceElement, targetElement).methodName + "(" + expression + ")";
+            }
+        }
+        if (types.isAssignable(boxedSource, boxedTarget)) {
+            return expression;
+        }
+        return null;
+    }
+
+    private boolean isMappable(TypeElement source, TypeElement target) {
+        if (!inPackage(source, sourcePackage) || !inPackage(target, targetPackage)) {
+            return false;
+        }
+        if (source.getKind() == ElementKind.ENUM && target.getKind() == ElementKind.ENUM) {
+            return true;
+        }
+        return source.getKind() == ElementKind.CLASS && target.getKind() == ElementKind.CLASS
+                && !target.getModifiers().contains(Modifier.ABSTRACT)
+                && hasPublicNoArgConstructor(target);
+    }
+
+    private TypePair pairFor(TypeElement source, TypeElement target) {
+        String key = qualifiedName(source) + "->" + qualifiedName(target);
+        TypePair existing = pairs.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        String sourceName = flatName(source);
+        String targetName = flatName(target);
+        String base = "map" + sourceName + (sourceName.equals(targetName) ? "" : "To" + targetName);
+        String methodName = base;
+        int suffix = 2;
+        while (!usedNames.add(methodName)) {
+            methodName = base + suffix++;
+        }
+        TypePair pair = new TypePair(source, target, methodName);
+        pairs.put(key, pair);
+        pending.add(pair);
+        return pair;
+    }
+
+    private List<ExecutableElement> getters(TypeElement type) {
+        List<ExecutableElement> getters = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (TypeElement current : hierarchy(type)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                String name = method.getSimpleName().toString();
+                boolean getter = (name.startsWith("get") && name.length() > 3)
+                        || (name.startsWith("is") && name.length() > 2);
+                if (getter && method.getParameters().isEmpty() && isPublicInstance(method)
+                        && method.getReturnType().getKind() != TypeKind.VOID && seen.add(name)) {
+                    getters.add(method);
+                }
+            }
+        }
+        return getters;
+    }
+
+    private Map<String, ExecutableElement> publicMethods(TypeElement type) {
+        Map<String, ExecutableElement> methods = new LinkedHashMap<>();
+        for (TypeElement current : hierarchy(type)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                if (isPublicInstance(method)) {
+                    methods.putIfAbsent(method.getSimpleName() + "/" + method.getParameters().size(), method);
+                }
+            }
+        }
+        return methods;
+    }
+
+    private List<TypeElement> hierarchy(TypeElement type) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            hierarchy.add(current);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null;
+        }
+        return hierarchy;
+    }
+
+    private Set<String> enumConstants(TypeElement type) {
+        Set<String> constants = new LinkedHashSet<>();
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.ENUM_CONSTANT) {
+                constants.add(enclosed.getSimpleName().toString());
+            }
+        }
+        return constants;
+    }
+
+    private boolean hasPublicNoArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPublicInstance(ExecutableElement method) {
+        return method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC);
+    }
+
+    private boolean inPackage(TypeElement type, String packageName) {
+        return elements.getPackageOf(type).getQualifiedName().contentEquals(packageName);
+    }
+
+    private boolean isList(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && types.isSameType(types.erasure(type), listType);
+    }
+
+    private TypeMirror elementType(TypeMirror listMirror) {
+        List<? extends TypeMirror> arguments = ((DeclaredType) listMirror).getTypeArguments();
+        return arguments.isEmpty() ? elements.getTypeElement("java.lang.Object").asType() : arguments.get(0);
+    }
+
+    private TypeMirror boxed(TypeMirror type) {
+        return type.getKind().isPrimitive() ? types.boxedClass((PrimitiveType) type).asType() : type;
+    }
+
+    private String typeName(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            return qualifiedName((TypeElement) ((DeclaredType) type).asElement());
+        }
+        return type.toString();
+    }
+
+    private static String qualifiedName(TypeElement type) {
+        return type.getQualifiedName().toString();
+    }
+
+    private static String flatName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement outer) {
+            name.insert(0, outer.getSimpleName());
+            enclosing = outer.getEnclosingElement();
+        }
+        return name.toString();
+    }
+
+    private static String copyName(TypePair pair) {
+        return "copy" + pair.methodName.substring("map".length());
+    }
+
+    private static void line(StringBuilder out, int depth, String content) {
+        out.append(INDENT.repeat(depth)).append(content).append(System.lineSeparator());
+    }
+
+    private static final class TypePair {
+        private final TypeElement source;
+        private final TypeElement target;
+        private final String methodName;
+
+        private TypePair(TypeElement source, TypeElement target, String methodName) {
+            this.source = source;
+            this.target = target;
+            this.methodName = methodName;
+        }
+
+        private boolean isEnum() {
+            return source.getKind() == ElementKind.ENUM;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.cii.messaging.mapper.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Processeur d'annotations générant les mappers déclarés via {@code @GenerateMapper}.
+ */
+@SupportedAnnotationTypes({
+        MapperProcessor.GENERATE_MAPPER,
+        MapperProcessor.GENERATE_MAPPER_LIST
+})
+public final class MapperProcessor extends AbstractProcessor {
+
+    static final String GENERATE_MAPPER = "com.cii.messaging.mapper.GenerateMapper";
+    static final String GENERATE_MAPPER_LIST = "com.cii.messaging.mapper.GenerateMapper.List";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element annotated : roundEnv.getElementsAnnotatedWith(annotation)) {
+                for (AnnotationMirror mirror : collectMappings(annotated)) {
+                    generate(annotated, mirror);
+                }
+            }
+        }
+        return true;
+    }
+
+    private List<AnnotationMirror> collectMappings(Element annotated) {
+        List<AnnotationMirror> mappings = new ArrayList<>();
+        for (AnnotationMirror mirror : annotated.getAnnotationMirrors()) {
+            String name = annotationName(mirror);
+            if (GENERATE_MAPPER.equals(name)) {
+                mappings.add(mirror);
+            } else if (GENERATE_MAPPER_LIST.equals(name)) {
+                Object nested = attribute(mirror, "value");
+                if (nested instanceof List<?> values) {
+                    for (Object value : values) {
+                        mappings.add((AnnotationMirror) ((AnnotationValue) value).getValue());
+                    }
+                }
+            }
+        }
+        return mappings;
+    }
+
+    private void generate(Element annotated, AnnotationMirror mirror) {
+        TypeElement source = asTypeElement(attribute(mirror, "source"));
+        TypeElement target = asTypeElement(attribute(mirror, "target"));
+        Object name = attribute(mirror, "name");
+        if (source == null || target == null || !(name instanceof String className) || className.isBlank()) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "@GenerateMapper incomplet : source, target et name sont obligatoires", annotated, mirror);
+            return;
+        }
+
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(annotated);
+        String packageName = packageElement.getQualifiedName().toString();
+        MapperGenerator generator = new MapperGenerator(processingEnv.getElementUtils(),
+                processingEnv.getTypeUtils(), source, target);
+        String code = generator.generate(packageName, className);
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, annotated);
+            try (Writer writer = file.openWriter()) {
+                writer.write(code);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Impossible d'écrire " + qualifiedName + " : " + e.getMessage(), annotated, mirror);
+        }
+    }
+
+    private static String annotationName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static Object attribute(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private static TypeElement asTypeElement(Object value) {
+        if (value instanceof TypeMirror mirror && mirror instanceof DeclaredType declared) {
+            return (TypeElement) declared.asElement();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.cii.messaging.validator;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Durée d'une phase de validation, mesurée en nanosecondes par le validateur qui l'a exécutée.
+ */
+@Data
+@Builder
+public class PhaseTiming {
+    private String validator;
+    private Phase phase;
+    private long nanos;
+
+    public double getMillis() {
+        return nanos / 1_000_000.0;
+    }
+
+    public enum Phase {
+        READ("lecture"),
+        DETECTION("détection du type"),
+        SCHEMA_LOOKUP("obtention du schéma"),
+        XSD_PARSE("analyse XSD"),
+        SCHEMATRON_TRANSFORM("transformation Schematron"),
+        SVRL_MAPPING("conversion SVRL");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+}
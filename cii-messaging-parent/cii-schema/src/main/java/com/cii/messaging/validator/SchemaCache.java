@@ -0,0 +1,167 @@
+package com.cii.messaging.validator;
+
+import com.cii.messaging.model.common.MessageType;
+import org.xml.sax.SAXException;
+
+import javax.xml.validation.Schema;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache des schémas XSD compilés, partagé par tout le processus et indexé par (type de message, version).
+ * <p>
+ * Un {@link Schema} est immuable et utilisable par plusieurs threads : chaque combinaison n'est compilée
+ * qu'une seule fois, les appels concurrents attendant la même compilation. {@link #precompile(Collection, Executor)}
+ * compile toutes les combinaisons en parallèle au démarrage et {@link #awaitReady(Duration)} permet d'attendre la
+ * fin de ce préchauffage avant d'accepter du trafic.
+ * </p>
+ */
+public final class SchemaCache {
+
+    private static final Map<SchemaKey, CompletableFuture<Schema>> SCHEMAS = new ConcurrentHashMap<>();
+    private static final CountDownLatch READY = new CountDownLatch(1);
+
+    private SchemaCache() {
+        // utilitaire
+    }
+
+    /**
+     * Retourne le schéma compilé pour le type de message et la version demandés, en le compilant si besoin.
+     *
+     * @param type    type de message CII
+     * @param version version UNECE
+     * @return schéma compilé partagé
+     * @throws IOException  si le XSD est introuvable
+     * @throws SAXException si le XSD ne peut pas être compilé
+     */
+    public static Schema getSchema(MessageType type, SchemaVersion version) throws IOException, SAXException {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(version, "version");
+        SchemaKey key = new SchemaKey(type, version);
+        CompletableFuture<Schema> future = SCHEMAS.get(key);
+        if (future == null) {
+            CompletableFuture<Schema> created = new CompletableFuture<>();
+            future = SCHEMAS.putIfAbsent(key, created);
+            if (future == null) {
+                future = created;
+                compile(key, created);
+            }
+        }
+        return join(key, future);
+    }
+
+    /**
+     * Précompile en parallèle tous les schémas de toutes les versions connues sur le pool commun.
+     *
+     * @return tâche terminée lorsque tous les schémas sont compilés
+     */
+    public static CompletableFuture<Void> precompileAll() {
+        return precompile(List.of(SchemaVersion.values()), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Précompile en parallèle tous les types de message pour les versions fournies. Le cache est déclaré prêt
+     * lorsque toutes les compilations ont réussi.
+     *
+     * @param versions versions UNECE à compiler
+     * @param executor exécuteur des compilations
+     * @return tâche terminée lorsque tous les schémas sont compilés (en erreur si l'un d'eux échoue)
+     */
+    public static CompletableFuture<Void> precompile(Collection<SchemaVersion> versions, Executor executor) {
+        Objects.requireNonNull(versions, "versions");
+        Objects.requireNonNull(executor, "executor");
+        List<CompletableFuture<Schema>> tasks = new ArrayList<>();
+        for (SchemaVersion version : versions) {
+            for (MessageType type : MessageType.values()) {
+                tasks.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return getSchema(type, version);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } catch (SAXException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+        }
+        return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+                .thenRun(READY::countDown);
+    }
+
+    /**
+     * Indique si un préchauffage s'est terminé avec succès.
+     *
+     * @return {@code true} si les schémas ont été précompilés
+     */
+    public static boolean isReady() {
+        return READY.getCount() == 0;
+    }
+
+    /**
+     * Attend la fin du préchauffage.
+     *
+     * @param timeout délai d'attente maximal
+     * @return {@code true} si les schémas sont prêts, {@code false} si le délai a expiré
+     * @throws InterruptedException si le thread est interrompu pendant l'attente
+     */
+    public static boolean awaitReady(Duration timeout) throws InterruptedException {
+        Objects.requireNonNull(timeout, "timeout");
+        return READY.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    static String xsdName(MessageType type) {
+        return switch (type) {
+            case INVOICE -> "CrossIndustryInvoice.xsd";
+            case DESPATCH_ADVICE -> "CrossIndustryDespatchAdvice.xsd";
+            case ORDER -> "CrossIndustryOrder.xsd";
+            case ORDER_RESPONSE -> "CrossIndustryOrderResponse.xsd";
+        };
+    }
+
+    private static void compile(SchemaKey key, CompletableFuture<Schema> future) {
+        try {
+            future.complete(UneceSchemaLoader.loadSchema(xsdName(key.type()), key.version()));
+        } catch (IOException | SAXException | RuntimeException e) {
+            // l'échec n'est pas mis en cache : un appel ultérieur retentera la compilation
+            SCHEMAS.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static Schema join(SchemaKey key, CompletableFuture<Schema> future) throws IOException, SAXException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Compilation du schéma interrompue : " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof SAXException sax) {
+                throw sax;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private record SchemaKey(MessageType type, SchemaVersion version) { }
+}
@@ -0,0 +1,246 @@
+package com.cii.messaging.validator;
+
+import org.apache.xerces.impl.xs.SchemaGrammar;
+import org.apache.xerces.jaxp.validation.XMLSchemaFactory;
+import org.apache.xerces.parsers.XMLGrammarPreparser;
+import org.apache.xerces.util.SecurityManager;
+import org.apache.xerces.util.XMLGrammarPoolImpl;
+import org.apache.xerces.xni.XMLResourceIdentifier;
+import org.apache.xerces.xni.XNIException;
+import org.apache.xerces.xni.grammars.Grammar;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.apache.xerces.xni.parser.XMLErrorHandler;
+import org.apache.xerces.xni.parser.XMLInputSource;
+import org.apache.xerces.xni.parser.XMLParseException;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compilation des schémas UNECE avec partage des grammaires communes entre arbres XSD.
+ * <p>
+ * Chaque message CII embarque sa propre copie des schémas importés (types non qualifiés, listes de codes),
+ * sous un nom de fichier préfixé par le message. Les grammaires sans import (feuilles) sont donc indexées par
+ * l'empreinte SHA-256 de leur contenu : une feuille identique, quel que soit le message qui l'importe, n'est
+ * compilée qu'une seule fois par processus. Les grammaires qui importent d'autres schémas (RAM, QDT) diffèrent
+ * d'un message à l'autre et restent compilées pour chaque arbre.
+ * </p>
+ * <p>
+ * Ce chemin, qui passe par les API Xerces ({@link XMLGrammarPreparser}, {@link XMLSchemaFactory}), n'apporte
+ * aucun gain mesurable sur le temps de compilation : il est retenu pour la mémoire, les huit schémas D23B et D24A
+ * ne retenant plus que 10 Mo au lieu de 16 Mo. La sécurisation est celle d'un {@code SchemaFactory} standard
+ * (traitement sécurisé, propriétés {@code ACCESS_EXTERNAL_*} lorsque l'implémentation les reconnaît), complétée
+ * par un résolveur qui refuse tout import hors du répertoire du schéma racine.
+ * </p>
+ */
+final class SharedSchemaGrammars {
+
+    private static final String GRAMMAR_POOL = "http://apache.org/xml/properties/internal/grammar-pool";
+    private static final String NAMESPACES = "http://xml.org/sax/features/namespaces";
+    private static final String FULL_CHECKING = "http://apache.org/xml/features/validation/schema-full-checking";
+    private static final String SECURITY_MANAGER = "http://apache.org/xml/properties/security-manager";
+
+    private static final Map<String, SchemaGrammar> LEAF_GRAMMARS = new ConcurrentHashMap<>();
+
+    private SharedSchemaGrammars() {
+        // utilitaire
+    }
+
+    /**
+     * Compile l'arbre XSD dont la racine est fournie. Les imports doivent se trouver dans le même répertoire.
+     *
+     * @param root URL du schéma racine
+     * @return schéma compilé, non modifiable
+     * @throws IOException  si un document est illisible ou hors du répertoire du schéma racine
+     * @throws SAXException si un XSD est invalide
+     */
+    static Schema compile(URL root) throws IOException, SAXException {
+        Objects.requireNonNull(root, "root");
+        String location = root.toExternalForm();
+        String directory = location.substring(0, location.lastIndexOf('/') + 1);
+
+        CompilationPool pool = new CompilationPool();
+        XMLGrammarPreparser preparser = new XMLGrammarPreparser();
+        preparser.registerPreparser(XMLGrammarDescription.XML_SCHEMA, null);
+        preparser.setGrammarPool(pool);
+        preparser.setFeature(NAMESPACES, true);
+        preparser.setFeature(FULL_CHECKING, true);
+        preparser.setProperty(SECURITY_MANAGER, new SecurityManager());
+        preparser.setErrorHandler(new FailingErrorHandler());
+        preparser.setEntityResolver(identifier -> {
+            String resolved = resolve(identifier.getLiteralSystemId(), identifier.getBaseSystemId());
+            if (resolved == null || !resolved.startsWith(directory)) {
+                // une IOException serait réduite par Xerces à un avertissement et l'import ignoré
+                throw new XNIException(new IOException(
+                        "Accès refusé au schéma externe : " + identifier.getLiteralSystemId()));
+            }
+            return null;
+        });
+
+        try {
+            preparser.preparseGrammar(XMLGrammarDescription.XML_SCHEMA, new XMLInputSource(null, location, null));
+        } catch (XNIException e) {
+            Exception cause = e.getException();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new SAXException("Schéma XSD invalide " + location + " : " + e.getMessage(),
+                    cause != null ? cause : e);
+        }
+
+        XMLGrammarPoolImpl grammars = new XMLGrammarPoolImpl();
+        grammars.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, pool.grammars());
+        grammars.lockPool();
+        XMLSchemaFactory factory = new XMLSchemaFactory();
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        disableExternalAccess(factory);
+        return factory.newSchema(grammars);
+    }
+
+    /**
+     * Nombre de grammaires feuilles actuellement partagées.
+     */
+    static int sharedGrammarCount() {
+        return LEAF_GRAMMARS.size();
+    }
+
+    /**
+     * Oublie les grammaires feuilles partagées ; les schémas déjà compilés restent utilisables.
+     */
+    static void clearSharedGrammars() {
+        LEAF_GRAMMARS.clear();
+    }
+
+    private static void disableExternalAccess(XMLSchemaFactory factory) {
+        try {
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+        } catch (SAXNotRecognizedException | SAXNotSupportedException ex) {
+            // Certains parseurs ne supportent pas ces propriétés : le résolveur restreint déjà les imports.
+        }
+    }
+
+    private static String resolve(String literal, String base) {
+        if (literal == null) {
+            return null;
+        }
+        try {
+            return (base != null ? new URL(new URL(base), literal) : new URL(literal)).toExternalForm();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Pool propre à une compilation : consulte les feuilles partagées et publie les nouvelles feuilles.
+     */
+    private static final class CompilationPool implements XMLGrammarPool {
+        private final List<Grammar> grammars = new ArrayList<>();
+        private final Map<String, String> digests = new HashMap<>();
+
+        @Override
+        public Grammar[] retrieveInitialGrammarSet(String grammarType) {
+            return new Grammar[0];
+        }
+
+        @Override
+        public void cacheGrammars(String grammarType, Grammar[] newGrammars) {
+            for (Grammar grammar : newGrammars) {
+                grammars.add(grammar);
+                if (grammar instanceof SchemaGrammar schemaGrammar && isLeaf(schemaGrammar)) {
+                    String digest = digest(schemaGrammar.getDocumentLocations().item(0));
+                    if (digest != null) {
+                        LEAF_GRAMMARS.putIfAbsent(digest, schemaGrammar);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Grammar retrieveGrammar(XMLGrammarDescription description) {
+            if (!XMLGrammarDescription.XML_SCHEMA.equals(description.getGrammarType())) {
+                return null;
+            }
+            String location = description.getExpandedSystemId();
+            if (location == null) {
+                location = resolve(description.getLiteralSystemId(), description.getBaseSystemId());
+            }
+            String digest = location != null ? digest(location) : null;
+            SchemaGrammar shared = digest != null ? LEAF_GRAMMARS.get(digest) : null;
+            if (shared != null && Objects.equals(shared.getTargetNamespace(), description.getNamespace())) {
+                return shared;
+            }
+            return null;
+        }
+
+        @Override
+        public void lockPool() {
+            // pool éphémère
+        }
+
+        @Override
+        public void unlockPool() {
+            // pool éphémère
+        }
+
+        @Override
+        public void clear() {
+            grammars.clear();
+        }
+
+        Grammar[] grammars() {
+            return grammars.toArray(Grammar[]::new);
+        }
+
+        private static boolean isLeaf(SchemaGrammar grammar) {
+            return (grammar.getImportedGrammars() == null || grammar.getImportedGrammars().isEmpty())
+                    && grammar.getDocumentLocations().getLength() == 1;
+        }
+
+        private String digest(String location) {
+            return digests.computeIfAbsent(location, key -> {
+                try (InputStream input = new URL(key).openStream()) {
+                    MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+                    return HexFormat.of().formatHex(sha256.digest(input.readAllBytes()));
+                } catch (IOException | NoSuchAlgorithmException e) {
+                    // document illisible : la grammaire n'est simplement pas partagée
+                    return null;
+                }
+            });
+        }
+    }
+
+    private static final class FailingErrorHandler implements XMLErrorHandler {
+        @Override
+        public void warning(String domain, String key, XMLParseException exception) {
+            // les avertissements de compilation sont ignorés, comme avec SchemaFactory
+        }
+
+        @Override
+        public void error(String domain, String key, XMLParseException exception) {
+            throw exception;
+        }
+
+        @Override
+        public void fatalError(String domain, String key, XMLParseException exception) {
+            throw exception;
+        }
+    }
+}
@@ -1,21 +1,19 @@
 package com.cii.messaging.validator;
 
-import javax.xml.XMLConstants;
-import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URL;
 import java.util.Objects;
 
 import org.xml.sax.SAXException;
-import org.xml.sax.SAXNotRecognizedException;
-import org.xml.sax.SAXNotSupportedException;
 
 /**
  * Classe utilitaire chargée de charger les schémas XSD UNECE selon la version configurée.
+ * <p>
+ * Les grammaires importées identiques d'un message à l'autre sont compilées une seule fois
+ * (voir {@link SharedSchemaGrammars}).
+ * </p>
  */
 public final class UneceSchemaLoader {
 
@@ -52,21 +50,6 @@ public final class UneceSchemaLoader {
             throw new IOException("Schéma introuvable : " + resourcePath);
         }
 
-        try (InputStream is = url.openStream()) {
-            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            disableExternalAccess(factory);
-            StreamSource source = new StreamSource(is, url.toExternalForm());
-            return factory.newSchema(source);
-        }
-    }
-
-    private static void disableExternalAccess(SchemaFactory factory) {
-        try {
-            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
-        } catch (SAXNotRecognizedException | SAXNotSupportedException ex) {
-            // Certains parseurs ne supportent pas ces propriétés : on ignore silencieusement.
-        }
+        return SharedSchemaGrammars.compile(url);
     }
 }
-
@@ -15,6 +15,8 @@ public class ValidationResult {
     private List<ValidationWarning> warnings = new ArrayList<>();
     private String validatedAgainst;
     private long validationTimeMs;
+    @Builder.Default
+    private List<PhaseTiming> timings = new ArrayList<>();
     
     public boolean hasErrors() {
         return !errors.isEmpty();
@@ -32,4 +34,12 @@ public class ValidationResult {
     public void addWarning(ValidationWarning warning) {
         warnings.add(warning);
     }
+
+    public void addTiming(String validator, PhaseTiming.Phase phase, long nanos) {
+        timings.add(PhaseTiming.builder()
+                .validator(validator)
+                .phase(phase)
+                .nanos(nanos)
+                .build());
+    }
 }
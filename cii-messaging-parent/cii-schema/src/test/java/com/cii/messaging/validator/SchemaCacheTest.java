@@ -0,0 +1,52 @@
+package com.cii.messaging.validator;
+
+import com.cii.messaging.model.common.MessageType;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.validation.Schema;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaCacheTest {
+
+    @Test
+    void compileUneSeuleFoisParTypeEtVersion() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Callable<Schema> task = () -> SchemaCache.getSchema(MessageType.ORDER, SchemaVersion.D23B);
+            List<Future<Schema>> results = executor.invokeAll(java.util.Collections.nCopies(8, task));
+            Schema first = results.get(0).get();
+            for (Future<Schema> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertNotSame(SchemaCache.getSchema(MessageType.ORDER, SchemaVersion.D23B),
+                SchemaCache.getSchema(MessageType.ORDER, SchemaVersion.D24A));
+    }
+
+    @Test
+    void signaleLaFinDuPrechauffage() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            SchemaCache.precompile(List.of(SchemaVersion.values()), executor).get(2, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(SchemaCache.isReady());
+        assertTrue(SchemaCache.awaitReady(Duration.ZERO));
+        for (MessageType type : MessageType.values()) {
+            assertNotNull(SchemaCache.getSchema(type, SchemaVersion.D24A));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.cii.messaging.validator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.xml.validation.Schema;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mesure indicative du temps de compilation et du tas retenu par les schémas UNECE, exécutée uniquement avec
+ * {@code -Dcii.benchmark=true} (de préférence seule, dans une JVM neuve).
+ */
+@EnabledIfSystemProperty(named = "cii.benchmark", matches = "true")
+class UneceSchemaLoaderBenchmarkTest {
+
+    private static final List<String> SCHEMAS = List.of(
+            "CrossIndustryInvoice.xsd",
+            "CrossIndustryOrder.xsd",
+            "CrossIndustryOrderResponse.xsd",
+            "CrossIndustryDespatchAdvice.xsd");
+
+    @Test
+    void mesureLeDemarrageEtLeTasDesSchemas() throws Exception {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        List<Schema> schemas = new ArrayList<>();
+        for (SchemaVersion version : SchemaVersion.values()) {
+            for (String schema : SCHEMAS) {
+                schemas.add(UneceSchemaLoader.loadSchema(schema, version));
+            }
+        }
+        double elapsedMillis = (System.nanoTime() - start) / 1_000_000.0;
+        long retained = usedHeap() - heapBefore;
+
+        assertEquals(SCHEMAS.size() * SchemaVersion.values().length, schemas.size());
+        System.out.printf("%d schémas compilés en %.0f ms, tas retenu %d Mo%n",
+                schemas.size(), elapsedMillis, retained / (1024 * 1024));
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
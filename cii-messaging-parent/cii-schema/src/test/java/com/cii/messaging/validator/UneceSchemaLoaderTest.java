@@ -0,0 +1,61 @@
+package com.cii.messaging.validator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.validation.Schema;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UneceSchemaLoaderTest {
+
+    @Test
+    void doitChargerSchemaInvoice() throws Exception {
+        Schema schema = UneceSchemaLoader.loadSchema("CrossIndustryInvoice.xsd");
+        assertNotNull(schema);
+    }
+
+    @Test
+    void partageLesGrammairesCommunesEntreMessages() throws Exception {
+        SharedSchemaGrammars.clearSharedGrammars();
+        UneceSchemaLoader.loadSchema("CrossIndustryOrderResponse.xsd", SchemaVersion.D24A);
+        int orderResponseLeaves = SharedSchemaGrammars.sharedGrammarCount();
+
+        SharedSchemaGrammars.clearSharedGrammars();
+        UneceSchemaLoader.loadSchema("CrossIndustryOrder.xsd", SchemaVersion.D24A);
+        int orderLeaves = SharedSchemaGrammars.sharedGrammarCount();
+        assertTrue(orderLeaves > 0, "Les listes de codes et types non qualifiés doivent être partagés");
+
+        UneceSchemaLoader.loadSchema("CrossIndustryOrderResponse.xsd", SchemaVersion.D24A);
+        int added = SharedSchemaGrammars.sharedGrammarCount() - orderLeaves;
+        assertTrue(added < orderResponseLeaves,
+                "L'ORDER_RESPONSE doit réutiliser des feuilles de l'ORDER (" + added + " ajoutées sur "
+                        + orderResponseLeaves + ")");
+
+        int afterReload = SharedSchemaGrammars.sharedGrammarCount();
+        UneceSchemaLoader.loadSchema("CrossIndustryOrder.xsd", SchemaVersion.D24A);
+        assertEquals(afterReload, SharedSchemaGrammars.sharedGrammarCount());
+    }
+
+    @Test
+    void refuseLesImportsHorsDuRepertoireDuSchema(@TempDir Path directory) throws Exception {
+        Path schemas = Files.createDirectories(directory.resolve("xsd"));
+        Files.writeString(directory.resolve("externe.xsd"), """
+                <xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema" targetNamespace="urn:externe"/>
+                """);
+        Path root = Files.writeString(schemas.resolve("racine.xsd"), """
+                <xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema">
+                    <xs:import namespace="urn:externe" schemaLocation="../externe.xsd"/>
+                </xs:schema>
+                """);
+
+        assertThrows(IOException.class, () -> SharedSchemaGrammars.compile(root.toUri().toURL()));
+    }
+}
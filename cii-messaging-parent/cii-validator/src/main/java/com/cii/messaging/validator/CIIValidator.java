@@ -11,4 +11,35 @@ public interface CIIValidator {
     ValidationResult validate(InputStream inputStream);
     ValidationResult validate(String xmlContent);
     void setSchemaVersion(SchemaVersion version);
+
+    /**
+     * Valide le flux en transmettant erreurs et avertissements à {@code listener} plutôt qu'en les accumulant.
+     * <p>
+     * L'implémentation par défaut les transmet à la fin de la validation ; {@link
+     * com.cii.messaging.validator.impl.XSDValidator} et {@link com.cii.messaging.validator.impl.SchematronValidator}
+     * les transmettent pendant l'analyse et s'arrêtent dès que le listener le demande, et
+     * {@link com.cii.messaging.validator.impl.CompositeValidator} transmet le listener à chacune de ses étapes.
+     * </p>
+     *
+     * @param inputStream flux XML
+     * @param listener    destinataire des erreurs et avertissements
+     * @return résultat sans erreurs ni avertissements : validité, référentiel, durée et durées par phase
+     */
+    default ValidationResult validate(InputStream inputStream, ValidationListener listener) {
+        ValidationResult result = validate(inputStream);
+        for (ValidationWarning warning : result.getWarnings()) {
+            listener.onWarning(ValidationIssue.of(warning));
+        }
+        for (ValidationError error : result.getErrors()) {
+            if (!listener.onError(ValidationIssue.of(error))) {
+                break;
+            }
+        }
+        return ValidationResult.builder()
+                .valid(result.isValid())
+                .validatedAgainst(result.getValidatedAgainst())
+                .validationTimeMs(result.getValidationTimeMs())
+                .timings(result.getTimings())
+                .build();
+    }
 }
@@ -0,0 +1,63 @@
+package com.cii.messaging.validator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ValidationListener} qui construit les listes d'erreurs et d'avertissements d'un {@link ValidationResult},
+ * dans la limite de {@code maxErrors} erreurs.
+ */
+public final class ValidationCollector implements ValidationListener {
+
+    private final int maxErrors;
+    private final List<ValidationError> errors = new ArrayList<>();
+    private final List<ValidationWarning> warnings = new ArrayList<>();
+
+    /**
+     * Collecteur sans limite d'erreurs.
+     */
+    public ValidationCollector() {
+        this(0);
+    }
+
+    /**
+     * @param maxErrors nombre d'erreurs après lequel la validation est interrompue, {@code 0} pour ne pas limiter
+     */
+    public ValidationCollector(int maxErrors) {
+        if (maxErrors < 0) {
+            throw new IllegalArgumentException("Le nombre maximal d'erreurs doit être positif ou nul : " + maxErrors);
+        }
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public boolean onError(ValidationIssue issue) {
+        errors.add(issue.toError());
+        return maxErrors == 0 || errors.size() < maxErrors;
+    }
+
+    @Override
+    public void onWarning(ValidationIssue issue) {
+        warnings.add(issue.toWarning());
+    }
+
+    public List<ValidationError> getErrors() {
+        return errors;
+    }
+
+    public List<ValidationWarning> getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * Complète un résultat produit avec ce collecteur par les erreurs et avertissements reçus.
+     *
+     * @param summary résultat sans erreurs ni avertissements
+     * @return le même résultat, complété
+     */
+    public ValidationResult complete(ValidationResult summary) {
+        summary.setErrors(errors);
+        summary.setWarnings(warnings);
+        return summary;
+    }
+}
@@ -0,0 +1,124 @@
+package com.cii.messaging.validator;
+
+/**
+ * Erreur ou avertissement transmis à un {@link ValidationListener} au moment de sa détection.
+ * <p>
+ * Les implémentations peuvent différer la mise en forme du message et de la position jusqu'à leur lecture : un
+ * listener qui se contente de compter les erreurs ne paie pas leur formatage.
+ * </p>
+ */
+public interface ValidationIssue {
+
+    String getMessage();
+
+    default String getLocation() {
+        return null;
+    }
+
+    default int getLineNumber() {
+        return 0;
+    }
+
+    default int getColumnNumber() {
+        return 0;
+    }
+
+    default String getRule() {
+        return null;
+    }
+
+    /**
+     * Gravité d'une erreur ; sans objet pour un avertissement.
+     */
+    default ValidationError.ErrorSeverity getSeverity() {
+        return ValidationError.ErrorSeverity.ERROR;
+    }
+
+    default ValidationError toError() {
+        return ValidationError.builder()
+                .message(getMessage())
+                .location(getLocation())
+                .lineNumber(getLineNumber())
+                .columnNumber(getColumnNumber())
+                .severity(getSeverity())
+                .rule(getRule())
+                .build();
+    }
+
+    default ValidationWarning toWarning() {
+        return ValidationWarning.builder()
+                .message(getMessage())
+                .location(getLocation())
+                .rule(getRule())
+                .build();
+    }
+
+    /**
+     * Présente une erreur déjà construite comme un {@link ValidationIssue}.
+     */
+    static ValidationIssue of(ValidationError error) {
+        return new ValidationIssue() {
+            @Override
+            public String getMessage() {
+                return error.getMessage();
+            }
+
+            @Override
+            public String getLocation() {
+                return error.getLocation();
+            }
+
+            @Override
+            public int getLineNumber() {
+                return error.getLineNumber();
+            }
+
+            @Override
+            public int getColumnNumber() {
+                return error.getColumnNumber();
+            }
+
+            @Override
+            public String getRule() {
+                return error.getRule();
+            }
+
+            @Override
+            public ValidationError.ErrorSeverity getSeverity() {
+                return error.getSeverity();
+            }
+
+            @Override
+            public ValidationError toError() {
+                return error;
+            }
+        };
+    }
+
+    /**
+     * Présente un avertissement déjà construit comme un {@link ValidationIssue}.
+     */
+    static ValidationIssue of(ValidationWarning warning) {
+        return new ValidationIssue() {
+            @Override
+            public String getMessage() {
+                return warning.getMessage();
+            }
+
+            @Override
+            public String getLocation() {
+                return warning.getLocation();
+            }
+
+            @Override
+            public String getRule() {
+                return warning.getRule();
+            }
+
+            @Override
+            public ValidationWarning toWarning() {
+                return warning;
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.cii.messaging.validator;
+
+/**
+ * Reçoit les erreurs et avertissements d'une validation au fur et à mesure de leur détection (voir
+ * {@link CIIValidator#validate(java.io.InputStream, ValidationListener)}), sans qu'ils soient accumulés en mémoire.
+ */
+public interface ValidationListener {
+
+    /**
+     * Appelé pour chaque erreur.
+     *
+     * @param issue erreur détectée
+     * @return {@code false} pour interrompre la validation
+     */
+    boolean onError(ValidationIssue issue);
+
+    /**
+     * Appelé pour chaque avertissement.
+     *
+     * @param issue avertissement détecté
+     */
+    default void onWarning(ValidationIssue issue) {
+        // ignoré par défaut
+    }
+}
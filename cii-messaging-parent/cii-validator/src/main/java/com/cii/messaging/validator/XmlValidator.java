@@ -4,8 +4,14 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.stream.StreamSource;
@@ -19,9 +25,25 @@ import org.xml.sax.SAXParseException;
 
 /**
  * Utilitaire responsable de la validation de fichiers XML à partir d'un schéma XSD.
+ * <p>
+ * Les schémas compilés sont conservés dans un cache LRU de {@value #TAILLE_CACHE_SCHEMAS} entrées, indexé par le
+ * chemin canonique du XSD, sa date de modification et sa taille : un XSD modifié sur disque est recompilé, et
+ * les appels concurrents sur le même XSD attendent une compilation unique.
+ * {@link #validerFichiersXML(List, String)} valide en parallèle un lot de fichiers contre un même schéma.
+ * </p>
  */
 public final class XmlValidator {
 
+    static final int TAILLE_CACHE_SCHEMAS = 16;
+
+    private static final Map<CleSchema, CompletableFuture<Schema>> SCHEMAS =
+            new LinkedHashMap<>(TAILLE_CACHE_SCHEMAS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<CleSchema, CompletableFuture<Schema>> eldest) {
+                    return size() > TAILLE_CACHE_SCHEMAS;
+                }
+            };
+
     private XmlValidator() {
         // utilitaire
     }
@@ -51,7 +73,66 @@ public final class XmlValidator {
         verifierFichier(xmlPath, "XML");
         verifierFichier(xsdPath, "XSD");
 
+        return valider(xmlPath, chargerSchema(xsdPath));
+    }
+
+    /**
+     * Valide en parallèle, sur le pool commun, un lot de fichiers XML contre un même schéma XSD compilé une seule
+     * fois.
+     *
+     * @param cheminsFichiers chemins des fichiers XML à contrôler
+     * @param cheminXSD       chemin vers le schéma XSD à utiliser
+     * @return le message de chaque fichier, dans l'ordre du lot
+     * @throws IOException si le schéma est absent ou invalide
+     */
+    public static Map<String, String> validerFichiersXML(List<String> cheminsFichiers, String cheminXSD)
+            throws IOException {
+        return validerFichiersXML(cheminsFichiers, cheminXSD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Valide en parallèle un lot de fichiers XML contre un même schéma XSD compilé une seule fois. Un fichier
+     * introuvable n'interrompt pas le lot : son message décrit l'erreur.
+     *
+     * @param cheminsFichiers chemins des fichiers XML à contrôler
+     * @param cheminXSD       chemin vers le schéma XSD à utiliser
+     * @param executor        exécuteur des validations
+     * @return le message de chaque fichier, dans l'ordre du lot
+     * @throws IOException si le schéma est absent ou invalide
+     */
+    public static Map<String, String> validerFichiersXML(List<String> cheminsFichiers, String cheminXSD,
+                                                         Executor executor) throws IOException {
+        Objects.requireNonNull(cheminsFichiers, "cheminsFichiers");
+        Objects.requireNonNull(cheminXSD, "cheminXSD");
+        Objects.requireNonNull(executor, "executor");
+        if (cheminXSD.isBlank()) {
+            throw new IllegalArgumentException("Le chemin du fichier XSD ne peut pas être vide");
+        }
+
+        Path xsdPath = Path.of(cheminXSD);
+        verifierFichier(xsdPath, "XSD");
         Schema schema = chargerSchema(xsdPath);
+
+        Map<String, CompletableFuture<String>> taches = new LinkedHashMap<>();
+        for (String cheminFichier : cheminsFichiers) {
+            taches.computeIfAbsent(cheminFichier, chemin -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    Path xmlPath = Path.of(chemin);
+                    verifierFichier(xmlPath, "XML");
+                    return valider(xmlPath, schema);
+                } catch (IOException e) {
+                    return "Fichier XML invalide : " + chemin + System.lineSeparator()
+                            + "Erreurs détectées :" + System.lineSeparator() + " - " + e.getMessage();
+                }
+            }, executor));
+        }
+
+        Map<String, String> resultats = new LinkedHashMap<>();
+        taches.forEach((chemin, tache) -> resultats.put(chemin, tache.join()));
+        return resultats;
+    }
+
+    private static String valider(Path xmlPath, Schema schema) throws IOException {
         Validator validator = schema.newValidator();
         List<String> erreurs = new ArrayList<>();
         validator.setErrorHandler(new CollectingErrorHandler(erreurs));
@@ -88,7 +169,52 @@ public final class XmlValidator {
         }
     }
 
+    /**
+     * Retourne le schéma compilé depuis le cache, en le compilant si le XSD est nouveau ou a changé sur disque.
+     */
     private static Schema chargerSchema(Path xsdPath) throws IOException {
+        CleSchema cle = CleSchema.de(xsdPath);
+        CompletableFuture<Schema> future;
+        boolean compiler = false;
+        synchronized (SCHEMAS) {
+            future = SCHEMAS.get(cle);
+            if (future == null) {
+                // les versions précédentes du même fichier ne seront plus jamais demandées
+                SCHEMAS.keySet().removeIf(autre -> autre.chemin().equals(cle.chemin()));
+                future = new CompletableFuture<>();
+                SCHEMAS.put(cle, future);
+                compiler = true;
+            }
+        }
+        if (compiler) {
+            try {
+                future.complete(compilerSchema(xsdPath));
+            } catch (IOException | RuntimeException e) {
+                // l'échec n'est pas mis en cache : un appel ultérieur retentera la compilation
+                synchronized (SCHEMAS) {
+                    SCHEMAS.remove(cle, future);
+                }
+                future.completeExceptionally(e);
+            }
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Compilation du schéma interrompue : " + xsdPath.toAbsolutePath(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Schéma XSD invalide : " + xsdPath.toAbsolutePath(), cause);
+        }
+    }
+
+    private static Schema compilerSchema(Path xsdPath) throws IOException {
         SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
         try {
             return schemaFactory.newSchema(xsdPath.toFile());
@@ -97,6 +223,26 @@ public final class XmlValidator {
         }
     }
 
+    /**
+     * Nombre de schémas actuellement en cache.
+     */
+    static int tailleCacheSchemas() {
+        synchronized (SCHEMAS) {
+            return SCHEMAS.size();
+        }
+    }
+
+    /**
+     * Identifie une version d'un fichier XSD sur disque.
+     */
+    private record CleSchema(Path chemin, long derniereModification, long taille) {
+
+        static CleSchema de(Path xsdPath) throws IOException {
+            Path chemin = xsdPath.toRealPath();
+            return new CleSchema(chemin, Files.getLastModifiedTime(chemin).toMillis(), Files.size(chemin));
+        }
+    }
+
     private static final class CollectingErrorHandler implements ErrorHandler {
 
         private final List<String> erreurs;
@@ -0,0 +1,698 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.validator.*;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Contrôle en Java, en un seul passage SAX, les règles de calcul EN 16931 des factures.
+ * <p>
+ * Les sommes des lignes ({@code IncludedSupplyChainTradeLineItem}), des remises et charges de document et des
+ * ventilations de TVA sont cumulées au fil de la lecture, sans construire d'arbre, puis comparées aux montants
+ * d'en-tête. Les règles BR-CO portent les mêmes identifiants et messages que dans le profil Schematron
+ * {@value SchematronRuleSets#EN16931_SUBSET_PROFILE} et donnent le même verdict ; un montant qui n'est pas un
+ * décimal XSD n'est pas contrôlé.
+ * </p>
+ * <p>
+ * La base imposable de chaque ventilation de TVA (BR-S-08, BR-Z-08, BR-E-08...) est comparée, comme dans la
+ * norme EN 16931, à la somme des montants nets des lignes, plus les charges et moins les remises de document de
+ * la même catégorie, chaque somme étant arrondie au centime. Pour les catégories à taux (S, L, M), seules les
+ * lignes, remises et charges au taux de la ventilation sont retenues. Les sommes sont cumulées par catégorie et
+ * par taux : la mémoire ne dépend pas du nombre de lignes.
+ * </p>
+ * <p>
+ * Les documents autres que les factures ne sont pas contrôlés : le résultat est valide et ne mentionne aucun
+ * référentiel. Une instance peut être partagée entre threads.
+ * </p>
+ */
+public class CalculationRulesValidator implements CIIValidator {
+
+    /** Libellé reporté dans {@link ValidationResult#getValidatedAgainst()}. */
+    static final String LABEL = "Règles de calcul EN 16931";
+
+    /** Identifiants des règles contrôlées. */
+    static final Set<String> RULES = Set.of(
+            "BR-CO-10", "BR-CO-11", "BR-CO-12", "BR-CO-13", "BR-CO-14", "BR-CO-15", "BR-CO-16", "BR-CO-17",
+            "BR-S-08", "BR-Z-08", "BR-E-08", "BR-AE-08", "BR-IC-08", "BR-G-08", "BR-O-08", "BR-AF-08", "BR-AG-08");
+
+    /** Règle de base imposable de chaque code de catégorie de TVA (BT-118). */
+    private static final Map<String, CategoryRule> CATEGORY_RULES = Map.of(
+            "S", new CategoryRule("BR-S-08", "Standard rated", true),
+            "Z", new CategoryRule("BR-Z-08", "Zero rated", false),
+            "E", new CategoryRule("BR-E-08", "Exempt from VAT", false),
+            "AE", new CategoryRule("BR-AE-08", "Reverse charge", false),
+            "K", new CategoryRule("BR-IC-08", "Intra-community supply", false),
+            "G", new CategoryRule("BR-G-08", "Export outside the EU", false),
+            "O", new CategoryRule("BR-O-08", "Not subject to VAT", false),
+            "L", new CategoryRule("BR-AF-08", "IGIC", true),
+            "M", new CategoryRule("BR-AG-08", "IPSI", true));
+
+    private static final String RSM = "urn:un:unece:uncefact:data:standard:CrossIndustryInvoice:100";
+    private static final String RAM =
+            "urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100";
+    private static final String UDT = "urn:un:unece:uncefact:data:standard:UnqualifiedDataType:100";
+
+    private static final String SETTLEMENT = "/rsm:CrossIndustryInvoice/rsm:SupplyChainTradeTransaction"
+            + "/ram:ApplicableHeaderTradeSettlement";
+    private static final String SUMMATION = SETTLEMENT + "/ram:SpecifiedTradeSettlementHeaderMonetarySummation";
+
+    private static final Pattern DECIMAL = Pattern.compile("[+-]?(\\d+(\\.\\d*)?|\\.\\d+)");
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+
+    private volatile SchemaVersion schemaVersion = SchemaVersion.getDefault();
+
+    @Override
+    public ValidationResult validate(File xmlFile) {
+        try (InputStream is = new FileInputStream(xmlFile)) {
+            return validate(is);
+        } catch (IOException e) {
+            return createErrorResult("Échec de la lecture du fichier : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public ValidationResult validate(InputStream inputStream) {
+        return validate((handler, errorHandler) -> {
+            XMLReader reader = SecureSaxParsers.newReader();
+            reader.setContentHandler(handler);
+            reader.parse(new InputSource(inputStream));
+        });
+    }
+
+    /**
+     * Contrôle un document produit directement sous forme d'événements SAX, sans texte intermédiaire.
+     *
+     * @param events producteur des événements du document
+     * @return résultat du contrôle
+     */
+    ValidationResult validate(SaxEvents events) {
+        long startTime = System.currentTimeMillis();
+        InvoiceHandler handler = new InvoiceHandler();
+        try {
+            events.emit(handler, null);
+        } catch (NotAnInvoice e) {
+            return ValidationResult.builder()
+                    .valid(true)
+                    .validationTimeMs(System.currentTimeMillis() - startTime)
+                    .build();
+        } catch (SAXException | IOException e) {
+            return createErrorResult("Erreur de validation : " + e.getMessage());
+        }
+        List<ValidationError> errors = handler.errors();
+        return ValidationResult.builder()
+                .valid(errors.isEmpty())
+                .errors(errors)
+                .validatedAgainst(LABEL)
+                .validationTimeMs(System.currentTimeMillis() - startTime)
+                .build();
+    }
+
+    @Override
+    public ValidationResult validate(String xmlContent) {
+        return validate(new ByteArrayInputStream(xmlContent.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Les règles de calcul sont identiques pour toutes les versions ; la version est conservée pour cohérence
+     * avec les autres validateurs.
+     */
+    @Override
+    public void setSchemaVersion(SchemaVersion version) {
+        this.schemaVersion = Objects.requireNonNull(version, "version");
+    }
+
+    /**
+     * Indique si la règle est contrôlée par ce validateur.
+     *
+     * @param rule identifiant de règle, éventuellement {@code null}
+     * @return {@code true} si la règle fait partie de {@link #RULES}
+     */
+    static boolean covers(String rule) {
+        return rule != null && RULES.contains(rule);
+    }
+
+    /**
+     * Indique si ce validateur contrôle des règles pour ce type de message.
+     *
+     * @param type type de message
+     * @return {@code true} pour les factures
+     */
+    public boolean appliesTo(MessageType type) {
+        return type == MessageType.INVOICE;
+    }
+
+    private ValidationResult createErrorResult(String message) {
+        List<ValidationError> errors = new ArrayList<>();
+        errors.add(ValidationError.builder()
+                .message(message)
+                .severity(ValidationError.ErrorSeverity.FATAL)
+                .build());
+        return ValidationResult.builder()
+                .valid(false)
+                .errors(errors)
+                .validatedAgainst(LABEL)
+                .build();
+    }
+
+    /**
+     * Arrondi XPath {@code round(value * 100) div 100} : au centime le plus proche, les demis vers +∞.
+     */
+    static BigDecimal round2(BigDecimal value) {
+        return value.movePointRight(2).add(HALF).setScale(0, RoundingMode.FLOOR).movePointLeft(2);
+    }
+
+    /**
+     * Convertit un montant selon la syntaxe {@code xs:decimal}, ou renvoie {@code null} s'il n'en est pas un.
+     */
+    static BigDecimal parseDecimal(CharSequence text) {
+        String value = text.toString().strip();
+        return DECIMAL.matcher(value).matches() ? new BigDecimal(value) : null;
+    }
+
+    /**
+     * Interrompt l'analyse d'un document dont la racine n'est pas une facture.
+     */
+    private static final class NotAnInvoice extends SAXException {
+        NotAnInvoice() {
+            super("Document autre qu'une facture");
+        }
+    }
+
+    /**
+     * Montant lu dans le document : absent, invalide ou décimal.
+     */
+    private static final class Amount {
+        private boolean present;
+        private boolean invalid;
+        private BigDecimal value;
+
+        void set(CharSequence text) {
+            present = true;
+            value = parseDecimal(text);
+            invalid |= value == null;
+        }
+
+        void add(CharSequence text) {
+            present = true;
+            BigDecimal parsed = parseDecimal(text);
+            if (parsed == null) {
+                invalid = true;
+            } else {
+                value = value == null ? parsed : value.add(parsed);
+            }
+        }
+
+        /** Valeur d'un {@code sum(...)} XPath : zéro si absent. */
+        BigDecimal sum() {
+            return value != null ? value : BigDecimal.ZERO;
+        }
+    }
+
+    /**
+     * Ventilation de TVA d'en-tête ({@code ApplicableTradeTax}).
+     */
+    private static final class Tax {
+        private final Amount basis = new Amount();
+        private final Amount calculated = new Amount();
+        private final Amount rate = new Amount();
+        private final int index;
+        private final int line;
+        private final int column;
+        private String category;
+
+        Tax(int index, int line, int column) {
+            this.index = index;
+            this.line = line;
+            this.column = column;
+        }
+    }
+
+    /**
+     * Montants nets des lignes, charges et remises de document d'une catégorie de TVA, éventuellement d'un taux.
+     */
+    private static final class CategorySums {
+        private final Amount lines = new Amount();
+        private final Amount charges = new Amount();
+        private final Amount allowances = new Amount();
+
+        boolean invalid() {
+            return lines.invalid || charges.invalid || allowances.invalid;
+        }
+
+        /** Base imposable attendue, chaque somme arrondie au centime comme dans la norme. */
+        BigDecimal expectedBasis() {
+            return round2(lines.sum()).add(round2(charges.sum())).subtract(round2(allowances.sum()));
+        }
+    }
+
+    /**
+     * Règle de base imposable d'une catégorie de TVA ; {@code byRate} restreint les sommes au taux de la
+     * ventilation.
+     */
+    private record CategoryRule(String id, String name, boolean byRate) {
+
+        String message() {
+            if (byRate) {
+                return "[" + id + "]-For each different value of VAT category rate (BT-119) where the VAT category "
+                        + "code (BT-118) is \"" + name + "\", the VAT category taxable amount (BT-116) in a VAT "
+                        + "breakdown (BG-23) shall equal the sum of Invoice line net amounts (BT-131) plus the sum of "
+                        + "document level charge amounts (BT-99) minus the sum of document level allowance amounts "
+                        + "(BT-92) where the VAT category code (BT-151, BT-102, BT-95) is \"" + name + "\" and the "
+                        + "VAT rate (BT-152, BT-103, BT-96) equals the VAT category rate (BT-119).";
+            }
+            return "[" + id + "]-In a VAT breakdown (BG-23) where the VAT category code (BT-118) is \"" + name
+                    + "\" the VAT category taxable amount (BT-116) shall equal the sum of Invoice line net amounts "
+                    + "(BT-131) minus the sum of Document level allowance amounts (BT-92) plus the sum of Document "
+                    + "level charge amounts (BT-99) where the VAT category codes (BT-151, BT-95, BT-102) are \""
+                    + name + "\".";
+        }
+    }
+
+    /**
+     * Catégorie et taux normalisé ({@code stripTrailingZeros}) d'une somme par taux.
+     */
+    private record RateKey(String category, BigDecimal rate) {
+    }
+
+    /**
+     * Cumule les montants au fil des événements SAX puis évalue les règles en fin de document.
+     */
+    private static final class InvoiceHandler extends DefaultHandler {
+        private final List<ValidationError> errors = new ArrayList<>();
+        private final String[] path = new String[7];
+        private final StringBuilder text = new StringBuilder();
+        private Locator locator;
+        private int depth;
+        private int captureDepth;
+
+        private final Amount lineNetSum = new Amount();
+        private final Amount allowanceSum = new Amount();
+        private final Amount chargeSum = new Amount();
+        private final Amount calculatedSum = new Amount();
+        private final Amount lineTotal = new Amount();
+        private final Amount allowanceTotal = new Amount();
+        private final Amount chargeTotal = new Amount();
+        private final Amount taxBasisTotal = new Amount();
+        private final Amount grandTotal = new Amount();
+        private final Amount prepaid = new Amount();
+        private final Amount rounding = new Amount();
+        private final Amount duePayable = new Amount();
+        private final List<TaxTotal> taxTotals = new ArrayList<>();
+        private final List<Tax> breakdowns = new ArrayList<>();
+        private final Map<String, CategorySums> byCategory = new HashMap<>();
+        private final Map<RateKey, CategorySums> byRate = new HashMap<>();
+        private String currency;
+        private String taxTotalCurrency;
+
+        private String lineNet;
+        private String lineCategory;
+        private String lineRate;
+        private Tax tax;
+        private int taxIndex;
+        private String chargeIndicator;
+        private String actualAmount;
+        private String chargeCategory;
+        private String chargeRate;
+        private boolean allowances;
+        private boolean charges;
+        private boolean summation;
+        private int summationLine;
+        private int summationColumn;
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+            this.locator = locator;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            depth++;
+            if (depth < path.length) {
+                path[depth] = RAM.equals(uri) || RSM.equals(uri) || UDT.equals(uri) ? localName : "";
+            }
+            switch (depth) {
+                case 1 -> {
+                    if (!RSM.equals(uri) || !"CrossIndustryInvoice".equals(localName)) {
+                        throw new NotAnInvoice();
+                    }
+                }
+                case 3 -> {
+                    if ("SupplyChainTradeTransaction".equals(path[2])
+                            && "IncludedSupplyChainTradeLineItem".equals(localName)) {
+                        lineNet = null;
+                        lineCategory = null;
+                        lineRate = null;
+                    }
+                }
+                case 4 -> {
+                    if (!inHeaderSettlement()) {
+                        return;
+                    }
+                    switch (localName) {
+                        case "InvoiceCurrencyCode" -> capture();
+                        case "ApplicableTradeTax" -> tax = new Tax(++taxIndex, line(), column());
+                        case "SpecifiedTradeAllowanceCharge" -> {
+                            chargeIndicator = null;
+                            actualAmount = null;
+                            chargeCategory = null;
+                            chargeRate = null;
+                        }
+                        case "SpecifiedTradeSettlementHeaderMonetarySummation" -> {
+                            summation = true;
+                            summationLine = line();
+                            summationColumn = column();
+                        }
+                        default -> {
+                            // élément sans montant contrôlé
+                        }
+                    }
+                }
+                case 5 -> {
+                    if (inHeaderSettlement() && ("ApplicableTradeTax".equals(path[4])
+                            || "SpecifiedTradeSettlementHeaderMonetarySummation".equals(path[4])
+                            || "SpecifiedTradeAllowanceCharge".equals(path[4]) && "ActualAmount".equals(localName))) {
+                        if ("TaxTotalAmount".equals(localName)) {
+                            taxTotalCurrency = attributes.getValue("currencyID");
+                        }
+                        capture();
+                    }
+                }
+                case 6 -> {
+                    boolean taxCategory = "CategoryCode".equals(localName)
+                            || "RateApplicablePercent".equals(localName);
+                    if (inHeaderSettlement() && "SpecifiedTradeAllowanceCharge".equals(path[4])
+                            && ("ChargeIndicator".equals(path[5]) && "Indicator".equals(localName)
+                            || "CategoryTradeTax".equals(path[5]) && taxCategory)) {
+                        capture();
+                    } else if (inLineNetAmount() || inLineTax() && taxCategory) {
+                        capture();
+                    }
+                }
+                default -> {
+                    // profondeur sans montant contrôlé
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (captureDepth > 0) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (captureDepth == depth) {
+                captureDepth = 0;
+                store(localName);
+            }
+            if (depth == 3 && "SupplyChainTradeTransaction".equals(path[2])
+                    && "IncludedSupplyChainTradeLineItem".equals(localName) && lineNet != null) {
+                String net = lineNet;
+                addToCategory(lineCategory, lineRate, sums -> sums.lines.add(net));
+            } else if (depth == 4 && inHeaderSettlement()) {
+                if ("ApplicableTradeTax".equals(localName) && tax != null) {
+                    checkTax(tax);
+                    breakdowns.add(tax);
+                    tax = null;
+                } else if ("SpecifiedTradeAllowanceCharge".equals(localName)) {
+                    String amount = actualAmount;
+                    if ("false".equals(chargeIndicator)) {
+                        allowances = true;
+                        if (amount != null) {
+                            allowanceSum.add(amount);
+                            addToCategory(chargeCategory, chargeRate, sums -> sums.allowances.add(amount));
+                        }
+                    } else if ("true".equals(chargeIndicator)) {
+                        charges = true;
+                        if (amount != null) {
+                            chargeSum.add(amount);
+                            addToCategory(chargeCategory, chargeRate, sums -> sums.charges.add(amount));
+                        }
+                    }
+                }
+            }
+            depth--;
+        }
+
+        @Override
+        public void endDocument() {
+            if (summation) {
+                checkSummation();
+            }
+            checkCategories();
+        }
+
+        List<ValidationError> errors() {
+            return errors;
+        }
+
+        private void capture() {
+            captureDepth = depth;
+            text.setLength(0);
+        }
+
+        private void store(String localName) {
+            if (depth == 6) {
+                boolean category = "CategoryCode".equals(localName);
+                if (inLineNetAmount()) {
+                    lineNetSum.add(text);
+                    lineNet = text.toString();
+                } else if (inLineTax()) {
+                    if (category) {
+                        lineCategory = text.toString();
+                    } else {
+                        lineRate = text.toString();
+                    }
+                } else if ("CategoryTradeTax".equals(path[5])) {
+                    if (category) {
+                        chargeCategory = text.toString();
+                    } else {
+                        chargeRate = text.toString();
+                    }
+                } else {
+                    chargeIndicator = text.toString();
+                }
+                return;
+            }
+            String parent = path[depth - 1];
+            if (depth == 4) {
+                currency = text.toString();
+            } else if ("SpecifiedTradeAllowanceCharge".equals(parent)) {
+                // ActualAmount : cumulé selon l'indicateur, connu en fin d'élément
+                actualAmount = text.toString();
+            } else if ("ApplicableTradeTax".equals(parent) && tax != null) {
+                switch (localName) {
+                    case "BasisAmount" -> tax.basis.set(text);
+                    case "CalculatedAmount" -> {
+                        tax.calculated.set(text);
+                        calculatedSum.add(text);
+                    }
+                    case "RateApplicablePercent" -> tax.rate.set(text);
+                    case "CategoryCode" -> tax.category = text.toString().strip();
+                    default -> {
+                        // montant non contrôlé
+                    }
+                }
+            } else {
+                switch (localName) {
+                    case "LineTotalAmount" -> lineTotal.set(text);
+                    case "AllowanceTotalAmount" -> allowanceTotal.add(text);
+                    case "ChargeTotalAmount" -> chargeTotal.add(text);
+                    case "TaxBasisTotalAmount" -> taxBasisTotal.set(text);
+                    case "TaxTotalAmount" -> taxTotals.add(new TaxTotal(taxTotalCurrency, text.toString()));
+                    case "GrandTotalAmount" -> grandTotal.set(text);
+                    case "TotalPrepaidAmount" -> prepaid.add(text);
+                    case "RoundingAmount" -> rounding.add(text);
+                    case "DuePayableAmount" -> duePayable.set(text);
+                    default -> {
+                        // montant non contrôlé
+                    }
+                }
+            }
+        }
+
+        private boolean inHeaderSettlement() {
+            return "SupplyChainTradeTransaction".equals(path[2]) && "ApplicableHeaderTradeSettlement".equals(path[3]);
+        }
+
+        private boolean inLineNetAmount() {
+            return "LineTotalAmount".equals(path[6])
+                    && "SpecifiedTradeSettlementLineMonetarySummation".equals(path[5])
+                    && "SpecifiedLineTradeSettlement".equals(path[4])
+                    && "IncludedSupplyChainTradeLineItem".equals(path[3])
+                    && "SupplyChainTradeTransaction".equals(path[2]);
+        }
+
+        private boolean inLineTax() {
+            return "ApplicableTradeTax".equals(path[5])
+                    && "SpecifiedLineTradeSettlement".equals(path[4])
+                    && "IncludedSupplyChainTradeLineItem".equals(path[3])
+                    && "SupplyChainTradeTransaction".equals(path[2]);
+        }
+
+        /**
+         * Cumule un montant dans les sommes de sa catégorie et, si le taux est un décimal, de son taux.
+         */
+        private void addToCategory(String category, String rate, Consumer<CategorySums> addition) {
+            if (category == null) {
+                return;
+            }
+            String code = category.strip();
+            addition.accept(byCategory.computeIfAbsent(code, key -> new CategorySums()));
+            BigDecimal value = rate != null ? parseDecimal(rate) : null;
+            if (value != null) {
+                addition.accept(byRate.computeIfAbsent(new RateKey(code, value.stripTrailingZeros()),
+                        key -> new CategorySums()));
+            }
+        }
+
+        private void checkTax(Tax tax) {
+            if (!tax.rate.present || !tax.basis.present || !tax.calculated.present
+                    || tax.rate.invalid || tax.basis.invalid || tax.calculated.invalid) {
+                return;
+            }
+            BigDecimal expected = tax.basis.value.multiply(tax.rate.value)
+                    .add(HALF).setScale(0, RoundingMode.FLOOR).movePointLeft(2);
+            if (tax.calculated.value.compareTo(expected) != 0) {
+                report("BR-CO-17", "[BR-CO-17]-VAT category tax amount (BT-117) = VAT category taxable amount "
+                                + "(BT-116) x (VAT category rate (BT-119) / 100), rounded to two decimals.",
+                        SETTLEMENT + "/ram:ApplicableTradeTax[" + tax.index + "]", tax.line, tax.column);
+            }
+        }
+
+        /**
+         * Compare la base imposable de chaque ventilation aux montants de sa catégorie, connus en fin de document :
+         * les remises et charges de document suivent les ventilations.
+         */
+        private void checkCategories() {
+            for (Tax breakdown : breakdowns) {
+                CategoryRule rule = breakdown.category != null ? CATEGORY_RULES.get(breakdown.category) : null;
+                if (rule == null || !breakdown.basis.present || breakdown.basis.invalid
+                        || rule.byRate() && (!breakdown.rate.present || breakdown.rate.invalid)) {
+                    continue;
+                }
+                CategorySums sums = rule.byRate()
+                        ? byRate.get(new RateKey(breakdown.category, breakdown.rate.value.stripTrailingZeros()))
+                        : byCategory.get(breakdown.category);
+                if (sums == null) {
+                    sums = new CategorySums();
+                }
+                if (!sums.invalid() && breakdown.basis.value.compareTo(sums.expectedBasis()) != 0) {
+                    report(rule.id(), rule.message(),
+                            SETTLEMENT + "/ram:ApplicableTradeTax[" + breakdown.index + "]",
+                            breakdown.line, breakdown.column);
+                }
+            }
+        }
+
+        private void checkSummation() {
+            if (lineTotal.present && !lineTotal.invalid && !lineNetSum.invalid
+                    && !equal(lineTotal, round2(lineNetSum.sum()))) {
+                reportSummation("BR-CO-10", "[BR-CO-10]-Sum of Invoice line net amount (BT-106) = Σ Invoice line "
+                        + "net amount (BT-131).");
+            }
+            if (!allowanceTotal.invalid && !allowanceSum.invalid && (allowanceTotal.present || allowances)
+                    && !equal(allowanceTotal, round2(allowanceSum.sum()))) {
+                reportSummation("BR-CO-11", "[BR-CO-11]-Sum of allowances on document level (BT-107) = Σ Document "
+                        + "level allowance amount (BT-92).");
+            }
+            if (!chargeTotal.invalid && !chargeSum.invalid && (chargeTotal.present || charges)
+                    && !equal(chargeTotal, round2(chargeSum.sum()))) {
+                reportSummation("BR-CO-12", "[BR-CO-12]-Sum of charges on document level (BT-108) = Σ Document "
+                        + "level charge amount (BT-99).");
+            }
+            if (taxBasisTotal.present && !taxBasisTotal.invalid && !lineTotal.invalid && !allowanceTotal.invalid
+                    && !chargeTotal.invalid && (lineTotal.value == null || !equal(taxBasisTotal,
+                    round2(lineTotal.value.subtract(allowanceTotal.sum()).add(chargeTotal.sum()))))) {
+                reportSummation("BR-CO-13", "[BR-CO-13]-Invoice total amount without VAT (BT-109) = Σ Invoice line "
+                        + "net amount (BT-131) - Sum of allowances on document level (BT-107) + Sum of charges on "
+                        + "document level (BT-108).");
+            }
+            Amount taxTotal = taxTotalIn(currency);
+            if (currency != null && taxTotal.present && !taxTotal.invalid && !calculatedSum.invalid
+                    && !equal(taxTotal, round2(calculatedSum.sum()))) {
+                reportSummation("BR-CO-14", "[BR-CO-14]-Invoice total VAT amount (BT-110) = Σ VAT category tax "
+                        + "amount (BT-117).");
+            }
+            if (currency != null && grandTotal.present && !grandTotal.invalid && !taxBasisTotal.invalid
+                    && !taxTotal.invalid && (taxBasisTotal.value == null
+                    || !equal(grandTotal, round2(taxBasisTotal.value.add(taxTotal.sum()))))) {
+                reportSummation("BR-CO-15", "[BR-CO-15]-Invoice total amount with VAT (BT-112) = Invoice total "
+                        + "amount without VAT (BT-109) + Invoice total VAT amount (BT-110).");
+            }
+            if (duePayable.present && !duePayable.invalid && !grandTotal.invalid && !prepaid.invalid
+                    && !rounding.invalid && (grandTotal.value == null || !equal(duePayable,
+                    grandTotal.value.subtract(prepaid.sum()).add(rounding.sum())))) {
+                reportSummation("BR-CO-16", "[BR-CO-16]-Amount due for payment (BT-115) = Invoice total amount "
+                        + "with VAT (BT-112) -Paid amount (BT-113) +Rounding amount (BT-114).");
+            }
+        }
+
+        /**
+         * Cumule les montants {@code TaxTotalAmount} dont la devise est {@code currency}.
+         */
+        private Amount taxTotalIn(String currency) {
+            Amount amount = new Amount();
+            for (TaxTotal taxTotal : taxTotals) {
+                if (taxTotal.currency() != null && taxTotal.currency().equals(currency)) {
+                    amount.add(taxTotal.text());
+                }
+            }
+            return amount;
+        }
+
+        /**
+         * Comparaison XPath {@code xs:decimal(amount) = expected} : fausse si le montant est absent.
+         */
+        private static boolean equal(Amount amount, BigDecimal expected) {
+            return amount.value != null && amount.value.compareTo(expected) == 0;
+        }
+
+        private void reportSummation(String rule, String message) {
+            report(rule, message, SUMMATION, summationLine, summationColumn);
+        }
+
+        private void report(String rule, String message, String location, int line, int column) {
+            errors.add(ValidationError.builder()
+                    .message(message)
+                    .location(location)
+                    .lineNumber(line)
+                    .columnNumber(column)
+                    .rule(rule)
+                    .severity(ValidationError.ErrorSeverity.ERROR)
+                    .build());
+        }
+
+        private int line() {
+            return locator != null ? locator.getLineNumber() : 0;
+        }
+
+        private int column() {
+            return locator != null ? locator.getColumnNumber() : 0;
+        }
+    }
+
+    private record TaxTotal(String currency, String text) {
+    }
+}
@@ -1,119 +1,576 @@
 package com.cii.messaging.validator.impl;
 
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.model.despatchadvice.DespatchAdvice;
+import com.cii.messaging.model.invoice.Invoice;
+import com.cii.messaging.model.order.Order;
+import com.cii.messaging.model.orderresponse.OrderResponse;
 import com.cii.messaging.validator.*;
+import org.xml.sax.SAXException;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * Enchaîne plusieurs implémentations de {@link CIIValidator} et agrège leurs résultats.
+ * <p>
+ * En mode parallèle ({@link CompositeValidatorOptions#isParallel()}), tous les validateurs s'exécutent
+ * simultanément sur l'exécuteur configuré (threads virtuels par défaut). Les erreurs, avertissements et
+ * référentiels sont toujours fusionnés dans l'ordre d'enregistrement des validateurs. Un validateur qui dépasse
+ * {@link CompositeValidatorOptions#getValidatorTimeout()} est interrompu et signalé par une erreur FATAL.
+ * </p>
+ * <p>
+ * La {@link ValidationPolicy} et la limite {@link CompositeValidatorOptions#getMaxErrors()} permettent d'arrêter
+ * la validation au plus tôt ; chaque validateur non exécuté est signalé par un avertissement.
+ * </p>
+ * <p>
+ * Avec {@link CompositeValidatorOptions#isSingleParse()}, le document n'est analysé qu'une fois : le même flux
+ * d'événements SAX alimente la validation XSD et l'arbre sur lequel s'exécutent les règles Schematron.
+ * </p>
+ * <p>
+ * Avec {@link CompositeValidatorOptions#isStreaming()}, un flux est validé en un seul passage sans être chargé en
+ * mémoire ({@link StreamingValidation}). Au-delà de {@link CompositeValidatorOptions#getSchematronMaxBytes()},
+ * le Schematron, dont l'arbre occupe une mémoire proportionnelle au document, est traité selon la
+ * {@link SchematronSizePolicy}.
+ * </p>
+ * <p>
+ * Les objets du modèle ({@link Invoice}, {@link Order}, {@link DespatchAdvice}, {@link OrderResponse}) sont
+ * validés sans être sérialisés : leur marshalling JAXB alimente directement la validation XSD et l'arbre des
+ * règles Schematron.
+ * </p>
+ * <p>
+ * Avec {@link CompositeValidatorOptions#isDetectDocumentContext()}, la version UNECE et le profil Schematron
+ * sont déduits de chaque document ({@link GuidelineContexts}) : une même instance valide simultanément des
+ * messages de versions et de profils différents.
+ * </p>
+ * <p>
+ * Les durées par phase ({@link ValidationResult#getTimings()}) de chaque validateur sont conservées dans l'ordre
+ * d'enregistrement, précédées de celles des phases exécutées par le composite (lecture, détection du type).
+ * </p>
+ * <p>
+ * Un {@link SchematronValidator} sans règles pour le type du document (voir {@link SchematronRuleSets}) n'est
+ * pas exécuté.
+ * </p>
+ * <p>
+ * Avec {@link CompositeValidatorOptions#isCalculationPreCheck()}, les règles de calcul des factures sont d'abord
+ * contrôlées par {@link CalculationRulesValidator}, en une étape préalable peu coûteuse : avec
+ * {@link ValidationPolicy#FAIL_FAST}, une facture aux totaux incohérents est rejetée sans validation XSD ni
+ * Schematron. Les erreurs Schematron portant sur ces mêmes règles sont alors écartées pour ne pas être
+ * reportées deux fois.
+ * </p>
+ * <p>
+ * Avec {@link #validate(InputStream, ValidationListener)}, le listener est transmis à chaque étape : les validateurs
+ * d'une étape séquentielle lui remettent leurs erreurs pendant l'analyse, et la limite
+ * {@link CompositeValidatorOptions#getMaxErrors()} est partagée entre les étapes. Les validateurs exécutés
+ * simultanément ou sous délai, ainsi que l'analyse unique, en continu ou d'un objet du modèle, remettent les leurs à
+ * la fin de leur exécution, dans l'ordre d'enregistrement. Les autres méthodes construisent leur résultat au-dessus
+ * de ce mécanisme.
+ * </p>
  */
 public class CompositeValidator implements CIIValidator {
-    private final List<CIIValidator> validators = new ArrayList<>();
-    private SchemaVersion schemaVersion = SchemaVersion.getDefault();
+    private static final Executor VIRTUAL_THREADS = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("cii-validation-", 0).factory());
+
+    private final List<CIIValidator> validators = new CopyOnWriteArrayList<>();
+    private final CompositeValidatorOptions options;
+    private final CalculationRulesValidator calculation;
+    private volatile SchemaVersion schemaVersion = SchemaVersion.getDefault();
 
     public CompositeValidator() {
-        validators.add(new XSDValidator());
-        validators.add(new SchematronValidator());
-        validators.forEach(v -> v.setSchemaVersion(schemaVersion));
+        this(CompositeValidatorOptions.defaults());
+    }
+
+    public CompositeValidator(CompositeValidatorOptions options) {
+        this.options = Objects.requireNonNull(options, "options");
+        this.calculation = options.isCalculationPreCheck() ? new CalculationRulesValidator() : null;
+        addValidator(new XSDValidator());
+        addValidator(new SchematronValidator());
     }
 
     public void addValidator(CIIValidator validator) {
+        if (validator instanceof XSDValidator xsd) {
+            if (options.getMaxErrors() > 0) {
+                xsd.setMaxErrors(options.getMaxErrors());
+            }
+            xsd.setDetectDocumentContext(options.isDetectDocumentContext());
+        }
+        if (validator instanceof SchematronValidator schematron) {
+            schematron.setProfile(options.getSchematronProfile());
+            schematron.setProfiler(options.getSchematronProfiler());
+            schematron.setDetectDocumentContext(options.isDetectDocumentContext());
+        }
         validators.add(validator);
         validator.setSchemaVersion(schemaVersion);
     }
-    
+
     @Override
     public ValidationResult validate(File xmlFile) {
-        long start = System.currentTimeMillis();
-
-        ValidationResult.ValidationResultBuilder combinedResult = ValidationResult.builder();
-        combinedResult.valid(true);
-        
-        List<ValidationError> allErrors = new ArrayList<>();
-        List<ValidationWarning> allWarnings = new ArrayList<>();
-        StringBuilder validatedAgainst = new StringBuilder();
-        
-        for (CIIValidator validator : validators) {
-            ValidationResult result = validator.validate(xmlFile);
-
-            if (!result.isValid()) {
-                combinedResult.valid(false);
-            }
-
-            if (result.getErrors() != null) {
-                allErrors.addAll(result.getErrors());
-            }
-            if (result.getWarnings() != null) {
-                allWarnings.addAll(result.getWarnings());
-            }
-
-            String against = result.getValidatedAgainst();
-            if (against != null && !against.isBlank()) {
-                if (validatedAgainst.length() > 0) {
-                    validatedAgainst.append(", ");
-                }
-                validatedAgainst.append(against);
-            }
-        }
-        
-        combinedResult.errors(allErrors);
-        combinedResult.warnings(allWarnings);
-        combinedResult.validatedAgainst(validatedAgainst.length() == 0 ? null : validatedAgainst.toString());
-        combinedResult.validationTimeMs(System.currentTimeMillis() - start);
-
-        return combinedResult.build();
+        return collect(listener -> validateWith(Validation.returning(validator -> validator.validate(xmlFile)),
+                () -> new FileInputStream(xmlFile), xmlFile.length(), listener));
     }
-    
+
     @Override
     public ValidationResult validate(InputStream inputStream) {
+        return collect(listener -> validate(inputStream, listener));
+    }
+
+    /**
+     * Transmet le listener à chaque étape ; la limite d'erreurs configurée s'applique à l'ensemble des étapes et
+     * la validation s'arrête dès que le listener le demande.
+     */
+    @Override
+    public ValidationResult validate(InputStream inputStream, ValidationListener listener) {
         try {
+            if (options.isStreaming()) {
+                return validateStream(inputStream, listener);
+            }
+            long readStart = System.nanoTime();
             byte[] data = inputStream.readAllBytes();
-            return validateBuffered(data);
+            long readNanos = System.nanoTime() - readStart;
+            return withTiming(validateBuffered(data, listener), PhaseTiming.Phase.READ, readNanos);
         } catch (IOException e) {
-            ValidationError error = ValidationError.builder()
+            listener.onError(ValidationIssue.of(ValidationError.builder()
                     .message("Échec de la lecture du flux d'entrée : " + e.getMessage())
                     .severity(ValidationError.ErrorSeverity.FATAL)
-                    .build();
-            List<ValidationError> errors = new ArrayList<>();
-            errors.add(error);
+                    .build()));
             return ValidationResult.builder()
                     .valid(false)
-                    .errors(errors)
                     .build();
         }
     }
 
     @Override
     public ValidationResult validate(String xmlContent) {
+        long encodeStart = System.nanoTime();
         byte[] data = xmlContent.getBytes(StandardCharsets.UTF_8);
-        return validateBuffered(data);
+        long encodeNanos = System.nanoTime() - encodeStart;
+        return collect(listener -> withTiming(validateBuffered(data, listener), PhaseTiming.Phase.READ,
+                encodeNanos));
+    }
+
+    /**
+     * Valide une facture du modèle sans la sérialiser en XML.
+     *
+     * @param invoice facture à valider
+     * @return résultat agrégé des validateurs
+     */
+    public ValidationResult validate(Invoice invoice) {
+        return validateModel(invoice, MessageType.INVOICE);
+    }
+
+    /**
+     * Valide une commande du modèle sans la sérialiser en XML.
+     *
+     * @param order commande à valider
+     * @return résultat agrégé des validateurs
+     */
+    public ValidationResult validate(Order order) {
+        return validateModel(order, MessageType.ORDER);
+    }
+
+    /**
+     * Valide un avis d'expédition du modèle sans le sérialiser en XML.
+     *
+     * @param despatchAdvice avis d'expédition à valider
+     * @return résultat agrégé des validateurs
+     */
+    public ValidationResult validate(DespatchAdvice despatchAdvice) {
+        return validateModel(despatchAdvice, MessageType.DESPATCH_ADVICE);
+    }
+
+    /**
+     * Valide une réponse à commande du modèle sans la sérialiser en XML.
+     *
+     * @param orderResponse réponse à commande à valider
+     * @return résultat agrégé des validateurs
+     */
+    public ValidationResult validate(OrderResponse orderResponse) {
+        return validateModel(orderResponse, MessageType.ORDER_RESPONSE);
     }
-    
+
     @Override
     public void setSchemaVersion(SchemaVersion version) {
         this.schemaVersion = version;
+        if (calculation != null) {
+            calculation.setSchemaVersion(version);
+        }
         validators.forEach(v -> v.setSchemaVersion(version));
     }
 
-    private ValidationResult validateBuffered(byte[] data) {
+    /**
+     * Construit le résultat habituel, listes d'erreurs et d'avertissements comprises, au-dessus d'une validation
+     * par listener ; les erreurs et avertissements que la validation renvoie dans son résultat sont conservés à la
+     * suite de ceux reçus par le listener.
+     */
+    private static ValidationResult collect(Function<ValidationListener, ValidationResult> validation) {
+        ValidationCollector collector = new ValidationCollector();
+        ValidationResult result = validation.apply(collector);
+        if (result.getErrors() != null) {
+            collector.getErrors().addAll(result.getErrors());
+        }
+        if (result.getWarnings() != null) {
+            collector.getWarnings().addAll(result.getWarnings());
+        }
+        return collector.complete(result);
+    }
+
+    /**
+     * Version configurée.
+     */
+    SchemaVersion schemaVersion() {
+        return schemaVersion;
+    }
+
+    private ValidationResult validateBuffered(byte[] data, ValidationListener listener) {
+        return validateWith((validator, stageListener) -> validator.validate(new ByteArrayInputStream(data),
+                stageListener), () -> new ByteArrayInputStream(data), data.length, listener);
+    }
+
+    /**
+     * Valide le flux en un seul passage ; si un validateur ne peut pas partager cette analyse, le flux est
+     * chargé en mémoire comme d'habitude.
+     */
+    private ValidationResult validateStream(InputStream inputStream, ValidationListener listener)
+            throws IOException {
         long start = System.currentTimeMillis();
+        long detectionStart = System.nanoTime();
+        StreamingValidation streaming = new StreamingValidation(inputStream, options.getSchematronMaxBytes(),
+                options.getSchematronSizePolicy());
+        long detectionNanos = System.nanoTime() - detectionStart;
+        List<CIIValidator> snapshot = streaming.type() != null
+                ? withoutInapplicableRules(registered(), streaming.type(), streaming.context())
+                : registered();
+        if (!StreamingValidation.supports(snapshot)) {
+            long readStart = System.nanoTime();
+            byte[] data = streaming.readAll();
+            long readNanos = System.nanoTime() - readStart;
+            return withTiming(withTiming(validateBuffered(data, listener), PhaseTiming.Phase.READ, readNanos),
+                    PhaseTiming.Phase.DETECTION, detectionNanos);
+        }
+        return withTiming(validateWith(snapshot, Validation.returning(streaming.bind(snapshot)), true, start,
+                listener), PhaseTiming.Phase.DETECTION, detectionNanos);
+    }
+
+    private ValidationResult validateWith(Validation validation, SingleParseValidation.Input input, long size,
+                                          ValidationListener listener) {
+        long start = System.currentTimeMillis();
+        long detectionStart = System.nanoTime();
+        List<CIIValidator> snapshot = withoutInapplicableRules(registered(), input);
+        long detectionNanos = System.nanoTime() - detectionStart;
+        Validation effective = options.isSingleParse()
+                ? Validation.returning(SingleParseValidation.of(snapshot, validation.collecting(), input))
+                : validation;
+        return withTiming(validateWith(snapshot, withSchematronSizeLimit(effective, size), options.isSingleParse(),
+                start, listener), PhaseTiming.Phase.DETECTION, detectionNanos);
+    }
+
+    /**
+     * Applique la {@link SchematronSizePolicy} aux validateurs Schematron lorsque le document dépasse
+     * {@link CompositeValidatorOptions#getSchematronMaxBytes()}.
+     */
+    private Validation withSchematronSizeLimit(Validation validation, long size) {
+        long limit = options.getSchematronMaxBytes();
+        if (limit <= 0 || size <= limit) {
+            return validation;
+        }
+        return (validator, listener) -> {
+            if (!(validator instanceof SchematronValidator)) {
+                return validation.apply(validator, listener);
+            }
+            if (options.getSchematronSizePolicy() == SchematronSizePolicy.SKIP) {
+                return skipped(validator, "document de plus de " + limit + " octets");
+            }
+            return warnOversized(validation.apply(validator, listener), size, limit);
+        };
+    }
+
+    private ValidationResult validateModel(Object message, MessageType type) {
+        long start = System.currentTimeMillis();
+        List<CIIValidator> snapshot = withoutInapplicableRules(registered(), type, null);
+        return collect(listener -> validateWith(snapshot,
+                Validation.returning(new ModelValidation(snapshot, message, type)), true, start, listener));
+    }
+
+    private List<CIIValidator> registered() {
+        List<CIIValidator> registered = new ArrayList<>();
+        if (calculation != null) {
+            registered.add(calculation);
+        }
+        registered.addAll(validators);
+        return registered;
+    }
+
+    /**
+     * Indique si les flux sont validés en un seul passage, sans être chargés en mémoire.
+     */
+    boolean isStreaming() {
+        return options.isStreaming();
+    }
+
+    /**
+     * Décrit les validateurs actifs et les options qui influent sur le résultat, pour identifier les résultats
+     * réutilisables ({@link MemoizingValidator}).
+     */
+    String configuration() {
+        StringBuilder configuration = new StringBuilder();
+        configuration.append(options.getPolicy())
+                .append(';').append(options.getMaxErrors())
+                .append(';').append(options.getSchematronProfile())
+                .append(';').append(options.isCalculationPreCheck())
+                .append(';').append(options.getSchematronMaxBytes())
+                .append(';').append(options.getSchematronSizePolicy())
+                .append(';').append(options.isDetectDocumentContext());
+        for (CIIValidator validator : validators) {
+            configuration.append(';').append(MemoizingValidator.describe(validator));
+        }
+        return configuration.toString();
+    }
+
+    private ValidationResult validateWith(List<CIIValidator> snapshot, Validation effective, boolean sharedTree,
+                                          long start, ValidationListener listener) {
+        ValidationPolicy policy = options.getPolicy();
+        ErrorBudget budget = new ErrorBudget(listener, options.getMaxErrors());
+        boolean calculationChecked = false;
+
+        List<ValidationResult> results = new ArrayList<>();
+        List<ValidationWarning> skipped = new ArrayList<>();
+        boolean xsdFailed = false;
+        boolean stopped = false;
+        for (List<CIIValidator> stage : stages(snapshot, sharedTree)) {
+            List<CIIValidator> selected = new ArrayList<>();
+            for (CIIValidator validator : stage) {
+                if (stopped) {
+                    skipped.add(skippedWarning(validator, "validation arrêtée"));
+                } else if (xsdFailed && policy == ValidationPolicy.SKIP_SCHEMATRON_ON_XSD_ERROR
+                        && validator instanceof SchematronValidator) {
+                    skipped.add(skippedWarning(validator, "XSD invalide"));
+                } else {
+                    selected.add(validator);
+                }
+            }
+
+            List<StageListener> listeners = new ArrayList<>(selected.size());
+            for (CIIValidator validator : selected) {
+                listeners.add(new StageListener(budget,
+                        calculationChecked && validator instanceof SchematronValidator));
+            }
+            List<ValidationResult> stageResults = run(selected, effective, listeners);
+            boolean stageFailed = false;
+            for (int i = 0; i < stageResults.size(); i++) {
+                ValidationResult result = listeners.get(i).deliver(stageResults.get(i));
+                calculationChecked |= selected.get(i) instanceof CalculationRulesValidator;
+                results.add(result);
+                if (!result.isValid()) {
+                    stageFailed = true;
+                    xsdFailed |= selected.get(i) instanceof XSDValidator;
+                }
+            }
+            stopped |= (policy == ValidationPolicy.FAIL_FAST && stageFailed) || budget.exhausted();
+        }
+
+        ValidationResult combined = merge(results);
+        skipped.forEach(warning -> listener.onWarning(ValidationIssue.of(warning)));
+        combined.setValidationTimeMs(System.currentTimeMillis() - start);
+        return combined;
+    }
+
+    /**
+     * Retire les validateurs Schematron et de calcul qui n'ont pas de règles pour le type du document : leur
+     * étape n'est pas exécutée. Pour un validateur Schematron qui détecte le contexte, les règles sont cherchées
+     * avec la version et le profil déduits de l'identifiant de spécification. Si le type ne peut pas être
+     * déterminé, les validateurs sont conservés et signalent l'erreur.
+     */
+    private static List<CIIValidator> withoutInapplicableRules(List<CIIValidator> snapshot,
+                                                               SingleParseValidation.Input input) {
+        if (snapshot.stream().noneMatch(validator -> validator instanceof SchematronValidator
+                || validator instanceof CalculationRulesValidator)) {
+            return snapshot;
+        }
+        MessagePeek.Result peek;
+        try (InputStream inputStream = new BufferedInputStream(input.open())) {
+            peek = MessagePeek.peek(inputStream);
+        } catch (IOException | SAXException e) {
+            return snapshot;
+        }
+        return withoutInapplicableRules(snapshot, peek.type(), peek.context());
+    }
 
+    /**
+     * Variante pour un document dont le contexte est inconnu avant la validation ({@code context} {@code null}) :
+     * les validateurs Schematron qui détectent le contexte sont alors conservés.
+     */
+    private static List<CIIValidator> withoutInapplicableRules(List<CIIValidator> snapshot, MessageType type,
+                                                               DocumentContext context) {
+        return snapshot.stream()
+                .filter(validator -> !(validator instanceof SchematronValidator schematron)
+                        || (context == null && schematron.detectsDocumentContext())
+                        || schematron.appliesTo(type, context == null ? DocumentContext.NONE : context))
+                .filter(validator -> !(validator instanceof CalculationRulesValidator rules)
+                        || rules.appliesTo(type))
+                .toList();
+    }
+
+    /**
+     * Découpe les validateurs en étapes. Le contrôle des règles de calcul forme toujours la première. En
+     * séquentiel, chaque validateur forme ensuite une étape ; en parallèle, tous les validateurs forment une seule
+     * étape, sauf si une politique dépend du résultat XSD, d'une limite d'erreurs ou d'un arbre partagé (analyse
+     * unique, objet du modèle) : les validateurs XSD s'exécutent alors d'abord, puis les autres simultanément.
+     */
+    private List<List<CIIValidator>> stages(List<CIIValidator> snapshot, boolean sharedTree) {
+        List<List<CIIValidator>> stages = new ArrayList<>();
+        if (!snapshot.isEmpty() && snapshot.get(0) instanceof CalculationRulesValidator) {
+            stages.add(List.of(snapshot.get(0)));
+            snapshot = snapshot.subList(1, snapshot.size());
+        }
+        if (!options.isParallel()) {
+            snapshot.forEach(validator -> stages.add(List.of(validator)));
+        } else if (options.getPolicy() == ValidationPolicy.FULL && options.getMaxErrors() == 0 && !sharedTree) {
+            stages.add(snapshot);
+        } else {
+            List<CIIValidator> xsd = snapshot.stream().filter(XSDValidator.class::isInstance).toList();
+            List<CIIValidator> others = snapshot.stream().filter(v -> !(v instanceof XSDValidator)).toList();
+            if (!xsd.isEmpty()) {
+                stages.add(xsd);
+            }
+            if (!others.isEmpty()) {
+                stages.add(others);
+            }
+        }
+        return stages;
+    }
+
+    /**
+     * Exécute une étape. Un validateur seul et sans délai remet ses erreurs à son listener pendant l'analyse ;
+     * sinon chaque validateur les collecte dans son résultat, remis ensuite dans l'ordre d'enregistrement.
+     */
+    private List<ValidationResult> run(List<CIIValidator> stage, Validation validation,
+                                       List<StageListener> listeners) {
+        List<ValidationResult> results = new ArrayList<>(stage.size());
+        if (stage.size() > 1) {
+            List<Future<ValidationResult>> futures = new ArrayList<>(stage.size());
+            for (CIIValidator validator : stage) {
+                futures.add(submit(validator, validation.collecting()));
+            }
+            for (int i = 0; i < stage.size(); i++) {
+                results.add(await(stage.get(i), futures.get(i)));
+            }
+        } else {
+            for (int i = 0; i < stage.size(); i++) {
+                CIIValidator validator = stage.get(i);
+                results.add(options.getValidatorTimeout() == null
+                        ? validation.apply(validator, listeners.get(i))
+                        : await(validator, submit(validator, validation.collecting())));
+            }
+        }
+        return results;
+    }
+
+    private Future<ValidationResult> submit(CIIValidator validator,
+                                                       Function<CIIValidator, ValidationResult> validation) {
+        Executor executor = options.getExecutor() != null ? options.getExecutor() : VIRTUAL_THREADS;
+        FutureTask<ValidationResult> task = new FutureTask<>(() -> validation.apply(validator));
+        executor.execute(task);
+        return task;
+    }
+
+    private ValidationResult await(CIIValidator validator, Future<ValidationResult> future) {
+        Duration timeout = options.getValidatorTimeout();
+        try {
+            return timeout != null ? future.get(timeout.toMillis(), TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return failure(validator, "Délai de validation dépassé (" + timeout.toMillis() + " ms)");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return failure(validator, "Validation interrompue");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return failure(validator, "Échec du validateur : " + cause.getMessage());
+        }
+    }
+
+    private static ValidationResult failure(CIIValidator validator, String message) {
+        List<ValidationError> errors = new ArrayList<>();
+        errors.add(ValidationError.builder()
+                .message(message + " - " + validator.getClass().getSimpleName())
+                .severity(ValidationError.ErrorSeverity.FATAL)
+                .build());
+        return ValidationResult.builder()
+                .valid(false)
+                .errors(errors)
+                .build();
+    }
+
+    private static ValidationWarning skippedWarning(CIIValidator validator, String reason) {
+        return ValidationWarning.builder()
+                .message("Validation " + validator.getClass().getSimpleName() + " ignorée : " + reason)
+                .build();
+    }
+
+    /**
+     * Résultat d'un validateur non exécuté : valide, avec un avertissement indiquant la raison.
+     */
+    static ValidationResult skipped(CIIValidator validator, String reason) {
+        List<ValidationWarning> warnings = new ArrayList<>();
+        warnings.add(skippedWarning(validator, reason));
+        return ValidationResult.builder()
+                .valid(true)
+                .warnings(warnings)
+                .build();
+    }
+
+    /**
+     * Signale qu'un Schematron a été exécuté sur un document plus volumineux que la limite configurée.
+     */
+    static ValidationResult warnOversized(ValidationResult result, long size, long limit) {
+        result.addWarning(ValidationWarning.builder()
+                .message("Schematron exécuté sur un document de " + size + " octets (limite " + limit
+                        + " octets) : l'arbre complet du document est chargé en mémoire")
+                .build());
+        return result;
+    }
+
+    /**
+     * Ajoute en tête des durées par phase celle d'une phase exécutée par le composite lui-même.
+     */
+    private ValidationResult withTiming(ValidationResult result, PhaseTiming.Phase phase, long nanos) {
+        result.getTimings().add(0, PhaseTiming.builder()
+                .validator(getClass().getSimpleName())
+                .phase(phase)
+                .nanos(nanos)
+                .build());
+        return result;
+    }
+
+    private static ValidationResult merge(List<ValidationResult> results) {
         ValidationResult.ValidationResultBuilder combinedResult = ValidationResult.builder();
         combinedResult.valid(true);
 
         List<ValidationError> allErrors = new ArrayList<>();
         List<ValidationWarning> allWarnings = new ArrayList<>();
+        List<PhaseTiming> allTimings = new ArrayList<>();
         StringBuilder validatedAgainst = new StringBuilder();
 
-        for (CIIValidator validator : validators) {
-            ValidationResult result = validator.validate(new ByteArrayInputStream(data));
-
+        for (ValidationResult result : results) {
             if (!result.isValid()) {
                 combinedResult.valid(false);
             }
@@ -124,6 +581,9 @@ public class CompositeValidator implements CIIValidator {
             if (result.getWarnings() != null) {
                 allWarnings.addAll(result.getWarnings());
             }
+            if (result.getTimings() != null) {
+                allTimings.addAll(result.getTimings());
+            }
 
             String against = result.getValidatedAgainst();
             if (against != null && !against.isBlank()) {
@@ -136,9 +596,119 @@ public class CompositeValidator implements CIIValidator {
 
         combinedResult.errors(allErrors);
         combinedResult.warnings(allWarnings);
+        combinedResult.timings(allTimings);
         combinedResult.validatedAgainst(validatedAgainst.length() == 0 ? null : validatedAgainst.toString());
-        combinedResult.validationTimeMs(System.currentTimeMillis() - start);
-
         return combinedResult.build();
     }
+
+    /**
+     * Validation d'un document par un validateur, qui remet ses erreurs et avertissements au listener fourni ou
+     * les renvoie dans son résultat.
+     */
+    @FunctionalInterface
+    private interface Validation {
+        ValidationResult apply(CIIValidator validator, ValidationListener listener);
+
+        /**
+         * Même validation, erreurs et avertissements collectés dans le résultat.
+         */
+        default Function<CIIValidator, ValidationResult> collecting() {
+            return validator -> collect(listener -> apply(validator, listener));
+        }
+
+        /**
+         * Adapte une validation qui renvoie ses erreurs et avertissements dans son résultat.
+         */
+        static Validation returning(Function<CIIValidator, ValidationResult> validation) {
+            return (validator, listener) -> validation.apply(validator);
+        }
+    }
+
+    /**
+     * Limite d'erreurs partagée par les étapes d'une validation ; elle est épuisée lorsque la limite est atteinte
+     * ou que le listener demande l'arrêt, et les erreurs suivantes sont écartées.
+     */
+    private static final class ErrorBudget {
+        private final ValidationListener listener;
+        private final int maxErrors;
+        private int accepted;
+        private boolean exhausted;
+
+        ErrorBudget(ValidationListener listener, int maxErrors) {
+            this.listener = listener;
+            this.maxErrors = maxErrors;
+        }
+
+        synchronized boolean onError(ValidationIssue issue) {
+            if (exhausted) {
+                return false;
+            }
+            accepted++;
+            exhausted = !listener.onError(issue) || (maxErrors > 0 && accepted >= maxErrors);
+            return !exhausted;
+        }
+
+        synchronized void onWarning(ValidationIssue issue) {
+            listener.onWarning(issue);
+        }
+
+        synchronized boolean exhausted() {
+            return exhausted;
+        }
+    }
+
+    /**
+     * Listener d'un validateur au sein d'une étape : écarte, pour un Schematron précédé du contrôle des calculs,
+     * les erreurs des règles déjà contrôlées par {@link CalculationRulesValidator}, puis transmet à la limite
+     * partagée.
+     */
+    private static final class StageListener implements ValidationListener {
+        private final ErrorBudget budget;
+        private final boolean withoutCalculationRules;
+        private int errors;
+        private boolean filtered;
+
+        StageListener(ErrorBudget budget, boolean withoutCalculationRules) {
+            this.budget = budget;
+            this.withoutCalculationRules = withoutCalculationRules;
+        }
+
+        @Override
+        public boolean onError(ValidationIssue issue) {
+            if (withoutCalculationRules && CalculationRulesValidator.covers(issue.getRule())) {
+                filtered = true;
+                return true;
+            }
+            errors++;
+            return budget.onError(issue);
+        }
+
+        @Override
+        public void onWarning(ValidationIssue issue) {
+            budget.onWarning(issue);
+        }
+
+        /**
+         * Transmet les erreurs et avertissements restés dans le résultat du validateur et renvoie son résumé ; un
+         * Schematron dont toutes les erreurs ont été écartées est valide.
+         */
+        ValidationResult deliver(ValidationResult result) {
+            if (result.getWarnings() != null) {
+                result.getWarnings().forEach(warning -> onWarning(ValidationIssue.of(warning)));
+            }
+            if (result.getErrors() != null) {
+                for (ValidationError error : result.getErrors()) {
+                    if (!onError(ValidationIssue.of(error))) {
+                        break;
+                    }
+                }
+            }
+            return ValidationResult.builder()
+                    .valid(result.isValid() || (filtered && errors == 0))
+                    .validatedAgainst(result.getValidatedAgainst())
+                    .validationTimeMs(result.getValidationTimeMs())
+                    .timings(result.getTimings())
+                    .build();
+        }
+    }
 }
@@ -0,0 +1,92 @@
+package com.cii.messaging.validator.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Options d'exécution de {@link CompositeValidator}.
+ */
+@Getter
+@Builder
+public class CompositeValidatorOptions {
+
+    /**
+     * Exécute tous les validateurs simultanément plutôt que l'un après l'autre.
+     */
+    private final boolean parallel;
+
+    /**
+     * Exécuteur des validateurs ; {@code null} pour un thread virtuel par validateur.
+     */
+    private final Executor executor;
+
+    /**
+     * Durée maximale accordée à chaque validateur ; {@code null} pour ne pas limiter.
+     */
+    private final Duration validatorTimeout;
+
+    /**
+     * Politique d'enchaînement des étapes.
+     */
+    @Builder.Default
+    private final ValidationPolicy policy = ValidationPolicy.FULL;
+
+    /**
+     * Nombre d'erreurs au-delà duquel la validation s'arrête ; {@code 0} pour ne pas limiter.
+     */
+    private final int maxErrors;
+
+    /**
+     * Profil Schematron appliqué aux {@link SchematronValidator} (voir {@link SchematronRuleSets}).
+     */
+    @Builder.Default
+    private final String schematronProfile = SchematronRuleSets.DEFAULT_PROFILE;
+
+    /**
+     * Statistiques alimentées par les {@link SchematronValidator} ; {@code null} pour ne pas profiler les règles.
+     */
+    private final SchematronProfiler schematronProfiler;
+
+    /**
+     * Analyse le document une seule fois pour les validations XSD et Schematron.
+     */
+    private final boolean singleParse;
+
+    /**
+     * Contrôle les règles de calcul EN 16931 des factures en Java ({@link CalculationRulesValidator}) avant les
+     * autres validateurs ; le Schematron ne reporte plus ces règles.
+     */
+    private final boolean calculationPreCheck;
+
+    /**
+     * Valide les flux ({@link CompositeValidator#validate(java.io.InputStream)}) en un seul passage, sans les
+     * charger en mémoire (voir {@link StreamingValidation}).
+     */
+    private final boolean streaming;
+
+    /**
+     * Taille en octets au-delà de laquelle le Schematron, qui charge l'arbre complet du document, est traité selon
+     * {@link #getSchematronSizePolicy()} ; {@code 0} pour ne pas limiter.
+     */
+    private final long schematronMaxBytes;
+
+    /**
+     * Traitement du Schematron sur un document plus volumineux que {@link #getSchematronMaxBytes()}.
+     */
+    @Builder.Default
+    private final SchematronSizePolicy schematronSizePolicy = SchematronSizePolicy.SKIP;
+
+    /**
+     * Déduit la version UNECE et le profil Schematron de chaque document de son identifiant de spécification
+     * ({@link GuidelineContexts}) ; la version configurée ne s'applique qu'à défaut, un profil autre que
+     * {@link SchematronRuleSets#DEFAULT_PROFILE} l'emporte sur le profil déduit.
+     */
+    private final boolean detectDocumentContext;
+
+    public static CompositeValidatorOptions defaults() {
+        return builder().build();
+    }
+}
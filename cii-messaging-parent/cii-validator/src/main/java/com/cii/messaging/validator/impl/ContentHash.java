@@ -0,0 +1,125 @@
+package com.cii.messaging.validator.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.HexFormat;
+
+/**
+ * Empreinte non cryptographique de 128 bits (MurmurHash3 x64, graine nulle) d'un contenu binaire.
+ * <p>
+ * Rapide et bien répartie, elle identifie les documents déjà validés ; elle ne protège pas contre des collisions
+ * construites délibérément. La forme hexadécimale suit l'ordre des octets de l'implémentation de référence.
+ * </p>
+ * <p>
+ * {@link Hasher} calcule la même empreinte sur un contenu lu par morceaux, sans le conserver en mémoire.
+ * </p>
+ */
+record ContentHash(long high, long low) {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    static ContentHash of(byte[] data) {
+        return new Hasher().update(data, 0, data.length).finish();
+    }
+
+    /**
+     * Forme hexadécimale sur 32 caractères.
+     */
+    String toHex() {
+        HexFormat hex = HexFormat.of();
+        return hex.toHexDigits(Long.reverseBytes(high)) + hex.toHexDigits(Long.reverseBytes(low));
+    }
+
+    /**
+     * Calcul incrémental d'une empreinte : les blocs de 16 octets sont mélangés au fil des appels à
+     * {@link #update}, seul un bloc incomplet est conservé entre deux appels.
+     */
+    static final class Hasher {
+        private final byte[] pending = new byte[16];
+        private int pendingLength;
+        private long length;
+        private long h1;
+        private long h2;
+
+        Hasher update(byte[] data, int offset, int count) {
+            length += count;
+            int position = offset;
+            int end = offset + count;
+            if (pendingLength > 0) {
+                int copied = Math.min(16 - pendingLength, count);
+                System.arraycopy(data, offset, pending, pendingLength, copied);
+                pendingLength += copied;
+                position += copied;
+                if (pendingLength < 16) {
+                    return this;
+                }
+                block(pending, 0);
+                pendingLength = 0;
+            }
+            for (; end - position >= 16; position += 16) {
+                block(data, position);
+            }
+            pendingLength = end - position;
+            System.arraycopy(data, position, pending, 0, pendingLength);
+            return this;
+        }
+
+        ContentHash finish() {
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = pendingLength - 1; i >= 8; i--) {
+                k2 ^= (pending[i] & 0xffL) << ((i - 8) * 8);
+            }
+            for (int i = Math.min(pendingLength, 8) - 1; i >= 0; i--) {
+                k1 ^= (pending[i] & 0xffL) << (i * 8);
+            }
+            if (pendingLength > 8) {
+                h2 ^= mixK2(k2);
+            }
+            if (pendingLength > 0) {
+                h1 ^= mixK1(k1);
+            }
+
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+            return new ContentHash(h1, h2);
+        }
+
+        private void block(byte[] data, int offset) {
+            long k1 = (long) LONGS.get(data, offset);
+            long k2 = (long) LONGS.get(data, offset + 8);
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
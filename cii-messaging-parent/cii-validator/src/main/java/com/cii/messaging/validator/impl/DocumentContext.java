@@ -0,0 +1,33 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.SchemaVersion;
+
+/**
+ * Version UNECE et profil Schematron déduits de l'identifiant de spécification d'un document
+ * ({@code ExchangedDocumentContext/GuidelineSpecifiedDocumentContextParameter/ID}), voir {@link GuidelineContexts}.
+ * <p>
+ * Une composante {@code null} n'a pas pu être déduite : la configuration du validateur s'applique.
+ * </p>
+ *
+ * @param version version UNECE du document, {@code null} si inconnue
+ * @param profile profil des règles Schematron, {@code null} si inconnu
+ */
+public record DocumentContext(SchemaVersion version, String profile) {
+
+    /** Contexte vide : la configuration du validateur s'applique. */
+    public static final DocumentContext NONE = new DocumentContext(null, null);
+
+    /**
+     * Version du document, ou {@code configured} si elle n'a pas été déduite.
+     */
+    public SchemaVersion versionOr(SchemaVersion configured) {
+        return version != null ? version : configured;
+    }
+
+    /**
+     * Profil du document, ou {@code configured} s'il n'a pas été déduit.
+     */
+    public String profileOr(String configured) {
+        return profile != null ? profile : configured;
+    }
+}
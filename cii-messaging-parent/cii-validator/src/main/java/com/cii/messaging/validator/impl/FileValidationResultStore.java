@@ -0,0 +1,173 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.ValidationError;
+import com.cii.messaging.validator.ValidationResult;
+import com.cii.messaging.validator.ValidationWarning;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@link ValidationResultStore} qui conserve chaque résultat dans un fichier binaire compact d'un répertoire.
+ * <p>
+ * Les fichiers sont écrits dans un fichier temporaire puis renommés, de sorte qu'un lecteur concurrent ne voit
+ * jamais un résultat partiel. Plusieurs processus peuvent partager le même répertoire.
+ * </p>
+ */
+public final class FileValidationResultStore implements ValidationResultStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileValidationResultStore.class);
+    private static final int FORMAT = 1;
+    private static final String EXTENSION = ".result";
+
+    private final Path directory;
+
+    /**
+     * @param directory répertoire des résultats, créé si besoin
+     */
+    public FileValidationResultStore(Path directory) {
+        this.directory = Objects.requireNonNull(directory, "directory");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de créer le répertoire du cache de validation : " + directory, e);
+        }
+    }
+
+    @Override
+    public ValidationResult load(String key) {
+        Path file = directory.resolve(key + EXTENSION);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != FORMAT) {
+                return null;
+            }
+            return read(input);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Résultat de validation illisible, ignoré : {}", file, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void save(String key, ValidationResult result) {
+        Path file = directory.resolve(key + EXTENSION);
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                output.writeInt(FORMAT);
+                write(output, result);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Impossible d'enregistrer le résultat de validation : {}", file, e);
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // le fichier temporaire sera écrasé ou supprimé ultérieurement
+                }
+            }
+        }
+    }
+
+    private static void write(DataOutputStream output, ValidationResult result) throws IOException {
+        output.writeBoolean(result.isValid());
+        writeString(output, result.getValidatedAgainst());
+        output.writeLong(result.getValidationTimeMs());
+        output.writeInt(result.getErrors().size());
+        for (ValidationError error : result.getErrors()) {
+            writeString(output, error.getMessage());
+            writeString(output, error.getLocation());
+            output.writeInt(error.getLineNumber());
+            output.writeInt(error.getColumnNumber());
+            writeString(output, error.getSeverity() != null ? error.getSeverity().name() : null);
+            writeString(output, error.getRule());
+        }
+        output.writeInt(result.getWarnings().size());
+        for (ValidationWarning warning : result.getWarnings()) {
+            writeString(output, warning.getMessage());
+            writeString(output, warning.getLocation());
+            writeString(output, warning.getRule());
+        }
+    }
+
+    private static ValidationResult read(DataInputStream input) throws IOException {
+        boolean valid = input.readBoolean();
+        String validatedAgainst = readString(input);
+        long time = input.readLong();
+        int errorCount = input.readInt();
+        List<ValidationError> errors = new ArrayList<>();
+        for (int i = 0; i < errorCount; i++) {
+            String message = readString(input);
+            String location = readString(input);
+            int line = input.readInt();
+            int column = input.readInt();
+            String severity = readString(input);
+            errors.add(ValidationError.builder()
+                    .message(message)
+                    .location(location)
+                    .lineNumber(line)
+                    .columnNumber(column)
+                    .severity(severity != null ? ValidationError.ErrorSeverity.valueOf(severity) : null)
+                    .rule(readString(input))
+                    .build());
+        }
+        int warningCount = input.readInt();
+        List<ValidationWarning> warnings = new ArrayList<>();
+        for (int i = 0; i < warningCount; i++) {
+            warnings.add(ValidationWarning.builder()
+                    .message(readString(input))
+                    .location(readString(input))
+                    .rule(readString(input))
+                    .build());
+        }
+        return ValidationResult.builder()
+                .valid(valid)
+                .validatedAgainst(validatedAgainst)
+                .validationTimeMs(time)
+                .errors(errors)
+                .warnings(warnings)
+                .build();
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = input.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Résultat de validation tronqué");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.SchemaVersion;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Registre des contextes de document, indexés par préfixe d'identifiant de spécification
+ * ({@code GuidelineSpecifiedDocumentContextParameter/ID}).
+ * <p>
+ * Le préfixe enregistré le plus long l'emporte. Aucun profil n'est enregistré par défaut : les sous-ensembles
+ * {@value SchematronRuleSets#EN16931_SUBSET_PROFILE} et {@value SchematronRuleSets#XRECHNUNG_SUBSET_PROFILE} ne
+ * remplacent pas les artefacts officiels, et une facture XRechnung ({@value #XRECHNUNG_GUIDELINE}) n'y est pas
+ * orientée d'office. Une fois les artefacts CEN/TC 434 ou KoSIT enregistrés comme profil
+ * ({@link SchematronRuleSets#register}), {@code register(XRECHNUNG_GUIDELINE, null, profil)} les associe aux
+ * documents concernés. Un profil déduit ne remplace que le profil par défaut du validateur, jamais un profil choisi
+ * explicitement. Lorsqu'aucun préfixe ne fixe la version, un jeton de version
+ * ({@code D23B}, {@code D24A}...) présent dans l'identifiant est retenu. Les accords partenaires peuvent être
+ * enregistrés au démarrage via {@link #register}.
+ * </p>
+ */
+public final class GuidelineContexts {
+
+    /** Identifiant de spécification de la norme EN 16931. */
+    public static final String EN16931_GUIDELINE = "urn:cen.eu:en16931:2017";
+
+    /** Préfixe des identifiants de spécification de la CIUS XRechnung. */
+    public static final String XRECHNUNG_GUIDELINE = "urn:cen.eu:en16931:2017#compliant#urn:xeinkauf.de:kosit:xrechnung";
+
+    private static final Pattern VERSION_TOKEN = Pattern.compile("(?<![A-Za-z0-9])D\\d{2}[AB](?![A-Za-z0-9])",
+            Pattern.CASE_INSENSITIVE);
+    private static final Map<String, DocumentContext> CONTEXTS = new ConcurrentHashMap<>();
+
+    private GuidelineContexts() {
+        // utilitaire
+    }
+
+    /**
+     * Enregistre (ou remplace) le contexte des documents dont l'identifiant de spécification commence par
+     * {@code prefix}.
+     *
+     * @param prefix  préfixe de l'identifiant de spécification
+     * @param version version UNECE, {@code null} pour la déduire de l'identifiant ou de la configuration
+     * @param profile profil Schematron, {@code null} pour celui de la configuration
+     */
+    public static void register(String prefix, SchemaVersion version, String profile) {
+        CONTEXTS.put(Objects.requireNonNull(prefix, "prefix"), new DocumentContext(version, profile));
+    }
+
+    /**
+     * Déduit le contexte d'un identifiant de spécification.
+     *
+     * @param guidelineId identifiant lu dans le document, {@code null} s'il est absent
+     * @return contexte du document, {@link DocumentContext#NONE} si rien n'a pu être déduit
+     */
+    public static DocumentContext resolve(String guidelineId) {
+        if (guidelineId == null || guidelineId.isBlank()) {
+            return DocumentContext.NONE;
+        }
+        DocumentContext registered = DocumentContext.NONE;
+        int longest = -1;
+        for (Map.Entry<String, DocumentContext> entry : CONTEXTS.entrySet()) {
+            String prefix = entry.getKey();
+            if (guidelineId.startsWith(prefix) && prefix.length() > longest) {
+                registered = entry.getValue();
+                longest = prefix.length();
+            }
+        }
+        if (registered.version() != null) {
+            return registered;
+        }
+        return new DocumentContext(versionToken(guidelineId), registered.profile());
+    }
+
+    private static SchemaVersion versionToken(String guidelineId) {
+        Matcher matcher = VERSION_TOKEN.matcher(guidelineId);
+        while (matcher.find()) {
+            String token = matcher.group().toUpperCase(Locale.ROOT);
+            for (SchemaVersion version : SchemaVersion.values()) {
+                if (version.getVersion().equals(token)) {
+                    return version;
+                }
+            }
+        }
+        return null;
+    }
+}
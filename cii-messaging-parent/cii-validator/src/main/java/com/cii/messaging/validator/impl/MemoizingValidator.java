@@ -0,0 +1,406 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.CIIValidator;
+import com.cii.messaging.validator.SchemaVersion;
+import com.cii.messaging.validator.ValidationError;
+import com.cii.messaging.validator.ValidationResult;
+import com.cii.messaging.validator.ValidationWarning;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Décorateur de {@link CIIValidator} qui réutilise le résultat d'un document déjà validé.
+ * <p>
+ * Un document est identifié par l'empreinte de 128 bits de ses octets ({@link ContentHash}), la version du schéma
+ * (lue sur le validateur décoré, qui n'est modifiée que par {@link #setSchemaVersion(SchemaVersion)}) et la
+ * configuration du validateur décoré (validateurs actifs et options d'un {@link CompositeValidator}). Les
+ * résultats sont conservés sous forme compacte dans un cache LRU borné, puis, si un
+ * {@link ValidationResultStore} est fourni, dans ce niveau persistant. Chaque appel retourne une copie
+ * indépendante ; sa durée est celle de la recherche, la durée de la validation d'origine étant comptée dans
+ * {@link Stats#savedTimeMs()}.
+ * </p>
+ * <p>
+ * Devant un {@link CompositeValidator} en continu ({@link CompositeValidatorOptions#isStreaming()}), le document
+ * n'est pas chargé en mémoire : un fichier est lu par morceaux pour calculer son empreinte puis transmis tel quel,
+ * un flux est recopié dans un fichier temporaire pendant ce calcul, puis relu par le validateur décoré. La mémoire
+ * reste ainsi indépendante de la taille du document.
+ * </p>
+ * <p>
+ * Les résultats contenant une erreur FATAL (lecture impossible, délai dépassé...) ne sont pas conservés : ils
+ * peuvent dépendre de conditions passagères. La configuration d'un validateur tiers n'est connue que par sa classe ;
+ * après l'avoir modifiée, appelez {@link #clear()}.
+ * </p>
+ */
+public class MemoizingValidator implements CIIValidator {
+
+    /**
+     * Nombre de résultats conservés en mémoire par défaut.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static final int SPILL_BUFFER_SIZE = 64 * 1024;
+
+    private final CIIValidator delegate;
+    private final ValidationResultStore store;
+    private final Map<Key, CachedResult> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder storeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder savedMs = new LongAdder();
+    private volatile SchemaVersion schemaVersion;
+
+    /**
+     * Statistiques du cache.
+     *
+     * @param hits        résultats trouvés en mémoire
+     * @param storeHits   résultats trouvés dans le niveau persistant
+     * @param misses      documents effectivement validés
+     * @param savedTimeMs durée cumulée des validations évitées, en millisecondes
+     * @param size        nombre de résultats en mémoire
+     */
+    public record Stats(long hits, long storeHits, long misses, long savedTimeMs, int size) {
+
+        /**
+         * Part des appels servis depuis le cache, mémoire ou persistant, entre 0 et 1.
+         */
+        public double hitRate() {
+            long total = hits + storeHits + misses;
+            return total == 0 ? 0 : (double) (hits + storeHits) / total;
+        }
+    }
+
+    public MemoizingValidator(CIIValidator delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES, null);
+    }
+
+    /**
+     * @param delegate   validateur décoré
+     * @param maxEntries nombre maximal de résultats conservés en mémoire
+     * @param store      niveau persistant, {@code null} pour un cache uniquement en mémoire
+     */
+    public MemoizingValidator(CIIValidator delegate, int maxEntries, ValidationResultStore store) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("La taille du cache doit être positive : " + maxEntries);
+        }
+        this.store = store;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        SchemaVersion known = versionOf(delegate);
+        // un validateur tiers non configuré applique, comme ceux de ce module, la version par défaut
+        this.schemaVersion = known != null ? known : SchemaVersion.getDefault();
+    }
+
+    @Override
+    public ValidationResult validate(File xmlFile) {
+        if (streams(delegate)) {
+            ContentHash hash;
+            try (InputStream inputStream = new FileInputStream(xmlFile)) {
+                hash = hash(inputStream, OutputStream.nullOutputStream());
+            } catch (IOException e) {
+                return delegate.validate(xmlFile);
+            }
+            return validate(hash, () -> delegate.validate(xmlFile));
+        }
+        byte[] data;
+        try {
+            data = Files.readAllBytes(xmlFile.toPath());
+        } catch (IOException e) {
+            // le validateur décoré produit son propre diagnostic
+            return delegate.validate(xmlFile);
+        }
+        return validate(data);
+    }
+
+    @Override
+    public ValidationResult validate(InputStream inputStream) {
+        if (streams(delegate)) {
+            return validateSpilled(inputStream);
+        }
+        byte[] data;
+        try {
+            data = inputStream.readAllBytes();
+        } catch (IOException e) {
+            return readFailure(e);
+        }
+        return validate(data);
+    }
+
+    @Override
+    public ValidationResult validate(String xmlContent) {
+        return validate(xmlContent.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void setSchemaVersion(SchemaVersion version) {
+        this.schemaVersion = version;
+        delegate.setSchemaVersion(version);
+    }
+
+    /**
+     * Statistiques depuis la création ou le dernier {@link #clear()}.
+     */
+    public Stats stats() {
+        int size;
+        synchronized (cache) {
+            size = cache.size();
+        }
+        return new Stats(hits.sum(), storeHits.sum(), misses.sum(), savedMs.sum(), size);
+    }
+
+    /**
+     * Vide le cache mémoire et remet les statistiques à zéro ; le niveau persistant n'est pas modifié.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        hits.reset();
+        storeHits.reset();
+        misses.reset();
+        savedMs.reset();
+    }
+
+    private ValidationResult validate(byte[] data) {
+        return validate(ContentHash.of(data), () -> delegate.validate(new ByteArrayInputStream(data)));
+    }
+
+    /**
+     * Recopie le flux dans un fichier temporaire en calculant son empreinte ; le fichier n'est relu qu'en
+     * l'absence de résultat mémorisé, puis supprimé.
+     */
+    private ValidationResult validateSpilled(InputStream inputStream) {
+        Path spill = null;
+        try {
+            spill = Files.createTempFile("cii-validation-", ".xml");
+            ContentHash hash;
+            try (OutputStream copy = Files.newOutputStream(spill)) {
+                hash = hash(inputStream, copy);
+            }
+            Path document = spill;
+            return validate(hash, () -> {
+                try (InputStream spilled = Files.newInputStream(document)) {
+                    return delegate.validate(spilled);
+                } catch (IOException e) {
+                    return readFailure(e);
+                }
+            });
+        } catch (IOException e) {
+            return readFailure(e);
+        } finally {
+            if (spill != null) {
+                try {
+                    Files.deleteIfExists(spill);
+                } catch (IOException e) {
+                    spill.toFile().deleteOnExit();
+                }
+            }
+        }
+    }
+
+    private static ContentHash hash(InputStream inputStream, OutputStream copy) throws IOException {
+        ContentHash.Hasher hasher = new ContentHash.Hasher();
+        byte[] buffer = new byte[SPILL_BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            hasher.update(buffer, 0, read);
+            copy.write(buffer, 0, read);
+        }
+        return hasher.finish();
+    }
+
+    private static ValidationResult readFailure(IOException e) {
+        List<ValidationError> errors = new ArrayList<>();
+        errors.add(ValidationError.builder()
+                .message("Échec de la lecture du flux d'entrée : " + e.getMessage())
+                .severity(ValidationError.ErrorSeverity.FATAL)
+                .build());
+        return ValidationResult.builder()
+                .valid(false)
+                .errors(errors)
+                .build();
+    }
+
+    private ValidationResult validate(ContentHash hash, Supplier<ValidationResult> validation) {
+        long start = System.currentTimeMillis();
+        SchemaVersion known = versionOf(delegate);
+        Key key = new Key(hash, known != null ? known : schemaVersion, describe(delegate));
+        CachedResult cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            savedMs.add(cached.validationTimeMs());
+            return cached.toResult(System.currentTimeMillis() - start);
+        }
+        if (store != null) {
+            ValidationResult stored = store.load(key.toString());
+            if (stored != null) {
+                cached = CachedResult.of(stored);
+                put(key, cached);
+                storeHits.increment();
+                savedMs.add(cached.validationTimeMs());
+                return cached.toResult(System.currentTimeMillis() - start);
+            }
+        }
+
+        misses.increment();
+        ValidationResult result = validation.get();
+        if (cacheable(result)) {
+            cached = CachedResult.of(result);
+            put(key, cached);
+            if (store != null) {
+                store.save(key.toString(), result);
+            }
+        }
+        return result;
+    }
+
+    private void put(Key key, CachedResult result) {
+        synchronized (cache) {
+            cache.put(key, result);
+        }
+    }
+
+    private static boolean cacheable(ValidationResult result) {
+        return result.getErrors().stream()
+                .noneMatch(error -> error.getSeverity() == ValidationError.ErrorSeverity.FATAL);
+    }
+
+    /**
+     * Indique si le validateur décoré valide en continu : le document ne doit alors pas être chargé en mémoire.
+     */
+    private static boolean streams(CIIValidator validator) {
+        if (validator instanceof CompositeValidator composite) {
+            return composite.isStreaming();
+        }
+        return validator instanceof MemoizingValidator memoizing && streams(memoizing.delegate);
+    }
+
+    /**
+     * Version appliquée par un validateur de ce module, {@code null} pour un validateur tiers : le décorateur ne
+     * modifie pas celle d'un validateur déjà configuré.
+     */
+    private static SchemaVersion versionOf(CIIValidator validator) {
+        if (validator instanceof CompositeValidator composite) {
+            return composite.schemaVersion();
+        }
+        if (validator instanceof XSDValidator xsd) {
+            return xsd.schemaVersion();
+        }
+        if (validator instanceof SchematronValidator schematron) {
+            return schematron.schemaVersion();
+        }
+        if (validator instanceof MemoizingValidator memoizing) {
+            SchemaVersion version = versionOf(memoizing.delegate);
+            return version != null ? version : memoizing.schemaVersion;
+        }
+        return null;
+    }
+
+    /**
+     * Description d'un validateur qui change dès que son résultat peut changer : classe, et pour un
+     * {@link CompositeValidator} ses options et validateurs, pour un {@link XSDValidator} sa limite d'erreurs et
+     * la détection du contexte, pour un {@link SchematronValidator} son profil et la détection du contexte.
+     */
+    static String describe(CIIValidator validator) {
+        if (validator instanceof CompositeValidator composite) {
+            return validator.getClass().getName() + '[' + composite.configuration() + ']';
+        }
+        if (validator instanceof XSDValidator xsd) {
+            return validator.getClass().getName() + '[' + xsd.maxErrors() + ';' + xsd.detectsDocumentContext() + ']';
+        }
+        if (validator instanceof SchematronValidator schematron) {
+            return validator.getClass().getName() + '[' + schematron.getProfile() + ';'
+                    + schematron.detectsDocumentContext() + ']';
+        }
+        if (validator instanceof MemoizingValidator memoizing) {
+            return describe(memoizing.delegate);
+        }
+        return validator.getClass().getName();
+    }
+
+    private record Key(ContentHash hash, SchemaVersion version, String validators) {
+
+        /**
+         * Clé du niveau persistant, utilisable comme nom de fichier.
+         */
+        @Override
+        public String toString() {
+            return hash.toHex() + '-' + version + '-'
+                    + ContentHash.of(validators.getBytes(StandardCharsets.UTF_8)).toHex();
+        }
+    }
+
+    /**
+     * Copie compacte et immuable d'un résultat.
+     */
+    private record CachedResult(boolean valid, ValidationError[] errors, ValidationWarning[] warnings,
+                                String validatedAgainst, long validationTimeMs) {
+
+        static CachedResult of(ValidationResult result) {
+            return new CachedResult(result.isValid(),
+                    result.getErrors().stream().map(CachedResult::copy).toArray(ValidationError[]::new),
+                    result.getWarnings().stream().map(CachedResult::copy).toArray(ValidationWarning[]::new),
+                    result.getValidatedAgainst(),
+                    result.getValidationTimeMs());
+        }
+
+        ValidationResult toResult(long elapsedMs) {
+            List<ValidationError> errorCopies = new ArrayList<>(errors.length);
+            for (ValidationError error : errors) {
+                errorCopies.add(copy(error));
+            }
+            List<ValidationWarning> warningCopies = new ArrayList<>(warnings.length);
+            for (ValidationWarning warning : warnings) {
+                warningCopies.add(copy(warning));
+            }
+            return ValidationResult.builder()
+                    .valid(valid)
+                    .errors(errorCopies)
+                    .warnings(warningCopies)
+                    .validatedAgainst(validatedAgainst)
+                    .validationTimeMs(elapsedMs)
+                    .build();
+        }
+
+        private static ValidationError copy(ValidationError error) {
+            return ValidationError.builder()
+                    .message(error.getMessage())
+                    .location(error.getLocation())
+                    .lineNumber(error.getLineNumber())
+                    .columnNumber(error.getColumnNumber())
+                    .severity(error.getSeverity())
+                    .rule(error.getRule())
+                    .build();
+        }
+
+        private static ValidationWarning copy(ValidationWarning warning) {
+            return ValidationWarning.builder()
+                    .message(warning.getMessage())
+                    .location(warning.getLocation())
+                    .rule(warning.getRule())
+                    .build();
+        }
+    }
+}
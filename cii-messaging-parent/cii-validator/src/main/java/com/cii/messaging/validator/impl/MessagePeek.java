@@ -0,0 +1,232 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.model.common.MessageType;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Détection du type de message à partir de l'élément racine, sans consommer le flux.
+ * <p>
+ * Seul le prologue est analysé, dans la limite de {@link #PEEK_LIMIT} octets : le flux est marqué puis
+ * réinitialisé afin que la validation le relise depuis le début en un seul passage. {@link #peek(InputStream)}
+ * poursuit la lecture jusqu'à l'identifiant de spécification
+ * ({@code ExchangedDocumentContext/GuidelineSpecifiedDocumentContextParameter/ID}), qui détermine le
+ * {@link DocumentContext}.
+ * </p>
+ */
+final class MessagePeek {
+
+    /** Nombre maximal d'octets lus pour trouver l'élément racine. */
+    static final int PEEK_LIMIT = 64 * 1024;
+
+    private static final String CONTEXT = "ExchangedDocumentContext";
+    private static final String GUIDELINE = "GuidelineSpecifiedDocumentContextParameter";
+
+    private MessagePeek() {
+        // utilitaire
+    }
+
+    /**
+     * Type de message et identifiant de spécification lus sur le prologue.
+     *
+     * @param type        type de message correspondant à l'élément racine
+     * @param guidelineId premier identifiant de spécification, {@code null} s'il est absent du prologue
+     */
+    record Result(MessageType type, String guidelineId) {
+
+        /**
+         * Contexte déduit de l'identifiant de spécification.
+         */
+        DocumentContext context() {
+            return GuidelineContexts.resolve(guidelineId);
+        }
+    }
+
+    /**
+     * Lit l'élément racine du flux et en déduit le type de message. Le flux est repositionné à son début.
+     *
+     * @param input flux supportant {@link InputStream#mark(int)}
+     * @return type de message correspondant à l'élément racine
+     * @throws SAXException si le prologue est invalide ou si la racine est inconnue ou introuvable
+     * @throws IOException  si la lecture échoue
+     */
+    static MessageType detectMessageType(InputStream input) throws IOException, SAXException {
+        return peek(input, false).type();
+    }
+
+    /**
+     * Lit l'élément racine et l'identifiant de spécification du flux. Le flux est repositionné à son début.
+     *
+     * @param input flux supportant {@link InputStream#mark(int)}
+     * @return type de message et identifiant de spécification
+     * @throws SAXException si le prologue est invalide ou si la racine est inconnue ou introuvable
+     * @throws IOException  si la lecture échoue
+     */
+    static Result peek(InputStream input) throws IOException, SAXException {
+        return peek(input, true);
+    }
+
+    private static Result peek(InputStream input, boolean context) throws IOException, SAXException {
+        if (!input.markSupported()) {
+            throw new IllegalArgumentException("Le flux doit supporter mark/reset");
+        }
+        input.mark(PEEK_LIMIT);
+        try {
+            PrologueHandler prologue = readPrologue(input, context);
+            return new Result(toMessageType(prologue.root), prologue.guidelineId);
+        } finally {
+            input.reset();
+        }
+    }
+
+    private static PrologueHandler readPrologue(InputStream input, boolean context) throws IOException, SAXException {
+        BoundedInputStream bounded = new BoundedInputStream(input, PEEK_LIMIT);
+        XMLReader reader = SecureSaxParsers.newReader();
+        PrologueHandler prologue = new PrologueHandler(context);
+        reader.setContentHandler(prologue);
+        try {
+            reader.parse(new InputSource(bounded));
+        } catch (PrologueRead read) {
+            return prologue;
+        } catch (SAXException e) {
+            if (prologue.root != null) {
+                // la suite du document sera diagnostiquée par la validation
+                return prologue;
+            }
+            if (bounded.exhausted()) {
+                throw new SAXException("Élément racine introuvable dans les " + PEEK_LIMIT + " premiers octets", e);
+            }
+            throw e;
+        }
+        if (prologue.root == null) {
+            throw new SAXException("Élément racine introuvable");
+        }
+        return prologue;
+    }
+
+    private static MessageType toMessageType(String root) throws SAXException {
+        try {
+            return MessageType.fromRootElement(root);
+        } catch (IllegalArgumentException ex) {
+            throw new SAXException("Élément racine inconnu : " + root, ex);
+        }
+    }
+
+    /**
+     * Interrompt l'analyse dès que le prologue utile a été lu.
+     */
+    private static final class PrologueRead extends SAXException {
+        PrologueRead() {
+            super("Prologue lu");
+        }
+    }
+
+    /**
+     * Retient l'élément racine puis, si {@code context}, le premier identifiant de spécification du contexte.
+     */
+    private static final class PrologueHandler extends DefaultHandler {
+        private final boolean context;
+        private String root;
+        private String guidelineId;
+        private int depth;
+        private boolean inContext;
+        private boolean inGuideline;
+        private StringBuilder id;
+
+        PrologueHandler(boolean context) {
+            this.context = context;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            depth++;
+            if (depth == 1) {
+                root = localName;
+                if (!context) {
+                    throw new PrologueRead();
+                }
+            } else if (depth == 2) {
+                if (!CONTEXT.equals(localName)) {
+                    throw new PrologueRead();
+                }
+                inContext = true;
+            } else if (depth == 3 && inContext) {
+                inGuideline = GUIDELINE.equals(localName);
+            } else if (depth == 4 && inGuideline && "ID".equals(localName)) {
+                id = new StringBuilder();
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (id != null) {
+                id.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (id != null) {
+                guidelineId = id.toString().strip();
+                throw new PrologueRead();
+            }
+            if (depth == 2) {
+                throw new PrologueRead();
+            }
+            depth--;
+        }
+    }
+
+    /**
+     * Limite la lecture à {@code limit} octets et ignore la fermeture demandée par l'analyseur.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private int remaining;
+
+        BoundedInputStream(InputStream in, int limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int value = super.read();
+            if (value >= 0) {
+                remaining--;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = super.read(buffer, offset, Math.min(length, remaining));
+            if (count > 0) {
+                remaining -= count;
+            }
+            return count;
+        }
+
+        boolean exhausted() {
+            return remaining <= 0;
+        }
+
+        @Override
+        public void close() {
+            // le flux sous-jacent reste ouvert pour la validation
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.validator.CIIValidator;
+import com.cii.messaging.validator.ValidationError;
+import com.cii.messaging.validator.ValidationResult;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import net.sf.saxon.s9api.BuildingContentHandler;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XdmNode;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Valide un objet du modèle JAXB ({@code Invoice}, {@code Order}...) sans le sérialiser en texte.
+ * <p>
+ * L'objet est marshallé directement en événements SAX : le premier {@link XSDValidator} les reçoit en même temps
+ * qu'un constructeur d'arbre Saxon, sur lequel s'exécutent ensuite les {@link SchematronValidator} ; un
+ * {@link CalculationRulesValidator} reçoit son propre marshalling. Seuls les validateurs d'autres types lisent le
+ * document sérialisé, produit une seule fois et à la demande.
+ * </p>
+ * <p>
+ * Lorsque le {@link XSDValidator} déduit la version du document, l'arbre est construit en premier et ses
+ * événements alimentent la validation XSD.
+ * </p>
+ */
+final class ModelValidation implements Function<CIIValidator, ValidationResult> {
+
+    private static final Map<Class<?>, JAXBContext> CONTEXTS = new ConcurrentHashMap<>();
+
+    private final Object message;
+    private final MessageType type;
+    private final XSDValidator parser;
+    private final boolean schematron;
+    private volatile XdmNode document;
+    private volatile byte[] serialized;
+
+    ModelValidation(List<CIIValidator> validators, Object message, MessageType type) {
+        this.message = message;
+        this.type = type;
+        this.parser = (XSDValidator) validators.stream()
+                .filter(XSDValidator.class::isInstance)
+                .findFirst()
+                .orElse(null);
+        this.schematron = validators.stream().anyMatch(SchematronValidator.class::isInstance);
+    }
+
+    @Override
+    public ValidationResult apply(CIIValidator validator) {
+        try {
+            if (validator instanceof XSDValidator xsd && xsd.detectsDocumentContext()) {
+                // la version dépend du contexte du document : l'arbre est construit avant la validation XSD
+                XdmNode tree = tree();
+                return xsd.validate(type, xsd.versionFor(SchematronValidator.guidelineId(tree)),
+                        (handler, errorHandler) -> SchematronValidator.emit(tree, handler));
+            }
+            if (validator == parser) {
+                return schematron ? validateAndCapture() : parser.validate(type, this::marshal);
+            }
+            if (validator instanceof XSDValidator xsd) {
+                return xsd.validate(type, this::marshal);
+            }
+            if (validator instanceof SchematronValidator rules) {
+                return rules.validate(tree());
+            }
+            if (validator instanceof CalculationRulesValidator rules) {
+                return rules.validate(this::marshal);
+            }
+            return validator.validate(new ByteArrayInputStream(serialized()));
+        } catch (SAXException | SaxonApiException e) {
+            return failure(e.getMessage());
+        }
+    }
+
+    private ValidationResult validateAndCapture() throws SaxonApiException {
+        BuildingContentHandler builder = SchematronValidator.newTreeBuilder();
+        SingleParseValidation.TreeCapture capture = new SingleParseValidation.TreeCapture(builder);
+        ValidationResult result = parser.validate(type,
+                (handler, errorHandler) -> marshal(new TeeContentHandler(handler, capture), errorHandler));
+        if (capture.complete() && document == null) {
+            document = builder.getDocumentNode();
+        }
+        return result;
+    }
+
+    /**
+     * Arbre Saxon du message : celui capturé pendant la validation XSD, sinon un nouveau marshalling.
+     */
+    private XdmNode tree() throws SaxonApiException, SAXException {
+        XdmNode tree = document;
+        if (tree == null) {
+            BuildingContentHandler builder = SchematronValidator.newTreeBuilder();
+            marshal(builder, null);
+            tree = builder.getDocumentNode();
+            document = tree;
+        }
+        return tree;
+    }
+
+    private byte[] serialized() throws SAXException {
+        byte[] bytes = serialized;
+        if (bytes == null) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try {
+                marshaller().marshal(message, output);
+            } catch (JAXBException e) {
+                throw new SAXException("Échec du marshalling du message : " + e.getMessage(), e);
+            }
+            bytes = output.toByteArray();
+            serialized = bytes;
+        }
+        return bytes;
+    }
+
+    private void marshal(ContentHandler handler, org.xml.sax.ErrorHandler errorHandler) throws SAXException {
+        try {
+            marshaller().marshal(message, handler);
+        } catch (JAXBException e) {
+            // une exception levée par un destinataire (limite d'erreurs XSD...) est transmise telle quelle
+            Throwable cause = e.getLinkedException() != null ? e.getLinkedException() : e.getCause();
+            if (cause instanceof SAXException sax) {
+                throw sax;
+            }
+            throw new SAXException("Échec du marshalling du message : " + e.getMessage(), e);
+        }
+    }
+
+    private Marshaller marshaller() throws JAXBException {
+        JAXBContext context = CONTEXTS.get(message.getClass());
+        if (context == null) {
+            context = JAXBContext.newInstance(message.getClass());
+            CONTEXTS.putIfAbsent(message.getClass(), context);
+        }
+        return context.createMarshaller();
+    }
+
+    private static ValidationResult failure(String message) {
+        List<ValidationError> errors = new ArrayList<>();
+        errors.add(ValidationError.builder()
+                .message("Erreur de validation : " + message)
+                .severity(ValidationError.ErrorSeverity.FATAL)
+                .build());
+        return ValidationResult.builder()
+                .valid(false)
+                .errors(errors)
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.cii.messaging.validator.impl;
+
+import net.sf.saxon.expr.XPathContext;
+import net.sf.saxon.expr.instruct.Choose;
+import net.sf.saxon.expr.instruct.TemplateRule;
+import net.sf.saxon.lib.TraceListener;
+import net.sf.saxon.s9api.XdmNode;
+import net.sf.saxon.s9api.XdmNodeKind;
+import net.sf.saxon.s9api.streams.Steps;
+import net.sf.saxon.trace.Traceable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Chronomètre l'exécution d'une feuille Schematron compilée avec instrumentation et alimente un
+ * {@link SchematronProfiler}.
+ * <p>
+ * Les événements de trace de Saxon ne portent que la position de l'instruction dans la feuille : {@link #index}
+ * associe, ligne par ligne, chaque modèle de motif et chaque test d'assertion de la feuille générée par
+ * {@link SchematronCompiler} au motif et à la règle Schematron d'origine. Une instance sert à une seule
+ * transformation.
+ * </p>
+ */
+final class ProfilingTraceListener implements TraceListener {
+
+    private static final String XSL = "http://www.w3.org/1999/XSL/Transform";
+    private static final String SVRL = SvrlHandler.SVRL_NAMESPACE;
+
+    /**
+     * Élément instrumenté de la feuille : un modèle du motif {@code pattern} ({@code rule == null}), déclenché par
+     * un contexte de règle ou par le parcours du document, ou le test de l'assertion {@code rule}.
+     */
+    record Probe(String pattern, String rule, boolean context) {
+    }
+
+    private final SchematronProfiler profiler;
+    private final Map<Integer, Probe> probes;
+    private final Deque<Frame> stack = new ArrayDeque<>();
+
+    ProfilingTraceListener(SchematronProfiler profiler, Map<Integer, Probe> probes) {
+        this.profiler = profiler;
+        this.probes = probes;
+    }
+
+    /**
+     * Indexe par numéro de ligne les modèles et assertions d'une feuille générée depuis un Schematron.
+     *
+     * @param stylesheet feuille XSLT analysée avec numérotation des lignes
+     * @return éléments instrumentés par ligne
+     */
+    static Map<Integer, Probe> index(XdmNode stylesheet) {
+        Map<String, String> patternByMode = new HashMap<>();
+        String pattern = null;
+        for (XdmNode node : stylesheet.select(Steps.child(XSL, "stylesheet").then(Steps.child(XSL, "template"))
+                .where(template -> "/".equals(template.attribute("match")) && template.attribute("mode") == null)
+                .then(Steps.descendant())).asListOfNodes()) {
+            if (node.getNodeKind() != XdmNodeKind.ELEMENT) {
+                continue;
+            }
+            String name = node.getNodeName().getLocalName();
+            if (SVRL.equals(node.getNodeName().getNamespace()) && "active-pattern".equals(name)) {
+                pattern = node.select(Steps.child(XSL, "attribute").where(a -> "id".equals(a.attribute("name"))))
+                        .findFirst().map(XdmNode::getStringValue).orElse(null);
+            } else if (XSL.equals(node.getNodeName().getNamespace()) && "apply-templates".equals(name)
+                    && node.attribute("mode") != null && pattern != null) {
+                patternByMode.put(node.attribute("mode"), pattern);
+                pattern = null;
+            }
+        }
+
+        Map<Integer, Probe> probes = new HashMap<>();
+        stylesheet.select(Steps.child(XSL, "stylesheet").then(Steps.child(XSL, "template")))
+                .filter(template -> patternByMode.containsKey(template.attribute("mode")))
+                .forEach(template -> {
+                    String owner = patternByMode.get(template.attribute("mode"));
+                    String priority = template.attribute("priority");
+                    boolean context = priority == null || Double.parseDouble(priority) >= 0;
+                    probes.put(template.getLineNumber(), new Probe(owner, null, context));
+                    template.select(Steps.descendant(SVRL, "failed-assert").cat(Steps.descendant(SVRL, "successful-report")))
+                            .forEach(assertion -> probes.put(test(assertion).getLineNumber(),
+                                    new Probe(owner, ruleId(assertion), false)));
+                });
+        return probes;
+    }
+
+    @Override
+    public void enter(Traceable traceable, Map<String, Object> properties, XPathContext context) {
+        if (!(traceable instanceof TemplateRule) && !(traceable instanceof Choose)) {
+            return;
+        }
+        Probe probe = probes.get(traceable.getLocation().getLineNumber());
+        if (probe != null && (probe.rule() == null) == traceable instanceof TemplateRule) {
+            stack.push(new Frame(traceable, probe, System.nanoTime()));
+        }
+    }
+
+    @Override
+    public void leave(Traceable traceable) {
+        Frame frame = stack.peek();
+        if (frame == null || frame.traceable != traceable) {
+            return;
+        }
+        stack.pop();
+        long elapsed = System.nanoTime() - frame.start;
+        if (frame.probe.rule() != null) {
+            profiler.recordRule(frame.probe.rule(), elapsed);
+            return;
+        }
+        profiler.recordPattern(frame.probe.pattern(), frame.probe.context(), elapsed - frame.nested);
+        Frame parent = stack.peek();
+        if (parent != null) {
+            parent.nested += elapsed;
+        }
+    }
+
+    /**
+     * Instruction portant le test de l'assertion : {@code xsl:choose} pour une assertion, {@code xsl:if} pour un
+     * rapport.
+     */
+    private static XdmNode test(XdmNode assertion) {
+        XdmNode parent = assertion.getParent();
+        return "otherwise".equals(parent.getNodeName().getLocalName()) ? parent.getParent() : parent;
+    }
+
+    private static String ruleId(XdmNode assertion) {
+        return assertion.select(Steps.child(XSL, "attribute").where(a -> "id".equals(a.attribute("name"))))
+                .findFirst().map(XdmNode::getStringValue).orElse(assertion.attribute("test"));
+    }
+
+    /**
+     * Modèle ou assertion en cours ; {@code nested} cumule la durée des modèles appelés depuis un modèle.
+     */
+    private static final class Frame {
+        private final Traceable traceable;
+        private final Probe probe;
+        private final long start;
+        private long nested;
+
+        Frame(Traceable traceable, Probe probe, long start) {
+            this.traceable = traceable;
+            this.probe = probe;
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.cii.messaging.validator.impl;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+
+/**
+ * Produit les événements SAX d'un document : analyse d'un flux XML ou marshalling d'un objet du modèle.
+ */
+@FunctionalInterface
+interface SaxEvents {
+
+    /**
+     * Transmet le document à {@code handler}.
+     *
+     * @param handler      destinataire des événements
+     * @param errorHandler destinataire des erreurs d'analyse, le cas échéant
+     * @throws IOException  si la lecture échoue
+     * @throws SAXException si le document ne peut pas être produit ou si le destinataire interrompt l'analyse
+     */
+    void emit(ContentHandler handler, ErrorHandler errorHandler) throws IOException, SAXException;
+}
@@ -0,0 +1,231 @@
+package com.cii.messaging.validator.impl;
+
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.QName;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.Serializer;
+import net.sf.saxon.s9api.XdmAtomicValue;
+import net.sf.saxon.s9api.XdmDestination;
+import net.sf.saxon.s9api.XdmNode;
+import net.sf.saxon.s9api.XdmValue;
+import net.sf.saxon.s9api.Xslt30Transformer;
+import net.sf.saxon.s9api.XsltCompiler;
+import net.sf.saxon.s9api.streams.Steps;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Compile les sources Schematron ({@code .sch}) en feuilles XSLT au moment du build.
+ * <p>
+ * La compilation suit la chaîne ISO (inclusions, motifs abstraits, puis génération XSLT 2 produisant du SVRL)
+ * avec les feuilles fournies par ph-schematron. Elle est lancée par le profil Maven {@code schematron} ; à
+ * l'exécution, {@link SchematronValidator} ne charge que les XSLT générées.
+ * </p>
+ * <p>
+ * Une compilation réduite ne conserve que les motifs et assertions sélectionnés par identifiant : les autres
+ * motifs disparaissent avec leur parcours du document, et les règles des motifs partiellement retenus sont
+ * conservées (sans leurs assertions écartées) pour que chaque nœud reste rattaché au même contexte. La feuille
+ * obtenue s'enregistre comme un profil de {@link SchematronRuleSets}.
+ * </p>
+ */
+public final class SchematronCompiler {
+
+    private static final String SKELETON = "schematron/20100710-xslt2/";
+    private static final String EXTENSION = ".sch";
+    private static final String SCHEMATRON = "http://purl.oclc.org/dsdl/schematron";
+
+    /**
+     * Retire les motifs sans élément sélectionné et, dans les motifs non sélectionnés en entier, les assertions
+     * et rapports non sélectionnés.
+     */
+    private static final String SELECTION = """
+            <xsl:stylesheet version="3.0" xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+                            xmlns:xs="http://www.w3.org/2001/XMLSchema"
+                            xmlns:sch="http://purl.oclc.org/dsdl/schematron">
+              <xsl:param name="ids" as="xs:string*"/>
+              <xsl:mode on-no-match="shallow-copy"/>
+              <xsl:template match="sch:pattern[not(@id = $ids) and not(.//sch:assert/@id = $ids)
+                                               and not(.//sch:report/@id = $ids)]"/>
+              <xsl:template match="sch:pattern[not(@id = $ids)]//sch:assert[not(@id = $ids)]"/>
+              <xsl:template match="sch:pattern[not(@id = $ids)]//sch:report[not(@id = $ids)]"/>
+            </xsl:stylesheet>
+            """;
+
+    private SchematronCompiler() {
+        // utilitaire
+    }
+
+    /**
+     * Compile chaque fichier {@code .sch} du répertoire source (hors sous-répertoires, réservés aux motifs
+     * inclus) en un fichier {@code .xslt} du même nom dans le répertoire cible.
+     * <p>
+     * Avec une sélection, seuls les motifs et assertions cités sont compilés et le nom de chaque feuille reçoit
+     * le suffixe donné ({@code EN16931-CII-validation-critique.xslt} pour le suffixe {@code critique}).
+     * </p>
+     *
+     * @param args répertoire des sources Schematron, répertoire de destination puis, optionnellement, les
+     *             identifiants retenus séparés par des virgules et le suffixe des feuilles réduites
+     * @throws Exception si une source ne peut pas être compilée
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2 && args.length != 4) {
+            throw new IllegalArgumentException("Usage : SchematronCompiler <répertoire .sch> <répertoire .xslt>"
+                    + " [<identifiants séparés par des virgules> <suffixe>]");
+        }
+        Set<String> selection = args.length == 4 ? parseSelection(args[2]) : Set.of();
+        String suffix = args.length == 4 ? "-" + args[3] : "";
+        Path target = Path.of(args[1]);
+        Files.createDirectories(target);
+        for (Path source : sources(Path.of(args[0]))) {
+            String name = xsltName(source);
+            Path output = target.resolve(name.substring(0, name.length() - ".xslt".length()) + suffix + ".xslt");
+            Files.writeString(output, compile(source, selection), StandardCharsets.UTF_8);
+            System.out.println("Schematron compilé : " + source + " -> " + output);
+        }
+    }
+
+    /**
+     * Découpe une liste d'identifiants séparés par des virgules.
+     */
+    static Set<String> parseSelection(String ids) {
+        Set<String> selection = new LinkedHashSet<>();
+        for (String id : ids.split(",")) {
+            if (!id.isBlank()) {
+                selection.add(id.strip());
+            }
+        }
+        if (selection.isEmpty()) {
+            throw new IllegalArgumentException("Aucun identifiant de règle ou de motif sélectionné");
+        }
+        return selection;
+    }
+
+    /**
+     * Liste les schémas Schematron de premier niveau d'un répertoire, triés par nom.
+     */
+    static List<Path> sources(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Nom de la feuille XSLT générée pour une source Schematron.
+     */
+    static String xsltName(Path source) {
+        String name = source.getFileName().toString();
+        return name.substring(0, name.length() - EXTENSION.length()) + ".xslt";
+    }
+
+    /**
+     * Compile une source Schematron en feuille XSLT.
+     *
+     * @param source fichier {@code .sch}, dont les inclusions sont résolues relativement à son emplacement
+     * @return texte de la feuille XSLT générée
+     * @throws SaxonApiException si la source ou la chaîne de compilation est invalide
+     */
+    static String compile(Path source) throws SaxonApiException {
+        return compile(source, Set.of());
+    }
+
+    /**
+     * Compile une source Schematron en feuille XSLT réduite aux motifs et assertions sélectionnés.
+     *
+     * @param source    fichier {@code .sch}
+     * @param selection identifiants de motifs ({@code EN16931-model}) ou d'assertions ({@code BR-CO-15}) à
+     *                  conserver ; vide pour tout compiler
+     * @return texte de la feuille XSLT générée
+     * @throws SaxonApiException        si la source ou la chaîne de compilation est invalide
+     * @throws IllegalArgumentException si un identifiant sélectionné n'existe pas dans la source
+     */
+    static String compile(Path source, Set<String> selection) throws SaxonApiException {
+        Processor processor = new Processor(false);
+        XsltCompiler compiler = processor.newXsltCompiler();
+
+        XdmNode document = processor.newDocumentBuilder().build(source.toFile());
+        XdmNode included = apply(compiler, "iso_dsdl_include.xsl", document, Map.of());
+        XdmNode expanded = apply(compiler, "iso_abstract_expand.xsl", included, Map.of());
+        if (!selection.isEmpty()) {
+            expanded = select(compiler, expanded, selection);
+        }
+        XdmNode xslt = apply(compiler, "iso_svrl_for_xslt2.xsl", expanded,
+                Map.of(new QName("generate-fired-rule"), new XdmAtomicValue("false")));
+
+        StringWriter writer = new StringWriter();
+        Serializer serializer = processor.newSerializer(writer);
+        serializer.setOutputProperty(Serializer.Property.INDENT, "yes");
+        serializer.serializeNode(xslt);
+        return writer.toString();
+    }
+
+    private static XdmNode select(XsltCompiler compiler, XdmNode schema, Set<String> selection)
+            throws SaxonApiException {
+        Set<String> known = new HashSet<>();
+        schema.select(Steps.descendant(SCHEMATRON, "pattern")
+                        .cat(Steps.descendant(SCHEMATRON, "assert"))
+                        .cat(Steps.descendant(SCHEMATRON, "report"))
+                        .then(Steps.attribute("id")))
+                .forEach(id -> known.add(id.getStringValue()));
+        List<String> unknown = selection.stream().filter(id -> !known.contains(id)).toList();
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Identifiant(s) absent(s) de " + schema.getBaseURI() + " : " + unknown);
+        }
+
+        Xslt30Transformer transformer = compiler.compile(new StreamSource(new StringReader(SELECTION))).load30();
+        transformer.setStylesheetParameters(Map.of(new QName("ids"),
+                new XdmValue(selection.stream().map(XdmAtomicValue::new).toList())));
+        XdmDestination destination = new XdmDestination();
+        destination.setBaseURI(schema.getBaseURI());
+        transformer.transform(schema.asSource(), destination);
+        return destination.getXdmNode();
+    }
+
+    private static XdmNode apply(XsltCompiler compiler, String stylesheet, XdmNode input,
+                                 Map<QName, XdmAtomicValue> parameters) throws SaxonApiException {
+        URL resource = SchematronCompiler.class.getClassLoader().getResource(SKELETON + stylesheet);
+        if (resource == null) {
+            throw new UncheckedIOException(new IOException("Feuille ISO Schematron introuvable : " + stylesheet));
+        }
+        Xslt30Transformer transformer = compiler.compile(new StreamSource(resource.toExternalForm())).load30();
+        transformer.setStylesheetParameters(parameters);
+        XdmDestination destination = new XdmDestination();
+        destination.setBaseURI(input.getBaseURI());
+        transformer.transform(input.asSource(), destination);
+        return destination.getXdmNode();
+    }
+
+    /**
+     * Liste les sources dont la feuille générée diffère de celle présente dans {@code target}.
+     *
+     * @param sourceDirectory répertoire des sources Schematron
+     * @param target          répertoire des feuilles XSLT générées
+     * @return sources à recompiler, vide si tout est à jour
+     */
+    static List<Path> outdated(Path sourceDirectory, Path target) throws IOException, SaxonApiException {
+        List<Path> outdated = new ArrayList<>();
+        for (Path source : sources(sourceDirectory)) {
+            Path xslt = target.resolve(xsltName(source));
+            if (!Files.exists(xslt) || !Files.readString(xslt, StandardCharsets.UTF_8).equals(compile(source))) {
+                outdated.add(source);
+            }
+        }
+        return outdated;
+    }
+}
@@ -0,0 +1,134 @@
+package com.cii.messaging.validator.impl;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistiques d'exécution des règles Schematron, alimentées par les validations d'un
+ * {@link SchematronValidator} sur lequel le profilage est activé ({@link SchematronValidator#setProfiler}).
+ * <p>
+ * Pour chaque règle (identifiant d'assertion, {@code BR-CO-15}...), le profileur compte les évaluations et cumule
+ * leur durée. Pour chaque motif, il compte les contextes déclenchés et cumule le temps passé dans ses modèles, y
+ * compris le parcours du document et l'évaluation de ses assertions. Les durées incluent le coût de
+ * l'instrumentation : elles servent à comparer les règles entre elles. Une instance peut être partagée entre
+ * threads et entre validateurs.
+ * </p>
+ * <p>
+ * Seules les feuilles générées par {@link SchematronCompiler} sont instrumentables : les jeux de règles exécutés
+ * depuis une autre feuille (artefact compilé par un outil tiers, feuille écrite à la main) n'alimentent aucune
+ * statistique et sont listés par {@link #unprofiledRuleSets()}.
+ * </p>
+ */
+public final class SchematronProfiler {
+
+    private final Map<String, Counter> rules = new ConcurrentHashMap<>();
+    private final Map<String, Counter> patterns = new ConcurrentHashMap<>();
+    private final Set<String> unprofiled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Statistiques d'une règle ou d'un motif.
+     *
+     * @param id         identifiant de la règle ou du motif
+     * @param count      nombre d'évaluations (règle) ou de contextes déclenchés (motif)
+     * @param totalNanos durée cumulée en nanosecondes
+     */
+    public record Entry(String id, long count, long totalNanos) {
+
+        /**
+         * Durée cumulée en millisecondes.
+         */
+        public double totalMillis() {
+            return totalNanos / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Statistiques par règle, de la plus coûteuse à la moins coûteuse.
+     */
+    public List<Entry> rules() {
+        return entries(rules);
+    }
+
+    /**
+     * Statistiques par motif, du plus coûteux au moins coûteux.
+     */
+    public List<Entry> patterns() {
+        return entries(patterns);
+    }
+
+    /**
+     * Libellés des jeux de règles exécutés sans instrumentation, faute de règles identifiables dans leur feuille.
+     */
+    public Set<String> unprofiledRuleSets() {
+        return new TreeSet<>(unprofiled);
+    }
+
+    /**
+     * Remet les statistiques à zéro.
+     */
+    public void reset() {
+        rules.clear();
+        patterns.clear();
+        unprofiled.clear();
+    }
+
+    /**
+     * Met en forme les statistiques en un rapport textuel : motifs puis règles, par durée décroissante.
+     *
+     * @return rapport de profilage
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (String label : unprofiledRuleSets()) {
+            report.append("Non instrumenté (feuille non générée par SchematronCompiler) : ").append(label)
+                    .append(System.lineSeparator());
+        }
+        append(report, "Motif", "Contextes", patterns());
+        report.append(System.lineSeparator());
+        append(report, "Règle", "Évaluations", rules());
+        return report.toString();
+    }
+
+    void recordRule(String id, long nanos) {
+        rules.computeIfAbsent(id, key -> new Counter()).add(1, nanos);
+    }
+
+    void recordUnprofiled(String ruleSet) {
+        unprofiled.add(ruleSet);
+    }
+
+    void recordPattern(String id, boolean context, long nanos) {
+        patterns.computeIfAbsent(id, key -> new Counter()).add(context ? 1 : 0, nanos);
+    }
+
+    private static List<Entry> entries(Map<String, Counter> counters) {
+        return counters.entrySet().stream()
+                .map(entry -> new Entry(entry.getKey(), entry.getValue().count.sum(), entry.getValue().nanos.sum()))
+                .sorted(Comparator.comparingLong(Entry::totalNanos).reversed().thenComparing(Entry::id))
+                .toList();
+    }
+
+    private static void append(StringBuilder report, String idHeader, String countHeader, List<Entry> entries) {
+        report.append(String.format(Locale.ROOT, "%-30s %12s %12s%n", idHeader, countHeader, "Durée (ms)"));
+        for (Entry entry : entries) {
+            report.append(String.format(Locale.ROOT, "%-30s %12d %12.3f%n",
+                    entry.id(), entry.count(), entry.totalMillis()));
+        }
+    }
+
+    private static final class Counter {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        void add(long evaluations, long duration) {
+            count.add(evaluations);
+            nanos.add(duration);
+        }
+    }
+}
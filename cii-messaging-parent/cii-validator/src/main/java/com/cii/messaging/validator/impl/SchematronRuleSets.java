@@ -0,0 +1,91 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.validator.SchemaVersion;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre des jeux de règles Schematron, indexés par (type de message, version, profil).
+ * <p>
+ * Seules les factures disposent par défaut de règles (profil {@value #DEFAULT_PROFILE}) : les commandes,
+ * réponses de commande et avis d'expédition n'en ont pas et {@link SchematronValidator} ne les contrôle pas.
+ * Les profils {@value #EN16931_SUBSET_PROFILE} et {@value #XRECHNUNG_SUBSET_PROFILE} appliquent une sélection
+ * d'une quarantaine de règles EN 16931 et XRechnung, générée au build depuis {@code src/main/schematron} par
+ * {@link SchematronCompiler} : ils ne remplacent pas les artefacts officiels CEN/TC 434 et KoSIT, qui
+ * s'enregistrent au démarrage via {@link #register}, comme tout autre jeu.
+ * </p>
+ */
+public final class SchematronRuleSets {
+
+    /** Profil utilisé lorsqu'aucun profil n'est précisé. */
+    public static final String DEFAULT_PROFILE = "EN16931";
+
+    /** Sous-ensemble partiel des règles EN 16931 et des restrictions syntaxiques CII. */
+    public static final String EN16931_SUBSET_PROFILE = "EN16931-SUBSET";
+
+    /** Sous-ensemble {@value #EN16931_SUBSET_PROFILE} complété de quelques règles de la CIUS XRechnung. */
+    public static final String XRECHNUNG_SUBSET_PROFILE = "XRECHNUNG-SUBSET";
+
+    private static final Map<Key, RuleSet> RULE_SETS = new ConcurrentHashMap<>();
+
+    static {
+        for (SchemaVersion version : SchemaVersion.values()) {
+            register(MessageType.INVOICE, version, DEFAULT_PROFILE,
+                    "schematron/" + version.getVersion() + ".xslt", "Schematron EN 16931");
+            register(MessageType.INVOICE, version, EN16931_SUBSET_PROFILE,
+                    "schematron/EN16931-CII-validation.xslt", "Schematron EN 16931 (sous-ensemble)");
+            register(MessageType.INVOICE, version, XRECHNUNG_SUBSET_PROFILE,
+                    "schematron/XRechnung-CII-validation.xslt", "Schematron XRechnung (sous-ensemble)");
+        }
+    }
+
+    private SchematronRuleSets() {
+        // utilitaire
+    }
+
+    /**
+     * Enregistre (ou remplace) le jeu de règles d'une combinaison type de message, version et profil.
+     *
+     * @param type     type de message contrôlé
+     * @param version  version UNECE
+     * @param profile  profil métier (ex : {@value #DEFAULT_PROFILE})
+     * @param resource chemin de la feuille XSLT compilée depuis le Schematron, dans le classpath
+     * @param label    libellé reporté dans {@link com.cii.messaging.validator.ValidationResult#getValidatedAgainst()}
+     */
+    public static void register(MessageType type, SchemaVersion version, String profile,
+                                String resource, String label) {
+        RULE_SETS.put(new Key(type, version, profile),
+                new RuleSet(Objects.requireNonNull(resource, "resource"), Objects.requireNonNull(label, "label")));
+    }
+
+    /**
+     * Indique si un jeu de règles est enregistré pour la combinaison demandée.
+     */
+    public static boolean isRegistered(MessageType type, SchemaVersion version, String profile) {
+        return find(type, version, profile) != null;
+    }
+
+    /**
+     * Retourne le jeu de règles de la combinaison demandée, ou {@code null} si aucun n'est enregistré.
+     */
+    static RuleSet find(MessageType type, SchemaVersion version, String profile) {
+        return RULE_SETS.get(new Key(type, version, profile));
+    }
+
+    private record Key(MessageType type, SchemaVersion version, String profile) {
+        Key {
+            Objects.requireNonNull(type, "type");
+            Objects.requireNonNull(version, "version");
+            Objects.requireNonNull(profile, "profile");
+        }
+    }
+
+    /**
+     * Feuille XSLT d'un jeu de règles et libellé associé.
+     */
+    record RuleSet(String resource, String label) {
+    }
+}
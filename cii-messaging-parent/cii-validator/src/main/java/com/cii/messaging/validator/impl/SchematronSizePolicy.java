@@ -0,0 +1,13 @@
+package com.cii.messaging.validator.impl;
+
+/**
+ * Traitement par {@link CompositeValidator} du Schematron sur un document plus volumineux que
+ * {@link CompositeValidatorOptions#getSchematronMaxBytes()} : les règles s'évaluent sur l'arbre complet du
+ * document, dont la taille en mémoire est proportionnelle à celle du fichier.
+ */
+public enum SchematronSizePolicy {
+    /** Exécute le Schematron malgré tout et le signale par un avertissement. */
+    WARN,
+    /** N'exécute pas le Schematron et le signale par un avertissement. */
+    SKIP
+}
@@ -1,30 +1,71 @@
 package com.cii.messaging.validator.impl;
 
+import com.cii.messaging.model.common.MessageType;
 import com.cii.messaging.validator.*;
 import net.sf.saxon.s9api.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 
+import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
- * Valide les documents XML au regard des règles Schematron EN 16931.
+ * Valide les documents XML au regard des règles Schematron enregistrées dans {@link SchematronRuleSets}.
+ * <p>
+ * Le jeu de règles est choisi d'après l'élément racine du document, la version et le profil configurés. Un
+ * document dont le type n'a pas de règles (commande, avis d'expédition...) n'est pas transformé : le résultat
+ * est valide et ne mentionne aucun référentiel.
+ * </p>
+ * <p>
+ * Une instance peut être partagée entre threads. Chaque jeu de règles est compilé une seule fois par processus,
+ * à sa première utilisation, en un {@link XsltExecutable} partagé. Les {@link Xslt30Transformer} sont empruntés
+ * à une réserve bornée par jeu de règles puis rendus après la transformation : ils sont réutilisés aussi bien par
+ * un pool de threads que par des threads virtuels créés pour chaque validation. Une validation en cours termine
+ * avec la version et le profil qu'elle a lus.
+ * </p>
+ * <p>
+ * Avec {@link #setDetectDocumentContext(boolean)}, la version et le profil sont déduits de l'identifiant de
+ * spécification de chaque document ({@link GuidelineContexts}) : la version configurée ne s'applique qu'à défaut,
+ * et le profil déduit ne remplace que le profil par défaut.
+ * </p>
+ * <p>
+ * La sortie SVRL est consommée en flux par {@link SvrlHandler} : aucun arbre de résultat n'est construit. Les
+ * erreurs et avertissements sont transmis à un {@link ValidationListener} au fil de la transformation
+ * ({@link #validate(InputStream, ValidationListener)}) ; le résultat habituel est construit au-dessus par un
+ * {@link ValidationCollector}.
+ * </p>
+ * <p>
+ * Avec un {@link SchematronProfiler} ({@link #setProfiler}), les règles sont exécutées depuis une compilation
+ * instrumentée, distincte de la compilation habituelle, et chaque validation alimente les statistiques par
+ * règle et par motif. Un jeu dont la feuille n'a pas été générée par {@link SchematronCompiler} n'est pas
+ * instrumentable : il est signalé par {@link SchematronProfiler#unprofiledRuleSets()}.
+ * </p>
  */
 public class SchematronValidator implements CIIValidator {
     private static final Logger logger = LoggerFactory.getLogger(SchematronValidator.class);
-    private SchemaVersion schemaVersion = SchemaVersion.getDefault();
-    private final Processor processor;
-    private XsltExecutable schematronXslt;
-    
-    public SchematronValidator() {
-        this.processor = new Processor(false);
-        loadSchematronRules();
-    }
-    
+    private static final Processor PROCESSOR = new Processor(false);
+    private static final Map<SchematronRuleSets.RuleSet, CompiledRules> RULES = new ConcurrentHashMap<>();
+    private static final Map<SchematronRuleSets.RuleSet, CompiledRules> PROFILED_RULES = new ConcurrentHashMap<>();
+    private static final int MAX_IDLE_TRANSFORMERS = 2 * Runtime.getRuntime().availableProcessors();
+
+    private volatile SchemaVersion schemaVersion = SchemaVersion.getDefault();
+    private volatile String profile = SchematronRuleSets.DEFAULT_PROFILE;
+    private volatile SchematronProfiler profiler;
+    private volatile boolean detectDocumentContext;
+
     @Override
     public ValidationResult validate(File xmlFile) {
         try (InputStream is = new FileInputStream(xmlFile)) {
@@ -33,130 +74,332 @@ public class SchematronValidator implements CIIValidator {
             return createErrorResult("Échec de la lecture du fichier : " + e.getMessage());
         }
     }
-    
+
     @Override
     public ValidationResult validate(InputStream inputStream) {
-        long startTime = System.currentTimeMillis();
-        ValidationResult.ValidationResultBuilder resultBuilder = ValidationResult.builder();
+        return collect(listener -> validate(inputStream, listener));
+    }
 
+    /**
+     * Transmet chaque assertion en échec et chaque rapport à {@code listener} pendant la transformation, qui
+     * s'arrête dès que le listener le demande.
+     */
+    @Override
+    public ValidationResult validate(InputStream inputStream, ValidationListener listener) {
+        long startTime = System.currentTimeMillis();
+        InputStream markable = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        long detectionStart = System.nanoTime();
+        MessageType type;
+        DocumentContext context = DocumentContext.NONE;
         try {
-            if (schematronXslt == null) {
-                return createErrorResult("Règles Schematron non chargées");
+            if (detectDocumentContext) {
+                MessagePeek.Result peek = MessagePeek.peek(markable);
+                type = peek.type();
+                context = peek.context();
+            } else {
+                type = MessagePeek.detectMessageType(markable);
             }
+        } catch (Exception e) {
+            return failure("Erreur de validation : " + e.getMessage(), "Schematron", listener);
+        }
+        List<PhaseTiming> timings = new ArrayList<>();
+        timings.add(timing(PhaseTiming.Phase.DETECTION, System.nanoTime() - detectionStart));
+        return validate(type, context, new StreamSource(markable), startTime, timings, listener);
+    }
 
-            XsltTransformer transformer = schematronXslt.load();
-            transformer.setSource(new StreamSource(inputStream));
-            XdmDestination destination = new XdmDestination();
-            transformer.setDestination(destination);
-            transformer.transform();
-
-            parseSchematronResults(destination.getXdmNode(), resultBuilder);
+    /**
+     * Valide un document déjà chargé en arbre Saxon, sans nouvelle analyse XML.
+     *
+     * @param document document construit par {@link #newTreeBuilder()}
+     * @return résultat de la validation Schematron
+     */
+    ValidationResult validate(XdmNode document) {
+        long startTime = System.currentTimeMillis();
+        String root = rootElement(document);
+        MessageType type;
+        try {
+            type = MessageType.fromRootElement(root);
+        } catch (IllegalArgumentException e) {
+            return createErrorResult("Erreur de validation : Élément racine inconnu : " + root);
+        }
+        DocumentContext context = detectDocumentContext
+                ? GuidelineContexts.resolve(guidelineId(document))
+                : DocumentContext.NONE;
+        return collect(listener -> validate(type, context, document.asSource(), startTime, new ArrayList<>(),
+                listener));
+    }
 
-            resultBuilder.validatedAgainst("Schematron EN 16931");
-            resultBuilder.validationTimeMs(System.currentTimeMillis() - startTime);
+    /**
+     * Crée un constructeur d'arbre alimenté par des événements SAX, compatible avec les règles compilées.
+     *
+     * @return constructeur d'arbre Saxon
+     * @throws SaxonApiException si le constructeur ne peut pas être créé
+     */
+    static BuildingContentHandler newTreeBuilder() throws SaxonApiException {
+        return PROCESSOR.newDocumentBuilder().newBuildingContentHandler();
+    }
 
-            return resultBuilder.build();
-        } catch (Exception e) {
-            logger.error("Échec de la validation Schematron", e);
-            return createErrorResult("Erreur de validation : " + e.getMessage());
+    /**
+     * Transmet les événements SAX d'un arbre construit par {@link #newTreeBuilder()} ; une {@link SAXException}
+     * levée par le destinataire est propagée telle quelle.
+     *
+     * @param document arbre du document
+     * @param handler  destinataire des événements
+     * @throws SAXException si le destinataire interrompt la lecture ou si l'arbre ne peut pas être parcouru
+     */
+    static void emit(XdmNode document, ContentHandler handler) throws SAXException {
+        try {
+            PROCESSOR.writeXdmValue(document, new SAXDestination(handler));
+        } catch (SaxonApiException e) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof SAXException sax) {
+                    throw sax;
+                }
+            }
+            throw new SAXException(e.getMessage(), e);
         }
     }
-    
+
     @Override
     public ValidationResult validate(String xmlContent) {
         return validate(new ByteArrayInputStream(xmlContent.getBytes(StandardCharsets.UTF_8)));
     }
-    
+
     @Override
     public void setSchemaVersion(SchemaVersion version) {
-        this.schemaVersion = version;
-        loadSchematronRules();
+        this.schemaVersion = Objects.requireNonNull(version, "version");
     }
-    
-    private void loadSchematronRules() {
-        String resource = String.format("schematron/%s.xslt", schemaVersion.getVersion());
-        try (InputStream is = getClass().getClassLoader().getResourceAsStream(resource)) {
-            if (is == null) {
-                logger.error("Ressource Schematron introuvable : {}", resource);
-                schematronXslt = null;
-                return;
-            }
-            logger.info("Chargement des règles Schematron depuis {}", resource);
-            XsltCompiler compiler = processor.newXsltCompiler();
-            schematronXslt = compiler.compile(new StreamSource(is));
-        } catch (Exception e) {
-            logger.error("Échec du chargement des règles Schematron", e);
-            schematronXslt = null;
-        }
+
+    /**
+     * Sélectionne le profil des règles appliquées (par défaut {@value SchematronRuleSets#DEFAULT_PROFILE}).
+     *
+     * @param profile profil enregistré dans {@link SchematronRuleSets}
+     */
+    public void setProfile(String profile) {
+        this.profile = Objects.requireNonNull(profile, "profile");
     }
-    
-    private void parseSchematronResults(XdmNode resultNode, ValidationResult.ValidationResultBuilder builder) {
+
+    /**
+     * Profil des règles appliquées.
+     */
+    public String getProfile() {
+        return profile;
+    }
+
+    /**
+     * Déduit la version et le profil de chaque document de son identifiant de spécification.
+     *
+     * @param detect {@code true} pour activer la détection
+     */
+    public void setDetectDocumentContext(boolean detect) {
+        this.detectDocumentContext = detect;
+    }
+
+    /**
+     * Indique si la version et le profil sont déduits de chaque document.
+     */
+    boolean detectsDocumentContext() {
+        return detectDocumentContext;
+    }
+
+    /**
+     * Version configurée.
+     */
+    SchemaVersion schemaVersion() {
+        return schemaVersion;
+    }
+
+    /**
+     * Active le profilage des règles, ou le désactive avec {@code null}. L'instrumentation ralentit nettement la
+     * validation : elle est réservée aux mesures.
+     *
+     * @param profiler statistiques alimentées par les validations suivantes
+     */
+    public void setProfiler(SchematronProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Indique si des règles existent pour ce type de message avec la version et le profil courants.
+     *
+     * @param type type de message
+     * @return {@code true} si une validation de ce type exécute des règles
+     */
+    public boolean appliesTo(MessageType type) {
+        return appliesTo(type, DocumentContext.NONE);
+    }
+
+    /**
+     * Indique si des règles existent pour ce type de message dans le contexte déduit du document.
+     *
+     * @param type    type de message
+     * @param context contexte déduit de l'identifiant de spécification, ignoré si la détection est désactivée
+     * @return {@code true} si une validation de ce document exécute des règles
+     */
+    boolean appliesTo(MessageType type, DocumentContext context) {
+        DocumentContext effective = detectDocumentContext ? context : DocumentContext.NONE;
+        return SchematronRuleSets.isRegistered(type, effective.versionOr(schemaVersion), profileFor(effective));
+    }
+
+    /**
+     * Profil appliqué au document : le profil déduit ne remplace que le profil par défaut, jamais un profil
+     * choisi explicitement.
+     */
+    private String profileFor(DocumentContext context) {
+        return SchematronRuleSets.DEFAULT_PROFILE.equals(profile) ? context.profileOr(profile) : profile;
+    }
+
+    /**
+     * Construit le résultat habituel, listes d'erreurs et d'avertissements comprises, au-dessus d'une validation
+     * par listener.
+     */
+    private static ValidationResult collect(Function<ValidationListener, ValidationResult> validation) {
+        ValidationCollector collector = new ValidationCollector();
+        return collector.complete(validation.apply(collector));
+    }
+
+    /**
+     * Applique le jeu de règles du document et complète {@code timings} : obtention des règles compilées,
+     * transformation (analyse du document comprise pour un flux) et conversion de la sortie SVRL.
+     */
+    private ValidationResult validate(MessageType type, DocumentContext context, Source source, long startTime,
+                                      List<PhaseTiming> timings, ValidationListener listener) {
+        SchematronRuleSets.RuleSet ruleSet = SchematronRuleSets.find(type, context.versionOr(schemaVersion),
+                profileFor(context));
+        if (ruleSet == null) {
+            return ValidationResult.builder()
+                    .valid(true)
+                    .validationTimeMs(System.currentTimeMillis() - startTime)
+                    .timings(timings)
+                    .build();
+        }
+        long lookupStart = System.nanoTime();
+        SchematronProfiler currentProfiler = profiler;
+        CompiledRules current = currentProfiler == null
+                ? RULES.computeIfAbsent(ruleSet, rules -> loadSchematronRules(rules, false))
+                : PROFILED_RULES.computeIfAbsent(ruleSet, rules -> loadSchematronRules(rules, true));
+        timings.add(timing(PhaseTiming.Phase.SCHEMA_LOOKUP, System.nanoTime() - lookupStart));
+        if (current.executable() == null) {
+            return withTimings(failure("Règles Schematron non chargées", ruleSet.label(), listener), timings);
+        }
+        if (currentProfiler != null && current.probes.isEmpty()) {
+            currentProfiler.recordUnprofiled(ruleSet.label());
+        }
+
+        SvrlHandler svrl = new SvrlHandler(listener);
+        long transformStart = System.nanoTime();
         try {
-            XPathCompiler xpathCompiler = processor.newXPathCompiler();
-            xpathCompiler.declareNamespace("svrl", "http://purl.oclc.org/dsdl/svrl");
-
-            net.sf.saxon.s9api.QName testQName = new net.sf.saxon.s9api.QName("test");
-            net.sf.saxon.s9api.QName locationQName = new net.sf.saxon.s9api.QName("location");
-
-            XPathSelector failedAssertions = xpathCompiler.compile("//svrl:failed-assert").load();
-            failedAssertions.setContextItem(resultNode);
-
-            List<ValidationError> errors = new ArrayList<>();
-            for (XdmItem item : failedAssertions) {
-                XdmNode assertion = (XdmNode) item;
-                String test = assertion.getAttributeValue(testQName);
-                String location = assertion.getAttributeValue(locationQName);
-                String text = getTextContent(assertion);
-
-                ValidationError error = ValidationError.builder()
-                        .message(text)
-                        .location(location)
-                        .rule(test)
-                        .severity(ValidationError.ErrorSeverity.ERROR)
-                        .build();
-                errors.add(error);
+            current.transform(source, new SAXDestination(svrl), currentProfiler);
+        } catch (Exception e) {
+            if (!SvrlHandler.stopped(e)) {
+                logger.error("Échec de la validation Schematron", e);
+                return withTimings(failure("Erreur de validation : " + e.getMessage(), ruleSet.label(), listener),
+                        timings);
             }
+            listener.onWarning(ValidationIssue.of(ValidationWarning.builder()
+                    .message("Validation Schematron interrompue après " + svrl.errorCount() + " erreur(s)")
+                    .build()));
+        } finally {
+            long transformNanos = System.nanoTime() - transformStart;
+            timings.add(timing(PhaseTiming.Phase.SCHEMATRON_TRANSFORM, transformNanos - svrl.mappingNanos()));
+            timings.add(timing(PhaseTiming.Phase.SVRL_MAPPING, svrl.mappingNanos()));
+        }
+        return ValidationResult.builder()
+                .valid(svrl.errorCount() == 0)
+                .validatedAgainst(ruleSet.label())
+                .validationTimeMs(System.currentTimeMillis() - startTime)
+                .timings(timings)
+                .build();
+    }
 
-            XPathSelector successfulReports = xpathCompiler.compile("//svrl:successful-report").load();
-            successfulReports.setContextItem(resultNode);
-            List<ValidationWarning> warnings = new ArrayList<>();
-            for (XdmItem item : successfulReports) {
-                XdmNode report = (XdmNode) item;
-                String test = report.getAttributeValue(testQName);
-                String location = report.getAttributeValue(locationQName);
-                String text = getTextContent(report);
-
-                ValidationWarning warning = ValidationWarning.builder()
-                        .message(text)
-                        .location(location)
-                        .rule(test)
-                        .build();
-                warnings.add(warning);
-            }
+    private PhaseTiming timing(PhaseTiming.Phase phase, long nanos) {
+        return PhaseTiming.builder()
+                .validator(getClass().getSimpleName())
+                .phase(phase)
+                .nanos(nanos)
+                .build();
+    }
 
-            builder.errors(errors);
-            builder.warnings(warnings);
-            builder.valid(errors.isEmpty());
+    private static ValidationResult withTimings(ValidationResult result, List<PhaseTiming> timings) {
+        result.setTimings(timings);
+        return result;
+    }
 
-        } catch (Exception e) {
-            logger.error("Échec de l'analyse des résultats Schematron", e);
+    private static String rootElement(XdmNode document) {
+        XdmNode root = firstChild(document, null);
+        return root != null ? root.getNodeName().getLocalName() : "";
+    }
+
+    /**
+     * Premier identifiant de spécification du contexte du document, {@code null} s'il est absent.
+     */
+    static String guidelineId(XdmNode document) {
+        XdmNode node = firstChild(document, null);
+        for (String name : List.of("ExchangedDocumentContext", "GuidelineSpecifiedDocumentContextParameter", "ID")) {
+            if (node == null) {
+                return null;
+            }
+            node = firstChild(node, name);
         }
+        return node != null ? node.getStringValue().strip() : null;
     }
-    
-    private String getTextContent(XdmNode node) {
-        StringBuilder text = new StringBuilder();
-        for (XdmItem child : node) {
-            if (child instanceof XdmNode) {
-                XdmNode childNode = (XdmNode) child;
-                if (childNode.getNodeKind() == XdmNodeKind.TEXT) {
-                    text.append(childNode.getStringValue());
-                }
+
+    private static XdmNode firstChild(XdmNode parent, String localName) {
+        for (XdmNode child : parent.children()) {
+            if (child.getNodeKind() == XdmNodeKind.ELEMENT
+                    && (localName == null || localName.equals(child.getNodeName().getLocalName()))) {
+                return child;
             }
         }
-        return text.toString().trim();
+        return null;
     }
-    
+
+    private static CompiledRules loadSchematronRules(SchematronRuleSets.RuleSet ruleSet, boolean profiled) {
+        String resource = ruleSet.resource();
+        try (InputStream is = SchematronValidator.class.getClassLoader().getResourceAsStream(resource)) {
+            if (is == null) {
+                logger.error("Ressource Schematron introuvable : {}", resource);
+                return new CompiledRules(null, Map.of());
+            }
+            logger.info("Chargement des règles Schematron depuis {}", resource);
+            XsltCompiler compiler = PROCESSOR.newXsltCompiler();
+            if (!profiled) {
+                return new CompiledRules(compiler.compile(new StreamSource(is)), Map.of());
+            }
+            byte[] stylesheet = is.readAllBytes();
+            compiler.setCompileWithTracing(true);
+            DocumentBuilder builder = PROCESSOR.newDocumentBuilder();
+            builder.setLineNumbering(true);
+            XdmNode document = builder.build(new StreamSource(new ByteArrayInputStream(stylesheet)));
+            Map<Integer, ProfilingTraceListener.Probe> probes = ProfilingTraceListener.index(document);
+            if (probes.isEmpty()) {
+                logger.warn("Profilage impossible pour {} : aucune règle identifiable dans la feuille, "
+                        + "qui n'a pas été générée par SchematronCompiler", resource);
+            }
+            return new CompiledRules(compiler.compile(new StreamSource(new ByteArrayInputStream(stylesheet))),
+                    probes);
+        } catch (Exception e) {
+            logger.error("Échec du chargement des règles Schematron", e);
+            return new CompiledRules(null, Map.of());
+        }
+    }
+
+    private static ValidationResult failure(String message, String validatedAgainst, ValidationListener listener) {
+        listener.onError(ValidationIssue.of(ValidationError.builder()
+                .message(message)
+                .severity(ValidationError.ErrorSeverity.FATAL)
+                .build()));
+        return ValidationResult.builder()
+                .valid(false)
+                .validatedAgainst(validatedAgainst)
+                .build();
+    }
+
     private ValidationResult createErrorResult(String message) {
+        return createErrorResult(message, "Schematron");
+    }
+
+    private ValidationResult createErrorResult(String message, String validatedAgainst) {
         ValidationError error = ValidationError.builder()
                 .message(message)
                 .severity(ValidationError.ErrorSeverity.FATAL)
@@ -168,7 +411,56 @@ public class SchematronValidator implements CIIValidator {
         return ValidationResult.builder()
                 .valid(false)
                 .errors(errors)
-                .validatedAgainst("Schematron EN 16931")
+                .validatedAgainst(validatedAgainst)
                 .build();
     }
+
+    /**
+     * Règles compilées d'un jeu et réserve de transformateurs inactifs ; {@code probes} indexe les éléments
+     * instrumentés d'une compilation destinée au profilage.
+     * <p>
+     * Un transformateur est emprunté pour une transformation puis rendu ; la réserve en conserve au plus
+     * {@link #MAX_IDLE_TRANSFORMERS}, les suivants étant abandonnés au ramasse-miettes. Un transformateur n'est
+     * jamais utilisé par deux transformations simultanées.
+     * </p>
+     */
+    private static final class CompiledRules {
+        private final XsltExecutable executable;
+        private final Map<Integer, ProfilingTraceListener.Probe> probes;
+        private final Queue<Xslt30Transformer> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        CompiledRules(XsltExecutable executable, Map<Integer, ProfilingTraceListener.Probe> probes) {
+            this.executable = executable;
+            this.probes = probes;
+        }
+
+        XsltExecutable executable() {
+            return executable;
+        }
+
+        void transform(Source source, Destination destination, SchematronProfiler profiler)
+                throws SaxonApiException {
+            Xslt30Transformer transformer = idle.poll();
+            if (transformer != null) {
+                idleCount.decrementAndGet();
+            } else {
+                transformer = executable.load30();
+            }
+            if (profiler != null) {
+                transformer.setTraceListener(new ProfilingTraceListener(profiler, probes));
+            }
+            // un transformateur interrompu en cours de route n'est pas rendu à la réserve
+            transformer.transform(source, destination);
+            release(transformer);
+        }
+
+        private void release(Xslt30Transformer transformer) {
+            if (idleCount.incrementAndGet() <= MAX_IDLE_TRANSFORMERS) {
+                idle.offer(transformer);
+            } else {
+                idleCount.decrementAndGet();
+            }
+        }
+    }
 }
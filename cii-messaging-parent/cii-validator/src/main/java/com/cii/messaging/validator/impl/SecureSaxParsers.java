@@ -0,0 +1,53 @@
+package com.cii.messaging.validator.impl;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+/**
+ * Fabrique partagée de lecteurs SAX sécurisés (DOCTYPE et entités externes interdits).
+ * <p>
+ * La {@link SAXParserFactory} est configurée une seule fois ; chaque appel obtient un nouveau lecteur,
+ * un {@link XMLReader} ne devant pas être partagé entre threads.
+ * </p>
+ */
+final class SecureSaxParsers {
+
+    private static final SAXParserFactory FACTORY = createFactory();
+
+    private SecureSaxParsers() {
+        // utilitaire
+    }
+
+    /**
+     * Crée un lecteur SAX sensible aux espaces de noms et protégé contre les attaques XXE.
+     *
+     * @return nouveau lecteur SAX
+     * @throws SAXException si l'analyseur ne peut pas être créé
+     */
+    static XMLReader newReader() throws SAXException {
+        try {
+            synchronized (FACTORY) {
+                return FACTORY.newSAXParser().getXMLReader();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new SAXException("Impossible de créer l'analyseur XML : " + e.getMessage(), e);
+        }
+    }
+
+    private static SAXParserFactory createFactory() {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setXIncludeAware(false);
+        try {
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IllegalStateException("Impossible de sécuriser l'analyseur XML", e);
+        }
+        return factory;
+    }
+}
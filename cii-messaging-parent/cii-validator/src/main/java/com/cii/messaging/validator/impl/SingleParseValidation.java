@@ -0,0 +1,126 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.CIIValidator;
+import com.cii.messaging.validator.ValidationResult;
+import net.sf.saxon.s9api.BuildingContentHandler;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XdmNode;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Analyse le document une seule fois pour le XSD et le Schematron.
+ * <p>
+ * Le premier {@link XSDValidator} lit le flux et diffuse les événements SAX à la fois à son
+ * {@link javax.xml.validation.ValidatorHandler} et à un constructeur d'arbre Saxon ; chaque
+ * {@link SchematronValidator} applique ensuite ses règles sur cet arbre. Les autres validateurs, ainsi que le
+ * Schematron lorsque l'arbre n'a pas pu être construit entièrement (document mal formé, analyse interrompue),
+ * reprennent la validation habituelle.
+ * </p>
+ */
+final class SingleParseValidation implements Function<CIIValidator, ValidationResult> {
+
+    /**
+     * Ouvre un nouveau flux sur le document à valider.
+     */
+    @FunctionalInterface
+    interface Input {
+        InputStream open() throws IOException;
+    }
+
+    private final Function<CIIValidator, ValidationResult> fallback;
+    private final Input input;
+    private final XSDValidator parser;
+    private volatile XdmNode document;
+
+    private SingleParseValidation(Function<CIIValidator, ValidationResult> fallback, Input input,
+                                  XSDValidator parser) {
+        this.fallback = fallback;
+        this.input = input;
+        this.parser = parser;
+    }
+
+    /**
+     * Prépare une validation en analyse unique pour les validateurs donnés, ou renvoie {@code fallback} s'ils ne
+     * comptent pas à la fois un {@link XSDValidator} et un {@link SchematronValidator}.
+     * <p>
+     * Le XSD doit s'exécuter avant le Schematron pour que ce dernier profite de l'arbre.
+     * </p>
+     */
+    static Function<CIIValidator, ValidationResult> of(List<CIIValidator> validators,
+                                                       Function<CIIValidator, ValidationResult> fallback,
+                                                       Input input) {
+        XSDValidator parser = null;
+        boolean schematron = false;
+        for (CIIValidator validator : validators) {
+            if (parser == null && validator instanceof XSDValidator xsd) {
+                parser = xsd;
+            }
+            schematron |= validator instanceof SchematronValidator;
+        }
+        return parser != null && schematron ? new SingleParseValidation(fallback, input, parser) : fallback;
+    }
+
+    @Override
+    public ValidationResult apply(CIIValidator validator) {
+        if (validator == parser) {
+            return parseOnce();
+        }
+        XdmNode tree = document;
+        if (tree != null && validator instanceof SchematronValidator schematron) {
+            return schematron.validate(tree);
+        }
+        return fallback.apply(validator);
+    }
+
+    private ValidationResult parseOnce() {
+        BuildingContentHandler builder;
+        try {
+            builder = SchematronValidator.newTreeBuilder();
+        } catch (SaxonApiException e) {
+            return fallback.apply(parser);
+        }
+        TreeCapture capture = new TreeCapture(builder);
+        ValidationResult result;
+        try (InputStream inputStream = input.open()) {
+            result = parser.validate(inputStream, capture);
+        } catch (IOException e) {
+            // le validateur produit lui-même le message d'erreur habituel
+            return fallback.apply(parser);
+        }
+        if (capture.complete()) {
+            try {
+                document = builder.getDocumentNode();
+            } catch (SaxonApiException e) {
+                // le Schematron analysera le document lui-même
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Transmet les événements au constructeur d'arbre et retient si le document a été reçu en entier.
+     */
+    static class TreeCapture extends XMLFilterImpl {
+        private boolean complete;
+
+        TreeCapture(BuildingContentHandler builder) {
+            setContentHandler(builder);
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            super.endDocument();
+            complete = true;
+        }
+
+        boolean complete() {
+            return complete;
+        }
+    }
+}
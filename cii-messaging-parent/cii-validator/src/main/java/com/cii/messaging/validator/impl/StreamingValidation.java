@@ -0,0 +1,296 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.validator.CIIValidator;
+import com.cii.messaging.validator.SchemaVersion;
+import com.cii.messaging.validator.ValidationError;
+import com.cii.messaging.validator.ValidationResult;
+import net.sf.saxon.s9api.BuildingContentHandler;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XdmNode;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Valide un flux en un seul passage, sans le charger en mémoire.
+ * <p>
+ * Le type de message et l'identifiant de spécification sont lus sur le prologue ({@link MessagePeek}, lecture
+ * bornée puis retour au début), puis
+ * le flux est analysé une seule fois : les événements SAX alimentent simultanément le {@link XSDValidator}, le
+ * {@link CalculationRulesValidator} et, dans la limite de {@code schematronMaxBytes}, l'arbre Saxon sur lequel
+ * s'exécutent les {@link SchematronValidator}. La mémoire de l'étape XSD ne dépend donc pas de la taille du
+ * document. Au-delà de la limite, l'arbre est abandonné en cours d'analyse et le Schematron ignoré, sauf avec
+ * {@link SchematronSizePolicy#WARN}.
+ * </p>
+ * <p>
+ * Le flux n'étant lu qu'une fois, seuls un {@link XSDValidator} et des validateurs Schematron et de calcul peuvent
+ * partager l'analyse ({@link #supports(List)}).
+ * </p>
+ */
+final class StreamingValidation implements Function<CIIValidator, ValidationResult> {
+
+    private final CountingInputStream counter;
+    private final InputStream input;
+    private final MessageType type;
+    private final String guidelineId;
+    private final String peekFailure;
+    private final long schematronMaxBytes;
+    private final SchematronSizePolicy sizePolicy;
+    private XSDValidator parser;
+    private CalculationRulesValidator calculation;
+    private boolean schematron;
+    private boolean parsed;
+    private ValidationResult parserResult;
+    private ValidationResult calculationResult;
+    private XdmNode document;
+    private long size;
+
+    /**
+     * Détecte le type du message sur le début du flux.
+     *
+     * @param inputStream        flux XML, lu une seule fois
+     * @param schematronMaxBytes taille au-delà de laquelle l'arbre du Schematron n'est pas construit, {@code 0}
+     *                           pour ne pas limiter
+     * @param sizePolicy         traitement du Schematron au-delà de la limite
+     */
+    StreamingValidation(InputStream inputStream, long schematronMaxBytes, SchematronSizePolicy sizePolicy) {
+        this.counter = new CountingInputStream(inputStream);
+        this.input = new BufferedInputStream(counter);
+        this.schematronMaxBytes = schematronMaxBytes;
+        this.sizePolicy = sizePolicy;
+        MessagePeek.Result detected = null;
+        String failure = null;
+        try {
+            detected = MessagePeek.peek(input);
+        } catch (IOException | SAXException e) {
+            failure = e.getMessage();
+        }
+        this.type = detected != null ? detected.type() : null;
+        this.guidelineId = detected != null ? detected.guidelineId() : null;
+        this.peekFailure = failure;
+    }
+
+    /**
+     * Indique si les validateurs peuvent partager une seule analyse du flux : un unique {@link XSDValidator},
+     * accompagné uniquement de validateurs Schematron et de calcul.
+     */
+    static boolean supports(List<CIIValidator> validators) {
+        int parsers = 0;
+        for (CIIValidator validator : validators) {
+            if (validator instanceof XSDValidator) {
+                parsers++;
+            } else if (!(validator instanceof SchematronValidator) && !(validator instanceof CalculationRulesValidator)) {
+                return false;
+            }
+        }
+        return parsers == 1;
+    }
+
+    /**
+     * Type détecté sur le prologue, {@code null} si la détection a échoué.
+     */
+    MessageType type() {
+        return type;
+    }
+
+    /**
+     * Contexte déduit de l'identifiant de spécification du prologue.
+     */
+    DocumentContext context() {
+        return GuidelineContexts.resolve(guidelineId);
+    }
+
+    /**
+     * Lit le reste du flux, depuis son début, pour les validateurs qui ne supportent pas l'analyse unique.
+     */
+    byte[] readAll() throws IOException {
+        return input.readAllBytes();
+    }
+
+    /**
+     * Associe les validateurs qui partageront l'analyse ; ils doivent satisfaire {@link #supports(List)}.
+     */
+    StreamingValidation bind(List<CIIValidator> validators) {
+        for (CIIValidator validator : validators) {
+            if (validator instanceof XSDValidator xsd) {
+                parser = xsd;
+            } else if (validator instanceof CalculationRulesValidator rules) {
+                calculation = rules;
+            } else {
+                schematron = true;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ValidationResult apply(CIIValidator validator) {
+        parse();
+        if (validator == parser) {
+            return parserResult;
+        }
+        if (validator == calculation) {
+            return calculationResult;
+        }
+        if (peekFailure != null || !parsed) {
+            return CompositeValidator.skipped(validator, "analyse du flux interrompue");
+        }
+        if (document == null) {
+            return CompositeValidator.skipped(validator, "document de plus de " + schematronMaxBytes + " octets");
+        }
+        ValidationResult result = ((SchematronValidator) validator).validate(document);
+        if (schematronMaxBytes > 0 && size > schematronMaxBytes) {
+            CompositeValidator.warnOversized(result, size, schematronMaxBytes);
+        }
+        return result;
+    }
+
+    /**
+     * Analyse le flux au premier appel ; les appels suivants réutilisent les résultats.
+     */
+    private synchronized void parse() {
+        if (parserResult != null) {
+            return;
+        }
+        if (peekFailure != null) {
+            parserResult = failure("Échec de la validation du flux : " + peekFailure);
+            calculationResult = calculation != null
+                    ? CompositeValidator.skipped(calculation, "analyse du flux interrompue")
+                    : null;
+            return;
+        }
+        BuildingContentHandler builder = null;
+        if (schematron) {
+            try {
+                builder = SchematronValidator.newTreeBuilder();
+            } catch (SaxonApiException e) {
+                // le Schematron sera ignoré
+            }
+        }
+        TreeCapture capture = builder != null ? new TreeCapture(builder) : null;
+        EndOfDocument end = new EndOfDocument();
+        SchemaVersion version = parser.versionFor(guidelineId);
+        if (calculation != null) {
+            calculationResult = calculation.validate((rules, ignored) ->
+                    parserResult = parser.validate(type, version, (handler, errorHandler) ->
+                            read(tee(handler, tee(rules, capture)), end, errorHandler)));
+        } else {
+            parserResult = parser.validate(type, version, (handler, errorHandler) ->
+                    read(tee(handler, capture), end, errorHandler));
+        }
+        parsed = end.reached;
+        size = counter.count;
+        if (calculationResult != null && !parsed) {
+            calculationResult = CompositeValidator.skipped(calculation, "analyse du flux interrompue");
+        }
+        if (capture != null && capture.complete() && !capture.abandoned) {
+            try {
+                document = builder.getDocumentNode();
+            } catch (SaxonApiException e) {
+                // le Schematron sera ignoré
+            }
+        }
+    }
+
+    private void read(ContentHandler handler, EndOfDocument end, org.xml.sax.ErrorHandler errorHandler)
+            throws IOException, SAXException {
+        XMLReader reader = SecureSaxParsers.newReader();
+        reader.setErrorHandler(errorHandler);
+        end.setContentHandler(handler);
+        reader.setContentHandler(end);
+        reader.parse(new InputSource(input));
+    }
+
+    private static ContentHandler tee(ContentHandler first, ContentHandler second) {
+        return second == null ? first : new TeeContentHandler(first, second);
+    }
+
+    private static ValidationResult failure(String message) {
+        List<ValidationError> errors = new ArrayList<>();
+        errors.add(ValidationError.builder()
+                .message(message)
+                .severity(ValidationError.ErrorSeverity.FATAL)
+                .build());
+        return ValidationResult.builder()
+                .valid(false)
+                .errors(errors)
+                .build();
+    }
+
+    /**
+     * Construit l'arbre du Schematron et l'abandonne dès que le flux dépasse la limite : les événements suivants
+     * sont ignorés et l'arbre partiel peut être libéré.
+     */
+    private final class TreeCapture extends SingleParseValidation.TreeCapture {
+        private boolean abandoned;
+
+        TreeCapture(BuildingContentHandler builder) {
+            super(builder);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            if (!abandoned && schematronMaxBytes > 0 && sizePolicy == SchematronSizePolicy.SKIP
+                    && counter.count > schematronMaxBytes) {
+                abandoned = true;
+                setContentHandler(new DefaultHandler());
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+    }
+
+    /**
+     * Retient si l'analyse a atteint la fin du document.
+     */
+    private static final class EndOfDocument extends XMLFilterImpl {
+        private boolean reached;
+
+        @Override
+        public void endDocument() throws SAXException {
+            super.endDocument();
+            reached = true;
+        }
+    }
+
+    /**
+     * Compte les octets lus dans le flux d'origine.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
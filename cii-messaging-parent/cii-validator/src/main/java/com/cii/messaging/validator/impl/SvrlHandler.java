@@ -0,0 +1,160 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.ValidationError;
+import com.cii.messaging.validator.ValidationIssue;
+import com.cii.messaging.validator.ValidationListener;
+import com.cii.messaging.validator.ValidationWarning;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Consomme la sortie SVRL au fil des événements SAX, sans construire d'arbre, et transmet chaque constat à un
+ * {@link ValidationListener}.
+ * <p>
+ * Chaque {@code svrl:failed-assert} devient une erreur et chaque {@code svrl:successful-report} un avertissement,
+ * sauf si l'attribut {@code flag} indique l'inverse ({@code warning} ou
+ * {@code information} pour une assertion, {@code fatal} ou {@code error} pour un rapport). Le message est le
+ * contenu de l'élément {@code svrl:text} ; la règle est l'identifiant de l'assertion ({@code BR-16}, ...) ou, à
+ * défaut, son test XPath. Lorsque le listener refuse une erreur, la transformation est interrompue
+ * ({@link #stopped(Throwable)}).
+ * </p>
+ * <p>
+ * Le temps de conversion est mesuré ({@link #mappingNanos()}) pour être distingué de celui de la transformation.
+ * </p>
+ */
+class SvrlHandler extends DefaultHandler {
+
+    static final String SVRL_NAMESPACE = "http://purl.oclc.org/dsdl/svrl";
+
+    private final ValidationListener listener;
+
+    private final StringBuilder text = new StringBuilder();
+    private String kind;
+    private String rule;
+    private String flag;
+    private String location;
+    private int textDepth;
+    private long mappingNanos;
+    private int errorCount;
+
+    SvrlHandler(ValidationListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        if (!SVRL_NAMESPACE.equals(uri)) {
+            return;
+        }
+        if ("failed-assert".equals(localName) || "successful-report".equals(localName)) {
+            long start = System.nanoTime();
+            kind = localName;
+            String id = attributes.getValue("id");
+            rule = id != null ? id : attributes.getValue("test");
+            flag = attributes.getValue("flag");
+            location = attributes.getValue("location");
+            text.setLength(0);
+            mappingNanos += System.nanoTime() - start;
+        } else if (kind != null && "text".equals(localName)) {
+            textDepth++;
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (textDepth > 0) {
+            text.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (!SVRL_NAMESPACE.equals(uri) || kind == null) {
+            return;
+        }
+        if ("text".equals(localName)) {
+            textDepth--;
+        } else if (kind.equals(localName)) {
+            long start = System.nanoTime();
+            SvrlIssue issue = new SvrlIssue(text.toString().trim(), location, rule);
+            boolean error = isError();
+            kind = null;
+            try {
+                if (!error) {
+                    listener.onWarning(issue);
+                } else {
+                    errorCount++;
+                    if (!listener.onError(issue)) {
+                        throw new StoppedException();
+                    }
+                }
+            } finally {
+                mappingNanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    private boolean isError() {
+        if ("failed-assert".equals(kind)) {
+            return !"warning".equals(flag) && !"information".equals(flag);
+        }
+        return "fatal".equals(flag) || "error".equals(flag);
+    }
+
+    /**
+     * Durée passée à convertir les assertions et rapports en erreurs et avertissements, en nanosecondes.
+     */
+    long mappingNanos() {
+        return mappingNanos;
+    }
+
+    /**
+     * Nombre d'erreurs transmises au listener.
+     */
+    int errorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Indique si la transformation a échoué parce que le listener a demandé son interruption.
+     */
+    static boolean stopped(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StoppedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Interrompt la transformation à la demande du listener.
+     */
+    private static final class StoppedException extends SAXException {
+        StoppedException() {
+            super("Validation Schematron interrompue par le listener");
+        }
+    }
+
+    /**
+     * Assertion ou rapport SVRL, converti en {@link ValidationError} ou {@link ValidationWarning} à la lecture.
+     */
+    private record SvrlIssue(String message, String location, String rule) implements ValidationIssue {
+
+        @Override
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String getLocation() {
+            return location;
+        }
+
+        @Override
+        public String getRule() {
+            return rule;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.cii.messaging.validator.impl;
+
+/**
+ * Politique d'enchaînement des étapes de {@link CompositeValidator}.
+ */
+public enum ValidationPolicy {
+    /** Exécute toutes les étapes, quel que soit leur résultat. */
+    FULL,
+    /** S'arrête après la première étape en échec. */
+    FAIL_FAST,
+    /** Ignore la validation Schematron lorsque la validation XSD échoue. */
+    SKIP_SCHEMATRON_ON_XSD_ERROR
+}
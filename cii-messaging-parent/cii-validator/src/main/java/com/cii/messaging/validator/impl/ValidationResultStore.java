@@ -0,0 +1,27 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.ValidationResult;
+
+/**
+ * Niveau persistant du cache de {@link MemoizingValidator}, consulté lorsque le cache mémoire ne contient pas le
+ * résultat. Les implémentations doivent être utilisables par plusieurs threads ; un échec d'accès doit se traduire
+ * par une absence de résultat, jamais par une exception.
+ */
+public interface ValidationResultStore {
+
+    /**
+     * Retourne le résultat enregistré pour la clé.
+     *
+     * @param key clé du document : empreinte du contenu, version du schéma et validateurs actifs
+     * @return résultat enregistré, {@code null} s'il est absent ou illisible
+     */
+    ValidationResult load(String key);
+
+    /**
+     * Enregistre le résultat d'un document.
+     *
+     * @param key    clé du document
+     * @param result résultat à conserver
+     */
+    void save(String key, ValidationResult result);
+}
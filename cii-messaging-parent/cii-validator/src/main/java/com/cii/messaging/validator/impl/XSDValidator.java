@@ -4,78 +4,60 @@ import com.cii.messaging.model.common.MessageType;
 import com.cii.messaging.validator.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
 import org.xml.sax.*;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.SAXParserFactory;
-import javax.xml.transform.Source;
-import javax.xml.transform.sax.SAXSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Validator de messages CII basé sur les schémas XSD officiels UN/CEFACT.
  * <p>
  * Les schémas sont chargés dynamiquement selon la version configurée via
- * {@link SchemaVersion}.
+ * {@link SchemaVersion} et partagés entre instances par {@link SchemaCache}. Avec
+ * {@link #setDetectDocumentContext(boolean)}, la version est déduite de chaque document lors de la lecture du
+ * prologue ({@link GuidelineContexts}) : une même instance valide simultanément des messages de versions
+ * différentes.
+ * </p>
+ * <p>
+ * Les erreurs sont transmises à un {@link ValidationListener} pendant l'analyse
+ * ({@link #validate(InputStream, ValidationListener)}) ; le résultat habituel est construit au-dessus par un
+ * {@link ValidationCollector}.
  * </p>
  */
 public class XSDValidator implements CIIValidator {
     private static final Logger logger = LoggerFactory.getLogger(XSDValidator.class);
-    private final Map<SchemaCacheKey, Schema> schemaCache = new ConcurrentHashMap<>();
     private volatile SchemaVersion schemaVersion = SchemaVersion.getDefault();
+    private volatile int maxErrors;
+    private volatile boolean detectDocumentContext;
 
     @Override
     public ValidationResult validate(File xmlFile) {
-        long start = System.currentTimeMillis();
-        ValidationResult.ValidationResultBuilder builder = ValidationResult.builder();
-
-        SchemaVersion currentVersion = this.schemaVersion;
-        try (InputStream is = new FileInputStream(xmlFile)) {
-            byte[] data = is.readAllBytes();
-            MessageType type = detectMessageType(data);
-            return performValidation(new ByteArrayInputStream(data), builder, start, type, currentVersion);
-        } catch (Exception e) {
-            builder.valid(false);
-            builder.validationTimeMs(System.currentTimeMillis() - start);
-            ValidationError error = ValidationError.builder()
-                    .message("Échec de la validation du fichier : " + e.getMessage())
-                    .severity(ValidationError.ErrorSeverity.FATAL)
-                    .build();
-            builder.errors(List.of(error));
-            return builder.build();
+        try (InputStream is = new BufferedInputStream(new FileInputStream(xmlFile))) {
+            return collect(listener -> validateMarkable(is, "Échec de la validation du fichier : ", null, listener));
+        } catch (IOException e) {
+            long start = System.currentTimeMillis();
+            return collect(listener -> failure("Échec de la validation du fichier : " + e.getMessage(), start,
+                    listener));
         }
     }
 
     @Override
     public ValidationResult validate(InputStream inputStream) {
-        long start = System.currentTimeMillis();
-        ValidationResult.ValidationResultBuilder builder = ValidationResult.builder();
+        return validate(inputStream, (ContentHandler) null);
+    }
 
-        SchemaVersion currentVersion = this.schemaVersion;
-        try {
-            byte[] data = inputStream.readAllBytes();
-            MessageType type = detectMessageType(data);
-            return performValidation(new ByteArrayInputStream(data), builder, start, type, currentVersion);
-        } catch (Exception e) {
-            builder.valid(false);
-            builder.validationTimeMs(System.currentTimeMillis() - start);
-            ValidationError error = ValidationError.builder()
-                    .message("Échec de la validation du flux : " + e.getMessage())
-                    .severity(ValidationError.ErrorSeverity.FATAL)
-                    .build();
-            builder.errors(List.of(error));
-            return builder.build();
-        }
+    /**
+     * Transmet chaque erreur et avertissement à {@code listener} pendant l'analyse, sans les accumuler ; le message
+     * de position des avertissements n'est mis en forme que s'il est lu.
+     */
+    @Override
+    public ValidationResult validate(InputStream inputStream, ValidationListener listener) {
+        InputStream markable = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        return validateMarkable(markable, "Échec de la validation du flux : ", null, listener);
     }
 
     @Override
@@ -86,142 +68,284 @@ public class XSDValidator implements CIIValidator {
     @Override
     public void setSchemaVersion(SchemaVersion version) {
         this.schemaVersion = Objects.requireNonNull(version, "version");
-        schemaCache.clear();
     }
 
-    private ValidationResult performValidation(InputStream inputStream,
-                                               ValidationResult.ValidationResultBuilder builder,
+    /**
+     * Déduit la version de chaque document de son identifiant de spécification ; la version configurée
+     * s'applique aux documents dont la version n'a pas pu être déduite.
+     *
+     * @param detect {@code true} pour activer la détection
+     */
+    public void setDetectDocumentContext(boolean detect) {
+        this.detectDocumentContext = detect;
+    }
+
+    /**
+     * Version configurée.
+     */
+    SchemaVersion schemaVersion() {
+        return schemaVersion;
+    }
+
+    /**
+     * Indique si la version est déduite de chaque document.
+     */
+    boolean detectsDocumentContext() {
+        return detectDocumentContext;
+    }
+
+    /**
+     * Version appliquée à un document d'identifiant de spécification {@code guidelineId}.
+     */
+    SchemaVersion versionFor(String guidelineId) {
+        SchemaVersion configured = this.schemaVersion;
+        return detectDocumentContext ? GuidelineContexts.resolve(guidelineId).versionOr(configured) : configured;
+    }
+
+    /**
+     * Limite le nombre d'erreurs collectées : l'analyse est interrompue dès que la limite est atteinte.
+     *
+     * @param maxErrors nombre maximal d'erreurs, {@code 0} pour ne pas limiter
+     */
+    public void setMaxErrors(int maxErrors) {
+        if (maxErrors < 0) {
+            throw new IllegalArgumentException("Le nombre maximal d'erreurs doit être positif ou nul : " + maxErrors);
+        }
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Nombre maximal d'erreurs collectées, {@code 0} si illimité.
+     */
+    int maxErrors() {
+        return maxErrors;
+    }
+
+    /**
+     * Valide le flux en transmettant également chaque événement SAX à {@code secondary}, de sorte qu'un second
+     * consommateur (arbre Saxon du Schematron, par exemple) profite de la même analyse.
+     *
+     * @param inputStream flux XML
+     * @param secondary destinataire supplémentaire des événements, {@code null} si aucun
+     * @return résultat de la validation XSD
+     */
+    ValidationResult validate(InputStream inputStream, ContentHandler secondary) {
+        InputStream markable = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        return collect(listener -> validateMarkable(markable, "Échec de la validation du flux : ", secondary, listener));
+    }
+
+    /**
+     * Valide un document produit directement sous forme d'événements SAX (marshalling JAXB, par exemple), sans
+     * texte intermédiaire. Les erreurs ne portent alors pas de numéro de ligne.
+     *
+     * @param type   type du message, qui détermine le schéma
+     * @param events producteur des événements du document
+     * @return résultat de la validation XSD
+     */
+    ValidationResult validate(MessageType type, SaxEvents events) {
+        return validate(type, this.schemaVersion, events);
+    }
+
+    /**
+     * Valide un document produit sous forme d'événements SAX contre le schéma d'une version donnée.
+     *
+     * @param type    type du message, qui détermine le schéma
+     * @param version version du schéma
+     * @param events  producteur des événements du document
+     * @return résultat de la validation XSD
+     */
+    ValidationResult validate(MessageType type, SchemaVersion version, SaxEvents events) {
+        long start = System.currentTimeMillis();
+        return collect(listener -> performValidation(events, start, type, version, listener));
+    }
+
+    /**
+     * Construit le résultat habituel, listes d'erreurs et d'avertissements comprises, au-dessus d'une validation
+     * par listener.
+     */
+    private static ValidationResult collect(Function<ValidationListener, ValidationResult> validation) {
+        ValidationCollector collector = new ValidationCollector();
+        return collector.complete(validation.apply(collector));
+    }
+
+    /**
+     * Détecte le type de message sur le prologue puis valide le même flux en un seul passage SAX.
+     */
+    private ValidationResult validateMarkable(InputStream inputStream, String failurePrefix,
+                                              ContentHandler secondary, ValidationListener listener) {
+        long start = System.currentTimeMillis();
+        long detectionStart = System.nanoTime();
+        SchemaVersion currentVersion;
+        MessageType type;
+        try {
+            if (detectDocumentContext) {
+                MessagePeek.Result peek = MessagePeek.peek(inputStream);
+                type = peek.type();
+                currentVersion = versionFor(peek.guidelineId());
+            } else {
+                type = MessagePeek.detectMessageType(inputStream);
+                currentVersion = this.schemaVersion;
+            }
+        } catch (Exception e) {
+            return failure(failurePrefix + e.getMessage(), start, listener);
+        }
+        SaxEvents events = (handler, errorHandler) -> {
+            XMLReader reader = SecureSaxParsers.newReader();
+            reader.setErrorHandler(errorHandler);
+            reader.setContentHandler(secondary == null ? handler : new TeeContentHandler(handler, secondary));
+            reader.parse(new InputSource(inputStream));
+        };
+        long detectionNanos = System.nanoTime() - detectionStart;
+        ValidationResult result = performValidation(events, start, type, currentVersion, listener);
+        result.getTimings().add(0, PhaseTiming.builder()
+                .validator(getClass().getSimpleName())
+                .phase(PhaseTiming.Phase.DETECTION)
+                .nanos(detectionNanos)
+                .build());
+        return result;
+    }
+
+    private ValidationResult failure(String message, long start, ValidationListener listener) {
+        listener.onError(ValidationIssue.of(ValidationError.builder()
+                .message(message)
+                .severity(ValidationError.ErrorSeverity.FATAL)
+                .build()));
+        return ValidationResult.builder()
+                .valid(false)
+                .validationTimeMs(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    private ValidationResult performValidation(SaxEvents events,
                                                long start,
                                                MessageType type,
-                                               SchemaVersion version) {
-        List<ValidationError> errors = new ArrayList<>();
-        List<ValidationWarning> warnings = new ArrayList<>();
-
+                                               SchemaVersion version,
+                                               ValidationListener listener) {
+        ValidationResult result = ValidationResult.builder()
+                .validatedAgainst("XSD " + version.getVersion())
+                .build();
+        String name = getClass().getSimpleName();
+        ValidationErrorHandler handler = new ValidationErrorHandler(listener, maxErrors);
         try {
-            Schema schema = getSchema(type, version);
-            Validator validator = schema.newValidator();
-            ValidationErrorHandler handler = new ValidationErrorHandler(errors, warnings);
-            validator.setErrorHandler(handler);
-
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            factory.setNamespaceAware(true);
-            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            factory.setXIncludeAware(false);
-
-            XMLReader reader = factory.newSAXParser().getXMLReader();
-            Source source = new SAXSource(reader, new InputSource(new BufferedInputStream(inputStream)));
-            validator.validate(source);
-
-            builder.valid(!handler.hasErrors());
-            builder.errors(errors);
-            builder.warnings(warnings);
-            builder.validatedAgainst("XSD " + version.getVersion());
-            builder.validationTimeMs(System.currentTimeMillis() - start);
-            return builder.build();
+            long lookupStart = System.nanoTime();
+            Schema schema = SchemaCache.getSchema(type, version);
+            result.addTiming(name, PhaseTiming.Phase.SCHEMA_LOOKUP, System.nanoTime() - lookupStart);
+            long parseStart = System.nanoTime();
+            try {
+                ValidatorHandler validatorHandler = schema.newValidatorHandler();
+                validatorHandler.setErrorHandler(handler);
+                events.emit(validatorHandler, handler);
+            } catch (ErrorLimitReachedException e) {
+                listener.onWarning(ValidationIssue.of(ValidationWarning.builder()
+                        .message("Validation XSD interrompue après " + handler.errorCount() + " erreur(s)")
+                        .build()));
+            } finally {
+                result.addTiming(name, PhaseTiming.Phase.XSD_PARSE, System.nanoTime() - parseStart);
+            }
+            result.setValid(!handler.hasErrors());
         } catch (Exception e) {
             logger.error("Échec de la validation", e);
-            builder.valid(false);
-            builder.validationTimeMs(System.currentTimeMillis() - start);
-            ValidationError error = ValidationError.builder()
+            result.setValid(false);
+            listener.onError(ValidationIssue.of(ValidationError.builder()
                     .message("Erreur de validation : " + e.getMessage())
                     .severity(ValidationError.ErrorSeverity.FATAL)
-                    .build();
-            errors.add(error);
-            builder.errors(errors);
-            builder.warnings(warnings);
-            builder.validatedAgainst("XSD " + version.getVersion());
-            return builder.build();
+                    .build()));
         }
+        result.setValidationTimeMs(System.currentTimeMillis() - start);
+        return result;
     }
 
-    private Schema getSchema(MessageType type, SchemaVersion version) throws SAXException, IOException {
-        SchemaCacheKey cacheKey = new SchemaCacheKey(type, version);
-        Schema cached = schemaCache.get(cacheKey);
-        if (cached != null) {
-            return cached;
+    /**
+     * Interrompt l'analyse lorsque la limite d'erreurs est atteinte.
+     */
+    private static final class ErrorLimitReachedException extends SAXException {
+        ErrorLimitReachedException() {
+            super("Nombre maximal d'erreurs atteint");
         }
+    }
 
-        String xsdName = switch (type) {
-            case INVOICE -> "CrossIndustryInvoice.xsd";
-            case DESPATCH_ADVICE -> "CrossIndustryDespatchAdvice.xsd";
-            case ORDER -> "CrossIndustryOrder.xsd";
-            case ORDER_RESPONSE -> "CrossIndustryOrderResponse.xsd";
-        };
+    /**
+     * Transmet les erreurs de l'analyse au listener et l'interrompt lorsque le listener le demande ou que la
+     * limite d'erreurs est atteinte.
+     */
+    private static class ValidationErrorHandler implements ErrorHandler {
+        private final ValidationListener listener;
+        private final int maxErrors;
+        private int errorCount;
 
-        Schema schema = UneceSchemaLoader.loadSchema(xsdName, version);
-        Schema existing = schemaCache.putIfAbsent(cacheKey, schema);
-        return existing != null ? existing : schema;
-    }
+        ValidationErrorHandler(ValidationListener listener, int maxErrors) {
+            this.listener = listener;
+            this.maxErrors = maxErrors;
+        }
 
-    private MessageType detectMessageType(byte[] data) throws Exception {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-        factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        @Override
+        public void warning(SAXParseException e) {
+            listener.onWarning(new SaxIssue(e, null));
+        }
 
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(data)) {
-            Document doc = builder.parse(bais);
-            String root = doc.getDocumentElement().getLocalName();
-            try {
-                return MessageType.fromRootElement(root);
-            } catch (IllegalArgumentException ex) {
-                throw new SAXException("Élément racine inconnu : " + root, ex);
+        @Override
+        public void error(SAXParseException e) throws SAXException {
+            errorCount++;
+            boolean proceed = listener.onError(new SaxIssue(e, ValidationError.ErrorSeverity.ERROR));
+            if (!proceed || (maxErrors > 0 && errorCount >= maxErrors)) {
+                throw new ErrorLimitReachedException();
             }
         }
+
+        @Override
+        public void fatalError(SAXParseException e) {
+            errorCount++;
+            listener.onError(new SaxIssue(e, ValidationError.ErrorSeverity.FATAL));
+        }
+
+        boolean hasErrors() {
+            return errorCount > 0;
+        }
+
+        int errorCount() {
+            return errorCount;
+        }
     }
 
-    private record SchemaCacheKey(MessageType type, SchemaVersion version) { }
+    /**
+     * Erreur d'analyse dont la position n'est mise en forme qu'à la lecture.
+     */
+    private record SaxIssue(SAXParseException exception, ValidationError.ErrorSeverity severity)
+            implements ValidationIssue {
 
-    private static class ValidationErrorHandler implements ErrorHandler {
-        private final List<ValidationError> errors;
-        private final List<ValidationWarning> warnings;
-        private boolean hasErrors = false;
+        @Override
+        public String getMessage() {
+            return exception.getMessage();
+        }
 
-        ValidationErrorHandler(List<ValidationError> errors, List<ValidationWarning> warnings) {
-            this.errors = errors;
-            this.warnings = warnings;
+        @Override
+        public String getLocation() {
+            return "Ligne " + exception.getLineNumber() + ", Colonne " + exception.getColumnNumber();
         }
 
         @Override
-        public void warning(SAXParseException e) {
-            ValidationWarning warning = ValidationWarning.builder()
-                    .message(e.getMessage())
-                    .location("Ligne " + e.getLineNumber() + ", Colonne " + e.getColumnNumber())
-                    .build();
-            warnings.add(warning);
+        public int getLineNumber() {
+            return exception.getLineNumber();
         }
 
         @Override
-        public void error(SAXParseException e) {
-            hasErrors = true;
-            ValidationError error = ValidationError.builder()
-                    .message(e.getMessage())
-                    .lineNumber(e.getLineNumber())
-                    .columnNumber(e.getColumnNumber())
-                    .severity(ValidationError.ErrorSeverity.ERROR)
-                    .build();
-            errors.add(error);
+        public int getColumnNumber() {
+            return exception.getColumnNumber();
         }
 
         @Override
-        public void fatalError(SAXParseException e) {
-            hasErrors = true;
-            ValidationError error = ValidationError.builder()
-                    .message(e.getMessage())
-                    .lineNumber(e.getLineNumber())
-                    .columnNumber(e.getColumnNumber())
-                    .severity(ValidationError.ErrorSeverity.FATAL)
-                    .build();
-            errors.add(error);
+        public ValidationError.ErrorSeverity getSeverity() {
+            return severity;
         }
 
-        boolean hasErrors() {
-            return hasErrors;
+        @Override
+        public ValidationError toError() {
+            return ValidationError.builder()
+                    .message(getMessage())
+                    .lineNumber(getLineNumber())
+                    .columnNumber(getColumnNumber())
+                    .severity(severity)
+                    .build();
         }
     }
 }
-
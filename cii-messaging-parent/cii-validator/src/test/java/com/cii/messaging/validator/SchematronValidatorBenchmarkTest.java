@@ -0,0 +1,130 @@
+package com.cii.messaging.validator;
+
+import com.cii.messaging.validator.impl.CalculationRulesValidator;
+import com.cii.messaging.validator.impl.SchematronRuleSets;
+import com.cii.messaging.validator.impl.SchematronValidator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mesure indicative du débit de {@link SchematronValidator} partagé entre threads, de la latence par facture
+ * selon le profil et du gain des règles de calcul natives, exécutée uniquement avec {@code -Dcii.benchmark=true}.
+ * Les chiffres ne valent que pour les jeux de règles livrés, très en deçà des artefacts officiels CEN/TC 434 et KoSIT.
+ */
+@EnabledIfSystemProperty(named = "cii.benchmark", matches = "true")
+class SchematronValidatorBenchmarkTest {
+
+    private static final int VALIDATIONS = 20_000;
+
+    @Test
+    void mesureLeDebitSelonLeNombreDeThreads() throws Exception {
+        String invoice = lireFacture();
+        SchematronValidator validator = new SchematronValidator();
+        for (int i = 0; i < 2_000; i++) {
+            validator.validate(invoice);
+        }
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads : new int[]{1, 2, 4, processors}) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                long start = System.nanoTime();
+                List<Future<?>> tasks = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    tasks.add(executor.submit(() -> {
+                        for (int i = 0; i < VALIDATIONS / threads; i++) {
+                            assertTrue(validator.validate(invoice).isValid());
+                        }
+                    }));
+                }
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                System.out.printf("%d thread(s) : %.0f validations/s%n", threads, VALIDATIONS / seconds);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void mesureLaLatenceParFactureSelonLeProfil() throws Exception {
+        String small = lireFacture();
+        String large = factureDeLignes(small, 1_000);
+        for (String profile : List.of(SchematronRuleSets.DEFAULT_PROFILE, SchematronRuleSets.EN16931_SUBSET_PROFILE,
+                SchematronRuleSets.XRECHNUNG_SUBSET_PROFILE)) {
+            SchematronValidator validator = new SchematronValidator();
+            validator.setProfile(profile);
+            long cold = System.nanoTime();
+            assertTrue(validator.validate(small).isValid());
+            System.out.printf("%s : première validation (compilation XSLT comprise) %.1f ms%n",
+                    profile, (System.nanoTime() - cold) / 1_000_000.0);
+            mesurerLatence(validator, profile + ", facture 1 ligne", small, 5_000);
+            mesurerLatence(validator, profile + ", facture 1 000 lignes", large, 50);
+        }
+    }
+
+    @Test
+    void compareLesReglesDeCalculNativesAuSchematron() throws Exception {
+        String small = lireFacture();
+        String large = factureDeLignes(small, 1_000);
+        CalculationRulesValidator calculation = new CalculationRulesValidator();
+        SchematronValidator schematron = new SchematronValidator();
+        schematron.setProfile(SchematronRuleSets.EN16931_SUBSET_PROFILE);
+        for (String invoice : List.of(small, large)) {
+            int iterations = invoice == small ? 5_000 : 50;
+            String lignes = invoice == small ? "1 ligne" : "1 000 lignes";
+            mesurerLatence(calculation, "Règles de calcul natives, " + lignes, invoice, iterations);
+            mesurerLatence(schematron, "Schematron " + SchematronRuleSets.EN16931_SUBSET_PROFILE + ", " + lignes, invoice, iterations);
+        }
+    }
+
+    private void mesurerLatence(CIIValidator validator, String libelle, String invoice, int iterations) {
+        for (int i = 0; i < iterations / 5; i++) {
+            validator.validate(invoice);
+        }
+        long[] durations = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            ValidationResult result = validator.validate(invoice);
+            durations[i] = System.nanoTime() - start;
+            assertTrue(result.isValid(), () -> String.valueOf(result.getErrors()));
+        }
+        Arrays.sort(durations);
+        System.out.printf("%s : p50 %.3f ms, p99 %.3f ms%n", libelle,
+                durations[iterations / 2] / 1_000_000.0, durations[iterations * 99 / 100] / 1_000_000.0);
+    }
+
+    private String factureDeLignes(String invoice, int lines) {
+        int start = invoice.indexOf("<ram:IncludedSupplyChainTradeLineItem>");
+        int end = invoice.indexOf("</ram:IncludedSupplyChainTradeLineItem>")
+                + "</ram:IncludedSupplyChainTradeLineItem>".length();
+        String line = invoice.substring(start, end);
+        String header = invoice.substring(end)
+                .replace(">15000.00<", ">" + 15_000 * lines + ".00<")
+                .replace(">3000.00<", ">" + 3_000 * lines + ".00<")
+                .replace(">18000.00<", ">" + 18_000 * lines + ".00<");
+        return invoice.substring(0, start) + (line + "\n").repeat(lines) + header;
+    }
+
+    private String lireFacture() throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("invoice-en16931.xml")) {
+            assertNotNull(inputStream, "Ressource invoice-en16931.xml introuvable");
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
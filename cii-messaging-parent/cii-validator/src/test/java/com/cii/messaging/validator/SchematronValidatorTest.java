@@ -0,0 +1,276 @@
+package com.cii.messaging.validator;
+
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.validator.impl.SchematronProfiler;
+import com.cii.messaging.validator.impl.SchematronRuleSets;
+import com.cii.messaging.validator.impl.SchematronValidator;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchematronValidatorTest {
+
+    private static final String INVOICE_WITHOUT_LINES = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rsm:CrossIndustryInvoice xmlns:rsm="urn:un:unece:uncefact:data:standard:CrossIndustryInvoice:100"
+                                      xmlns:ram="urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100">
+                <rsm:ExchangedDocumentContext>
+                    <ram:TestIndicator/>
+                </rsm:ExchangedDocumentContext>
+                <rsm:ExchangedDocument/>
+                <rsm:SupplyChainTradeTransaction/>
+            </rsm:CrossIndustryInvoice>
+            """;
+
+    private static final String CONFORMING_INVOICE = lireRessource("invoice-en16931.xml");
+
+    @Test
+    void convertitLesAssertionsSvrlEnErreursEtAvertissements() {
+        ValidationResult result = sousEnsemble().validate(INVOICE_WITHOUT_LINES);
+
+        assertFalse(result.isValid());
+        ValidationError error = result.getErrors().stream()
+                .filter(e -> "BR-16".equals(e.getRule()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("[BR-16]-An Invoice shall have at least one Invoice line (BG-25).", error.getMessage());
+        assertTrue(error.getLocation().startsWith("/*:CrossIndustryInvoice"), error.getLocation());
+        assertEquals(ValidationError.ErrorSeverity.ERROR, error.getSeverity());
+        assertTrue(result.getErrors().stream().anyMatch(e -> "BR-02".equals(e.getRule())));
+
+        assertEquals(1, result.getWarnings().size());
+        assertEquals("CII-SR-001", result.getWarnings().get(0).getRule());
+    }
+
+    @Test
+    void appliqueLesFeuillesLivreesAvecLeProfilParDefaut() {
+        ValidationResult result = new SchematronValidator().validate(INVOICE_WITHOUT_LINES);
+
+        assertFalse(result.isValid());
+        assertEquals(List.of("At least one line item required"),
+                result.getErrors().stream().map(ValidationError::getMessage).toList());
+        assertEquals("Schematron EN 16931", result.getValidatedAgainst());
+    }
+
+    @Test
+    void transmetLesAssertionsAuListenerEtSArreteALaDemande() {
+        ValidationResult expected = sousEnsemble().validate(INVOICE_WITHOUT_LINES);
+        List<ValidationError> received = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+
+        ValidationResult summary = sousEnsemble().validate(
+                new ByteArrayInputStream(INVOICE_WITHOUT_LINES.getBytes(StandardCharsets.UTF_8)),
+                new ValidationListener() {
+                    @Override
+                    public boolean onError(ValidationIssue issue) {
+                        received.add(issue.toError());
+                        return received.size() < 2;
+                    }
+
+                    @Override
+                    public void onWarning(ValidationIssue issue) {
+                        warnings.add(issue.getMessage());
+                    }
+                });
+
+        assertFalse(summary.isValid());
+        assertTrue(summary.getErrors().isEmpty());
+        assertEquals("Schematron EN 16931 (sous-ensemble)", summary.getValidatedAgainst());
+        assertTrue(expected.getErrors().size() > 2);
+        assertEquals(expected.getErrors().subList(0, 2), received);
+        assertEquals("Validation Schematron interrompue après 2 erreur(s)", warnings.get(warnings.size() - 1));
+    }
+
+    @Test
+    void valideUneFactureConforme() {
+        ValidationResult result = sousEnsemble().validate(CONFORMING_INVOICE);
+
+        assertTrue(result.isValid(), () -> String.valueOf(result.getErrors()));
+        assertTrue(result.getErrors().isEmpty());
+        assertTrue(result.getWarnings().isEmpty());
+        assertEquals("Schematron EN 16931 (sous-ensemble)", result.getValidatedAgainst());
+    }
+
+    @Test
+    void detecteUneIncoherenceDesTotaux() {
+        String invoice = CONFORMING_INVOICE
+                .replace("<ram:GrandTotalAmount>18000.00</ram:GrandTotalAmount>",
+                        "<ram:GrandTotalAmount>18000.01</ram:GrandTotalAmount>")
+                .replace("<ram:DuePayableAmount>18000.00</ram:DuePayableAmount>",
+                        "<ram:DuePayableAmount>18000.01</ram:DuePayableAmount>");
+
+        ValidationResult result = sousEnsemble().validate(invoice);
+
+        assertFalse(result.isValid());
+        assertEquals(List.of("BR-CO-15"), result.getErrors().stream().map(ValidationError::getRule).toList());
+    }
+
+    @Test
+    void profileLesReglesEtLesMotifs() {
+        int lines = 3;
+        int start = CONFORMING_INVOICE.indexOf("<ram:IncludedSupplyChainTradeLineItem>");
+        int end = CONFORMING_INVOICE.indexOf("<ram:ApplicableHeaderTradeAgreement>");
+        String invoice = CONFORMING_INVOICE.substring(0, start)
+                + CONFORMING_INVOICE.substring(start, end).repeat(lines)
+                + CONFORMING_INVOICE.substring(end)
+                .replace(">15000.00<", ">45000.00<")
+                .replace(">3000.00<", ">9000.00<")
+                .replace(">18000.00<", ">54000.00<");
+        SchematronProfiler profiler = new SchematronProfiler();
+        SchematronValidator validator = sousEnsemble();
+        validator.setProfiler(profiler);
+
+        ValidationResult result = validator.validate(invoice);
+
+        assertTrue(result.isValid(), () -> String.valueOf(result.getErrors()));
+        assertEquals(1, entree(profiler.rules(), "BR-01").count());
+        assertEquals(lines, entree(profiler.rules(), "BR-21").count());
+        SchematronProfiler.Entry model = entree(profiler.patterns(), "EN16931-model");
+        assertEquals(1 + 1 + 1 + lines, model.count());
+        assertTrue(model.totalNanos() > 0);
+        assertTrue(profiler.report().contains("BR-CO-15"));
+
+        validator.setProfiler(null);
+        validator.validate(invoice);
+        assertEquals(1, entree(profiler.rules(), "BR-01").count());
+    }
+
+    @Test
+    void signaleUnJeuDeReglesNonInstrumentable() {
+        SchematronProfiler profiler = new SchematronProfiler();
+        SchematronValidator validator = new SchematronValidator();
+        validator.setSchemaVersion(SchemaVersion.D23B);
+        validator.setProfiler(profiler);
+
+        validator.validate(CONFORMING_INVOICE);
+
+        assertTrue(profiler.rules().isEmpty());
+        assertEquals(Set.of("Schematron EN 16931"), profiler.unprofiledRuleSets());
+        assertTrue(profiler.report().contains("Non instrumenté"));
+    }
+
+    @Test
+    void appliqueLesReglesXRechnungAvecLeProfilCorrespondant() {
+        String invoice = CONFORMING_INVOICE.replace("<ram:BuyerReference>04011000-12345-34</ram:BuyerReference>", "");
+        SchematronValidator validator = sousEnsemble();
+
+        assertTrue(validator.validate(invoice).isValid());
+
+        validator.setProfile(SchematronRuleSets.XRECHNUNG_SUBSET_PROFILE);
+        ValidationResult result = validator.validate(invoice);
+
+        assertFalse(result.isValid());
+        assertEquals("Schematron XRechnung (sous-ensemble)", result.getValidatedAgainst());
+        assertEquals(List.of("BR-DE-15"), result.getErrors().stream().map(ValidationError::getRule).toList());
+    }
+
+    @Test
+    void nAppliqueAucuneRegleAuxTypesSansJeuDeRegles() {
+        String order = INVOICE_WITHOUT_LINES.replace("CrossIndustryInvoice", "CrossIndustryOrder");
+        SchematronValidator validator = new SchematronValidator();
+
+        ValidationResult result = validator.validate(order);
+
+        assertFalse(validator.appliesTo(MessageType.ORDER));
+        assertTrue(result.isValid());
+        assertTrue(result.getErrors().isEmpty());
+        assertNull(result.getValidatedAgainst());
+    }
+
+    @Test
+    void choisitLeJeuDeReglesSelonLeProfil() {
+        SchematronRuleSets.register(MessageType.DESPATCH_ADVICE, SchemaVersion.D23B, "TEST",
+                "schematron/EN16931-CII-validation.xslt", "Schematron test");
+        String despatchAdvice = INVOICE_WITHOUT_LINES.replace("CrossIndustryInvoice", "CrossIndustryDespatchAdvice");
+        SchematronValidator validator = new SchematronValidator();
+        validator.setSchemaVersion(SchemaVersion.D23B);
+
+        assertNull(validator.validate(despatchAdvice).getValidatedAgainst());
+
+        validator.setProfile("TEST");
+        assertTrue(validator.appliesTo(MessageType.DESPATCH_ADVICE));
+        assertFalse(validator.appliesTo(MessageType.INVOICE));
+        assertEquals("Schematron test", validator.validate(despatchAdvice).getValidatedAgainst());
+    }
+
+    @Test
+    void partageUneInstanceEntreThreadsPendantUnChangementDeVersion() throws Exception {
+        SchematronValidator validator = sousEnsemble();
+        ValidationResult expectedInvalid = validator.validate(INVOICE_WITHOUT_LINES);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            Future<?> switcher = executor.submit(() -> {
+                start.await();
+                while (running.get()) {
+                    validator.setSchemaVersion(SchemaVersion.D24A);
+                    validator.setSchemaVersion(SchemaVersion.D23B);
+                }
+                return null;
+            });
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    int checked = 0;
+                    for (int i = 0; i < 200; i++) {
+                        boolean invalid = (i + offset) % 2 == 0;
+                        ValidationResult result = validator.validate(invalid ? INVOICE_WITHOUT_LINES : CONFORMING_INVOICE);
+                        assertEquals(!invalid, result.isValid(), () -> String.valueOf(result.getErrors()));
+                        assertEquals(invalid ? expectedInvalid.getErrors() : List.of(), result.getErrors());
+                        assertEquals(invalid ? expectedInvalid.getWarnings() : List.of(), result.getWarnings());
+                        checked++;
+                    }
+                    return checked;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> worker : workers) {
+                assertEquals(200, worker.get(2, TimeUnit.MINUTES));
+            }
+            running.set(false);
+            switcher.get(1, TimeUnit.MINUTES);
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+
+    private static SchematronValidator sousEnsemble() {
+        SchematronValidator validator = new SchematronValidator();
+        validator.setProfile(SchematronRuleSets.EN16931_SUBSET_PROFILE);
+        return validator;
+    }
+
+    private static SchematronProfiler.Entry entree(List<SchematronProfiler.Entry> entries, String id) {
+        return entries.stream().filter(entry -> id.equals(entry.id())).findFirst().orElseThrow(() ->
+                new AssertionError(id + " absent de " + entries));
+    }
+
+    private static String lireRessource(String name) {
+        try (InputStream inputStream = SchematronValidatorTest.class.getClassLoader().getResourceAsStream(name)) {
+            assertNotNull(inputStream, "Ressource " + name + " introuvable");
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -5,8 +5,13 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -151,6 +156,81 @@ class XSDValidatorMessagesTest {
         }
     }
 
+    @Nested
+    @DisplayName("Transmission des erreurs à un listener")
+    class ListenerValidation {
+
+        @Test
+        @DisplayName("transmet les mêmes erreurs que le résultat, sans les accumuler")
+        void listenerRecoitLesErreursDuResultat() {
+            String order = commandeAvecLignesInvalides(20);
+            List<ValidationError> received = new ArrayList<>();
+
+            ValidationResult expected = buildValidator().validate(order);
+            ValidationResult summary = buildValidator().validate(
+                    new ByteArrayInputStream(order.getBytes(StandardCharsets.UTF_8)), issue -> received.add(issue.toError()));
+
+            assertFalse(summary.isValid());
+            assertTrue(summary.getErrors().isEmpty());
+            assertEquals("XSD D23B", summary.getValidatedAgainst());
+            assertEquals(20, expected.getErrors().size());
+            assertEquals(expected.getErrors(), received);
+        }
+
+        @Test
+        @DisplayName("interrompt l'analyse lorsque le listener le demande")
+        void listenerInterromptLAnalyse() {
+            String order = commandeAvecLignesInvalides(1_000);
+            AtomicInteger errors = new AtomicInteger();
+            List<String> warnings = new ArrayList<>();
+
+            buildValidator().validate(new ByteArrayInputStream(order.getBytes(StandardCharsets.UTF_8)),
+                    new ValidationListener() {
+                        @Override
+                        public boolean onError(ValidationIssue issue) {
+                            return errors.incrementAndGet() < 3;
+                        }
+
+                        @Override
+                        public void onWarning(ValidationIssue issue) {
+                            warnings.add(issue.getMessage());
+                        }
+                    });
+
+            assertEquals(3, errors.get());
+            assertEquals(List.of("Validation XSD interrompue après 3 erreur(s)"), warnings);
+        }
+
+        @Test
+        @DisplayName("plafonne les erreurs collectées")
+        void collecteurPlafonneLesErreurs() {
+            ValidationCollector collector = new ValidationCollector(5);
+
+            ValidationResult result = collector.complete(buildValidator().validate(
+                    new ByteArrayInputStream(commandeAvecLignesInvalides(1_000).getBytes(StandardCharsets.UTF_8)),
+                    collector));
+
+            assertFalse(result.isValid());
+            assertEquals(5, result.getErrors().size());
+            assertEquals(1, result.getWarnings().size());
+        }
+
+        private String commandeAvecLignesInvalides(int lines) {
+            String line = """
+                    <ram:IncludedSupplyChainTradeLineItem>
+                        <ram:AssociatedDocumentLineDocument>
+                            <ram:LineID>1</ram:LineID>
+                            <ram:LineID>2</ram:LineID>
+                        </ram:AssociatedDocumentLineDocument>
+                    </ram:IncludedSupplyChainTradeLineItem>
+                    """;
+            return INVALID_ORDERS.replace("</rsm:ExchangedDocument>", "</rsm:ExchangedDocument>\n"
+                    + "<rsm:SupplyChainTradeTransaction>" + line.repeat(lines)
+                    + "<ram:ApplicableHeaderTradeAgreement/><ram:ApplicableHeaderTradeDelivery/>"
+                    + "<ram:ApplicableHeaderTradeSettlement/></rsm:SupplyChainTradeTransaction>");
+        }
+    }
+
     private ValidationResult validateResource(String resourceName) throws IOException {
         XSDValidator validator = buildValidator();
         ValidationResult result;
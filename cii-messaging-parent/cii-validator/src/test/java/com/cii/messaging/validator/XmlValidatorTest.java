@@ -5,9 +5,15 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class XmlValidatorTest {
 
@@ -50,4 +56,42 @@ class XmlValidatorTest {
         assertThrows(IllegalArgumentException.class, () -> XmlValidator.validerFichierXML("  ", xsdPath.toString()));
         assertThrows(IllegalArgumentException.class, () -> XmlValidator.validerFichierXML(RESSOURCES.resolve("order-valid.xml").toString(), ""));
     }
+
+    @Test
+    void validerFichierXML_recompileLeSchema_quandXsdModifie(@TempDir Path dossier) throws IOException {
+        Path xmlPath = RESSOURCES.resolve("order-invalid.xml");
+        Path xsdPath = dossier.resolve("partenaire.xsd");
+        Files.writeString(xsdPath, """
+                <xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema">
+                    <xs:element name="order"/>
+                </xs:schema>
+                """);
+
+        assertTrue(XmlValidator.validerFichierXML(xmlPath.toString(), xsdPath.toString()).startsWith("Fichier XML valide"));
+        int taille = XmlValidator.tailleCacheSchemas();
+        assertTrue(XmlValidator.validerFichierXML(xmlPath.toString(), xsdPath.toString()).startsWith("Fichier XML valide"));
+        assertEquals(taille, XmlValidator.tailleCacheSchemas());
+
+        Files.copy(RESSOURCES.resolve("simple-order.xsd"), xsdPath, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(xsdPath, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        assertTrue(XmlValidator.validerFichierXML(xmlPath.toString(), xsdPath.toString()).startsWith("Fichier XML invalide"));
+        assertEquals(taille, XmlValidator.tailleCacheSchemas());
+    }
+
+    @Test
+    void validerFichiersXML_valideLeLotDansLOrdre() throws IOException {
+        String valide = RESSOURCES.resolve("order-valid.xml").toString();
+        String invalide = RESSOURCES.resolve("order-invalid.xml").toString();
+        String absent = RESSOURCES.resolve("inexistant.xml").toString();
+
+        Map<String, String> resultats = XmlValidator.validerFichiersXML(
+                List.of(invalide, valide, absent), RESSOURCES.resolve("simple-order.xsd").toString());
+
+        assertEquals(List.of(invalide, valide, absent), List.copyOf(resultats.keySet()));
+        assertTrue(resultats.get(invalide).startsWith("Fichier XML invalide"));
+        assertEquals(XmlValidator.validerFichierXML(valide, RESSOURCES.resolve("simple-order.xsd").toString()),
+                resultats.get(valide));
+        assertTrue(resultats.get(absent).contains("Fichier XML introuvable"));
+    }
 }
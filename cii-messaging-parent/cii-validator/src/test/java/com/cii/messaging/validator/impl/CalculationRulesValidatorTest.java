@@ -0,0 +1,254 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.ValidationError;
+import com.cii.messaging.validator.ValidationResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalculationRulesValidatorTest {
+
+    private static final String ALLOWANCE = """
+            <ram:SpecifiedTradeAllowanceCharge>
+                <ram:ChargeIndicator><udt:Indicator>false</udt:Indicator></ram:ChargeIndicator>
+                <ram:ActualAmount>100.00</ram:ActualAmount>
+            </ram:SpecifiedTradeAllowanceCharge>
+            <ram:SpecifiedTradeSettlementPaymentTerms>""";
+
+    private final CalculationRulesValidator validator = new CalculationRulesValidator();
+
+    @Test
+    void accepteUneFactureAuxTotauxCoherents() throws IOException {
+        ValidationResult result = validator.validate(lireRessource("invoice-en16931.xml"));
+
+        assertTrue(result.isValid(), () -> String.valueOf(result.getErrors()));
+        assertEquals(CalculationRulesValidator.LABEL, result.getValidatedAgainst());
+    }
+
+    @Test
+    void signaleUnTotalTtcIncoherentAvecSaPosition() throws IOException {
+        String invoice = lireRessource("invoice-en16931.xml")
+                .replace("<ram:GrandTotalAmount>18000.00", "<ram:GrandTotalAmount>18000.01")
+                .replace("<ram:DuePayableAmount>18000.00", "<ram:DuePayableAmount>18000.01");
+
+        ValidationResult result = validator.validate(invoice);
+
+        assertFalse(result.isValid());
+        assertEquals(1, result.getErrors().size());
+        ValidationError error = result.getErrors().get(0);
+        assertEquals("BR-CO-15", error.getRule());
+        assertTrue(error.getMessage().startsWith("[BR-CO-15]-"));
+        assertTrue(error.getLocation().endsWith("/ram:SpecifiedTradeSettlementHeaderMonetarySummation"));
+        assertTrue(error.getLineNumber() > 0);
+    }
+
+    @Test
+    void donneLeMemeVerdictQueLeSchematron() throws IOException {
+        String invoice = lireRessource("invoice-en16931.xml");
+        Map<String, String> mutations = Map.of(
+                "total des lignes", invoice.replace(
+                        "<ram:LineTotalAmount>15000.00</ram:LineTotalAmount>\n                <ram:TaxBasisTotalAmount>",
+                        "<ram:LineTotalAmount>15000.10</ram:LineTotalAmount>\n                <ram:TaxBasisTotalAmount>"),
+                "montant de TVA", invoice.replace("<ram:CalculatedAmount>3000.00", "<ram:CalculatedAmount>3000.10"),
+                "remise de document", invoice.replace("<ram:SpecifiedTradeSettlementPaymentTerms>", ALLOWANCE),
+                "remise et total des remises", invoice.replace("<ram:SpecifiedTradeSettlementPaymentTerms>", ALLOWANCE)
+                        .replace("<ram:TaxBasisTotalAmount>", "<ram:AllowanceTotalAmount>100.00</ram:AllowanceTotalAmount>"
+                                + "<ram:TaxBasisTotalAmount>"),
+                "montant à payer", invoice.replace("<ram:DuePayableAmount>18000.00", "<ram:DuePayableAmount>17000.00")
+                        .replace("<ram:GrandTotalAmount>18000.00</ram:GrandTotalAmount>",
+                                "<ram:GrandTotalAmount>18000.00</ram:GrandTotalAmount>"
+                                        + "<ram:TotalPrepaidAmount>999.995</ram:TotalPrepaidAmount>"),
+                "taux arrondi", invoice.replace("<ram:CalculatedAmount>3000.00", "<ram:CalculatedAmount>0.50")
+                        .replace("<ram:BasisAmount>15000.00", "<ram:BasisAmount>10.05")
+                        .replace("<ram:RateApplicablePercent>20</ram:RateApplicablePercent>\n            </ram:ApplicableTradeTax>\n            <ram:SpecifiedTradeSettlementPaymentTerms>",
+                                "<ram:RateApplicablePercent>5</ram:RateApplicablePercent>\n            </ram:ApplicableTradeTax>\n            <ram:SpecifiedTradeSettlementPaymentTerms>"));
+        SchematronValidator schematron = new SchematronValidator();
+        schematron.setProfile(SchematronRuleSets.EN16931_SUBSET_PROFILE);
+
+        // le sous-ensemble ne contient que les règles BR-CO : les bases par catégorie sont testées à part
+        for (Map.Entry<String, String> mutation : mutations.entrySet()) {
+            Set<String> expected = reglesBrCo(schematron.validate(mutation.getValue()));
+            expected.retainAll(CalculationRulesValidator.RULES);
+            assertFalse(expected.isEmpty(), mutation.getKey());
+            assertEquals(expected, reglesBrCo(validator.validate(mutation.getValue())), mutation.getKey());
+        }
+    }
+
+    /**
+     * Facture à quatre ventilations, aux montants calculés selon la norme EN 16931 :
+     * <ul>
+     *     <li>S 20 % : lignes 1000.00 + 250.25, remise 50.00, base 1200.25 (BR-S-08), TVA 240.05 (BR-CO-17) ;</li>
+     *     <li>S 10 % : ligne 500.00, charge 25.00, base 525.00, TVA 52.50 ;</li>
+     *     <li>Z : ligne 300.00, remise 10.00, base 290.00 (BR-Z-08) ;</li>
+     *     <li>E : ligne 200.00, base 200.00 (BR-E-08) ;</li>
+     *     <li>lignes 2250.25 (BR-CO-10), remises 60.00 (BR-CO-11), charges 25.00 (BR-CO-12), HT 2215.25
+     *     (BR-CO-13), TVA 292.55 (BR-CO-14), TTC et à payer 2507.80 (BR-CO-15, BR-CO-16).</li>
+     * </ul>
+     */
+    @Test
+    void controleLesBasesImposablesParCategorie() {
+        ValidationResult valid = validator.validate(factureMultiCategories("S", "20", "Z"));
+        assertTrue(valid.isValid(), () -> String.valueOf(valid.getErrors()));
+
+        // la remise de 10.00 passe de Z à E : Z attend 300.00 au lieu de 290.00, E 190.00 au lieu de 200.00
+        ValidationResult category = validator.validate(factureMultiCategories("S", "20", "E"));
+        assertEquals(Set.of("BR-E-08", "BR-Z-08"), regles(category));
+        assertTrue(category.getErrors().stream().allMatch(error -> error.getMessage().startsWith("[" + error.getRule()
+                + "]-In a VAT breakdown (BG-23)")));
+
+        // la charge de 25.00 passe au taux de 20 : S 20 % attend 1225.25, S 10 % attend 500.00
+        ValidationResult rate = validator.validate(factureMultiCategories("S", "20.0", "Z")
+                .replace("<ram:RateApplicablePercent>10.00</ram:RateApplicablePercent><!--charge-->",
+                        "<ram:RateApplicablePercent>20</ram:RateApplicablePercent>"));
+        assertEquals(Set.of("BR-S-08"), regles(rate));
+        assertEquals(List.of("[1]", "[2]"), rate.getErrors().stream()
+                .map(error -> error.getLocation().substring(error.getLocation().lastIndexOf('[')))
+                .toList());
+
+        // une remise sans catégorie n'entre dans aucune base
+        ValidationResult unrelated = validator.validate(factureMultiCategories("S", "20", "Z")
+                .replace("<ram:CategoryCode>S</ram:CategoryCode><!--remise-->", ""));
+        assertEquals(Set.of("BR-S-08"), regles(unrelated));
+        assertEquals(1, unrelated.getErrors().size());
+    }
+
+    @Test
+    void arrondiAuCentimeCommeXPath() {
+        assertEquals(new BigDecimal("0.01"), CalculationRulesValidator.round2(new BigDecimal("0.005")));
+        assertEquals(0, BigDecimal.ZERO.compareTo(CalculationRulesValidator.round2(new BigDecimal("-0.005"))));
+        assertEquals(new BigDecimal("-0.01"), CalculationRulesValidator.round2(new BigDecimal("-0.0051")));
+        assertNull(CalculationRulesValidator.parseDecimal("1E3"));
+        assertEquals(new BigDecimal("12.5"), CalculationRulesValidator.parseDecimal(" 12.5 "));
+    }
+
+    @Test
+    void neControlePasLesAutresMessages() throws IOException {
+        ValidationResult result = validator.validate(lireRessource("order-valid.xml"));
+
+        assertTrue(result.isValid());
+        assertNull(result.getValidatedAgainst());
+    }
+
+    /**
+     * Facture de {@link #controleLesBasesImposablesParCategorie()} : {@code remiseCategorie} et {@code remiseTaux}
+     * qualifient la remise de 50.00, {@code remiseZ} la catégorie de la remise de 10.00.
+     */
+    private static String factureMultiCategories(String remiseCategorie, String remiseTaux, String remiseZ) {
+        return """
+                <rsm:CrossIndustryInvoice xmlns:rsm="urn:un:unece:uncefact:data:standard:CrossIndustryInvoice:100"
+                        xmlns:ram="urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100"
+                        xmlns:udt="urn:un:unece:uncefact:data:standard:UnqualifiedDataType:100">
+                    <rsm:SupplyChainTradeTransaction>
+                """
+                + ligne("1000.00", "S", "20")
+                + ligne("250.25", "S", "20.00")
+                + ligne("500.00", "S", "10")
+                + ligne("300.00", "Z", "0")
+                + ligne("200.00", "E", "0")
+                + """
+                        <ram:ApplicableHeaderTradeSettlement>
+                            <ram:InvoiceCurrencyCode>EUR</ram:InvoiceCurrencyCode>
+                """
+                + ventilation("240.05", "1200.25", "S", "20")
+                + ventilation("52.50", "525.00", "S", "10")
+                + ventilation("0.00", "290.00", "Z", "0")
+                + ventilation("0.00", "200.00", "E", "0")
+                + """
+                            <ram:SpecifiedTradeAllowanceCharge>
+                                <ram:ChargeIndicator><udt:Indicator>false</udt:Indicator></ram:ChargeIndicator>
+                                <ram:ActualAmount>50.00</ram:ActualAmount>
+                                <ram:CategoryTradeTax>
+                                    <ram:TypeCode>VAT</ram:TypeCode>
+                                    <ram:CategoryCode>%s</ram:CategoryCode><!--remise-->
+                                    <ram:RateApplicablePercent>%s</ram:RateApplicablePercent>
+                                </ram:CategoryTradeTax>
+                            </ram:SpecifiedTradeAllowanceCharge>
+                            <ram:SpecifiedTradeAllowanceCharge>
+                                <ram:ChargeIndicator><udt:Indicator>true</udt:Indicator></ram:ChargeIndicator>
+                                <ram:ActualAmount>25.00</ram:ActualAmount>
+                                <ram:CategoryTradeTax>
+                                    <ram:TypeCode>VAT</ram:TypeCode>
+                                    <ram:CategoryCode>S</ram:CategoryCode>
+                                    <ram:RateApplicablePercent>10.00</ram:RateApplicablePercent><!--charge-->
+                                </ram:CategoryTradeTax>
+                            </ram:SpecifiedTradeAllowanceCharge>
+                            <ram:SpecifiedTradeAllowanceCharge>
+                                <ram:ChargeIndicator><udt:Indicator>false</udt:Indicator></ram:ChargeIndicator>
+                                <ram:ActualAmount>10.00</ram:ActualAmount>
+                                <ram:CategoryTradeTax>
+                                    <ram:TypeCode>VAT</ram:TypeCode>
+                                    <ram:CategoryCode>%s</ram:CategoryCode>
+                                    <ram:RateApplicablePercent>0</ram:RateApplicablePercent>
+                                </ram:CategoryTradeTax>
+                            </ram:SpecifiedTradeAllowanceCharge>
+                            <ram:SpecifiedTradeSettlementHeaderMonetarySummation>
+                                <ram:LineTotalAmount>2250.25</ram:LineTotalAmount>
+                                <ram:ChargeTotalAmount>25.00</ram:ChargeTotalAmount>
+                                <ram:AllowanceTotalAmount>60.00</ram:AllowanceTotalAmount>
+                                <ram:TaxBasisTotalAmount>2215.25</ram:TaxBasisTotalAmount>
+                                <ram:TaxTotalAmount currencyID="EUR">292.55</ram:TaxTotalAmount>
+                                <ram:GrandTotalAmount>2507.80</ram:GrandTotalAmount>
+                                <ram:DuePayableAmount>2507.80</ram:DuePayableAmount>
+                            </ram:SpecifiedTradeSettlementHeaderMonetarySummation>
+                        </ram:ApplicableHeaderTradeSettlement>
+                    </rsm:SupplyChainTradeTransaction>
+                </rsm:CrossIndustryInvoice>
+                """.formatted(remiseCategorie, remiseTaux, remiseZ);
+    }
+
+    private static String ligne(String montant, String categorie, String taux) {
+        return """
+                        <ram:IncludedSupplyChainTradeLineItem>
+                            <ram:SpecifiedLineTradeSettlement>
+                                <ram:ApplicableTradeTax>
+                                    <ram:TypeCode>VAT</ram:TypeCode>
+                                    <ram:CategoryCode>%s</ram:CategoryCode>
+                                    <ram:RateApplicablePercent>%s</ram:RateApplicablePercent>
+                                </ram:ApplicableTradeTax>
+                                <ram:SpecifiedTradeSettlementLineMonetarySummation>
+                                    <ram:LineTotalAmount>%s</ram:LineTotalAmount>
+                                </ram:SpecifiedTradeSettlementLineMonetarySummation>
+                            </ram:SpecifiedLineTradeSettlement>
+                        </ram:IncludedSupplyChainTradeLineItem>
+                """.formatted(categorie, taux, montant);
+    }
+
+    private static String ventilation(String tva, String base, String categorie, String taux) {
+        return """
+                            <ram:ApplicableTradeTax>
+                                <ram:CalculatedAmount>%s</ram:CalculatedAmount>
+                                <ram:TypeCode>VAT</ram:TypeCode>
+                                <ram:BasisAmount>%s</ram:BasisAmount>
+                                <ram:CategoryCode>%s</ram:CategoryCode>
+                                <ram:RateApplicablePercent>%s</ram:RateApplicablePercent>
+                            </ram:ApplicableTradeTax>
+                """.formatted(tva, base, categorie, taux);
+    }
+
+    private static Set<String> reglesBrCo(ValidationResult result) {
+        Set<String> rules = regles(result);
+        rules.removeIf(rule -> !rule.startsWith("BR-CO-"));
+        return rules;
+    }
+
+    private static Set<String> regles(ValidationResult result) {
+        return result.getErrors().stream().map(ValidationError::getRule).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private String lireRessource(String name) throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(name)) {
+            assertNotNull(inputStream, "Ressource " + name + " introuvable");
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.SchemaVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compare indicativement la validation composite en deux analyses et en analyse unique, et mesure la mémoire de
+ * la validation en flux, exécutée uniquement avec {@code -Dcii.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "cii.benchmark", matches = "true")
+class CompositeValidatorBenchmarkTest {
+
+    private static final String LINE_ITEM_START = "<ram:IncludedSupplyChainTradeLineItem>";
+    private static final String LINE_ITEM_END = "</ram:IncludedSupplyChainTradeLineItem>";
+
+    @Test
+    void compareDeuxAnalysesEtAnalyseUnique() throws IOException {
+        String small = commande(1);
+        String large = commande(20_000);
+        for (boolean singleParse : new boolean[]{false, true}) {
+            CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                    .singleParse(singleParse)
+                    .build());
+            validator.setSchemaVersion(SchemaVersion.D23B);
+            String mode = singleParse ? "analyse unique" : "deux analyses";
+            mesurer(validator, mode + ", petit ORDER", small, 2_000);
+            mesurer(validator, mode + ", ORDER de 20 000 lignes", large, 10);
+        }
+    }
+
+    @Test
+    void valideEnFluxSansChargerLeDocument() throws IOException {
+        CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                .streaming(true)
+                .build());
+        validator.setSchemaVersion(SchemaVersion.D23B);
+        for (int lines : new int[]{1_000, 100_000, 1_000_000}) {
+            System.gc();
+            List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .toList();
+            pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            CountingStream input = commandeEnFlux(lines);
+
+            long start = System.nanoTime();
+            assertTrue(validator.validate(input).isValid());
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            long peak = pools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            System.out.printf("ORDER de %d lignes (%d Mo) en flux : %.1f s, pic de tas %d Mo%n",
+                    lines, input.count >> 20, seconds, peak >> 20);
+        }
+    }
+
+    private void mesurer(CompositeValidator validator, String libelle, String xml, int iterations) {
+        for (int i = 0; i < Math.max(1, iterations / 5); i++) {
+            validator.validate(xml);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            validator.validate(xml);
+        }
+        double averageMillis = (System.nanoTime() - start) / 1_000_000.0 / iterations;
+        System.out.printf("%s : %.3f ms/validation%n", libelle, averageMillis);
+    }
+
+    /**
+     * Commande de {@code lines} lignes produite à la lecture, sans être construite en mémoire.
+     */
+    private CountingStream commandeEnFlux(int lines) throws IOException {
+        String template = commande(1);
+        int start = template.indexOf(LINE_ITEM_START);
+        int end = template.indexOf(LINE_ITEM_END) + LINE_ITEM_END.length() + 1;
+        byte[] head = template.substring(0, start).getBytes(StandardCharsets.UTF_8);
+        byte[] line = template.substring(start, end).getBytes(StandardCharsets.UTF_8);
+        byte[] tail = template.substring(end).getBytes(StandardCharsets.UTF_8);
+        Iterator<InputStream> parts = Stream.of(Stream.of(head), Stream.generate(() -> line).limit(lines), Stream.of(tail))
+                .flatMap(part -> part)
+                .<InputStream>map(ByteArrayInputStream::new)
+                .iterator();
+        return new CountingStream(new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return parts.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return parts.next();
+            }
+        }));
+    }
+
+    private String commande(int lines) throws IOException {
+        String template;
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("order-valid.xml")) {
+            assertNotNull(inputStream, "Ressource order-valid.xml introuvable");
+            template = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        int start = template.indexOf(LINE_ITEM_START);
+        int end = template.indexOf(LINE_ITEM_END) + LINE_ITEM_END.length();
+        String line = template.substring(start, end);
+        StringBuilder xml = new StringBuilder(template.length() + line.length() * lines);
+        xml.append(template, 0, start);
+        for (int i = 0; i < lines; i++) {
+            xml.append(line).append('\n');
+        }
+        xml.append(template, end, template.length());
+        return xml.toString();
+    }
+
+    private static final class CountingStream extends FilterInputStream {
+        private long count;
+
+        CountingStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            count += value >= 0 ? 1 : 0;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            count += Math.max(read, 0);
+            return read;
+        }
+    }
+}
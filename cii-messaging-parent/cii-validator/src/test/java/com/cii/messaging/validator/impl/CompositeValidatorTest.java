@@ -0,0 +1,596 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.model.invoice.Invoice;
+import com.cii.messaging.model.order.Order;
+import com.cii.messaging.validator.CIIValidator;
+import com.cii.messaging.validator.PhaseTiming;
+import com.cii.messaging.validator.SchemaVersion;
+import com.cii.messaging.validator.ValidationError;
+import com.cii.messaging.validator.ValidationIssue;
+import com.cii.messaging.validator.ValidationListener;
+import com.cii.messaging.validator.ValidationResult;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompositeValidatorTest {
+
+    private static final String INVALID_ORDER = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rsm:CrossIndustryOrder xmlns:rsm="urn:un:unece:uncefact:data:standard:CrossIndustryOrder:100"
+                                    xmlns:ram="urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100">
+                <rsm:ExchangedDocumentContext/>
+                <rsm:ExchangedDocument>
+                    <ram:ID>ORD-ERROR</ram:ID>
+                </rsm:ExchangedDocument>
+            </rsm:CrossIndustryOrder>
+            """;
+
+    private static final String INVOICE_WITHOUT_LINES = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rsm:CrossIndustryInvoice xmlns:rsm="urn:un:unece:uncefact:data:standard:CrossIndustryInvoice:100"
+                                      xmlns:ram="urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100">
+                <rsm:ExchangedDocumentContext/>
+                <rsm:ExchangedDocument/>
+                <rsm:SupplyChainTradeTransaction/>
+            </rsm:CrossIndustryInvoice>
+            """;
+
+    @Test
+    void executeLesValidateursEnParalleleEtFusionneDansLOrdre() throws IOException {
+        CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                .parallel(true)
+                .build());
+        validator.setSchemaVersion(SchemaVersion.D23B);
+        String order = lireRessource("order-valid.xml");
+        validator.validate(order);
+
+        validator.addValidator(new SlowValidator("lent-1", 400));
+        validator.addValidator(new SlowValidator("lent-2", 400));
+
+        long start = System.nanoTime();
+        ValidationResult result = validator.validate(order);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 750, () -> "Les validateurs doivent s'exécuter simultanément : " + elapsedMillis + " ms");
+        assertEquals("XSD D23B, lent-1, lent-2", result.getValidatedAgainst());
+        List<String> rules = result.getErrors().stream().map(ValidationError::getRule).toList();
+        assertEquals(List.of("lent-1", "lent-2"), rules.subList(rules.size() - 2, rules.size()));
+    }
+
+    @Test
+    void signaleUnValidateurQuiDepasseLeDelai() {
+        CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                .parallel(true)
+                .validatorTimeout(Duration.ofMillis(200))
+                .build());
+        validator.addValidator(new SlowValidator("bloquant", 10_000));
+
+        long start = System.nanoTime();
+        ValidationResult result = validator.validate("<a/>");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertFalse(result.isValid());
+        assertTrue(elapsedMillis < 5_000);
+        assertTrue(result.getErrors().stream().anyMatch(error -> error.getSeverity() == ValidationError.ErrorSeverity.FATAL
+                && error.getMessage().contains("Délai de validation dépassé")
+                && error.getMessage().contains("SlowValidator")));
+    }
+
+    @Test
+    void arreteApresLaPremiereEtapeEnEchec() {
+        CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                .policy(ValidationPolicy.FAIL_FAST)
+                .build());
+        validator.setSchemaVersion(SchemaVersion.D23B);
+        validator.addValidator(new SlowValidator("suivant", 0));
+
+        ValidationResult result = validator.validate(INVOICE_WITHOUT_LINES);
+
+        assertFalse(result.isValid());
+        assertEquals("XSD D23B", result.getValidatedAgainst());
+        assertTrue(result.getWarnings().stream().anyMatch(w -> w.getMessage().contains("SchematronValidator ignorée")));
+        assertTrue(result.getWarnings().stream().anyMatch(w -> w.getMessage().contains("SlowValidator ignorée")));
+    }
+
+    @Test
+    void ignoreSchematronLorsqueLeXsdEchoue() {
+        CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                .parallel(true)
+                .policy(ValidationPolicy.SKIP_SCHEMATRON_ON_XSD_ERROR)
+                .build());
+        validator.setSchemaVersion(SchemaVersion.D23B);
+        validator.addValidator(new SlowValidator("metier", 0));
+
+        ValidationResult result = validator.validate(INVOICE_WITHOUT_LINES);
+
+        assertFalse(result.isValid());
+        assertEquals("XSD D23B, metier", result.getValidatedAgainst());
+        assertTrue(result.getWarnings().stream().anyMatch(w -> w.getMessage().contains("XSD invalide")));
+    }
+
+    @Test
+    void interromptLAnalyseXsdAuNombreMaximalDErreurs() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            lines.append("<ram:IncludedSupplyChainTradeLineItem inconnu=\"").append(i).append("\"/>");
+        }
+        String garbage = INVALID_ORDER.replace("</rsm:CrossIndustryOrder>",
+                "<rsm:SupplyChainTradeTransaction>" + lines + "</rsm:SupplyChainTradeTransaction></rsm:CrossIndustryOrder>");
+        CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                .maxErrors(3)
+                .build());
+        validator.setSchemaVersion(SchemaVersion.D23B);
+
+        ValidationResult result = validator.validate(garbage);
+
+        assertFalse(result.isValid());
+        assertEquals(3, result.getErrors().size());
+        assertEquals("XSD D23B", result.getValidatedAgainst());
+        assertTrue(result.getWarnings().stream().anyMatch(w -> w.getMessage().contains("interrompue après 3 erreur(s)")));
+    }
+
+    @Test
+    void transmetLesErreursDeChaqueEtapeAuListenerSousUneLimitePartagee() {
+        byte[] invoice = INVOICE_WITHOUT_LINES.getBytes(StandardCharsets.UTF_8);
+        for (boolean parallel : new boolean[]{false, true}) {
+            CompositeValidator unlimited = new CompositeValidator(CompositeValidatorOptions.builder()
+                    .parallel(parallel)
+                    .schematronProfile(SchematronRuleSets.EN16931_SUBSET_PROFILE)
+                    .build());
+            unlimited.setSchemaVersion(SchemaVersion.D23B);
+            ValidationResult expected = unlimited.validate(INVOICE_WITHOUT_LINES);
+            List<ValidationError> received = new ArrayList<>();
+
+            ValidationResult summary = unlimited.validate(new ByteArrayInputStream(invoice),
+                    issue -> received.add(issue.toError()));
+
+            assertFalse(summary.isValid());
+            assertTrue(summary.getErrors().isEmpty());
+            assertEquals(expected.getValidatedAgainst(), summary.getValidatedAgainst());
+            assertEquals(expected.getErrors(), received);
+            long xsdErrors = received.stream().filter(error -> error.getRule() == null).count();
+            assertTrue(xsdErrors > 0 && xsdErrors < received.size() - 1, () -> String.valueOf(received));
+
+            CompositeValidator limited = new CompositeValidator(CompositeValidatorOptions.builder()
+                    .parallel(parallel)
+                    .schematronProfile(SchematronRuleSets.EN16931_SUBSET_PROFILE)
+                    .maxErrors((int) xsdErrors + 1)
+                    .build());
+            limited.setSchemaVersion(SchemaVersion.D23B);
+            List<ValidationError> capped = new ArrayList<>();
+            List<String> warnings = new ArrayList<>();
+
+            limited.validate(new ByteArrayInputStream(invoice), new ValidationListener() {
+                @Override
+                public boolean onError(ValidationIssue issue) {
+                    capped.add(issue.toError());
+                    return true;
+                }
+
+                @Override
+                public void onWarning(ValidationIssue issue) {
+                    warnings.add(issue.getMessage());
+                }
+            });
+
+            assertEquals(received.subList(0, (int) xsdErrors + 1), capped);
+            assertTrue(warnings.contains("Validation Schematron interrompue après 1 erreur(s)"), () -> warnings.toString());
+        }
+    }
+
+    @Test
+    void analyseUniqueProduitLeMemeResultatQueDeuxAnalyses() throws IOException {
+        for (String xml : List.of(INVOICE_WITHOUT_LINES, lireRessource("order-valid.xml"))) {
+            String resource = xml.substring(0, 120);
+            for (boolean parallel : new boolean[]{false, true}) {
+                CompositeValidator twoPasses = new CompositeValidator(CompositeValidatorOptions.builder()
+                        .parallel(parallel)
+                        .build());
+                CompositeValidator singleParse = new CompositeValidator(CompositeValidatorOptions.builder()
+                        .parallel(parallel)
+                        .singleParse(true)
+                        .build());
+
+                ValidationResult expected = twoPasses.validate(xml);
+                ValidationResult actual = singleParse.validate(xml);
+
+                assertEquals(expected.isValid(), actual.isValid(), resource);
+                assertEquals(expected.getErrors(), actual.getErrors(), resource);
+                assertEquals(expected.getWarnings(), actual.getWarnings(), resource);
+                assertEquals(expected.getValidatedAgainst(), actual.getValidatedAgainst(), resource);
+            }
+        }
+    }
+
+    @Test
+    void analyseUniqueNOuvreLeDocumentQuUneFois() {
+        byte[] invoice = INVOICE_WITHOUT_LINES.getBytes(StandardCharsets.UTF_8);
+        AtomicInteger opened = new AtomicInteger();
+        XSDValidator xsd = new XSDValidator();
+        SchematronValidator schematron = new SchematronValidator();
+        Function<CIIValidator, ValidationResult> twoPasses = v -> fail("Le document ne doit pas être relu");
+        Function<CIIValidator, ValidationResult> validation = SingleParseValidation.of(List.of(xsd, schematron),
+                twoPasses, () -> {
+                    opened.incrementAndGet();
+                    return new ByteArrayInputStream(invoice);
+                });
+
+        assertTrue(validation.apply(xsd).getValidatedAgainst().startsWith("XSD"));
+        ValidationResult rules = validation.apply(schematron);
+
+        assertEquals(1, opened.get());
+        assertFalse(rules.isValid());
+        assertEquals("Schematron EN 16931", rules.getValidatedAgainst());
+    }
+
+    @Test
+    void analyseUniqueReprendLeSchematronSurDocumentMalForme() {
+        CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                .singleParse(true)
+                .build());
+
+        ValidationResult result = validator.validate(
+                INVOICE_WITHOUT_LINES.replace("<rsm:ExchangedDocument/>", "<rsm:ExchangedDocument>"));
+
+        assertFalse(result.isValid());
+        assertTrue(result.getValidatedAgainst().contains("Schematron EN 16931"));
+    }
+
+    @Test
+    void nExecutePasLeSchematronSansReglesPourLeType() throws IOException {
+        AtomicInteger executions = new AtomicInteger();
+        CompositeValidator validator = new CompositeValidator();
+        validator.setSchemaVersion(SchemaVersion.D23B);
+        validator.addValidator(new SchematronValidator() {
+            @Override
+            public ValidationResult validate(InputStream inputStream, ValidationListener listener) {
+                executions.incrementAndGet();
+                return super.validate(inputStream, listener);
+            }
+        });
+
+        ValidationResult order = validator.validate(lireRessource("order-valid.xml"));
+        assertTrue(order.isValid(), () -> String.valueOf(order.getErrors()));
+        assertEquals("XSD D23B", order.getValidatedAgainst());
+        assertEquals(0, executions.get());
+
+        validator.validate(INVOICE_WITHOUT_LINES);
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void routeChaqueDocumentSelonSonContexte() throws Exception {
+        // aucune CIUS n'est orientée d'office vers un sous-ensemble : le partenaire enregistre son profil
+        GuidelineContexts.register(GuidelineContexts.EN16931_GUIDELINE + "#compliant#urn:partenaire:xrechnung", null,
+                SchematronRuleSets.XRECHNUNG_SUBSET_PROFILE);
+        String xrechnung = lireRessource("invoice-en16931.xml")
+                .replace("urn:xeinkauf.de:kosit:xrechnung_3.0", "urn:partenaire:xrechnung");
+        String en16931 = xrechnung.replace("#compliant#urn:partenaire:xrechnung", "");
+        String orderD24A = lireRessource("order-valid.xml").replace("<rsm:ExchangedDocumentContext/>", """
+                <rsm:ExchangedDocumentContext>
+                    <ram:GuidelineSpecifiedDocumentContextParameter>
+                        <ram:ID>urn:partenaire:commande:D24A</ram:ID>
+                    </ram:GuidelineSpecifiedDocumentContextParameter>
+                </rsm:ExchangedDocumentContext>""");
+        List<String> documents = List.of(xrechnung, en16931, orderD24A);
+        List<Function<String, String>> expected = List.of(
+                against -> against.contains("XSD D23B") && against.contains("Schematron XRechnung") ? null : against,
+                against -> against.contains("XSD D23B") && against.contains("Schematron EN 16931") ? null : against,
+                against -> "XSD D24A".equals(against) ? null : against);
+
+        for (CompositeValidatorOptions.CompositeValidatorOptionsBuilder options : List.of(
+                CompositeValidatorOptions.builder(),
+                CompositeValidatorOptions.builder().singleParse(true),
+                CompositeValidatorOptions.builder().streaming(true))) {
+            CompositeValidator validator = new CompositeValidator(options.detectDocumentContext(true).build());
+            validator.setSchemaVersion(SchemaVersion.D23B);
+            List<Future<ValidationResult>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+                for (int i = 0; i < 12; i++) {
+                    byte[] document = documents.get(i % 3).getBytes(StandardCharsets.UTF_8);
+                    results.add(executor.submit(() -> validator.validate(new ByteArrayInputStream(document))));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertNull(expected.get(i % 3).apply(results.get(i).get().getValidatedAgainst()));
+            }
+            // les types de données non qualifiés de D24A ont changé d'espace de noms : la commande D23B y est refusée
+            assertTrue(results.get(2).get().getErrors().stream()
+                    .anyMatch(error -> error.getMessage().contains("UnqualifiedDataType:35")));
+        }
+
+        Invoice invoice = (Invoice) JAXBContext.newInstance(Invoice.class).createUnmarshaller()
+                .unmarshal(new StringReader(xrechnung));
+        CompositeValidator configured = new CompositeValidator(CompositeValidatorOptions.builder()
+                .schematronProfile(SchematronRuleSets.XRECHNUNG_SUBSET_PROFILE)
+                .build());
+        configured.setSchemaVersion(SchemaVersion.D23B);
+        CompositeValidator detecting = new CompositeValidator(CompositeValidatorOptions.builder()
+                .detectDocumentContext(true)
+                .build());
+        detecting.setSchemaVersion(SchemaVersion.D23B);
+        ValidationResult model = detecting.validate(invoice);
+        assertNull(expected.get(0).apply(model.getValidatedAgainst()));
+        assertEquals(configured.validate(invoice).getErrors(), model.getErrors());
+    }
+
+    @Test
+    void neRemplacePasUnProfilChoisiEtAppliqueLesReglesDuContexteDetecte() throws Exception {
+        String xrechnung = lireRessource("invoice-en16931.xml");
+        CompositeValidator configured = new CompositeValidator(CompositeValidatorOptions.builder()
+                .schematronProfile(SchematronRuleSets.EN16931_SUBSET_PROFILE)
+                .detectDocumentContext(true)
+                .build());
+        configured.setSchemaVersion(SchemaVersion.D23B);
+
+        assertTrue(configured.validate(xrechnung).getValidatedAgainst()
+                .contains("Schematron EN 16931 (sous-ensemble)"));
+
+        // des règles enregistrées pour le seul profil du partenaire ne sont pas écartées avant la détection
+        SchematronRuleSets.register(MessageType.DESPATCH_ADVICE, SchemaVersion.D23B, "PARTENAIRE-DESADV",
+                "schematron/EN16931-CII-validation.xslt", "Schematron partenaire");
+        GuidelineContexts.register("urn:partenaire:expedition", null, "PARTENAIRE-DESADV");
+        String despatchAdvice = lireRessource("desadv-valid.xml").replace("<rsm:ExchangedDocumentContext/>", """
+                <rsm:ExchangedDocumentContext>
+                    <ram:GuidelineSpecifiedDocumentContextParameter>
+                        <ram:ID>urn:partenaire:expedition:1.0</ram:ID>
+                    </ram:GuidelineSpecifiedDocumentContextParameter>
+                </rsm:ExchangedDocumentContext>""");
+        for (CompositeValidatorOptions.CompositeValidatorOptionsBuilder options : List.of(
+                CompositeValidatorOptions.builder(),
+                CompositeValidatorOptions.builder().singleParse(true),
+                CompositeValidatorOptions.builder().streaming(true))) {
+            CompositeValidator detecting = new CompositeValidator(options.detectDocumentContext(true).build());
+            detecting.setSchemaVersion(SchemaVersion.D23B);
+
+            assertTrue(detecting.validate(despatchAdvice).getValidatedAgainst().contains("Schematron partenaire"));
+        }
+    }
+
+    @Test
+    void conserveLesDureesParPhaseDeChaqueValidateur() throws IOException {
+        String invoice = lireRessource("invoice-en16931.xml");
+        List<String> expected = List.of(
+                "CompositeValidator:READ", "CompositeValidator:DETECTION",
+                "XSDValidator:DETECTION", "XSDValidator:SCHEMA_LOOKUP", "XSDValidator:XSD_PARSE",
+                "SchematronValidator:DETECTION", "SchematronValidator:SCHEMA_LOOKUP",
+                "SchematronValidator:SCHEMATRON_TRANSFORM", "SchematronValidator:SVRL_MAPPING");
+        for (boolean parallel : new boolean[]{false, true}) {
+            CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                    .parallel(parallel)
+                    .build());
+            validator.setSchemaVersion(SchemaVersion.D23B);
+
+            ValidationResult result = validator.validate(invoice);
+
+            assertEquals(expected, result.getTimings().stream()
+                    .map(timing -> timing.getValidator() + ":" + timing.getPhase())
+                    .toList());
+            assertTrue(result.getTimings().stream().allMatch(timing -> timing.getNanos() >= 0));
+            assertTrue(result.getTimings().stream()
+                    .filter(timing -> timing.getPhase() == PhaseTiming.Phase.XSD_PARSE)
+                    .allMatch(timing -> timing.getNanos() > 0));
+        }
+    }
+
+    @Test
+    void rejetteUneFactureAuxTotauxIncoherentsAvantLeXsd() throws IOException {
+        String invoice = lireRessource("invoice-en16931.xml")
+                .replace("<ram:GrandTotalAmount>18000.00", "<ram:GrandTotalAmount>18000.01");
+        CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                .policy(ValidationPolicy.FAIL_FAST)
+                .calculationPreCheck(true)
+                .build());
+        validator.setSchemaVersion(SchemaVersion.D23B);
+
+        ValidationResult result = validator.validate(invoice);
+
+        assertFalse(result.isValid());
+        assertEquals(CalculationRulesValidator.LABEL, result.getValidatedAgainst());
+        assertEquals(List.of("BR-CO-15", "BR-CO-16"),
+                result.getErrors().stream().map(ValidationError::getRule).toList());
+        assertTrue(result.getWarnings().stream().anyMatch(w -> w.getMessage().contains("XSDValidator ignorée")));
+        assertTrue(result.getWarnings().stream().anyMatch(w -> w.getMessage().contains("SchematronValidator ignorée")));
+    }
+
+    @Test
+    void neReportePasDeuxFoisLesReglesDeCalcul() throws IOException {
+        String invoice = lireRessource("invoice-en16931.xml")
+                .replace("<ram:CalculatedAmount>3000.00", "<ram:CalculatedAmount>3000.10");
+        CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                .calculationPreCheck(true)
+                .build());
+        validator.setSchemaVersion(SchemaVersion.D23B);
+
+        ValidationResult result = validator.validate(invoice);
+
+        assertFalse(result.isValid());
+        assertEquals(List.of("BR-CO-17", "BR-CO-14"), result.getErrors().stream()
+                .map(ValidationError::getRule)
+                .filter(CalculationRulesValidator::covers)
+                .toList());
+        assertTrue(result.getValidatedAgainst().startsWith(CalculationRulesValidator.LABEL + ", XSD D23B"));
+    }
+
+    @Test
+    void valideUnObjetDuModeleCommeSonXml() throws IOException, JAXBException {
+        String xml = lireRessource("invoice-en16931.xml")
+                .replace("<ram:CalculatedAmount>3000.00", "<ram:CalculatedAmount>3000.10");
+        Invoice invoice = (Invoice) JAXBContext.newInstance(Invoice.class).createUnmarshaller()
+                .unmarshal(new StringReader(xml));
+        for (boolean parallel : new boolean[]{false, true}) {
+            CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                    .parallel(parallel)
+                    .calculationPreCheck(true)
+                    .build());
+            validator.setSchemaVersion(SchemaVersion.D23B);
+            List<String> received = new ArrayList<>();
+            validator.addValidator(new SlowValidator("tiers", 0) {
+                @Override
+                public ValidationResult validate(InputStream inputStream) {
+                    try {
+                        received.add(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        fail(e);
+                    }
+                    return super.validate(inputStream);
+                }
+            });
+
+            ValidationResult actual = validator.validate(invoice);
+            assertEquals(1, received.size());
+            ValidationResult expected = validator.validate(received.get(0));
+
+            assertFalse(actual.isValid());
+            assertEquals(regles(expected), regles(actual));
+            assertTrue(regles(actual).get(0).startsWith("BR-CO-17"));
+            assertEquals(expected.getValidatedAgainst(), actual.getValidatedAgainst());
+        }
+    }
+
+    @Test
+    void valideUneCommandeDuModele() throws IOException, JAXBException {
+        Order order = (Order) JAXBContext.newInstance(Order.class).createUnmarshaller()
+                .unmarshal(new StringReader(lireRessource("order-valid.xml")));
+        CompositeValidator validator = new CompositeValidator(CompositeValidatorOptions.builder()
+                .singleParse(true)
+                .build());
+        validator.setSchemaVersion(SchemaVersion.D23B);
+
+        ValidationResult result = validator.validate(order);
+
+        assertTrue(result.isValid(), () -> String.valueOf(result.getErrors()));
+        assertEquals("XSD D23B", result.getValidatedAgainst());
+    }
+
+    @Test
+    void valideUnFluxEnUnSeulPassageCommeEnMemoire() throws IOException {
+        String invoice = lireRessource("invoice-en16931.xml")
+                .replace("<ram:CalculatedAmount>3000.00", "<ram:CalculatedAmount>3000.10");
+        for (String xml : List.of(invoice, INVOICE_WITHOUT_LINES, lireRessource("order-valid.xml"))) {
+            String resource = xml.substring(0, 120);
+            CompositeValidatorOptions.CompositeValidatorOptionsBuilder options = CompositeValidatorOptions.builder()
+                    .calculationPreCheck(true);
+            CompositeValidator buffered = new CompositeValidator(options.build());
+            CompositeValidator streaming = new CompositeValidator(options.streaming(true).build());
+            AtomicInteger resets = new AtomicInteger();
+
+            ValidationResult expected = buffered.validate(xml);
+            ValidationResult actual = streaming.validate(new ByteArrayInputStream(
+                    xml.getBytes(StandardCharsets.UTF_8)) {
+                @Override
+                public synchronized void reset() {
+                    resets.incrementAndGet();
+                    super.reset();
+                }
+            });
+
+            assertEquals(expected.isValid(), actual.isValid(), resource);
+            assertEquals(regles(expected), regles(actual), resource);
+            assertEquals(expected.getValidatedAgainst(), actual.getValidatedAgainst(), resource);
+            assertEquals(0, resets.get(), resource);
+        }
+
+        ValidationResult malformed = new CompositeValidator(CompositeValidatorOptions.builder()
+                .streaming(true)
+                .build()).validate(new ByteArrayInputStream("<pas-du-xml".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(malformed.isValid());
+        assertEquals(1, malformed.getErrors().size());
+        assertTrue(malformed.getErrors().get(0).getMessage().startsWith("Échec de la validation du flux : "));
+    }
+
+    @Test
+    void traiteLeSchematronSelonLaTailleDuDocument() throws IOException {
+        String invoice = lireRessource("invoice-en16931.xml");
+        for (boolean streaming : new boolean[]{false, true}) {
+            CompositeValidatorOptions.CompositeValidatorOptionsBuilder options = CompositeValidatorOptions.builder()
+                    .streaming(streaming)
+                    .schematronMaxBytes(1_000);
+
+            ValidationResult skipped = new CompositeValidator(options.build())
+                    .validate(new ByteArrayInputStream(invoice.getBytes(StandardCharsets.UTF_8)));
+            ValidationResult warned = new CompositeValidator(options.schematronSizePolicy(SchematronSizePolicy.WARN)
+                    .build()).validate(new ByteArrayInputStream(invoice.getBytes(StandardCharsets.UTF_8)));
+
+            assertFalse(skipped.getValidatedAgainst().contains("Schematron"));
+            assertTrue(skipped.getWarnings().stream().anyMatch(w -> w.getMessage()
+                    .equals("Validation SchematronValidator ignorée : document de plus de 1000 octets")));
+            assertTrue(warned.getValidatedAgainst().contains("Schematron EN 16931"));
+            assertTrue(warned.getWarnings().stream().anyMatch(w -> w.getMessage()
+                    .startsWith("Schematron exécuté sur un document de ")));
+        }
+    }
+
+    private static List<String> regles(ValidationResult result) {
+        return result.getErrors().stream().map(error -> error.getRule() + " " + error.getMessage()).toList();
+    }
+
+    private String lireRessource(String name) throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(name)) {
+            assertNotNull(inputStream, "Ressource " + name + " introuvable");
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class SlowValidator implements CIIValidator {
+        private final String name;
+        private final long delayMillis;
+
+        SlowValidator(String name, long delayMillis) {
+            this.name = name;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public ValidationResult validate(File xmlFile) {
+            return validate("");
+        }
+
+        @Override
+        public ValidationResult validate(InputStream inputStream) {
+            return validate("");
+        }
+
+        @Override
+        public ValidationResult validate(String xmlContent) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ValidationResult.builder()
+                    .valid(false)
+                    .errors(new ArrayList<>(List.of(ValidationError.builder()
+                            .message("erreur " + name)
+                            .rule(name)
+                            .severity(ValidationError.ErrorSeverity.ERROR)
+                            .build())))
+                    .validatedAgainst(name)
+                    .build();
+        }
+
+        @Override
+        public void setSchemaVersion(SchemaVersion version) {
+            // sans objet
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.CIIValidator;
+import com.cii.messaging.validator.SchemaVersion;
+import com.cii.messaging.validator.ValidationError;
+import com.cii.messaging.validator.ValidationResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoizingValidatorTest {
+
+    private static final String INVALID_ORDER = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rsm:CrossIndustryOrder xmlns:rsm="urn:un:unece:uncefact:data:standard:CrossIndustryOrder:100"
+                                    xmlns:ram="urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100">
+                <rsm:ExchangedDocumentContext/>
+                <rsm:ExchangedDocument>
+                    <ram:ID>ORD-ERROR</ram:ID>
+                </rsm:ExchangedDocument>
+            </rsm:CrossIndustryOrder>
+            """;
+
+    @Test
+    void calculeLEmpreinteMurmur3DeReference() {
+        byte[] data = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("6c1b07bc7bbc4be347939ac4a93c437a", ContentHash.of(data).toHex());
+        assertNotEquals(ContentHash.of(data), ContentHash.of("The quick brown fox jumps over the lazy cog"
+                .getBytes(StandardCharsets.UTF_8)));
+        for (int chunk : new int[]{1, 5, 16, 17, 40}) {
+            ContentHash.Hasher hasher = new ContentHash.Hasher();
+            for (int offset = 0; offset < data.length; offset += chunk) {
+                hasher.update(data, offset, Math.min(chunk, data.length - offset));
+            }
+            assertEquals(ContentHash.of(data), hasher.finish(), "morceaux de " + chunk);
+        }
+    }
+
+    @Test
+    void neChargePasLeDocumentDevantUnCompositeEnContinu(@TempDir Path directory) throws Exception {
+        CompositeValidator composite = new CompositeValidator(CompositeValidatorOptions.builder()
+                .streaming(true)
+                .build());
+        composite.setSchemaVersion(SchemaVersion.D23B);
+        ValidationResult expected = composite.validate(INVALID_ORDER);
+        MemoizingValidator validator = new MemoizingValidator(composite);
+        byte[] data = INVALID_ORDER.getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(directory.resolve("order.xml"), data);
+
+        ValidationResult first = validator.validate(sansChargementComplet(data));
+        ValidationResult second = validator.validate(sansChargementComplet(data));
+        ValidationResult fromFile = validator.validate(file.toFile());
+
+        assertEquals(expected.getErrors(), first.getErrors());
+        assertEquals(expected.getErrors(), second.getErrors());
+        assertEquals(expected.getErrors(), fromFile.getErrors());
+        assertEquals(1, validator.stats().misses());
+        assertEquals(2, validator.stats().hits());
+    }
+
+    @Test
+    void reutiliseLeResultatDUnDocumentIdentique() {
+        CompositeValidator composite = new CompositeValidator();
+        composite.setSchemaVersion(SchemaVersion.D23B);
+        ValidationResult expected = composite.validate(INVALID_ORDER);
+        MemoizingValidator validator = new MemoizingValidator(composite);
+        validator.setSchemaVersion(SchemaVersion.D23B);
+
+        ValidationResult first = validator.validate(INVALID_ORDER);
+        ValidationResult second = validator.validate(INVALID_ORDER);
+        second.getErrors().clear();
+        ValidationResult third = validator.validate(INVALID_ORDER);
+
+        assertFalse(third.isValid());
+        assertEquals(expected.getErrors(), first.getErrors());
+        assertEquals(expected.getErrors(), third.getErrors());
+        assertEquals(expected.getValidatedAgainst(), third.getValidatedAgainst());
+        MemoizingValidator.Stats stats = validator.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(2.0 / 3, stats.hitRate(), 1e-9);
+        assertEquals(2 * first.getValidationTimeMs(), stats.savedTimeMs());
+    }
+
+    @Test
+    void distingueLaVersionEtLaConfiguration() {
+        CountingValidator delegate = new CountingValidator(ValidationError.ErrorSeverity.ERROR);
+        MemoizingValidator validator = new MemoizingValidator(delegate);
+
+        validator.validate(INVALID_ORDER);
+        validator.setSchemaVersion(SchemaVersion.D24A);
+        validator.validate(INVALID_ORDER);
+        validator.validate(INVALID_ORDER + " ");
+
+        assertEquals(3, delegate.calls.get());
+        assertEquals(List.of(SchemaVersion.getDefault(), SchemaVersion.D24A, SchemaVersion.D24A), delegate.versions);
+        assertNotEquals(MemoizingValidator.describe(new CompositeValidator()),
+                MemoizingValidator.describe(new CompositeValidator(CompositeValidatorOptions.builder()
+                        .calculationPreCheck(true)
+                        .build())));
+    }
+
+    @Test
+    void conserveLaVersionDuValidateurDecore() {
+        CompositeValidator composite = new CompositeValidator();
+        composite.setSchemaVersion(SchemaVersion.D24A);
+        CountingValidator counting = new CountingValidator(ValidationError.ErrorSeverity.ERROR);
+        counting.setSchemaVersion(SchemaVersion.D24A);
+
+        new MemoizingValidator(composite);
+        new MemoizingValidator(counting).validate(INVALID_ORDER);
+
+        assertEquals(SchemaVersion.D24A, composite.schemaVersion());
+        assertEquals(List.of(SchemaVersion.D24A), counting.versions);
+    }
+
+    @Test
+    void distingueLaLimiteDErreursEtLaDetectionDuContexteXsd() {
+        XSDValidator xsd = new XSDValidator();
+        xsd.setSchemaVersion(SchemaVersion.D23B);
+        MemoizingValidator validator = new MemoizingValidator(xsd);
+        String unlimited = MemoizingValidator.describe(xsd);
+
+        validator.validate(INVALID_ORDER);
+        xsd.setMaxErrors(1);
+        validator.validate(INVALID_ORDER);
+        String limited = MemoizingValidator.describe(xsd);
+        xsd.setDetectDocumentContext(true);
+        validator.validate(INVALID_ORDER);
+
+        assertEquals(3, validator.stats().misses());
+        assertNotEquals(unlimited, limited);
+        assertNotEquals(limited, MemoizingValidator.describe(xsd));
+    }
+
+    @Test
+    void evinceLeResultatLeMoinsRecemmentUtilise() {
+        CountingValidator delegate = new CountingValidator(ValidationError.ErrorSeverity.ERROR);
+        MemoizingValidator validator = new MemoizingValidator(delegate, 2, null);
+
+        validator.validate("a");
+        validator.validate("b");
+        validator.validate("a");
+        validator.validate("c");
+        validator.validate("a");
+        validator.validate("b");
+
+        assertEquals(4, delegate.calls.get());
+        assertEquals(2, validator.stats().size());
+    }
+
+    @Test
+    void neConservePasLesErreursFatales() {
+        CountingValidator delegate = new CountingValidator(ValidationError.ErrorSeverity.FATAL);
+        MemoizingValidator validator = new MemoizingValidator(delegate);
+
+        validator.validate(INVALID_ORDER);
+        validator.validate(INVALID_ORDER);
+
+        assertEquals(2, delegate.calls.get());
+        assertEquals(0, validator.stats().size());
+    }
+
+    @Test
+    void retrouveLeResultatDansLeNiveauPersistant(@TempDir Path directory) {
+        CountingValidator delegate = new CountingValidator(ValidationError.ErrorSeverity.ERROR);
+        ValidationResult first = new MemoizingValidator(delegate, 10, new FileValidationResultStore(directory))
+                .validate(INVALID_ORDER);
+
+        MemoizingValidator restarted = new MemoizingValidator(delegate, 10, new FileValidationResultStore(directory));
+        ValidationResult stored = restarted.validate(INVALID_ORDER);
+        restarted.validate(INVALID_ORDER);
+
+        assertEquals(1, delegate.calls.get());
+        assertEquals(first.getErrors(), stored.getErrors());
+        assertEquals(first.getWarnings(), stored.getWarnings());
+        assertEquals(first.getValidatedAgainst(), stored.getValidatedAgainst());
+        assertEquals(1, restarted.stats().storeHits());
+        assertEquals(1, restarted.stats().hits());
+    }
+
+    private static final class CountingValidator implements CIIValidator {
+        private final ValidationError.ErrorSeverity severity;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final List<SchemaVersion> versions = new ArrayList<>();
+        private SchemaVersion version = SchemaVersion.getDefault();
+
+        CountingValidator(ValidationError.ErrorSeverity severity) {
+            this.severity = severity;
+        }
+
+        @Override
+        public ValidationResult validate(File xmlFile) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ValidationResult validate(InputStream inputStream) {
+            calls.incrementAndGet();
+            versions.add(version);
+            ValidationResult result = ValidationResult.builder()
+                    .valid(true)
+                    .validatedAgainst("compteur")
+                    .validationTimeMs(5)
+                    .build();
+            result.addError(ValidationError.builder()
+                    .message("Erreur n°" + calls.get())
+                    .lineNumber(3)
+                    .severity(severity)
+                    .rule("R-1")
+                    .build());
+            return result;
+        }
+
+        @Override
+        public ValidationResult validate(String xmlContent) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setSchemaVersion(SchemaVersion version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * Flux dont la lecture intégrale en mémoire échoue.
+     */
+    private static InputStream sansChargementComplet(byte[] data) {
+        return new ByteArrayInputStream(data) {
+            @Override
+            public synchronized byte[] readAllBytes() {
+                throw new UnsupportedOperationException("document chargé en mémoire");
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.validator.SchemaVersion;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessagePeekTest {
+
+    private static final String ORDER = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <!-- commentaire -->
+            <rsm:CrossIndustryOrder xmlns:rsm="urn:un:unece:uncefact:data:standard:CrossIndustryOrder:100">
+                <rsm:ExchangedDocumentContext/>
+            </rsm:CrossIndustryOrder>
+            """;
+
+    @Test
+    void detecteLaRacineSansConsommerLeFlux() throws Exception {
+        byte[] data = ORDER.getBytes(StandardCharsets.UTF_8);
+        InputStream input = new BufferedInputStream(new ByteArrayInputStream(data), 16);
+
+        assertEquals(MessageType.ORDER, MessagePeek.detectMessageType(input));
+        assertArrayEquals(data, input.readAllBytes());
+    }
+
+    @Test
+    void rejetteUneRacineInconnue() {
+        InputStream input = new ByteArrayInputStream("<foo/>".getBytes(StandardCharsets.UTF_8));
+
+        SAXException exception = assertThrows(SAXException.class, () -> MessagePeek.detectMessageType(input));
+        assertTrue(exception.getMessage().contains("Élément racine inconnu : foo"));
+    }
+
+    @Test
+    void borneLaLectureDuPrologue() {
+        String prologue = "<!--" + "x".repeat(MessagePeek.PEEK_LIMIT) + "-->";
+        InputStream input = new ByteArrayInputStream((prologue + ORDER.substring(ORDER.indexOf("<rsm")))
+                .getBytes(StandardCharsets.UTF_8));
+
+        SAXException exception = assertThrows(SAXException.class, () -> MessagePeek.detectMessageType(input));
+        assertTrue(exception.getMessage().contains("introuvable"));
+    }
+
+    @Test
+    void litLIdentifiantDeSpecificationSansConsommerLeFlux() throws Exception {
+        byte[] data = ORDER.replace("<rsm:ExchangedDocumentContext/>", """
+                <rsm:ExchangedDocumentContext xmlns:ram="urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100">
+                    <ram:BusinessProcessSpecifiedDocumentContextParameter><ram:ID>A1</ram:ID></ram:BusinessProcessSpecifiedDocumentContextParameter>
+                    <ram:GuidelineSpecifiedDocumentContextParameter>
+                        <ram:ID> urn:partenaire:commande:D24A </ram:ID>
+                    </ram:GuidelineSpecifiedDocumentContextParameter>
+                </rsm:ExchangedDocumentContext>
+                <rsm:ExchangedDocument>""").replace("</rsm:CrossIndustryOrder>", "</rsm:ExchangedDocument></rsm:CrossIndustryOrder>")
+                .getBytes(StandardCharsets.UTF_8);
+        InputStream input = new BufferedInputStream(new ByteArrayInputStream(data), 16);
+
+        MessagePeek.Result peek = MessagePeek.peek(input);
+
+        assertEquals(MessageType.ORDER, peek.type());
+        assertEquals("urn:partenaire:commande:D24A", peek.guidelineId());
+        assertEquals(new DocumentContext(SchemaVersion.D24A, null), peek.context());
+        assertArrayEquals(data, input.readAllBytes());
+        assertNull(MessagePeek.peek(new ByteArrayInputStream(ORDER.getBytes(StandardCharsets.UTF_8))).guidelineId());
+    }
+
+    @Test
+    void deduitLeProfilDeLIdentifiantDeSpecification() {
+        assertEquals(DocumentContext.NONE, GuidelineContexts.resolve(GuidelineContexts.EN16931_GUIDELINE));
+        // les sous-ensembles ne remplacent pas les artefacts officiels : aucune facture n'y est orientée d'office
+        assertEquals(DocumentContext.NONE, GuidelineContexts.resolve(GuidelineContexts.EN16931_GUIDELINE
+                + "#compliant#urn:xeinkauf.de:kosit:xrechnung_3.0"));
+        GuidelineContexts.register("urn:partenaire:facture", null, SchematronRuleSets.XRECHNUNG_SUBSET_PROFILE);
+        assertEquals(new DocumentContext(SchemaVersion.D24A, SchematronRuleSets.XRECHNUNG_SUBSET_PROFILE),
+                GuidelineContexts.resolve("urn:partenaire:facture:D24A"));
+        assertEquals(DocumentContext.NONE, GuidelineContexts.resolve("urn:inconnu:D24AX"));
+        assertEquals(DocumentContext.NONE, GuidelineContexts.resolve(null));
+    }
+}
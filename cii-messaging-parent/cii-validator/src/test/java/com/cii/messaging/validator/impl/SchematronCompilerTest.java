@@ -0,0 +1,60 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.ValidationCollector;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SAXDestination;
+import net.sf.saxon.s9api.XsltExecutable;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchematronCompilerTest {
+
+    private static final Path EN16931 = Path.of("src/main/schematron/EN16931-CII-validation.sch");
+
+    @Test
+    void lesFeuillesLivreesCorrespondentAuxSourcesSchematron() throws Exception {
+        List<Path> outdated = SchematronCompiler.outdated(Path.of("src/main/schematron"),
+                Path.of("src/main/resources/schematron"));
+
+        assertEquals(List.of(), outdated, "XSLT à régénérer avec : mvn -pl cii-validator -Pschematron process-classes");
+    }
+
+    @Test
+    void compileUneFeuilleReduiteAuxReglesEtMotifsSelectionnes() throws Exception {
+        String xslt = SchematronCompiler.compile(EN16931, Set.of("BR-CO-15", "CII-syntax"));
+
+        assertTrue(xslt.contains(">BR-CO-15<"));
+        assertFalse(xslt.contains(">BR-CO-16<"));
+        assertFalse(xslt.contains(">BR-01<"));
+        assertTrue(xslt.contains(">CII-SR-001<"));
+
+        Processor processor = new Processor(false);
+        XsltExecutable executable = processor.newXsltCompiler().compile(new StreamSource(new StringReader(xslt)));
+        String invoice;
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("invoice-en16931.xml")) {
+            invoice = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)
+                    .replace("<ram:GrandTotalAmount>18000.00", "<ram:GrandTotalAmount>18000.01");
+        }
+        ValidationCollector collector = new ValidationCollector();
+        executable.load30().transform(new StreamSource(new StringReader(invoice)),
+                new SAXDestination(new SvrlHandler(collector)));
+
+        assertEquals(List.of("BR-CO-15"), collector.getErrors().stream().map(error -> error.getRule()).toList());
+    }
+
+    @Test
+    void refuseUnIdentifiantInconnu() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> SchematronCompiler.compile(EN16931, Set.of("BR-INCONNUE")));
+        assertTrue(e.getMessage().contains("BR-INCONNUE"));
+    }
+}
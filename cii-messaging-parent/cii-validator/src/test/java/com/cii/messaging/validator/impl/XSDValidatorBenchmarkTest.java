@@ -0,0 +1,87 @@
+package com.cii.messaging.validator.impl;
+
+import com.cii.messaging.validator.SchemaVersion;
+import com.cii.messaging.validator.ValidationResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mesure indicative du débit et du pic de tas de {@link XSDValidator}, exécutée uniquement avec
+ * {@code -Dcii.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "cii.benchmark", matches = "true")
+class XSDValidatorBenchmarkTest {
+
+    private static final String LINE_ITEM_START = "<ram:IncludedSupplyChainTradeLineItem>";
+    private static final String LINE_ITEM_END = "</ram:IncludedSupplyChainTradeLineItem>";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void mesureLeDebitEtLePicDeTas() throws IOException {
+        XSDValidator validator = new XSDValidator();
+        validator.setSchemaVersion(SchemaVersion.D23B);
+
+        Path small = ecrire("small.xml", commande(1));
+        Path large = ecrire("large.xml", commande(200_000));
+
+        mesurer(validator, "petit ORDER", small, 500);
+        mesurer(validator, "grand ORDER (" + Files.size(large) / (1024 * 1024) + " Mo)", large, 5);
+    }
+
+    private void mesurer(XSDValidator validator, String libelle, Path file, int iterations) {
+        for (int i = 0; i < Math.max(1, iterations / 5); i++) {
+            validator.validate(file.toFile());
+        }
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            ValidationResult result = validator.validate(file.toFile());
+            assertTrue(result.isValid(), () -> String.valueOf(result.getErrors()));
+        }
+        double averageMillis = (System.nanoTime() - start) / 1_000_000.0 / iterations;
+        long peakHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        System.out.printf("%s : %.3f ms/validation, %.1f validations/s, pic de tas %d Mo%n",
+                libelle, averageMillis, 1000 / averageMillis, peakHeap / (1024 * 1024));
+    }
+
+    private String commande(int lines) throws IOException {
+        String template;
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("order-valid.xml")) {
+            assertNotNull(inputStream, "Ressource order-valid.xml introuvable");
+            template = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        int start = template.indexOf(LINE_ITEM_START);
+        int end = template.indexOf(LINE_ITEM_END) + LINE_ITEM_END.length();
+        String line = template.substring(start, end);
+        StringBuilder xml = new StringBuilder(template.length() + line.length() * lines);
+        xml.append(template, 0, start);
+        for (int i = 0; i < lines; i++) {
+            xml.append(line).append('\n');
+        }
+        xml.append(template, end, template.length());
+        return xml.toString();
+    }
+
+    private Path ecrire(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+}
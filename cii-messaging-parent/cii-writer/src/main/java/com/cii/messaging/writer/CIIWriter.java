@@ -1,5 +1,8 @@
 package com.cii.messaging.writer;
 
+import com.cii.messaging.validator.SchemaVersion;
+import com.cii.messaging.validator.ValidationResult;
+
 import java.io.File;
 import java.io.OutputStream;
 
@@ -14,4 +17,29 @@ public interface CIIWriter<T> {
     String writeToString(T message) throws CIIWriterException;
     void setFormatOutput(boolean format);
     void setEncoding(String encoding);
+
+    /**
+     * Écrit le message et retourne les erreurs de schéma détectées pendant le marshalling (voir
+     * {@link #setSchemaValidation}). Un fichier dont l'écriture a été interrompue est supprimé.
+     *
+     * @return erreurs de schéma collectées ; résultat valide et vide si la validation est désactivée
+     */
+    ValidationResult writeValidated(T message, File outputFile) throws CIIWriterException;
+
+    /**
+     * Écrit le message et retourne les erreurs de schéma détectées pendant le marshalling (voir
+     * {@link #setSchemaValidation}).
+     *
+     * @return erreurs de schéma collectées ; résultat valide et vide si la validation est désactivée
+     */
+    ValidationResult writeValidated(T message, OutputStream outputStream) throws CIIWriterException;
+
+    /**
+     * Active la validation XSD pendant le marshalling. Les méthodes {@code write} échouent alors sur un message
+     * non conforme si {@code abortOnError} est vrai ; sinon elles écrivent le message et journalisent les erreurs.
+     *
+     * @param version      version du schéma UNECE, {@code null} pour désactiver la validation
+     * @param abortOnError interrompt l'écriture à la première erreur de schéma
+     */
+    void setSchemaValidation(SchemaVersion version, boolean abortOnError);
 }
@@ -1,6 +1,7 @@
 package com.cii.messaging.writer;
 
 import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.validator.SchemaVersion;
 
 /**
  * Fabrique fournissant les implémentations de writer selon le {@link MessageType}.
@@ -22,6 +23,12 @@ public class CIIWriterFactory {
         if (config != null) {
             writer.setFormatOutput(config.isFormatOutput());
             writer.setEncoding(config.getEncoding());
+            if (config.isValidateSchema()) {
+                SchemaVersion version = config.getSchemaVersion() != null
+                        ? config.getSchemaVersion()
+                        : SchemaVersion.getDefault();
+                writer.setSchemaValidation(version, config.isAbortOnSchemaError());
+            }
         }
         return writer;
     }
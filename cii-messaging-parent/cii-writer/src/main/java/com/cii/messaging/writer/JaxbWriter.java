@@ -1,27 +1,42 @@
 package com.cii.messaging.writer;
 
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.validator.SchemaCache;
+import com.cii.messaging.validator.SchemaVersion;
+import com.cii.messaging.validator.ValidationResult;
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.PropertyException;
+import jakarta.xml.bind.annotation.XmlRootElement;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
+import java.nio.file.Files;
 
 /**
  * Implémentation générique de {@link CIIWriter} reposant sur JAXB.
+ * <p>
+ * Avec {@link #setSchemaValidation}, le schéma UNECE compilé ({@link SchemaCache}) est associé au marshaller : le
+ * message est validé pendant son unique marshalling, sans relecture du document produit.
+ * </p>
  */
 public class JaxbWriter<T> implements CIIWriter<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(JaxbWriter.class);
     private static final String NAMESPACE_PREFIX_MAPPER_PROPERTY = "com.sun.xml.bind.namespacePrefixMapper";
 
     private final JAXBContext context;
+    private final MessageType messageType;
     private boolean formatOutput = true;
     private String encoding = "UTF-8";
+    private SchemaVersion schemaVersion;
+    private boolean abortOnSchemaError = true;
 
     public JaxbWriter(Class<T> type) {
         try {
@@ -29,36 +44,112 @@ public class JaxbWriter<T> implements CIIWriter<T> {
         } catch (JAXBException e) {
             throw new IllegalStateException("Impossible de créer le JAXBContext", e);
         }
+        this.messageType = messageType(type);
     }
 
     @Override
     public void write(T message, File outputFile) throws CIIWriterException {
+        requireValid(writeValidated(message, outputFile));
+    }
+
+    @Override
+    public void write(T message, OutputStream outputStream) throws CIIWriterException {
+        requireValid(writeValidated(message, outputStream));
+    }
+
+    @Override
+    public String writeToString(T message) throws CIIWriterException {
+        StringWriter sw = new StringWriter();
+        requireValid(marshal(marshaller -> marshaller.marshal(message, sw)));
+        return sw.toString();
+    }
+
+    @Override
+    public ValidationResult writeValidated(T message, File outputFile) throws CIIWriterException {
+        ValidationResult result;
         try (OutputStream os = new java.io.FileOutputStream(outputFile)) {
-            write(message, os);
+            result = writeValidated(message, os);
+        } catch (CIIWriterException e) {
+            throw e;
         } catch (Exception e) {
             throw new CIIWriterException("Échec de l'écriture du message", e);
         }
+        if (!result.isValid() && abortOnSchemaError) {
+            deletePartialFile(outputFile);
+        }
+        return result;
     }
 
     @Override
-    public void write(T message, OutputStream outputStream) throws CIIWriterException {
+    public ValidationResult writeValidated(T message, OutputStream outputStream) throws CIIWriterException {
+        return marshal(marshaller -> marshaller.marshal(message, outputStream));
+    }
+
+    @Override
+    public void setSchemaValidation(SchemaVersion version, boolean abortOnError) {
+        if (version != null && messageType == null) {
+            throw new IllegalStateException("Aucun schéma UNECE ne correspond au type écrit par ce writer");
+        }
+        this.schemaVersion = version;
+        this.abortOnSchemaError = abortOnError;
+    }
+
+    private ValidationResult marshal(MarshalAction action) throws CIIWriterException {
+        long start = System.currentTimeMillis();
+        SchemaErrorCollector collector = null;
         try {
             Marshaller marshaller = createMarshaller();
-            marshaller.marshal(message, outputStream);
+            if (schemaVersion != null) {
+                collector = new SchemaErrorCollector("XSD " + schemaVersion.getVersion(), abortOnSchemaError);
+                marshaller.setSchema(SchemaCache.getSchema(messageType, schemaVersion));
+                marshaller.setEventHandler(collector);
+            }
+            action.marshal(marshaller);
         } catch (JAXBException e) {
-            throw new CIIWriterException("Échec de l'écriture du message", e);
+            if (collector == null || !collector.isAborted()) {
+                throw new CIIWriterException("Échec de l'écriture du message", e);
+            }
+        } catch (IOException | SAXException e) {
+            throw new CIIWriterException("Schéma " + schemaVersion.getVersion() + " indisponible pour "
+                    + messageType, e);
+        }
+        if (collector == null) {
+            return ValidationResult.builder().valid(true).build();
         }
+        ValidationResult result = collector.getResult();
+        result.setValidationTimeMs(System.currentTimeMillis() - start);
+        return result;
     }
 
-    @Override
-    public String writeToString(T message) throws CIIWriterException {
+    private void requireValid(ValidationResult result) throws CIIWriterException {
+        if (result.isValid()) {
+            return;
+        }
+        if (abortOnSchemaError) {
+            throw new CIIWriterException("Message non conforme au schéma " + schemaVersion.getVersion() + " : "
+                    + result.getErrors().get(0).getMessage());
+        }
+        LOGGER.warn("Message écrit avec {} erreur(s) de schéma {}", result.getErrors().size(),
+                schemaVersion.getVersion());
+    }
+
+    private static void deletePartialFile(File outputFile) {
         try {
-            StringWriter sw = new StringWriter();
-            Marshaller marshaller = createMarshaller();
-            marshaller.marshal(message, sw);
-            return sw.toString();
-        } catch (JAXBException e) {
-            throw new CIIWriterException("Échec de l'écriture du message", e);
+            Files.deleteIfExists(outputFile.toPath());
+        } catch (IOException e) {
+            LOGGER.warn("Impossible de supprimer le fichier incomplet {}", outputFile, e);
+        }
+    }
+
+    private static MessageType messageType(Class<?> type) {
+        XmlRootElement root = type.getAnnotation(XmlRootElement.class);
+        if (root == null) {
+            return null;
+        }
+        try {
+            return MessageType.fromRootElement(root.name());
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 
@@ -96,4 +187,9 @@ public class JaxbWriter<T> implements CIIWriter<T> {
     public void setEncoding(String encoding) {
         this.encoding = encoding;
     }
+
+    @FunctionalInterface
+    private interface MarshalAction {
+        void marshal(Marshaller marshaller) throws JAXBException;
+    }
 }
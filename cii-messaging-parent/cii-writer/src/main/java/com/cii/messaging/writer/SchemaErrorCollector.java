@@ -0,0 +1,71 @@
+package com.cii.messaging.writer;
+
+import com.cii.messaging.validator.ValidationError;
+import com.cii.messaging.validator.ValidationResult;
+import com.cii.messaging.validator.ValidationWarning;
+import jakarta.xml.bind.ValidationEvent;
+import jakarta.xml.bind.ValidationEventHandler;
+import jakarta.xml.bind.ValidationEventLocator;
+
+/**
+ * Collecte les événements de validation émis par le marshaller lorsqu'un schéma lui est associé.
+ * <p>
+ * Une erreur de schéma interrompt le marshalling seulement si {@code abortOnError} est vrai ; sinon l'écriture se
+ * poursuit et toutes les erreurs sont collectées. Une instance sert à un seul marshalling.
+ * </p>
+ */
+final class SchemaErrorCollector implements ValidationEventHandler {
+
+    private final ValidationResult result;
+    private final boolean abortOnError;
+    private boolean aborted;
+
+    SchemaErrorCollector(String validatedAgainst, boolean abortOnError) {
+        this.result = ValidationResult.builder()
+                .valid(true)
+                .validatedAgainst(validatedAgainst)
+                .build();
+        this.abortOnError = abortOnError;
+    }
+
+    @Override
+    public boolean handleEvent(ValidationEvent event) {
+        String location = location(event.getLocator());
+        if (event.getSeverity() == ValidationEvent.WARNING) {
+            result.addWarning(ValidationWarning.builder()
+                    .message(event.getMessage())
+                    .location(location)
+                    .build());
+            return true;
+        }
+        // le marshaller JAXB signale toute erreur de schéma comme fatale : la gravité ne permet pas de les distinguer
+        result.addError(ValidationError.builder()
+                .message(event.getMessage())
+                .location(location)
+                .severity(ValidationError.ErrorSeverity.ERROR)
+                .build());
+        aborted = abortOnError;
+        return !aborted;
+    }
+
+    /**
+     * Indique si le marshalling a été interrompu par ce collecteur.
+     */
+    boolean isAborted() {
+        return aborted;
+    }
+
+    ValidationResult getResult() {
+        return result;
+    }
+
+    /**
+     * Pendant le marshalling, la position désigne l'objet du modèle en cours d'écriture, pas une ligne du document.
+     */
+    private static String location(ValidationEventLocator locator) {
+        if (locator == null || locator.getObject() == null) {
+            return null;
+        }
+        return locator.getObject().getClass().getSimpleName();
+    }
+}
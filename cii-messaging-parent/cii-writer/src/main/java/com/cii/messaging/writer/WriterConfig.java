@@ -1,5 +1,6 @@
 package com.cii.messaging.writer;
 
+import com.cii.messaging.validator.SchemaVersion;
 import lombok.Builder;
 import lombok.Data;
 
@@ -11,4 +12,22 @@ public class WriterConfig {
 
     @Builder.Default
     private String encoding = "UTF-8";
+
+    /**
+     * Valide le message contre le schéma UNECE pendant le marshalling.
+     */
+    @Builder.Default
+    private boolean validateSchema = false;
+
+    /**
+     * Version du schéma utilisée pour la validation ; version par défaut si absente.
+     */
+    private SchemaVersion schemaVersion;
+
+    /**
+     * Interrompt l'écriture à la première erreur de schéma ; sinon l'écriture se poursuit et toutes les erreurs
+     * sont collectées.
+     */
+    @Builder.Default
+    private boolean abortOnSchemaError = true;
 }
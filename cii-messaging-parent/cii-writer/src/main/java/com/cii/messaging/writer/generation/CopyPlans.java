@@ -0,0 +1,464 @@
+package com.cii.messaging.writer.generation;
+
+import com.cii.messaging.writer.mapping.OrderToOrderResponseMapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Plans de copie compilés entre les structures JAXB ORDER et ORDER_RESPONSE.
+ *
+ * <p>Chaque couple (classe source, classe cible) est analysé une seule fois : les accesseurs sont résolus en
+ * {@link MethodHandle}, les classes cibles et les tables de correspondance d'énumérations sont précalculées.
+ * Les conversions suivantes n'effectuent plus ni introspection ni {@code Class.forName}.</p>
+ *
+ * <p>Les couples couverts par le mapper généré à la compilation ({@link OrderToOrderResponseMapper}) sont
+ * délégués à ses méthodes directes. Les plans ne servent qu'aux couples qu'il ne connaît pas : sous-classes des
+ * types JAXB, types hors du graphe parcouru depuis la racine ORDER.</p>
+ */
+final class CopyPlans {
+
+    private static final String ORDER_PACKAGE = "com.cii.messaging.unece.order";
+    private static final String ORDER_RESPONSE_PACKAGE = "com.cii.messaging.unece.orderresponse";
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class);
+
+    private static final ConcurrentMap<PlanKey, CopyPlan> PLANS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<PlanKey, Function<Object, Object>> CONVERSIONS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<PlanKey, Enum<?>[]> ENUM_TABLES = new ConcurrentHashMap<>();
+
+    private static final ClassValue<Class<?>> ORDER_RESPONSE_CLASSES = new ClassValue<>() {
+        @Override
+        protected Class<?> computeValue(Class<?> orderClass) {
+            String targetName = orderClass.getName().replace(ORDER_PACKAGE, ORDER_RESPONSE_PACKAGE);
+            try {
+                return Class.forName(targetName, true, orderClass.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Classe cible introuvable pour la conversion : " + targetName, e);
+            }
+        }
+    };
+
+    private static final ClassValue<Map<String, Method>> SETTERS = new ClassValue<>() {
+        @Override
+        protected Map<String, Method> computeValue(Class<?> type) {
+            Map<String, Method> setters = new HashMap<>();
+            for (Method method : type.getMethods()) {
+                if (method.getParameterCount() == 1) {
+                    setters.putIfAbsent(method.getName(), method);
+                }
+            }
+            return setters;
+        }
+    };
+
+    private CopyPlans() {
+        // utilitaire
+    }
+
+    /**
+     * Convertit une structure ORDER vers son équivalent ORDER_RESPONSE.
+     *
+     * @param source     structure source (peut être {@code null})
+     * @param targetType type attendu côté ORDER_RESPONSE
+     * @param <T>        type cible
+     * @return la structure convertie ou {@code null} si la source est nulle
+     */
+    static <T> T convert(Object source, Class<T> targetType) {
+        if (source == null) {
+            return null;
+        }
+        return targetType.cast(convertValue(source, targetType));
+    }
+
+    /**
+     * Retourne le plan de copie associé au couple de classes fourni, en le construisant au premier appel.
+     */
+    static CopyPlan planFor(Class<?> sourceClass, Class<?> targetClass) {
+        PlanKey key = new PlanKey(sourceClass, targetClass);
+        CopyPlan plan = PLANS.get(key);
+        if (plan != null) {
+            return plan;
+        }
+        // Construction hors de computeIfAbsent : les plans imbriqués sont résolus paresseusement,
+        // mais la construction d'un plan peut en déclencher d'autres sur la même map.
+        CopyPlan created = CopyPlan.build(sourceClass, targetClass);
+        CopyPlan existing = PLANS.putIfAbsent(key, created);
+        return existing != null ? existing : created;
+    }
+
+    /**
+     * Retourne la conversion à appliquer au couple de classes fourni : la méthode du mapper généré si elle existe,
+     * sinon le plan de copie compilé.
+     */
+    static Function<Object, Object> conversionFor(Class<?> sourceClass, Class<?> targetClass) {
+        PlanKey key = new PlanKey(sourceClass, targetClass);
+        Function<Object, Object> conversion = CONVERSIONS.get(key);
+        if (conversion != null) {
+            return conversion;
+        }
+        Function<Object, Object> generated = OrderToOrderResponseMapper.conversion(sourceClass, targetClass);
+        Function<Object, Object> created = generated != null ? generated : planFor(sourceClass, targetClass)::copyToNew;
+        Function<Object, Object> existing = CONVERSIONS.putIfAbsent(key, created);
+        return existing != null ? existing : created;
+    }
+
+    private static Object convertValue(Object value, Class<?> targetType) {
+        if (value == null) {
+            return null;
+        }
+        Class<?> sourceClass = value.getClass();
+        Class<?> boxedTarget = wrap(targetType);
+        if (boxedTarget.isAssignableFrom(sourceClass)) {
+            return value;
+        }
+        if (boxedTarget.isEnum() && value instanceof Enum<?> constant) {
+            return convertEnum(constant, boxedTarget);
+        }
+        Class<?> orderType = orderType(sourceClass);
+        if (orderType != null) {
+            return conversionFor(sourceClass, resolveTarget(orderType, boxedTarget)).apply(value);
+        }
+        return value;
+    }
+
+    private static Object convertListItem(Object element) {
+        if (element == null) {
+            return null;
+        }
+        Class<?> elementClass = element.getClass();
+        if (element instanceof Enum<?> constant) {
+            return convertEnum(constant, ORDER_RESPONSE_CLASSES.get(elementClass));
+        }
+        Class<?> orderType = orderType(elementClass);
+        if (orderType != null) {
+            return conversionFor(elementClass, ORDER_RESPONSE_CLASSES.get(orderType)).apply(element);
+        }
+        return element;
+    }
+
+    private static Object convertEnum(Enum<?> constant, Class<?> targetEnum) {
+        Enum<?>[] table = ENUM_TABLES.computeIfAbsent(new PlanKey(constant.getDeclaringClass(), targetEnum),
+                CopyPlans::buildEnumTable);
+        Enum<?> converted = table[constant.ordinal()];
+        if (converted == null) {
+            throw new IllegalArgumentException("No enum constant " + targetEnum.getCanonicalName()
+                    + "." + constant.name());
+        }
+        return converted;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Enum<?>[] buildEnumTable(PlanKey key) {
+        Object[] sourceConstants = key.source().getEnumConstants();
+        Enum<?>[] table = new Enum<?>[sourceConstants.length];
+        for (Object constant : sourceConstants) {
+            Enum<?> sourceConstant = (Enum<?>) constant;
+            try {
+                table[sourceConstant.ordinal()] = Enum.valueOf((Class<? extends Enum>) key.target(),
+                        sourceConstant.name());
+            } catch (IllegalArgumentException ignored) {
+                // constante absente côté cible : signalée lors de la conversion effective
+            }
+        }
+        return table;
+    }
+
+    private static Class<?> resolveTarget(Class<?> sourceClass, Class<?> targetType) {
+        return targetType == Object.class || !isOrderPackage(targetType)
+                ? ORDER_RESPONSE_CLASSES.get(sourceClass)
+                : targetType;
+    }
+
+    /**
+     * Retourne la classe ORDER dont dérive {@code clazz} (elle-même en général), ou {@code null}.
+     */
+    private static Class<?> orderType(Class<?> clazz) {
+        for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+            if (isOrderPackage(current)) {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isOrderPackage(Class<?> clazz) {
+        return clazz.getName().startsWith(ORDER_PACKAGE);
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    private static RuntimeException propagate(Throwable throwable, Class<?> sourceClass) {
+        if (throwable instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (throwable instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException("Impossible de copier la structure " + sourceClass.getName(), throwable);
+    }
+
+    /**
+     * Convertisseur de valeur sélectionné à la construction du plan.
+     */
+    @FunctionalInterface
+    private interface ValueConverter {
+        Object convert(Object value);
+    }
+
+    private static ValueConverter converterFor(Class<?> declaredSource, Class<?> declaredTarget) {
+        Class<?> boxedTarget = wrap(declaredTarget);
+        Class<?> boxedSource = wrap(declaredSource);
+        if (boxedTarget.isAssignableFrom(boxedSource)) {
+            return value -> value;
+        }
+        if (boxedTarget.isEnum() && boxedSource.isEnum()) {
+            return value -> convertEnum((Enum<?>) value, boxedTarget);
+        }
+        if (isOrderPackage(boxedSource) && !boxedSource.isEnum()) {
+            Class<?> resolvedTarget = resolveTarget(boxedSource, boxedTarget);
+            PlanReference nested = new PlanReference(boxedSource, resolvedTarget);
+            return value -> value.getClass() == boxedSource
+                    ? nested.get().apply(value)
+                    : convertValue(value, declaredTarget);
+        }
+        return value -> convertValue(value, declaredTarget);
+    }
+
+    private static ValueConverter elementConverterFor(Type declaredElement) {
+        if (declaredElement instanceof Class<?> elementClass && isOrderPackage(elementClass)
+                && !elementClass.isEnum()) {
+            PlanReference nested = new PlanReference(elementClass, ORDER_RESPONSE_CLASSES.get(elementClass));
+            return element -> element.getClass() == elementClass
+                    ? nested.get().apply(element)
+                    : convertListItem(element);
+        }
+        return CopyPlans::convertListItem;
+    }
+
+    private static Type listElementType(Method getter) {
+        Type generic = getter.getGenericReturnType();
+        if (generic instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments().length == 1) {
+            return parameterized.getActualTypeArguments()[0];
+        }
+        return Object.class;
+    }
+
+    private static boolean isGetter(Method method) {
+        if (method.getParameterCount() != 0) {
+            return false;
+        }
+        String name = method.getName();
+        return (name.startsWith("get") && name.length() > 3 && !name.equals("getClass"))
+                || (name.startsWith("is") && name.length() > 2);
+    }
+
+    private static String setterName(String getterName) {
+        return getterName.startsWith("is") ? "set" + getterName.substring(2) : "set" + getterName.substring(3);
+    }
+
+    /**
+     * Résolution différée d'une conversion imbriquée afin de supporter les structures récursives.
+     */
+    private static final class PlanReference {
+        private final Class<?> sourceClass;
+        private final Class<?> targetClass;
+        private volatile Function<Object, Object> conversion;
+
+        private PlanReference(Class<?> sourceClass, Class<?> targetClass) {
+            this.sourceClass = sourceClass;
+            this.targetClass = targetClass;
+        }
+
+        private Function<Object, Object> get() {
+            Function<Object, Object> resolved = conversion;
+            if (resolved == null) {
+                resolved = conversionFor(sourceClass, targetClass);
+                conversion = resolved;
+            }
+            return resolved;
+        }
+    }
+
+    /**
+     * Suite figée d'opérations de copie pour un couple de classes donné.
+     */
+    static final class CopyPlan {
+        private final Class<?> sourceClass;
+        private final Class<?> targetClass;
+        private final MethodHandle factory;
+        private final PropertyCopier[] properties;
+
+        private CopyPlan(Class<?> sourceClass, Class<?> targetClass, MethodHandle factory,
+                         PropertyCopier[] properties) {
+            this.sourceClass = sourceClass;
+            this.targetClass = targetClass;
+            this.factory = factory;
+            this.properties = properties;
+        }
+
+        private static CopyPlan build(Class<?> sourceClass, Class<?> targetClass) {
+            MethodHandle factory;
+            try {
+                factory = LOOKUP.findConstructor(targetClass, MethodType.methodType(void.class)).asType(FACTORY_TYPE);
+            } catch (ReflectiveOperationException e) {
+                factory = null;
+            }
+
+            Map<String, Method> targetSetters = SETTERS.get(targetClass);
+            List<PropertyCopier> copiers = new ArrayList<>();
+            try {
+                for (Method getter : sourceClass.getMethods()) {
+                    if (!isGetter(getter)) {
+                        continue;
+                    }
+                    MethodHandle read = LOOKUP.unreflect(getter).asType(GETTER_TYPE);
+                    Method setter = targetSetters.get(setterName(getter.getName()));
+                    if (List.class.isAssignableFrom(getter.getReturnType())) {
+                        copiers.add(listCopier(getter, read, targetClass, setter));
+                    } else if (setter != null) {
+                        Class<?> parameterType = setter.getParameterTypes()[0];
+                        copiers.add(new ValueCopier(read, LOOKUP.unreflect(setter).asType(SETTER_TYPE),
+                                converterFor(getter.getReturnType(), parameterType), parameterType.isPrimitive()));
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Impossible de copier la structure " + sourceClass.getName(), e);
+            }
+            return new CopyPlan(sourceClass, targetClass, factory, copiers.toArray(PropertyCopier[]::new));
+        }
+
+        private static PropertyCopier listCopier(Method getter, MethodHandle read, Class<?> targetClass,
+                                                 Method setter) throws IllegalAccessException {
+            Method targetGetter;
+            try {
+                targetGetter = targetClass.getMethod(getter.getName());
+            } catch (NoSuchMethodException e) {
+                return new MissingListCopier(read, e);
+            }
+            MethodHandle targetRead = LOOKUP.unreflect(targetGetter).asType(GETTER_TYPE);
+            MethodHandle targetWrite = setter != null ? LOOKUP.unreflect(setter).asType(SETTER_TYPE) : null;
+            String collectionName = getter.getName() + " sur " + targetClass.getName();
+            return new ListCopier(read, targetRead, targetWrite, elementConverterFor(listElementType(getter)),
+                    collectionName);
+        }
+
+        /**
+         * Instancie la classe cible puis y recopie la source.
+         */
+        Object copyToNew(Object source) {
+            if (factory == null) {
+                throw new IllegalStateException("Impossible d'instancier la classe " + targetClass.getName());
+            }
+            Object target;
+            try {
+                target = (Object) factory.invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalStateException("Impossible d'instancier la classe " + targetClass.getName(), e);
+            }
+            copy(source, target);
+            return target;
+        }
+
+        /**
+         * Recopie toutes les propriétés de {@code source} vers {@code target}.
+         */
+        void copy(Object source, Object target) {
+            Objects.requireNonNull(source, "source");
+            Objects.requireNonNull(target, "target");
+            try {
+                for (PropertyCopier property : properties) {
+                    property.copy(source, target);
+                }
+            } catch (Throwable e) {
+                throw propagate(e, sourceClass);
+            }
+        }
+
+        Class<?> targetClass() {
+            return targetClass;
+        }
+    }
+
+    private interface PropertyCopier {
+        void copy(Object source, Object target) throws Throwable;
+    }
+
+    private record ValueCopier(MethodHandle read, MethodHandle write, ValueConverter converter,
+                               boolean primitiveTarget) implements PropertyCopier {
+        @Override
+        public void copy(Object source, Object target) throws Throwable {
+            Object value = (Object) read.invokeExact(source);
+            if (value == null) {
+                return;
+            }
+            Object converted = converter.convert(value);
+            if (converted != null || !primitiveTarget) {
+                write.invokeExact(target, converted);
+            }
+        }
+    }
+
+    private record ListCopier(MethodHandle read, MethodHandle targetRead, MethodHandle targetWrite,
+                              ValueConverter elementConverter, String collectionName) implements PropertyCopier {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void copy(Object source, Object target) throws Throwable {
+            List<Object> sourceList = (List<Object>) (Object) read.invokeExact(source);
+            if (sourceList == null) {
+                return;
+            }
+            List<Object> targetList = (List<Object>) (Object) targetRead.invokeExact(target);
+            if (targetList == null) {
+                if (targetWrite == null) {
+                    throw new IllegalStateException("Impossible d'initialiser la collection " + collectionName);
+                }
+                targetList = new ArrayList<>(sourceList.size());
+                targetWrite.invokeExact(target, (Object) targetList);
+            } else {
+                targetList.clear();
+            }
+            for (Object element : sourceList) {
+                if (element == null) {
+                    continue;
+                }
+                Object converted = elementConverter.convert(element);
+                if (converted != null) {
+                    targetList.add(converted);
+                }
+            }
+        }
+    }
+
+    private record MissingListCopier(MethodHandle read, NoSuchMethodException cause) implements PropertyCopier {
+        @Override
+        public void copy(Object source, Object target) throws Throwable {
+            Object value = (Object) read.invokeExact(source);
+            if (value != null) {
+                throw new IllegalStateException("Impossible de copier la structure " + source.getClass().getName(),
+                        cause);
+            }
+        }
+    }
+
+    private record PlanKey(Class<?> source, Class<?> target) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.cii.messaging.writer.generation;
+
+/**
+ * Décision appliquée à une ligne de commande lors de la génération d'un ORDER_RESPONSE.
+ */
+public enum LineAction {
+    /** Ligne acceptée sans modification. */
+    ACCEPT("5"),
+    /** Ligne acceptée avec une quantité modifiée. */
+    CHANGE("3"),
+    /** Ligne rejetée. */
+    REJECT("7");
+
+    private final String defaultLineStatusCode;
+
+    LineAction(String defaultLineStatusCode) {
+        this.defaultLineStatusCode = defaultLineStatusCode;
+    }
+
+    /**
+     * Code UNECE ActionCode/1229 utilisé lorsque la règle n'en précise pas.
+     *
+     * @return code de statut de ligne par défaut
+     */
+    public String getDefaultLineStatusCode() {
+        return defaultLineStatusCode;
+    }
+}
@@ -0,0 +1,19 @@
+package com.cii.messaging.writer.generation;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Résultat de l'évaluation des règles pour une ligne.
+ *
+ * @param action          décision retenue
+ * @param lineStatusCode  code ActionCode/1229 à écrire dans {@code LineStatusCode}
+ * @param agreedQuantity  quantité confirmée ({@code null} pour conserver la quantité demandée)
+ */
+public record LineDecision(LineAction action, String lineStatusCode, BigDecimal agreedQuantity) {
+
+    public LineDecision {
+        Objects.requireNonNull(action, "action");
+        Objects.requireNonNull(lineStatusCode, "lineStatusCode");
+    }
+}
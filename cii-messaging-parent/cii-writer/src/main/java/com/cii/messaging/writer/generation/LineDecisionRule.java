@@ -0,0 +1,51 @@
+package com.cii.messaging.writer.generation;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Règle de décision d'une ligne de commande.
+ *
+ * <p>Une règle s'applique à un identifiant produit (ou à tous les produits via {@link #ANY_PRODUCT}) lorsque
+ * la quantité demandée est comprise entre {@code minQuantity} et {@code maxQuantity} (bornes incluses et
+ * facultatives).</p>
+ *
+ * @param productId      identifiant produit ou {@code *}
+ * @param action         décision à appliquer
+ * @param minQuantity    quantité minimale (facultative)
+ * @param maxQuantity    quantité maximale (facultative)
+ * @param agreedQuantity quantité confirmée pour {@link LineAction#CHANGE} (facultative)
+ * @param lineStatusCode code ActionCode/1229 explicite (facultatif)
+ */
+public record LineDecisionRule(String productId, LineAction action, BigDecimal minQuantity, BigDecimal maxQuantity,
+                               BigDecimal agreedQuantity, String lineStatusCode) {
+
+    /** Identifiant générique désignant tous les produits. */
+    public static final String ANY_PRODUCT = "*";
+
+    public LineDecisionRule {
+        Objects.requireNonNull(action, "action");
+        if (productId == null || productId.isBlank()) {
+            throw new IllegalArgumentException("L'identifiant produit de la règle est obligatoire");
+        }
+        productId = productId.trim();
+        if (minQuantity != null && maxQuantity != null && minQuantity.compareTo(maxQuantity) > 0) {
+            throw new IllegalArgumentException("Bornes de quantité incohérentes pour le produit " + productId);
+        }
+        if (lineStatusCode != null && !LineStatusCodes.isValid(lineStatusCode)) {
+            throw new IllegalArgumentException(String.format(
+                    "Code de statut de ligne '%s' invalide pour le produit %s", lineStatusCode, productId));
+        }
+    }
+
+    boolean matches(BigDecimal requestedQuantity) {
+        if (minQuantity == null && maxQuantity == null) {
+            return true;
+        }
+        if (requestedQuantity == null) {
+            return false;
+        }
+        return (minQuantity == null || requestedQuantity.compareTo(minQuantity) >= 0)
+                && (maxQuantity == null || requestedQuantity.compareTo(maxQuantity) <= 0);
+    }
+}
@@ -0,0 +1,235 @@
+package com.cii.messaging.writer.generation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Chargement des tables de règles et des instantanés de stock au format CSV ou JSON.
+ *
+ * <p>Colonnes (ou propriétés JSON) des règles : {@code productId}, {@code action} (ACCEPT, CHANGE, REJECT),
+ * {@code minQuantity}, {@code maxQuantity}, {@code agreedQuantity}, {@code lineStatusCode}. Le stock associe
+ * {@code productId} et {@code quantity} (ou, en JSON, un objet {@code {"produit": quantité}}). En CSV, la première
+ * ligne est l'entête, le séparateur {@code ;} ou {@code ,} est détecté, les lignes vides ou commençant par
+ * {@code #} sont ignorées. Une valeur entre guillemets peut contenir le séparateur ({@code "a;b"}) et des
+ * guillemets doublés ({@code ""}) ; une ligne dont les valeurs dépassent les colonnes de l'entête, ou dont un
+ * guillemet n'est pas fermé, est rejetée.</p>
+ */
+public final class LineDecisionRules {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private LineDecisionRules() {
+        // utilitaire
+    }
+
+    /**
+     * Charge une table de règles et, le cas échéant, un instantané de stock puis les compile.
+     *
+     * @param regles fichier de règles (.csv ou .json)
+     * @param stock  fichier de stock (.csv ou .json), peut être {@code null}
+     * @return table de décision compilée
+     * @throws IOException si un fichier est illisible
+     */
+    public static LineDecisionTable charger(Path regles, Path stock) throws IOException {
+        Objects.requireNonNull(regles, "regles");
+        return LineDecisionTable.compile(lireRegles(regles), stock != null ? lireStock(stock) : null);
+    }
+
+    /**
+     * Lit les règles d'un fichier CSV ou JSON.
+     *
+     * @param fichier fichier de règles
+     * @return règles dans leur ordre de déclaration
+     * @throws IOException si le fichier est illisible
+     */
+    public static List<LineDecisionRule> lireRegles(Path fichier) throws IOException {
+        List<LineDecisionRule> rules = new ArrayList<>();
+        for (Map<String, String> row : lireLignes(fichier)) {
+            rules.add(toRule(row, fichier));
+        }
+        return rules;
+    }
+
+    /**
+     * Lit un instantané de stock d'un fichier CSV ou JSON.
+     *
+     * @param fichier fichier de stock
+     * @return quantités disponibles par identifiant produit
+     * @throws IOException si le fichier est illisible
+     */
+    public static Map<String, BigDecimal> lireStock(Path fichier) throws IOException {
+        Map<String, BigDecimal> stock = new HashMap<>();
+        if (isJson(fichier)) {
+            JsonNode root = JSON.readTree(fichier.toFile());
+            if (root != null && root.isObject()) {
+                for (Iterator<Map.Entry<String, JsonNode>> it = root.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> entry = it.next();
+                    stock.put(entry.getKey().trim(), quantity(entry.getValue().asText(), fichier));
+                }
+                return stock;
+            }
+        }
+        for (Map<String, String> row : lireLignes(fichier)) {
+            String productId = row.get("productid");
+            if (productId == null || productId.isBlank()) {
+                throw new IllegalArgumentException("Identifiant produit manquant dans le stock " + fichier);
+            }
+            stock.put(productId.trim(), quantity(row.get("quantity"), fichier));
+        }
+        return stock;
+    }
+
+    private static List<Map<String, String>> lireLignes(Path fichier) throws IOException {
+        return isJson(fichier) ? lireJson(fichier) : lireCsv(fichier);
+    }
+
+    private static List<Map<String, String>> lireJson(Path fichier) throws IOException {
+        JsonNode root = JSON.readTree(fichier.toFile());
+        if (root == null || !root.isArray()) {
+            throw new IllegalArgumentException("Le fichier JSON doit contenir un tableau d'objets : " + fichier);
+        }
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (JsonNode node : root) {
+            Map<String, String> row = new HashMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                if (!field.getValue().isNull()) {
+                    row.put(field.getKey().toLowerCase(Locale.ROOT), field.getValue().asText());
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<Map<String, String>> lireCsv(Path fichier) throws IOException {
+        List<Map<String, String>> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            List<String> header = null;
+            char separator = ';';
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                String trimmed = line.strip();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                if (header == null) {
+                    separator = trimmed.contains(";") ? ';' : ',';
+                    header = splitCsv(trimmed.toLowerCase(Locale.ROOT), separator, number, fichier);
+                    continue;
+                }
+                List<String> values = splitCsv(trimmed, separator, number, fichier);
+                for (int i = header.size(); i < values.size(); i++) {
+                    if (!values.get(i).isBlank()) {
+                        throw new IllegalArgumentException("Ligne " + number + " de " + fichier + " : "
+                                + values.size() + " valeurs pour " + header.size() + " colonnes d'entête");
+                    }
+                }
+                Map<String, String> row = new LinkedHashMap<>();
+                for (int i = 0; i < header.size() && i < values.size(); i++) {
+                    String value = values.get(i).strip();
+                    if (!value.isEmpty()) {
+                        row.put(header.get(i).strip(), value);
+                    }
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Découpe une ligne CSV en tenant compte des valeurs entre guillemets.
+     */
+    private static List<String> splitCsv(String line, char separator, int number, Path fichier) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && value.toString().isBlank()) {
+                value.setLength(0);
+                quoted = true;
+            } else if (c == separator) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Guillemet non fermé ligne " + number + " de " + fichier);
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static LineDecisionRule toRule(Map<String, String> row, Path fichier) {
+        String action = row.get("action");
+        if (action == null) {
+            throw new IllegalArgumentException("Action manquante dans la table de règles " + fichier);
+        }
+        LineAction resolved;
+        try {
+            resolved = LineAction.valueOf(action.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Action '" + action + "' inconnue dans " + fichier
+                    + " (attendu ACCEPT, CHANGE ou REJECT)", e);
+        }
+        return new LineDecisionRule(row.get("productid"), resolved,
+                decimal(row.get("minquantity"), "minQuantity", fichier),
+                decimal(row.get("maxquantity"), "maxQuantity", fichier),
+                decimal(row.get("agreedquantity"), "agreedQuantity", fichier),
+                row.get("linestatuscode"));
+    }
+
+    private static BigDecimal quantity(String value, Path fichier) {
+        BigDecimal quantity = decimal(value, "quantity", fichier);
+        if (quantity == null) {
+            throw new IllegalArgumentException("Quantité manquante dans le stock " + fichier);
+        }
+        return quantity;
+    }
+
+    private static BigDecimal decimal(String value, String column, Path fichier) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valeur numérique invalide '" + value + "' pour " + column
+                    + " dans " + fichier, e);
+        }
+    }
+
+    private static boolean isJson(Path fichier) {
+        return fichier.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json");
+    }
+}
@@ -0,0 +1,134 @@
+package com.cii.messaging.writer.generation;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Table de décision compilée : index des règles par identifiant produit et instantané de stock.
+ *
+ * <p>Les règles d'un produit sont évaluées dans leur ordre de déclaration, puis les règles génériques
+ * ({@code *}) ; la première règle dont les bornes de quantité correspondent l'emporte. Une ligne sans règle
+ * applicable est acceptée. Le stock plafonne ensuite la quantité confirmée : une ligne acceptée dont la quantité
+ * demandée dépasse le stock est modifiée, ou rejetée si le stock est épuisé.</p>
+ *
+ * <p>Les instances sont immuables et peuvent être partagées entre threads.</p>
+ */
+public final class LineDecisionTable {
+
+    private static final LineDecisionRule[] NO_RULES = new LineDecisionRule[0];
+
+    private final Map<String, LineDecisionRule[]> rulesByProduct;
+    private final LineDecisionRule[] genericRules;
+    private final Map<String, BigDecimal> stock;
+
+    private LineDecisionTable(Map<String, LineDecisionRule[]> rulesByProduct, LineDecisionRule[] genericRules,
+                              Map<String, BigDecimal> stock) {
+        this.rulesByProduct = rulesByProduct;
+        this.genericRules = genericRules;
+        this.stock = stock;
+    }
+
+    /**
+     * Compile les règles et l'instantané de stock en une table de décision.
+     *
+     * @param rules règles dans leur ordre de priorité
+     * @param stock quantités disponibles par identifiant produit (peut être {@code null})
+     * @return table prête à l'emploi
+     */
+    public static LineDecisionTable compile(Collection<LineDecisionRule> rules, Map<String, BigDecimal> stock) {
+        Objects.requireNonNull(rules, "rules");
+        Map<String, List<LineDecisionRule>> grouped = new LinkedHashMap<>();
+        List<LineDecisionRule> generic = new ArrayList<>();
+        for (LineDecisionRule rule : rules) {
+            if (LineDecisionRule.ANY_PRODUCT.equals(rule.productId())) {
+                generic.add(rule);
+            } else {
+                grouped.computeIfAbsent(rule.productId(), key -> new ArrayList<>()).add(rule);
+            }
+        }
+        Map<String, LineDecisionRule[]> index = new HashMap<>(Math.max(16, grouped.size() * 2));
+        grouped.forEach((productId, productRules) -> index.put(productId, productRules.toArray(NO_RULES)));
+        return new LineDecisionTable(index, generic.toArray(NO_RULES), stock != null ? Map.copyOf(stock) : Map.of());
+    }
+
+    /**
+     * Détermine la décision applicable à une ligne.
+     *
+     * @param productIds        identifiants du produit (ID, SellerAssignedID, BuyerAssignedID, GlobalID...)
+     * @param requestedQuantity quantité demandée (peut être {@code null})
+     * @return décision non nulle
+     */
+    public LineDecision decide(Collection<String> productIds, BigDecimal requestedQuantity) {
+        String productId = null;
+        LineDecisionRule rule = null;
+        for (String candidate : productIds) {
+            LineDecisionRule[] candidates = rulesByProduct.get(candidate);
+            if (candidates != null) {
+                productId = candidate;
+                rule = firstMatch(candidates, requestedQuantity);
+                if (rule != null) {
+                    break;
+                }
+            }
+        }
+        if (rule == null) {
+            rule = firstMatch(genericRules, requestedQuantity);
+        }
+
+        LineAction action = rule != null ? rule.action() : LineAction.ACCEPT;
+        String statusCode = rule != null && rule.lineStatusCode() != null ? rule.lineStatusCode() : null;
+        BigDecimal agreed = switch (action) {
+            case REJECT -> BigDecimal.ZERO;
+            case CHANGE -> rule.agreedQuantity() != null ? rule.agreedQuantity() : requestedQuantity;
+            case ACCEPT -> requestedQuantity;
+        };
+
+        BigDecimal available = availableStock(productId, productIds);
+        if (action != LineAction.REJECT && available != null && agreed != null && agreed.compareTo(available) > 0) {
+            action = available.signum() > 0 ? LineAction.CHANGE : LineAction.REJECT;
+            agreed = available.signum() > 0 ? available : BigDecimal.ZERO;
+            statusCode = null;
+        }
+        return new LineDecision(action, statusCode != null ? statusCode : action.getDefaultLineStatusCode(), agreed);
+    }
+
+    /**
+     * Nombre de produits disposant de règles spécifiques.
+     *
+     * @return taille de l'index
+     */
+    public int indexedProducts() {
+        return rulesByProduct.size();
+    }
+
+    private BigDecimal availableStock(String matchedProductId, Collection<String> productIds) {
+        if (stock.isEmpty()) {
+            return null;
+        }
+        if (matchedProductId != null && stock.containsKey(matchedProductId)) {
+            return stock.get(matchedProductId);
+        }
+        for (String candidate : productIds) {
+            BigDecimal quantity = stock.get(candidate);
+            if (quantity != null) {
+                return quantity;
+            }
+        }
+        return null;
+    }
+
+    private static LineDecisionRule firstMatch(LineDecisionRule[] rules, BigDecimal requestedQuantity) {
+        for (LineDecisionRule rule : rules) {
+            if (rule.matches(requestedQuantity)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+}
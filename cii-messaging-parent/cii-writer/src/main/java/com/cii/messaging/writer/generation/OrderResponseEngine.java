@@ -0,0 +1,11 @@
+package com.cii.messaging.writer.generation;
+
+/**
+ * Moteur utilisé pour transformer un ORDER en ORDER_RESPONSE.
+ */
+public enum OrderResponseEngine {
+    /** Mapper Java sur le modèle JAXB (par défaut). */
+    MAPPER,
+    /** Feuille XSLT compilée une fois et exécutée par Saxon. */
+    XSLT
+}
@@ -14,6 +14,7 @@ public final class OrderResponseGenerationOptions {
     private final String acknowledgementCode;
     private final String documentTypeCode;
     private final String lineStatusCode;
+    private final LineDecisionTable lineDecisions;
     private final LocalDateTime issueDateTime;
     private final Clock clock;
 
@@ -23,6 +24,7 @@ public final class OrderResponseGenerationOptions {
         this.acknowledgementCode = builder.acknowledgementCode;
         this.documentTypeCode = builder.documentTypeCode;
         this.lineStatusCode = builder.lineStatusCode;
+        this.lineDecisions = builder.lineDecisions;
         this.issueDateTime = builder.issueDateTime;
         this.clock = builder.clock;
     }
@@ -91,6 +93,16 @@ public final class OrderResponseGenerationOptions {
         return lineStatusCode;
     }
 
+    /**
+     * Table de décision appliquée ligne par ligne. Lorsqu'elle est définie, elle prévaut sur
+     * {@link #getLineStatusCode()} et détermine aussi la quantité confirmée.
+     *
+     * @return table compilée ou {@code null}
+     */
+    public LineDecisionTable getLineDecisions() {
+        return lineDecisions;
+    }
+
     /**
      * Date d'émission explicite. Si {@code null}, l'horloge est utilisée.
      *
@@ -118,6 +130,7 @@ public final class OrderResponseGenerationOptions {
         private String acknowledgementCode = AcknowledgementCodes.DEFAULT_ACKNOWLEDGEMENT_CODE;
         private String documentTypeCode = "231";
         private String lineStatusCode;
+        private LineDecisionTable lineDecisions;
         private LocalDateTime issueDateTime;
         private Clock clock = Clock.systemUTC();
 
@@ -203,6 +216,17 @@ public final class OrderResponseGenerationOptions {
             return this;
         }
 
+        /**
+         * Applique une table de décision (acceptation, modification, rejet) à chaque ligne.
+         *
+         * @param lineDecisions table compilée ou {@code null} pour la désactiver
+         * @return builder pour chaînage
+         */
+        public Builder withLineDecisions(LineDecisionTable lineDecisions) {
+            this.lineDecisions = lineDecisions;
+            return this;
+        }
+
         /**
          * Force la date/heure d'émission à utiliser.
          *
@@ -30,13 +30,14 @@ import com.cii.messaging.unece.orderresponse.TradeSettlementHeaderMonetarySummat
 import com.cii.messaging.writer.CIIWriterException;
 import com.cii.messaging.writer.OrderResponseWriter;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -46,7 +47,7 @@ import java.util.Objects;
  */
 public final class OrderResponseGenerator {
 
-    private static final DateTimeFormatter ISSUE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    static final DateTimeFormatter ISSUE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
 
     private OrderResponseGenerator() {
         // utilitaire
@@ -96,17 +97,64 @@ public final class OrderResponseGenerator {
         Objects.requireNonNull(order, "order");
         Objects.requireNonNull(cheminSortie, "cheminSortie");
 
-        Path outputPath = Path.of(cheminSortie);
+        Path outputPath = prepareOutput(Path.of(cheminSortie));
+        OrderResponse response = genererDepuisOrder(order, options);
+        new OrderResponseWriter().write(response, outputPath.toFile());
+        return "Fichier ORDER_RESPONSE généré avec succès : " + outputPath.toAbsolutePath();
+    }
+
+    static Path prepareOutput(Path outputPath) throws IOException {
         Path parent = outputPath.toAbsolutePath().getParent();
         if (parent != null) {
             Files.createDirectories(parent);
         }
         if (Files.exists(outputPath) && Files.isDirectory(outputPath)) {
-            throw new IOException("Le chemin de sortie correspond à un répertoire : " + cheminSortie);
+            throw new IOException("Le chemin de sortie correspond à un répertoire : " + outputPath);
         }
+        return outputPath;
+    }
 
-        OrderResponse response = genererDepuisOrder(order, options);
-        new OrderResponseWriter().write(response, outputPath.toFile());
+    /**
+     * Génère un ORDER_RESPONSE avec le moteur choisi.
+     *
+     * @param order   commande source
+     * @param options options de génération (peut être {@code null})
+     * @param engine  moteur de transformation
+     * @return réponse structurée
+     * @throws CIIWriterException si la transformation XSLT échoue
+     */
+    public static OrderResponse genererDepuisOrder(Order order, OrderResponseGenerationOptions options,
+                                                   OrderResponseEngine engine) throws CIIWriterException {
+        Objects.requireNonNull(engine, "engine");
+        return engine == OrderResponseEngine.XSLT
+                ? XsltOrderResponseGenerator.genererDepuisOrder(order, options)
+                : genererDepuisOrder(order, options);
+    }
+
+    /**
+     * Génère puis écrit un ORDER_RESPONSE avec le moteur choisi.
+     *
+     * @param order        commande source
+     * @param cheminSortie chemin du fichier ORDER_RESPONSE à produire
+     * @param options      options de génération (peut être {@code null})
+     * @param engine       moteur de transformation
+     * @return message de confirmation avec le chemin absolu du fichier produit
+     * @throws IOException        si l'écriture échoue ou si le chemin est invalide
+     * @throws CIIWriterException si la transformation ou la sérialisation échoue
+     */
+    public static String genererOrderResponse(Order order, String cheminSortie, OrderResponseGenerationOptions options,
+                                              OrderResponseEngine engine) throws IOException, CIIWriterException {
+        Objects.requireNonNull(engine, "engine");
+        if (engine == OrderResponseEngine.MAPPER) {
+            return genererOrderResponse(order, cheminSortie, options);
+        }
+        Objects.requireNonNull(order, "order");
+        Objects.requireNonNull(cheminSortie, "cheminSortie");
+
+        Path outputPath = prepareOutput(Path.of(cheminSortie));
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(outputPath))) {
+            XsltOrderResponseGenerator.ecrire(order, output, options);
+        }
         return "Fichier ORDER_RESPONSE généré avec succès : " + outputPath.toAbsolutePath();
     }
 
@@ -117,11 +165,11 @@ public final class OrderResponseGenerator {
         return null;
     }
 
-    private static LocalDateTime resolveIssueDate(OrderResponseGenerationOptions options) {
+    static LocalDateTime resolveIssueDate(OrderResponseGenerationOptions options) {
         return options.getIssueDateTime() != null ? options.getIssueDateTime() : LocalDateTime.now(options.getClock());
     }
 
-    private static String resolveResponseId(String orderId, OrderResponseGenerationOptions options, LocalDateTime issueDate) {
+    static String resolveResponseId(String orderId, OrderResponseGenerationOptions options, LocalDateTime issueDate) {
         if (options.getResponseId() != null && !options.getResponseId().isBlank()) {
             return options.getResponseId().trim();
         }
@@ -293,22 +341,51 @@ public final class OrderResponseGenerator {
         private SupplyChainTradeLineItemType mapLineItem(
                 com.cii.messaging.unece.order.SupplyChainTradeLineItemType sourceLine) {
             SupplyChainTradeLineItemType line = new SupplyChainTradeLineItemType();
-            line.setAssociatedDocumentLineDocument(copyLineDocument(sourceLine.getAssociatedDocumentLineDocument()));
+            LineDecision decision = decide(sourceLine);
+            line.setAssociatedDocumentLineDocument(copyLineDocument(sourceLine.getAssociatedDocumentLineDocument(),
+                    decision));
             line.setSpecifiedTradeProduct(copyTradeProduct(sourceLine.getSpecifiedTradeProduct()));
             line.setSpecifiedLineTradeAgreement(copyLineAgreement(sourceLine.getSpecifiedLineTradeAgreement()));
-            line.setSpecifiedLineTradeDelivery(copyLineDelivery(sourceLine.getSpecifiedLineTradeDelivery()));
+            line.setSpecifiedLineTradeDelivery(copyLineDelivery(sourceLine.getSpecifiedLineTradeDelivery(), decision));
             line.setSpecifiedLineTradeSettlement(copyLineSettlement(sourceLine.getSpecifiedLineTradeSettlement()));
             return line;
         }
 
+        private LineDecision decide(com.cii.messaging.unece.order.SupplyChainTradeLineItemType sourceLine) {
+            LineDecisionTable decisions = options.getLineDecisions();
+            if (decisions == null) {
+                return null;
+            }
+            List<String> productIds = new ArrayList<>();
+            com.cii.messaging.unece.order.TradeProductType product = sourceLine.getSpecifiedTradeProduct();
+            if (product != null) {
+                addId(productIds, product.getID());
+                addId(productIds, product.getSellerAssignedID());
+                addId(productIds, product.getBuyerAssignedID());
+                product.getGlobalID().forEach(id -> addId(productIds, id));
+            }
+            com.cii.messaging.unece.order.LineTradeDeliveryType delivery = sourceLine.getSpecifiedLineTradeDelivery();
+            BigDecimal requested = delivery != null && delivery.getRequestedQuantity() != null
+                    ? delivery.getRequestedQuantity().getValue()
+                    : null;
+            return decisions.decide(productIds, requested);
+        }
+
+        private void addId(List<String> productIds, com.cii.messaging.unece.order.IDType id) {
+            if (id != null && id.getValue() != null && !id.getValue().isBlank()) {
+                productIds.add(id.getValue().trim());
+            }
+        }
+
         private DocumentLineDocumentType copyLineDocument(
-                com.cii.messaging.unece.order.DocumentLineDocumentType sourceLineDoc) {
+                com.cii.messaging.unece.order.DocumentLineDocumentType sourceLineDoc, LineDecision decision) {
             DocumentLineDocumentType target = new DocumentLineDocumentType();
             if (sourceLineDoc != null) {
                 target.setLineID(copyId(sourceLineDoc.getLineID()));
             }
-            LineStatusCodeType resolvedStatus = resolveLineStatusCode(
-                    sourceLineDoc != null ? sourceLineDoc.getLineStatusCode() : null);
+            LineStatusCodeType resolvedStatus = decision != null
+                    ? createLineStatusCode(decision.lineStatusCode())
+                    : resolveLineStatusCode(sourceLineDoc != null ? sourceLineDoc.getLineStatusCode() : null);
             if (resolvedStatus != null) {
                 target.setLineStatusCode(resolvedStatus);
             }
@@ -329,14 +406,18 @@ public final class OrderResponseGenerator {
         private LineStatusCodeType resolveLineStatusCode(
                 com.cii.messaging.unece.order.LineStatusCodeType sourceStatus) {
             if (options.getLineStatusCode() != null) {
-                LineStatusCodeType statusCode = new LineStatusCodeType();
-                statusCode.setValue(options.getLineStatusCode());
-                statusCode.setListAgencyID("6");
-                return statusCode;
+                return createLineStatusCode(options.getLineStatusCode());
             }
             return copyLineStatusCode(sourceStatus);
         }
 
+        private LineStatusCodeType createLineStatusCode(String value) {
+            LineStatusCodeType statusCode = new LineStatusCodeType();
+            statusCode.setValue(value);
+            statusCode.setListAgencyID("6");
+            return statusCode;
+        }
+
         private TradeProductType copyTradeProduct(com.cii.messaging.unece.order.TradeProductType sourceProduct) {
             if (sourceProduct == null) {
                 return null;
@@ -352,7 +433,7 @@ public final class OrderResponseGenerator {
         }
 
         private LineTradeDeliveryType copyLineDelivery(
-                com.cii.messaging.unece.order.LineTradeDeliveryType sourceDelivery) {
+                com.cii.messaging.unece.order.LineTradeDeliveryType sourceDelivery, LineDecision decision) {
             LineTradeDeliveryType delivery = new LineTradeDeliveryType();
             if (sourceDelivery != null) {
                 delivery.setRequestedQuantity(copyQuantity(sourceDelivery.getRequestedQuantity()));
@@ -360,6 +441,12 @@ public final class OrderResponseGenerator {
                 if (agreed == null) {
                     agreed = copyQuantity(sourceDelivery.getRequestedQuantity());
                 }
+                if (decision != null && decision.agreedQuantity() != null) {
+                    if (agreed == null) {
+                        agreed = new QuantityType();
+                    }
+                    agreed.setValue(decision.agreedQuantity());
+                }
                 delivery.setAgreedQuantity(agreed);
                 delivery.setShipToTradeParty(copyTradeParty(sourceDelivery.getShipToTradeParty()));
                 delivery.setShipFromTradeParty(copyTradeParty(sourceDelivery.getShipFromTradeParty()));
@@ -655,185 +742,7 @@ public final class OrderResponseGenerator {
         }
 
         private <S, T> T convertStructure(S source, Class<T> targetType) {
-            if (source == null) {
-                return null;
-            }
-            Object converted = convertValue(source, targetType);
-            return targetType.cast(converted);
-        }
-
-        private void copyOrderBean(Object source, Object target) {
-            Class<?> sourceClass = source.getClass();
-            Class<?> targetClass = target.getClass();
-            for (Method getter : sourceClass.getMethods()) {
-                if (!isGetter(getter)) {
-                    continue;
-                }
-                try {
-                    Object value = getter.invoke(source);
-                    if (value == null) {
-                        continue;
-                    }
-                    if (List.class.isAssignableFrom(getter.getReturnType())) {
-                        @SuppressWarnings("unchecked")
-                        List<Object> sourceList = (List<Object>) value;
-                        Method targetGetter = targetClass.getMethod(getter.getName());
-                        @SuppressWarnings("unchecked")
-                        List<Object> targetList = (List<Object>) targetGetter.invoke(target);
-                        if (targetList == null) {
-                            Method setter = findSetter(targetClass, getter.getName().startsWith("is")
-                                    ? "set" + getter.getName().substring(2)
-                                    : "set" + getter.getName().substring(3));
-                            if (setter == null) {
-                                throw new IllegalStateException(
-                                        "Impossible d'initialiser la collection " + getter.getName()
-                                                + " sur " + targetClass.getName());
-                            }
-                            targetList = new ArrayList<>();
-                            setter.invoke(target, targetList);
-                        } else {
-                            targetList.clear();
-                        }
-                        for (Object element : sourceList) {
-                            Object convertedElement = convertListItem(element);
-                            if (convertedElement != null) {
-                                targetList.add(convertedElement);
-                            }
-                        }
-                    } else {
-                        String setterName = getter.getName().startsWith("is")
-                                ? "set" + getter.getName().substring(2)
-                                : "set" + getter.getName().substring(3);
-                        Method setter = findSetter(targetClass, setterName);
-                        if (setter == null) {
-                            continue;
-                        }
-                        Class<?> parameterType = setter.getParameterTypes()[0];
-                        Object convertedValue = convertValue(value, parameterType);
-                        if (convertedValue != null || !parameterType.isPrimitive()) {
-                            setter.invoke(target, convertedValue);
-                        }
-                    }
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    throw new IllegalStateException("Impossible de copier la structure " + sourceClass.getName(), e);
-                }
-            }
-        }
-
-        private boolean isOrderPackage(Class<?> clazz) {
-            Package pkg = clazz.getPackage();
-            return pkg != null && pkg.getName().startsWith("com.cii.messaging.unece.order");
-        }
-
-        private Method findSetter(Class<?> targetClass, String name) {
-            for (Method method : targetClass.getMethods()) {
-                if (method.getName().equals(name) && method.getParameterCount() == 1) {
-                    return method;
-                }
-            }
-            return null;
-        }
-
-        private boolean isGetter(Method method) {
-            if (method.getParameterCount() != 0) {
-                return false;
-            }
-            String name = method.getName();
-            return (name.startsWith("get") && name.length() > 3 && !name.equals("getClass"))
-                    || (name.startsWith("is") && name.length() > 2);
-        }
-
-        private Object convertValue(Object value, Class<?> targetType) {
-            if (value == null) {
-                return null;
-            }
-            Class<?> sourceClass = value.getClass();
-            if (targetType.isPrimitive()) {
-                targetType = primitiveToWrapper(targetType);
-            }
-            if (targetType.isAssignableFrom(sourceClass)) {
-                return value;
-            }
-            if (targetType.isEnum() && value instanceof Enum<?>) {
-                @SuppressWarnings("unchecked")
-                Class<? extends Enum> enumClass = (Class<? extends Enum>) targetType;
-                return Enum.valueOf(enumClass, ((Enum<?>) value).name());
-            }
-            if (isOrderPackage(sourceClass)) {
-                Class<?> resolvedTarget = targetType == Object.class || !isOrderPackage(targetType)
-                        ? resolveOrderResponseClass(sourceClass)
-                        : targetType;
-                Object targetInstance = instantiate(resolvedTarget);
-                copyOrderBean(value, targetInstance);
-                return targetInstance;
-            }
-            return value;
-        }
-
-        private Object convertListItem(Object element) {
-            if (element == null) {
-                return null;
-            }
-            Class<?> elementClass = element.getClass();
-            if (element instanceof Enum<?>) {
-                Class<?> targetEnum = resolveOrderResponseClass(elementClass);
-                @SuppressWarnings("unchecked")
-                Class<? extends Enum> enumClass = (Class<? extends Enum>) targetEnum;
-                return Enum.valueOf(enumClass, ((Enum<?>) element).name());
-            }
-            if (isOrderPackage(elementClass)) {
-                Class<?> targetClass = resolveOrderResponseClass(elementClass);
-                Object targetInstance = instantiate(targetClass);
-                copyOrderBean(element, targetInstance);
-                return targetInstance;
-            }
-            return element;
-        }
-
-        private Class<?> resolveOrderResponseClass(Class<?> orderClass) {
-            String targetName = orderClass.getName().replace("com.cii.messaging.unece.order",
-                    "com.cii.messaging.unece.orderresponse");
-            try {
-                return Class.forName(targetName);
-            } catch (ClassNotFoundException e) {
-                throw new IllegalStateException("Classe cible introuvable pour la conversion : " + targetName, e);
-            }
-        }
-
-        private Object instantiate(Class<?> clazz) {
-            try {
-                return clazz.getDeclaredConstructor().newInstance();
-            } catch (ReflectiveOperationException e) {
-                throw new IllegalStateException("Impossible d'instancier la classe " + clazz.getName(), e);
-            }
-        }
-
-        private Class<?> primitiveToWrapper(Class<?> primitive) {
-            if (primitive == boolean.class) {
-                return Boolean.class;
-            }
-            if (primitive == byte.class) {
-                return Byte.class;
-            }
-            if (primitive == short.class) {
-                return Short.class;
-            }
-            if (primitive == int.class) {
-                return Integer.class;
-            }
-            if (primitive == long.class) {
-                return Long.class;
-            }
-            if (primitive == float.class) {
-                return Float.class;
-            }
-            if (primitive == double.class) {
-                return Double.class;
-            }
-            if (primitive == char.class) {
-                return Character.class;
-            }
-            return primitive;
+            return CopyPlans.convert(source, targetType);
         }
     }
 }
@@ -0,0 +1,572 @@
+package com.cii.messaging.writer.generation;
+
+import com.cii.messaging.writer.CIIWriterException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Transforme un message ORDERS en ORDER_RESPONSE en un seul passage StAX, sans matérialiser le modèle JAXB.
+ *
+ * <p>Seuls les éléments repris par le Mapper de {@link OrderResponseGenerator} sont émis, dans l'ordre du schéma
+ * ORDER_RESPONSE, avec les mêmes attributs de code par défaut : le document produit est celui du Mapper et de
+ * {@link XsltOrderResponseGenerator}. Chaque ligne est lue puis émise avant la suivante ; les en-têtes commerciaux,
+ * que le schéma place après les lignes, sont conservés jusqu'à la fin de la transaction. La mémoire consommée
+ * dépend donc de la taille de l'en-tête et de la plus grande ligne, pas du nombre de lignes. Les
+ * {@link OrderResponseGenerationOptions} s'appliquent comme pour {@link OrderResponseGenerator}, à l'exception des
+ * décisions par ligne, refusées.</p>
+ */
+public final class StreamingOrderResponseGenerator {
+
+    static final String ORDER_NAMESPACE = "urn:un:unece:uncefact:data:standard:CrossIndustryOrder:100";
+    static final String ORDER_RESPONSE_NAMESPACE = "urn:un:unece:uncefact:data:standard:CrossIndustryOrderResponse:100";
+    static final String RAM_NAMESPACE =
+            "urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100";
+    static final String UDT_NAMESPACE = "urn:un:unece:uncefact:data:standard:UnqualifiedDataType:100";
+
+    private static final String ORDER_ROOT = "CrossIndustryOrder";
+    private static final String ORDER_RESPONSE_ROOT = "CrossIndustryOrderResponse";
+    private static final String DOCUMENT_CONTEXT = "ExchangedDocumentContext";
+    private static final String EXCHANGED_DOCUMENT = "ExchangedDocument";
+    private static final String TRANSACTION = "SupplyChainTradeTransaction";
+    private static final String HEADER_AGREEMENT = "ApplicableHeaderTradeAgreement";
+    private static final String HEADER_DELIVERY = "ApplicableHeaderTradeDelivery";
+    private static final String HEADER_SETTLEMENT = "ApplicableHeaderTradeSettlement";
+    private static final String LINE_ITEM = "IncludedSupplyChainTradeLineItem";
+    private static final String LINE_DOCUMENT = "AssociatedDocumentLineDocument";
+    private static final String LINE_DELIVERY = "SpecifiedLineTradeDelivery";
+    private static final String LINE_STATUS_CODE = "LineStatusCode";
+    private static final String LIST_AGENCY_ID = "listAgencyID";
+
+    private static final String[] PARTY_ELEMENTS = {"ID", "GlobalID", "Name"};
+    private static final String[] ADDRESS_ELEMENTS = {"ID", "PostcodeCode", "LineOne", "LineTwo", "LineThree",
+            "CityName", "CountryID", "CountryName", "CountrySubDivisionID", "CountrySubDivisionName"};
+    private static final String[] PRODUCT_ELEMENTS = {"ID", "GlobalID", "SellerAssignedID", "BuyerAssignedID",
+            "Name", "TradeName"};
+    private static final String[] SETTLEMENT_ELEMENTS = {"DuePayableAmount", "TaxCurrencyCode", "OrderCurrencyCode",
+            "InvoiceCurrencyCode", "PriceCurrencyCode"};
+    private static final String[] SUMMATION_ELEMENTS = {"LineTotalAmount", "ChargeTotalAmount",
+            "AllowanceTotalAmount", "TaxBasisTotalAmount", "TaxTotalAmount", "RoundingAmount", "GrandTotalAmount",
+            "TotalPrepaidAmount", "DuePayableAmount", "NetLineTotalAmount", "IncludingTaxesLineTotalAmount"};
+
+    /** listAgencyID écrit par le Mapper lorsqu'il est absent de la commande (valeur par défaut du schéma). */
+    private static final Map<String, String> DEFAULT_AGENCIES = Map.of(
+            "CurrencyCode", "5", "TaxCurrencyCode", "5", "OrderCurrencyCode", "5", "InvoiceCurrencyCode", "5",
+            "PriceCurrencyCode", "5", "SourceCurrencyCode", "5", "TargetCurrencyCode", "5", LINE_STATUS_CODE, "6");
+
+    private static final XMLInputFactory INPUT_FACTORY = createSecureInputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = createOutputFactory();
+    private static final XMLEventFactory EVENTS = XMLEventFactory.newFactory();
+
+    private StreamingOrderResponseGenerator() {
+        // utilitaire
+    }
+
+    /**
+     * Transforme en continu le fichier ORDER fourni et écrit l'ORDER_RESPONSE sur le chemin souhaité.
+     *
+     * @param cheminOrder  fichier ORDER source
+     * @param cheminSortie fichier ORDER_RESPONSE à produire
+     * @param options      options de génération (peut être {@code null})
+     * @return message de confirmation avec le chemin absolu du fichier produit
+     * @throws IOException        si la lecture ou l'écriture échoue ou si le chemin est invalide
+     * @throws CIIWriterException si le document n'est pas un ORDER bien formé
+     */
+    public static String genererOrderResponse(Path cheminOrder, Path cheminSortie,
+                                              OrderResponseGenerationOptions options)
+            throws IOException, CIIWriterException {
+        Objects.requireNonNull(cheminOrder, "cheminOrder");
+        Objects.requireNonNull(cheminSortie, "cheminSortie");
+
+        Path outputPath = OrderResponseGenerator.prepareOutput(cheminSortie);
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(cheminOrder));
+             OutputStream output = new BufferedOutputStream(Files.newOutputStream(outputPath))) {
+            transformer(input, output, options);
+        }
+        return "Fichier ORDER_RESPONSE généré avec succès : " + outputPath.toAbsolutePath();
+    }
+
+    /**
+     * Transforme en continu un flux ORDER en flux ORDER_RESPONSE encodé en UTF-8.
+     * Les flux ne sont pas fermés.
+     *
+     * @param order    flux ORDER source
+     * @param response flux de sortie
+     * @param options  options de génération (peut être {@code null} pour les valeurs par défaut)
+     * @throws CIIWriterException si le document n'est pas un ORDER bien formé ou si l'écriture échoue
+     * @throws IllegalArgumentException si les options définissent une table de décision par ligne
+     */
+    public static void transformer(InputStream order, OutputStream response, OrderResponseGenerationOptions options)
+            throws CIIWriterException {
+        Objects.requireNonNull(order, "order");
+        Objects.requireNonNull(response, "response");
+        OrderResponseGenerationOptions resolved = options != null ? options : OrderResponseGenerationOptions.defaults();
+        if (resolved.getLineDecisions() != null) {
+            throw new IllegalArgumentException(
+                    "Les décisions par ligne ne sont pas prises en charge par la transformation en continu");
+        }
+
+        XMLEventReader reader = null;
+        XMLEventWriter writer = null;
+        try {
+            reader = INPUT_FACTORY.createXMLEventReader(order);
+            writer = OUTPUT_FACTORY.createXMLEventWriter(response, "UTF-8");
+            new Transformation(reader, writer, resolved).run();
+        } catch (XMLStreamException e) {
+            throw new CIIWriterException("Erreur lors de la transformation en continu de l'ORDER : " + e.getMessage(), e);
+        } finally {
+            close(reader, writer);
+        }
+    }
+
+    private static XMLInputFactory createSecureInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    private static XMLOutputFactory createOutputFactory() {
+        XMLOutputFactory factory = XMLOutputFactory.newFactory();
+        // un élément recopié peut utiliser un préfixe déclaré sur un ancêtre de la commande qui n'est pas repris
+        factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+        return factory;
+    }
+
+    private static void close(XMLEventReader reader, XMLEventWriter writer) throws CIIWriterException {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new CIIWriterException("Impossible de fermer les flux XML : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sous-arbre lu en mémoire : un élément d'en-tête ou une ligne de commande.
+     */
+    private static final class Node {
+        private final StartElement start;
+        private final List<Node> children = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+
+        private Node(StartElement start) {
+            this.start = start;
+        }
+
+        private String localName() {
+            return start.getName().getLocalPart();
+        }
+
+        private boolean isRam() {
+            return RAM_NAMESPACE.equals(start.getName().getNamespaceURI());
+        }
+
+        private List<Node> children(String localName) {
+            List<Node> selected = new ArrayList<>();
+            for (Node child : children) {
+                if (child.isRam() && child.localName().equals(localName)) {
+                    selected.add(child);
+                }
+            }
+            return selected;
+        }
+
+        private Node child(String localName) {
+            List<Node> selected = children(localName);
+            return selected.isEmpty() ? null : selected.get(0);
+        }
+
+        private String text() {
+            return text.toString();
+        }
+    }
+
+    /**
+     * État d'une transformation : préfixes de sortie, en-tête de la commande et en-têtes commerciaux en attente.
+     */
+    private static final class Transformation {
+        private final XMLEventReader reader;
+        private final XMLEventWriter writer;
+        private final OrderResponseGenerationOptions options;
+
+        private String rsmPrefix;
+        private String ramPrefix;
+        private String udtPrefix;
+        private Node exchangedDocument;
+        private boolean headerWritten;
+        private boolean transactionWritten;
+
+        private Transformation(XMLEventReader reader, XMLEventWriter writer, OrderResponseGenerationOptions options) {
+            this.reader = reader;
+            this.writer = writer;
+            this.options = options;
+        }
+
+        private void run() throws XMLStreamException, CIIWriterException {
+            StartElement root = nextStartElement();
+            if (root == null || !ORDER_NAMESPACE.equals(root.getName().getNamespaceURI())
+                    || !ORDER_ROOT.equals(root.getName().getLocalPart())) {
+                throw new CIIWriterException("Le document n'est pas un message ORDER : "
+                        + (root != null ? root.getName() : "document vide"));
+            }
+            rsmPrefix = root.getName().getPrefix();
+            ramPrefix = prefixFor(root, RAM_NAMESPACE, "ram");
+            udtPrefix = prefixFor(root, UDT_NAMESPACE, "udt");
+
+            writer.add(EVENTS.createStartDocument("UTF-8", "1.0"));
+            writer.add(EVENTS.createStartElement(rsmPrefix, ORDER_RESPONSE_NAMESPACE, ORDER_RESPONSE_ROOT));
+            writer.add(rsmPrefix.isEmpty() ? EVENTS.createNamespace(ORDER_RESPONSE_NAMESPACE)
+                    : EVENTS.createNamespace(rsmPrefix, ORDER_RESPONSE_NAMESPACE));
+            writer.add(EVENTS.createNamespace(ramPrefix, RAM_NAMESPACE));
+            writer.add(EVENTS.createNamespace(udtPrefix, UDT_NAMESPACE));
+
+            Node context = null;
+            StartElement child;
+            while ((child = nextStartElement()) != null) {
+                String localName = child.getName().getLocalPart();
+                if (DOCUMENT_CONTEXT.equals(localName) && !headerWritten) {
+                    context = read(child);
+                } else if (EXCHANGED_DOCUMENT.equals(localName) && !headerWritten) {
+                    exchangedDocument = read(child);
+                } else if (TRANSACTION.equals(localName) && !transactionWritten) {
+                    writeHeader(context);
+                    transaction();
+                } else {
+                    skip();
+                }
+            }
+            writeHeader(context);
+            if (!transactionWritten) {
+                writeTransactionStart();
+                writeHeaderTrade(null, null, null);
+                writeEnd(rsmPrefix, ORDER_RESPONSE_NAMESPACE, TRANSACTION);
+            }
+            writeEnd(rsmPrefix, ORDER_RESPONSE_NAMESPACE, ORDER_RESPONSE_ROOT);
+            writer.add(EVENTS.createEndDocument());
+            writer.flush();
+        }
+
+        /**
+         * Émet les lignes au fil de la lecture et les en-têtes commerciaux, conservés, à la fin de la transaction.
+         */
+        private void transaction() throws XMLStreamException {
+            writeTransactionStart();
+            Node agreement = null;
+            Node delivery = null;
+            Node settlement = null;
+            StartElement child;
+            while ((child = nextStartElement()) != null) {
+                boolean ram = RAM_NAMESPACE.equals(child.getName().getNamespaceURI());
+                String localName = child.getName().getLocalPart();
+                if (ram && LINE_ITEM.equals(localName)) {
+                    writeLine(read(child));
+                } else if (ram && HEADER_AGREEMENT.equals(localName) && agreement == null) {
+                    agreement = read(child);
+                } else if (ram && HEADER_DELIVERY.equals(localName) && delivery == null) {
+                    delivery = read(child);
+                } else if (ram && HEADER_SETTLEMENT.equals(localName) && settlement == null) {
+                    settlement = read(child);
+                } else {
+                    skip();
+                }
+            }
+            writeHeaderTrade(agreement, delivery, settlement);
+            writeEnd(rsmPrefix, ORDER_RESPONSE_NAMESPACE, TRANSACTION);
+        }
+
+        private void writeTransactionStart() throws XMLStreamException {
+            transactionWritten = true;
+            writeStart(rsmPrefix, ORDER_RESPONSE_NAMESPACE, TRANSACTION);
+        }
+
+        private void writeHeader(Node context) throws XMLStreamException {
+            if (headerWritten) {
+                return;
+            }
+            headerWritten = true;
+            writeStart(rsmPrefix, ORDER_RESPONSE_NAMESPACE, DOCUMENT_CONTEXT);
+            if (context != null) {
+                for (Node node : context.children) {
+                    copy(node);
+                }
+            }
+            writeEnd(rsmPrefix, ORDER_RESPONSE_NAMESPACE, DOCUMENT_CONTEXT);
+            writeExchangedDocument();
+        }
+
+        private void writeExchangedDocument() throws XMLStreamException {
+            Node source = exchangedDocument;
+            Node id = source != null ? source.child("ID") : null;
+            String orderId = id != null ? id.text() : null;
+            LocalDateTime issueDate = OrderResponseGenerator.resolveIssueDate(options);
+            String responseId = OrderResponseGenerator.resolveResponseId(orderId, options, issueDate);
+
+            writeStart(rsmPrefix, ORDER_RESPONSE_NAMESPACE, EXCHANGED_DOCUMENT);
+            writeRamText("ID", responseId, null);
+            copySelected(source, "Name");
+            writeRamText("TypeCode", options.getDocumentTypeCode(), "6");
+            writeStart(ramPrefix, RAM_NAMESPACE, "IssueDateTime");
+            writer.add(EVENTS.createStartElement(udtPrefix, UDT_NAMESPACE, "DateTimeString"));
+            writer.add(EVENTS.createAttribute("format", "102"));
+            writer.add(EVENTS.createCharacters(OrderResponseGenerator.ISSUE_DATE_FORMATTER.format(issueDate)));
+            writeEnd(udtPrefix, UDT_NAMESPACE, "DateTimeString");
+            writeEnd(ramPrefix, RAM_NAMESPACE, "IssueDateTime");
+            copySelected(source, "Purpose", "LanguageID");
+            writeRamText("PurposeCode", options.getAcknowledgementCode(), "6");
+            writeEnd(rsmPrefix, ORDER_RESPONSE_NAMESPACE, EXCHANGED_DOCUMENT);
+        }
+
+        private void writeLine(Node line) throws XMLStreamException {
+            writeStart(ramPrefix, RAM_NAMESPACE, LINE_ITEM);
+            Node document = line.child(LINE_DOCUMENT);
+            writeStart(ramPrefix, RAM_NAMESPACE, LINE_DOCUMENT);
+            copySelected(document, "LineID");
+            if (options.getLineStatusCode() != null && !options.getLineStatusCode().isEmpty()) {
+                writeRamText(LINE_STATUS_CODE, options.getLineStatusCode(), "6");
+            } else {
+                copySelected(document, LINE_STATUS_CODE);
+            }
+            writeEnd(ramPrefix, RAM_NAMESPACE, LINE_DOCUMENT);
+            for (Node product : line.children("SpecifiedTradeProduct")) {
+                writeStart(product);
+                copySelected(product, PRODUCT_ELEMENTS);
+                writeEnd(product);
+            }
+            copySelected(line, "SpecifiedLineTradeAgreement");
+
+            Node delivery = line.child(LINE_DELIVERY);
+            writeStart(ramPrefix, RAM_NAMESPACE, LINE_DELIVERY);
+            copySelected(delivery, "RequestedQuantity");
+            Node agreed = delivery != null ? delivery.child("AgreedQuantity") : null;
+            if (agreed == null && delivery != null) {
+                agreed = delivery.child("RequestedQuantity");
+            }
+            if (agreed != null) {
+                writer.add(EVENTS.createStartElement(ramPrefix, RAM_NAMESPACE, "AgreedQuantity",
+                        agreed.start.getAttributes(), null));
+                writeContent(agreed);
+                writeEnd(ramPrefix, RAM_NAMESPACE, "AgreedQuantity");
+            }
+            writeParties(delivery, "ShipToTradeParty", "ShipFromTradeParty");
+            writeEnd(ramPrefix, RAM_NAMESPACE, LINE_DELIVERY);
+            copySelected(line, "SpecifiedLineTradeSettlement");
+            writeEnd(ramPrefix, RAM_NAMESPACE, LINE_ITEM);
+        }
+
+        private void writeHeaderTrade(Node agreement, Node delivery, Node settlement) throws XMLStreamException {
+            writeStart(ramPrefix, RAM_NAMESPACE, HEADER_AGREEMENT);
+            copySelected(agreement, "BuyerReference");
+            writeParties(agreement, "SellerTradeParty", "BuyerTradeParty");
+            Node id = exchangedDocument != null ? exchangedDocument.child("ID") : null;
+            if (id != null && !id.text().isBlank()) {
+                writeStart(ramPrefix, RAM_NAMESPACE, "SellerOrderReferencedDocument");
+                writeRamText("IssuerAssignedID", id.text(), null);
+                writeEnd(ramPrefix, RAM_NAMESPACE, "SellerOrderReferencedDocument");
+            }
+            writeEnd(ramPrefix, RAM_NAMESPACE, HEADER_AGREEMENT);
+
+            writeStart(ramPrefix, RAM_NAMESPACE, HEADER_DELIVERY);
+            writeParties(delivery, "ShipToTradeParty", "UltimateShipToTradeParty", "ShipFromTradeParty");
+            writeEnd(ramPrefix, RAM_NAMESPACE, HEADER_DELIVERY);
+
+            writeStart(ramPrefix, RAM_NAMESPACE, HEADER_SETTLEMENT);
+            copySelected(settlement, SETTLEMENT_ELEMENTS);
+            writeStart(ramPrefix, RAM_NAMESPACE, "SpecifiedTradeSettlementHeaderMonetarySummation");
+            copySelected(settlement != null ? settlement.child("SpecifiedTradeSettlementHeaderMonetarySummation")
+                    : null, SUMMATION_ELEMENTS);
+            writeEnd(ramPrefix, RAM_NAMESPACE, "SpecifiedTradeSettlementHeaderMonetarySummation");
+            writeEnd(ramPrefix, RAM_NAMESPACE, HEADER_SETTLEMENT);
+        }
+
+        /**
+         * Acteurs réduits aux identifiants, au nom et à l'adresse postale, comme dans le Mapper.
+         */
+        private void writeParties(Node parent, String... localNames) throws XMLStreamException {
+            if (parent == null) {
+                return;
+            }
+            for (String localName : localNames) {
+                for (Node party : parent.children(localName)) {
+                    writeStart(party);
+                    copySelected(party, PARTY_ELEMENTS);
+                    for (Node address : party.children("PostalTradeAddress")) {
+                        writeStart(address);
+                        copySelected(address, ADDRESS_ELEMENTS);
+                        writeEnd(address);
+                    }
+                    writeEnd(party);
+                }
+            }
+        }
+
+        /**
+         * Recopie les enfants nommés, groupés dans l'ordre des noms fournis (ordre du schéma ORDER_RESPONSE).
+         */
+        private void copySelected(Node parent, String... localNames) throws XMLStreamException {
+            if (parent == null) {
+                return;
+            }
+            for (String localName : localNames) {
+                for (Node node : parent.children(localName)) {
+                    copy(node);
+                }
+            }
+        }
+
+        private void copy(Node node) throws XMLStreamException {
+            writeStart(node);
+            writeContent(node);
+            writeEnd(node);
+        }
+
+        private void writeContent(Node node) throws XMLStreamException {
+            if (node.children.isEmpty()) {
+                if (!node.text().isBlank()) {
+                    writer.add(EVENTS.createCharacters(node.text()));
+                }
+                return;
+            }
+            for (Node child : node.children) {
+                copy(child);
+            }
+        }
+
+        private void writeStart(Node node) throws XMLStreamException {
+            QName name = renameQName(node.start.getName());
+            List<Attribute> attributes = new ArrayList<>();
+            boolean agency = false;
+            for (Iterator<Attribute> it = node.start.getAttributes(); it.hasNext(); ) {
+                Attribute attribute = it.next();
+                agency |= LIST_AGENCY_ID.equals(attribute.getName().getLocalPart());
+                attributes.add(attribute);
+            }
+            String defaultAgency = node.isRam() ? DEFAULT_AGENCIES.get(node.localName()) : null;
+            if (defaultAgency != null && !agency) {
+                attributes.add(EVENTS.createAttribute(LIST_AGENCY_ID, defaultAgency));
+            }
+            writer.add(EVENTS.createStartElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(),
+                    attributes.iterator(), null));
+        }
+
+        private void writeEnd(Node node) throws XMLStreamException {
+            QName name = renameQName(node.start.getName());
+            writeEnd(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart());
+        }
+
+        private void writeRamText(String localName, String value, String agency) throws XMLStreamException {
+            writeStart(ramPrefix, RAM_NAMESPACE, localName);
+            if (agency != null) {
+                writer.add(EVENTS.createAttribute(LIST_AGENCY_ID, agency));
+            }
+            writer.add(EVENTS.createCharacters(value));
+            writeEnd(ramPrefix, RAM_NAMESPACE, localName);
+        }
+
+        private void writeStart(String prefix, String namespace, String localName) throws XMLStreamException {
+            writer.add(EVENTS.createStartElement(prefix, namespace, localName));
+        }
+
+        private void writeEnd(String prefix, String namespace, String localName) throws XMLStreamException {
+            writer.add(EVENTS.createEndElement(prefix, namespace, localName));
+        }
+
+        /**
+         * Avance jusqu'au prochain enfant de l'élément courant ; {@code null} à la fermeture de celui-ci.
+         */
+        private StartElement nextStartElement() throws XMLStreamException {
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    return event.asStartElement();
+                }
+                if (event.isEndElement()) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Lit en mémoire le sous-arbre dont l'élément de départ vient d'être consommé.
+         */
+        private Node read(StartElement start) throws XMLStreamException {
+            Node node = new Node(start);
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    node.children.add(read(event.asStartElement()));
+                } else if (event.isCharacters()) {
+                    node.text.append(event.asCharacters().getData());
+                } else if (event.isEndElement()) {
+                    return node;
+                }
+            }
+            return node;
+        }
+
+        /**
+         * Ignore le sous-arbre dont l'élément de départ vient d'être consommé.
+         */
+        private void skip() throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    depth++;
+                } else if (event.isEndElement()) {
+                    depth--;
+                }
+            }
+        }
+
+        private static String prefixFor(StartElement root, String namespace, String preferred) {
+            String declared = root.getNamespaceContext().getPrefix(namespace);
+            if (declared != null && !declared.isEmpty()) {
+                return declared;
+            }
+            String prefix = preferred;
+            int suffix = 1;
+            while (root.getNamespaceContext().getNamespaceURI(prefix) != null
+                    && !root.getNamespaceContext().getNamespaceURI(prefix).isEmpty()) {
+                prefix = preferred + suffix++;
+            }
+            return prefix;
+        }
+    }
+
+    private static QName renameQName(QName name) {
+        if (!ORDER_NAMESPACE.equals(name.getNamespaceURI())) {
+            return name;
+        }
+        String localName = ORDER_ROOT.equals(name.getLocalPart()) ? ORDER_RESPONSE_ROOT : name.getLocalPart();
+        return new QName(ORDER_RESPONSE_NAMESPACE, localName, name.getPrefix());
+    }
+}
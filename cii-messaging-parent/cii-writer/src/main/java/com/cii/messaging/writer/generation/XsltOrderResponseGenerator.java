@@ -0,0 +1,239 @@
+package com.cii.messaging.writer.generation;
+
+import com.cii.messaging.model.order.Order;
+import com.cii.messaging.model.orderresponse.OrderResponse;
+import com.cii.messaging.writer.CIIWriterException;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.util.JAXBResult;
+import jakarta.xml.bind.util.JAXBSource;
+import net.sf.saxon.s9api.Destination;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.QName;
+import net.sf.saxon.s9api.SAXDestination;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.Serializer;
+import net.sf.saxon.s9api.XdmAtomicValue;
+import net.sf.saxon.s9api.XdmValue;
+import net.sf.saxon.s9api.Xslt30Transformer;
+import net.sf.saxon.s9api.XsltExecutable;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Génère un ORDER_RESPONSE via une feuille XSLT compilée par Saxon, alternative au Mapper Java de
+ * {@link OrderResponseGenerator}.
+ *
+ * <p>La feuille est compilée une seule fois en un {@link XsltExecutable} partagé ; chaque transformation
+ * charge un {@link Xslt30Transformer} léger, ce qui rend la classe utilisable depuis plusieurs threads.
+ * La feuille reprend les mêmes champs que le Mapper et produit le même document ; les
+ * {@link OrderResponseGenerationOptions} s'appliquent de la même façon, à l'exception des décisions par ligne,
+ * refusées.</p>
+ */
+public final class XsltOrderResponseGenerator {
+
+    private static final String STYLESHEET = "/xslt/order-to-orderresponse.xsl";
+
+    private static final QName RESPONSE_ID = new QName("responseId");
+    private static final QName RESPONSE_ID_PREFIX = new QName("responseIdPrefix");
+    private static final QName ISSUE_DATE = new QName("issueDate");
+    private static final QName ACKNOWLEDGEMENT_CODE = new QName("acknowledgementCode");
+    private static final QName DOCUMENT_TYPE_CODE = new QName("documentTypeCode");
+    private static final QName LINE_STATUS_CODE = new QName("lineStatusCode");
+
+    private static final Processor PROCESSOR = new Processor(false);
+    private static final XsltExecutable EXECUTABLE = compile();
+    private static final SAXParserFactory PARSER_FACTORY = createSecureParserFactory();
+
+    private XsltOrderResponseGenerator() {
+        // utilitaire
+    }
+
+    /**
+     * Transforme la commande en ORDER_RESPONSE sans sérialisation intermédiaire (événements JAXB vers Saxon
+     * puis vers JAXB).
+     *
+     * @param order   commande source
+     * @param options options de génération (peut être {@code null})
+     * @return réponse structurée
+     * @throws CIIWriterException si la transformation échoue
+     */
+    public static OrderResponse genererDepuisOrder(Order order, OrderResponseGenerationOptions options)
+            throws CIIWriterException {
+        Objects.requireNonNull(order, "order");
+        try {
+            JAXBResult result = new JAXBResult(JaxbContexts.ORDER_RESPONSE);
+            transformer(new JAXBSource(JaxbContexts.ORDER, order), new SAXDestination(result.getHandler()), options);
+            return (OrderResponse) result.getResult();
+        } catch (JAXBException e) {
+            throw new CIIWriterException("Échec de la conversion JAXB de l'ORDER_RESPONSE : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Transforme la commande et écrit l'ORDER_RESPONSE sérialisé dans le flux fourni (non fermé).
+     *
+     * @param order    commande source
+     * @param response flux de sortie
+     * @param options  options de génération (peut être {@code null})
+     * @throws CIIWriterException si la transformation échoue
+     */
+    public static void ecrire(Order order, OutputStream response, OrderResponseGenerationOptions options)
+            throws CIIWriterException {
+        Objects.requireNonNull(order, "order");
+        Objects.requireNonNull(response, "response");
+        try {
+            transformer(new JAXBSource(JaxbContexts.ORDER, order), serializer(response), options);
+        } catch (JAXBException e) {
+            throw new CIIWriterException("Échec de la lecture JAXB de l'ORDER : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Transforme un flux ORDER en flux ORDER_RESPONSE encodé en UTF-8. Les flux ne sont pas fermés.
+     *
+     * @param order    flux ORDER source
+     * @param response flux de sortie
+     * @param options  options de génération (peut être {@code null})
+     * @throws CIIWriterException si le document n'est pas un ORDER ou si la transformation échoue
+     */
+    public static void transformer(InputStream order, OutputStream response, OrderResponseGenerationOptions options)
+            throws CIIWriterException {
+        Objects.requireNonNull(order, "order");
+        Objects.requireNonNull(response, "response");
+        transformer(secureSource(order), serializer(response), options);
+    }
+
+    /**
+     * Transforme le fichier ORDER fourni et écrit l'ORDER_RESPONSE sur le chemin souhaité.
+     *
+     * @param cheminOrder  fichier ORDER source
+     * @param cheminSortie fichier ORDER_RESPONSE à produire
+     * @param options      options de génération (peut être {@code null})
+     * @return message de confirmation avec le chemin absolu du fichier produit
+     * @throws IOException        si la lecture ou l'écriture échoue ou si le chemin est invalide
+     * @throws CIIWriterException si la transformation échoue
+     */
+    public static String genererOrderResponse(Path cheminOrder, Path cheminSortie,
+                                              OrderResponseGenerationOptions options)
+            throws IOException, CIIWriterException {
+        Objects.requireNonNull(cheminOrder, "cheminOrder");
+        Objects.requireNonNull(cheminSortie, "cheminSortie");
+
+        Path outputPath = OrderResponseGenerator.prepareOutput(cheminSortie);
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(cheminOrder));
+             OutputStream output = new BufferedOutputStream(Files.newOutputStream(outputPath))) {
+            transformer(input, output, options);
+        }
+        return "Fichier ORDER_RESPONSE généré avec succès : " + outputPath.toAbsolutePath();
+    }
+
+    static void transformer(Source source, Destination destination, OrderResponseGenerationOptions options)
+            throws CIIWriterException {
+        OrderResponseGenerationOptions resolved = options != null ? options : OrderResponseGenerationOptions.defaults();
+        if (resolved.getLineDecisions() != null) {
+            throw new IllegalArgumentException(
+                    "Les décisions par ligne ne sont pas prises en charge par le moteur XSLT");
+        }
+        Xslt30Transformer transformer = EXECUTABLE.load30();
+        try {
+            transformer.setStylesheetParameters(parameters(resolved));
+            transformer.transform(source, destination);
+        } catch (SaxonApiException e) {
+            throw new CIIWriterException("Échec de la transformation XSLT de l'ORDER : " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<QName, XdmValue> parameters(OrderResponseGenerationOptions options) {
+        LocalDateTime issueDate = OrderResponseGenerator.resolveIssueDate(options);
+        Map<QName, XdmValue> parameters = new HashMap<>();
+        parameters.put(RESPONSE_ID, new XdmAtomicValue(options.getResponseId() != null ? options.getResponseId() : ""));
+        parameters.put(RESPONSE_ID_PREFIX, new XdmAtomicValue(options.getResponseIdPrefix()));
+        parameters.put(ISSUE_DATE, new XdmAtomicValue(OrderResponseGenerator.ISSUE_DATE_FORMATTER.format(issueDate)));
+        parameters.put(ACKNOWLEDGEMENT_CODE, new XdmAtomicValue(options.getAcknowledgementCode()));
+        parameters.put(DOCUMENT_TYPE_CODE, new XdmAtomicValue(options.getDocumentTypeCode()));
+        parameters.put(LINE_STATUS_CODE,
+                new XdmAtomicValue(options.getLineStatusCode() != null ? options.getLineStatusCode() : ""));
+        return parameters;
+    }
+
+    private static Serializer serializer(OutputStream output) {
+        Serializer serializer = PROCESSOR.newSerializer(output);
+        serializer.setOutputProperty(Serializer.Property.ENCODING, "UTF-8");
+        return serializer;
+    }
+
+    private static Source secureSource(InputStream input) throws CIIWriterException {
+        try {
+            XMLReader reader;
+            synchronized (PARSER_FACTORY) {
+                reader = PARSER_FACTORY.newSAXParser().getXMLReader();
+            }
+            return new SAXSource(reader, new InputSource(input));
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new CIIWriterException("Impossible de configurer l'analyseur XML : " + e.getMessage(), e);
+        }
+    }
+
+    private static SAXParserFactory createSecureParserFactory() {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IllegalStateException("Impossible de sécuriser l'analyseur XML", e);
+        }
+        return factory;
+    }
+
+    private static XsltExecutable compile() {
+        URL stylesheet = XsltOrderResponseGenerator.class.getResource(STYLESHEET);
+        if (stylesheet == null) {
+            throw new IllegalStateException("Feuille XSLT introuvable : " + STYLESHEET);
+        }
+        try (InputStream input = stylesheet.openStream()) {
+            return PROCESSOR.newXsltCompiler().compile(new StreamSource(input, stylesheet.toExternalForm()));
+        } catch (IOException | SaxonApiException e) {
+            throw new IllegalStateException("Échec de la compilation de " + STYLESHEET, e);
+        }
+    }
+
+    /**
+     * Contextes JAXB initialisés à la première utilisation du moteur sur des objets du modèle.
+     */
+    private static final class JaxbContexts {
+        private static final JAXBContext ORDER = create(Order.class);
+        private static final JAXBContext ORDER_RESPONSE = create(OrderResponse.class);
+
+        private static JAXBContext create(Class<?> type) {
+            try {
+                return JAXBContext.newInstance(type);
+            } catch (JAXBException e) {
+                throw new IllegalStateException("Échec de l'initialisation du contexte JAXB", e);
+            }
+        }
+    }
+}
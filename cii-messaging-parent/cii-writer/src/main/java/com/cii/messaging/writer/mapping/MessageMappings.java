@@ -0,0 +1,23 @@
+package com.cii.messaging.writer.mapping;
+
+import com.cii.messaging.mapper.GenerateMapper;
+import com.cii.messaging.unece.despatchadvice.CrossIndustryDespatchAdviceType;
+import com.cii.messaging.unece.invoice.CrossIndustryInvoiceType;
+import com.cii.messaging.unece.order.CrossIndustryOrderType;
+import com.cii.messaging.unece.orderresponse.CrossIndustryOrderResponseType;
+
+/**
+ * Déclaration des mappers typés générés à la compilation entre les modèles UNECE.
+ */
+@GenerateMapper(source = CrossIndustryOrderType.class, target = CrossIndustryOrderResponseType.class,
+        name = "OrderToOrderResponseMapper")
+@GenerateMapper(source = CrossIndustryOrderType.class, target = CrossIndustryDespatchAdviceType.class,
+        name = "OrderToDespatchAdviceMapper")
+@GenerateMapper(source = CrossIndustryOrderType.class, target = CrossIndustryInvoiceType.class,
+        name = "OrderToInvoiceMapper")
+final class MessageMappings {
+
+    private MessageMappings() {
+        // déclaration uniquement
+    }
+}
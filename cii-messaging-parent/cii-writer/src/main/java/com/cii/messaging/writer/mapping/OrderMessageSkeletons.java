@@ -0,0 +1,61 @@
+package com.cii.messaging.writer.mapping;
+
+import com.cii.messaging.model.despatchadvice.DespatchAdvice;
+import com.cii.messaging.model.invoice.Invoice;
+import com.cii.messaging.model.order.Order;
+import com.cii.messaging.model.orderresponse.OrderResponse;
+
+import java.util.Objects;
+
+/**
+ * Construit les squelettes ORDER_RESPONSE, DESADV et INVOICE à partir d'un ORDER en recopiant
+ * toutes les structures communes aux deux schémas via les mappers générés.
+ *
+ * <p>Les éléments propres au message cible (identifiant, type de document, statuts...) restent
+ * à compléter par l'appelant.</p>
+ */
+public final class OrderMessageSkeletons {
+
+    private OrderMessageSkeletons() {
+        // utilitaire
+    }
+
+    /**
+     * Crée un squelette ORDER_RESPONSE à partir de la commande.
+     *
+     * @param order commande source
+     * @return réponse pré-remplie
+     */
+    public static OrderResponse orderResponse(Order order) {
+        Objects.requireNonNull(order, "order");
+        OrderResponse response = new OrderResponse();
+        OrderToOrderResponseMapper.copy(order, response);
+        return response;
+    }
+
+    /**
+     * Crée un squelette DESADV à partir de la commande.
+     *
+     * @param order commande source
+     * @return avis d'expédition pré-rempli
+     */
+    public static DespatchAdvice despatchAdvice(Order order) {
+        Objects.requireNonNull(order, "order");
+        DespatchAdvice despatchAdvice = new DespatchAdvice();
+        OrderToDespatchAdviceMapper.copy(order, despatchAdvice);
+        return despatchAdvice;
+    }
+
+    /**
+     * Crée un squelette INVOICE à partir de la commande.
+     *
+     * @param order commande source
+     * @return facture pré-remplie
+     */
+    public static Invoice invoice(Order order) {
+        Objects.requireNonNull(order, "order");
+        Invoice invoice = new Invoice();
+        OrderToInvoiceMapper.copy(order, invoice);
+        return invoice;
+    }
+}
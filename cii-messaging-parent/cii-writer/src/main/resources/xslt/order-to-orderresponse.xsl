@@ -0,0 +1,217 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<!--
+    Transformation ORDER -> ORDER_RESPONSE reprenant champ par champ le Mapper Java de OrderResponseGenerator :
+    contexte et en-tête du document, acteurs (identifiants, nom, adresse), devises et totaux d'en-tête,
+    puis pour chaque ligne le document de ligne, le produit, l'accord et le règlement de ligne et la livraison
+    (quantité convenue reprise de la quantité demandée à défaut). Les éléments non repris par le Mapper sont
+    ignorés et les éléments sont émis dans l'ordre du schéma ORDER_RESPONSE. Les codes devise et statut de ligne
+    reçoivent explicitement leur listAgencyID par défaut, comme le Mapper. Différences restantes : les décisions
+    par ligne ne sont pas prises en charge, et dans l'accord et le règlement de ligne recopiés tels quels, les
+    autres attributs de code absents restent implicites (valeur par défaut du schéma) alors que le Mapper les
+    écrit.
+-->
+<xsl:stylesheet version="3.0"
+                xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+                xmlns:xs="http://www.w3.org/2001/XMLSchema"
+                xmlns:ord="urn:un:unece:uncefact:data:standard:CrossIndustryOrder:100"
+                xmlns:rsm="urn:un:unece:uncefact:data:standard:CrossIndustryOrderResponse:100"
+                xmlns:ram="urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100"
+                xmlns:udt="urn:un:unece:uncefact:data:standard:UnqualifiedDataType:100"
+                xmlns:qdt="urn:un:unece:uncefact:data:standard:QualifiedDataType:100"
+                exclude-result-prefixes="xs ord">
+
+    <xsl:output method="xml" encoding="UTF-8" indent="yes"/>
+    <xsl:strip-space elements="*"/>
+
+    <xsl:param name="responseId" as="xs:string" select="''"/>
+    <xsl:param name="responseIdPrefix" as="xs:string" required="yes"/>
+    <xsl:param name="issueDate" as="xs:string" required="yes"/>
+    <xsl:param name="acknowledgementCode" as="xs:string" required="yes"/>
+    <xsl:param name="documentTypeCode" as="xs:string" required="yes"/>
+    <xsl:param name="lineStatusCode" as="xs:string" select="''"/>
+
+    <xsl:variable name="orderId" as="xs:string"
+                  select="string(/ord:CrossIndustryOrder/ord:ExchangedDocument/ram:ID)"/>
+
+    <xsl:template match="/*" priority="0">
+        <xsl:message terminate="yes"
+                     select="'Le document n''est pas un message ORDER : ' || name()"/>
+    </xsl:template>
+
+    <xsl:template match="/ord:CrossIndustryOrder">
+        <rsm:CrossIndustryOrderResponse>
+            <rsm:ExchangedDocumentContext>
+                <xsl:apply-templates select="ord:ExchangedDocumentContext/*"/>
+            </rsm:ExchangedDocumentContext>
+            <xsl:call-template name="exchanged-document">
+                <xsl:with-param name="source" select="ord:ExchangedDocument"/>
+            </xsl:call-template>
+            <xsl:call-template name="transaction">
+                <xsl:with-param name="source" select="ord:SupplyChainTradeTransaction"/>
+            </xsl:call-template>
+        </rsm:CrossIndustryOrderResponse>
+    </xsl:template>
+
+    <xsl:template name="exchanged-document">
+        <xsl:param name="source" as="element()?"/>
+        <rsm:ExchangedDocument>
+            <ram:ID>
+                <xsl:choose>
+                    <xsl:when test="normalize-space($responseId)">
+                        <xsl:value-of select="normalize-space($responseId)"/>
+                    </xsl:when>
+                    <xsl:when test="normalize-space($orderId)">
+                        <xsl:value-of select="$responseIdPrefix || normalize-space($orderId)"/>
+                    </xsl:when>
+                    <xsl:otherwise>
+                        <xsl:value-of select="$responseIdPrefix || $issueDate"/>
+                    </xsl:otherwise>
+                </xsl:choose>
+            </ram:ID>
+            <xsl:apply-templates select="$source/ram:Name"/>
+            <ram:TypeCode listAgencyID="6">
+                <xsl:value-of select="$documentTypeCode"/>
+            </ram:TypeCode>
+            <ram:IssueDateTime>
+                <udt:DateTimeString format="102">
+                    <xsl:value-of select="$issueDate"/>
+                </udt:DateTimeString>
+            </ram:IssueDateTime>
+            <xsl:apply-templates select="$source/ram:Purpose, $source/ram:LanguageID"/>
+            <ram:PurposeCode listAgencyID="6">
+                <xsl:value-of select="$acknowledgementCode"/>
+            </ram:PurposeCode>
+        </rsm:ExchangedDocument>
+    </xsl:template>
+
+    <xsl:template name="transaction">
+        <xsl:param name="source" as="element()?"/>
+        <rsm:SupplyChainTradeTransaction>
+            <xsl:apply-templates select="$source/ram:IncludedSupplyChainTradeLineItem" mode="line"/>
+            <xsl:variable name="agreement" select="$source/ram:ApplicableHeaderTradeAgreement"/>
+            <ram:ApplicableHeaderTradeAgreement>
+                <xsl:apply-templates select="$agreement/ram:BuyerReference"/>
+                <xsl:apply-templates select="$agreement/ram:SellerTradeParty, $agreement/ram:BuyerTradeParty"
+                                     mode="party"/>
+                <xsl:if test="normalize-space($orderId)">
+                    <ram:SellerOrderReferencedDocument>
+                        <ram:IssuerAssignedID>
+                            <xsl:value-of select="$orderId"/>
+                        </ram:IssuerAssignedID>
+                    </ram:SellerOrderReferencedDocument>
+                </xsl:if>
+            </ram:ApplicableHeaderTradeAgreement>
+            <xsl:variable name="delivery" select="$source/ram:ApplicableHeaderTradeDelivery"/>
+            <ram:ApplicableHeaderTradeDelivery>
+                <xsl:apply-templates select="$delivery/ram:ShipToTradeParty, $delivery/ram:UltimateShipToTradeParty,
+                                             $delivery/ram:ShipFromTradeParty" mode="party"/>
+            </ram:ApplicableHeaderTradeDelivery>
+            <xsl:variable name="settlement" select="$source/ram:ApplicableHeaderTradeSettlement"/>
+            <ram:ApplicableHeaderTradeSettlement>
+                <xsl:apply-templates select="$settlement/ram:DuePayableAmount, $settlement/ram:TaxCurrencyCode,
+                                             $settlement/ram:OrderCurrencyCode, $settlement/ram:InvoiceCurrencyCode,
+                                             $settlement/ram:PriceCurrencyCode"/>
+                <xsl:variable name="summation"
+                              select="$settlement/ram:SpecifiedTradeSettlementHeaderMonetarySummation"/>
+                <ram:SpecifiedTradeSettlementHeaderMonetarySummation>
+                    <xsl:apply-templates select="$summation/ram:LineTotalAmount, $summation/ram:ChargeTotalAmount,
+                                                 $summation/ram:AllowanceTotalAmount,
+                                                 $summation/ram:TaxBasisTotalAmount, $summation/ram:TaxTotalAmount,
+                                                 $summation/ram:RoundingAmount, $summation/ram:GrandTotalAmount,
+                                                 $summation/ram:TotalPrepaidAmount, $summation/ram:DuePayableAmount,
+                                                 $summation/ram:NetLineTotalAmount,
+                                                 $summation/ram:IncludingTaxesLineTotalAmount"/>
+                </ram:SpecifiedTradeSettlementHeaderMonetarySummation>
+            </ram:ApplicableHeaderTradeSettlement>
+        </rsm:SupplyChainTradeTransaction>
+    </xsl:template>
+
+    <xsl:template match="ram:IncludedSupplyChainTradeLineItem" mode="line">
+        <xsl:copy copy-namespaces="no">
+            <xsl:variable name="document" select="ram:AssociatedDocumentLineDocument"/>
+            <ram:AssociatedDocumentLineDocument>
+                <xsl:apply-templates select="$document/ram:LineID"/>
+                <xsl:choose>
+                    <xsl:when test="$lineStatusCode">
+                        <ram:LineStatusCode listAgencyID="6">
+                            <xsl:value-of select="$lineStatusCode"/>
+                        </ram:LineStatusCode>
+                    </xsl:when>
+                    <xsl:otherwise>
+                        <xsl:apply-templates select="$document/ram:LineStatusCode"/>
+                    </xsl:otherwise>
+                </xsl:choose>
+            </ram:AssociatedDocumentLineDocument>
+            <xsl:for-each select="ram:SpecifiedTradeProduct">
+                <xsl:copy copy-namespaces="no">
+                    <xsl:apply-templates select="ram:ID, ram:GlobalID, ram:SellerAssignedID, ram:BuyerAssignedID,
+                                                 ram:Name, ram:TradeName"/>
+                </xsl:copy>
+            </xsl:for-each>
+            <xsl:apply-templates select="ram:SpecifiedLineTradeAgreement"/>
+            <xsl:variable name="delivery" select="ram:SpecifiedLineTradeDelivery"/>
+            <ram:SpecifiedLineTradeDelivery>
+                <xsl:apply-templates select="$delivery/ram:RequestedQuantity"/>
+                <xsl:for-each select="($delivery/ram:AgreedQuantity, $delivery/ram:RequestedQuantity)[1]">
+                    <ram:AgreedQuantity>
+                        <xsl:apply-templates select="@*, node()"/>
+                    </ram:AgreedQuantity>
+                </xsl:for-each>
+                <xsl:apply-templates select="$delivery/ram:ShipToTradeParty, $delivery/ram:ShipFromTradeParty"
+                                     mode="party"/>
+            </ram:SpecifiedLineTradeDelivery>
+            <xsl:apply-templates select="ram:SpecifiedLineTradeSettlement"/>
+        </xsl:copy>
+    </xsl:template>
+
+    <xsl:template match="*" mode="party">
+        <xsl:copy copy-namespaces="no">
+            <xsl:apply-templates select="ram:ID, ram:GlobalID, ram:Name"/>
+            <xsl:for-each select="ram:PostalTradeAddress">
+                <xsl:copy copy-namespaces="no">
+                    <xsl:apply-templates select="ram:ID, ram:PostcodeCode, ram:LineOne, ram:LineTwo, ram:LineThree,
+                                                 ram:CityName, ram:CountryID, ram:CountryName,
+                                                 ram:CountrySubDivisionID, ram:CountrySubDivisionName"/>
+                </xsl:copy>
+            </xsl:for-each>
+        </xsl:copy>
+    </xsl:template>
+
+    <xsl:template match="ram:CurrencyCode | ram:TaxCurrencyCode | ram:OrderCurrencyCode | ram:InvoiceCurrencyCode
+                         | ram:PriceCurrencyCode | ram:SourceCurrencyCode | ram:TargetCurrencyCode">
+        <xsl:call-template name="with-default-attribute">
+            <xsl:with-param name="name" select="'listAgencyID'"/>
+            <xsl:with-param name="default" select="'5'"/>
+        </xsl:call-template>
+    </xsl:template>
+
+    <xsl:template match="ram:LineStatusCode">
+        <xsl:call-template name="with-default-attribute">
+            <xsl:with-param name="name" select="'listAgencyID'"/>
+            <xsl:with-param name="default" select="'6'"/>
+        </xsl:call-template>
+    </xsl:template>
+
+    <!-- Le Mapper lit les attributs via les accesseurs JAXB, qui renvoient la valeur par défaut du schéma. -->
+    <xsl:template name="with-default-attribute">
+        <xsl:param name="name" as="xs:string"/>
+        <xsl:param name="default" as="xs:string"/>
+        <xsl:copy copy-namespaces="no">
+            <xsl:apply-templates select="@*"/>
+            <xsl:if test="not(@*[local-name() = $name])">
+                <xsl:attribute name="{$name}" select="$default"/>
+            </xsl:if>
+            <xsl:apply-templates select="node()"/>
+        </xsl:copy>
+    </xsl:template>
+
+    <xsl:template match="*">
+        <xsl:copy copy-namespaces="no">
+            <xsl:apply-templates select="@*, node()"/>
+        </xsl:copy>
+    </xsl:template>
+
+    <xsl:template match="@* | text()">
+        <xsl:copy/>
+    </xsl:template>
+</xsl:stylesheet>
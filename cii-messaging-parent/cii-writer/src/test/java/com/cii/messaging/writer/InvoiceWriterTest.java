@@ -40,6 +40,9 @@ import com.cii.messaging.unece.invoice.TradeSettlementHeaderMonetarySummationTyp
 import com.cii.messaging.unece.invoice.TradeSettlementLineMonetarySummationType;
 import com.cii.messaging.unece.invoice.TradeTaxType;
 import com.cii.messaging.unece.invoice.UniversalCommunicationType;
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.validator.SchemaVersion;
+import com.cii.messaging.validator.ValidationResult;
 import jakarta.xml.bind.JAXBContext;
 import org.junit.jupiter.api.Test;
 import org.w3c.dom.Document;
@@ -48,11 +51,15 @@ import org.xml.sax.InputSource;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathFactory;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class InvoiceWriterTest {
@@ -127,6 +134,57 @@ class InvoiceWriterTest {
                 "/*[local-name()='CrossIndustryInvoice']/*[local-name()='SupplyChainTradeTransaction']/*[local-name()='ApplicableHeaderTradeSettlement']/*[local-name()='SpecifiedTradePaymentTerms']/*[local-name()='DueDateDateTime']/*[local-name()='DateTimeString']"));
     }
 
+    @Test
+    void doitValiderLeSchemaPendantLEcriture() throws Exception {
+        CIIWriter<Invoice> writer = CIIWriterFactory.createWriter(MessageType.INVOICE, WriterConfig.builder()
+                .validateSchema(true)
+                .schemaVersion(SchemaVersion.D23B)
+                .build());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        ValidationResult result = writer.writeValidated(buildInvoice(), output);
+
+        assertTrue(result.isValid(), () -> String.valueOf(result.getErrors()));
+        assertEquals("XSD D23B", result.getValidatedAgainst());
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("INV-2025-0001"));
+    }
+
+    @Test
+    void doitInterrompreLEcritureALaPremiereErreurDeSchema() {
+        Invoice invoice = buildInvoice();
+        invoice.getExchangedDocument().setTypeCode(documentCode("ABC"));
+        invoice.setSupplyChainTradeTransaction(null);
+        CIIWriter<Invoice> writer = new InvoiceWriter();
+        writer.setSchemaValidation(SchemaVersion.D23B, true);
+
+        CIIWriterException exception = assertThrows(CIIWriterException.class, () -> writer.writeToString(invoice));
+        assertTrue(exception.getMessage().startsWith("Message non conforme au schéma D23B"));
+    }
+
+    @Test
+    void doitCollecterToutesLesErreursDeSchemaSansInterrompreLEcriture() throws Exception {
+        Invoice invoice = buildInvoice();
+        invoice.getExchangedDocument().setTypeCode(documentCode("ABC"));
+        invoice.setSupplyChainTradeTransaction(null);
+        CIIWriter<Invoice> aborting = new InvoiceWriter();
+        aborting.setSchemaValidation(SchemaVersion.D23B, true);
+        CIIWriter<Invoice> tolerant = new InvoiceWriter();
+        tolerant.setSchemaValidation(SchemaVersion.D23B, false);
+        ByteArrayOutputStream partial = new ByteArrayOutputStream();
+        ByteArrayOutputStream complete = new ByteArrayOutputStream();
+
+        ValidationResult first = aborting.writeValidated(invoice, partial);
+        ValidationResult all = tolerant.writeValidated(invoice, complete);
+
+        assertFalse(first.isValid());
+        assertEquals(1, first.getErrors().size());
+        assertFalse(all.isValid());
+        assertTrue(all.getErrors().size() > 1, () -> String.valueOf(all.getErrors()));
+        assertEquals(first.getErrors().get(0).getMessage(), all.getErrors().get(0).getMessage());
+        assertFalse(partial.toString(StandardCharsets.UTF_8).contains("SupplyChainTradeTransaction"));
+        assertTrue(complete.toString(StandardCharsets.UTF_8).contains("</rsm:CrossIndustryInvoice>"));
+    }
+
     private static Invoice buildInvoice() {
         Invoice invoice = new Invoice();
 
@@ -0,0 +1,105 @@
+package com.cii.messaging.writer.generation;
+
+import com.cii.messaging.unece.order.AmountType;
+import com.cii.messaging.unece.order.CurrencyCodeType;
+import com.cii.messaging.unece.order.ISO3AlphaCurrencyCodeContentType;
+import com.cii.messaging.unece.order.LineTradeAgreementType;
+import com.cii.messaging.unece.order.LineTradeSettlementType;
+import com.cii.messaging.unece.order.TextType;
+import com.cii.messaging.unece.order.TradePriceType;
+import com.cii.messaging.unece.order.TradeSettlementLineMonetarySummationType;
+import com.cii.messaging.unece.order.TradeTaxType;
+import com.cii.messaging.writer.mapping.OrderToOrderResponseMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CopyPlansTest {
+
+    @Test
+    void reutiliseLePlanCompilePourUnMemeCoupleDeClasses() {
+        CopyPlans.CopyPlan first = CopyPlans.planFor(LineTradeAgreementType.class,
+                com.cii.messaging.unece.orderresponse.LineTradeAgreementType.class);
+        CopyPlans.CopyPlan second = CopyPlans.planFor(LineTradeAgreementType.class,
+                com.cii.messaging.unece.orderresponse.LineTradeAgreementType.class);
+
+        assertSame(first, second);
+        assertEquals(com.cii.messaging.unece.orderresponse.LineTradeAgreementType.class, first.targetClass());
+    }
+
+    @Test
+    void copieStructuresImbriqueesListesEtEnumerations() {
+        LineTradeAgreementType agreement = new LineTradeAgreementType();
+        TextType reference = new TextType();
+        reference.setValue("REF-1");
+        agreement.getSellerReference().add(reference);
+        TradePriceType price = new TradePriceType();
+        price.getChargeAmount().add(amount("12.50"));
+        agreement.setNetPriceProductTradePrice(price);
+
+        com.cii.messaging.unece.orderresponse.LineTradeAgreementType converted = CopyPlans.convert(agreement,
+                com.cii.messaging.unece.orderresponse.LineTradeAgreementType.class);
+
+        assertEquals("REF-1", converted.getSellerReference().get(0).getValue());
+        assertEquals(new BigDecimal("12.50"),
+                converted.getNetPriceProductTradePrice().getChargeAmount().get(0).getValue());
+        assertEquals("EUR", converted.getNetPriceProductTradePrice().getChargeAmount().get(0).getCurrencyID());
+        assertNull(converted.getGrossPriceProductTradePrice());
+
+        LineTradeSettlementType settlement = new LineTradeSettlementType();
+        TradeSettlementLineMonetarySummationType summation = new TradeSettlementLineMonetarySummationType();
+        summation.getLineTotalAmount().add(amount("25.00"));
+        settlement.setSpecifiedTradeSettlementLineMonetarySummation(summation);
+        TradeTaxType tax = new TradeTaxType();
+        CurrencyCodeType currency = new CurrencyCodeType();
+        currency.setValue(ISO3AlphaCurrencyCodeContentType.EUR);
+        tax.setCurrencyCode(currency);
+        settlement.getApplicableTradeTax().add(tax);
+
+        com.cii.messaging.unece.orderresponse.LineTradeSettlementType convertedSettlement = CopyPlans.convert(
+                settlement, com.cii.messaging.unece.orderresponse.LineTradeSettlementType.class);
+
+        assertEquals(new BigDecimal("25.00"), convertedSettlement.getSpecifiedTradeSettlementLineMonetarySummation()
+                .getLineTotalAmount().get(0).getValue());
+        assertEquals(com.cii.messaging.unece.orderresponse.ISO3AlphaCurrencyCodeContentType.EUR,
+                convertedSettlement.getApplicableTradeTax().get(0).getCurrencyCode().getValue());
+    }
+
+    @Test
+    void delegueAuMapperGenereEtSeReplieSurLesPlansPourLesAutresTypes() {
+        assertNotNull(OrderToOrderResponseMapper.conversion(LineTradeAgreementType.class,
+                com.cii.messaging.unece.orderresponse.LineTradeAgreementType.class));
+        assertSame(OrderToOrderResponseMapper.conversion(LineTradeAgreementType.class,
+                        com.cii.messaging.unece.orderresponse.LineTradeAgreementType.class),
+                CopyPlans.conversionFor(LineTradeAgreementType.class,
+                        com.cii.messaging.unece.orderresponse.LineTradeAgreementType.class));
+        assertNull(OrderToOrderResponseMapper.conversion(AccordEtendu.class,
+                com.cii.messaging.unece.orderresponse.LineTradeAgreementType.class));
+
+        AccordEtendu agreement = new AccordEtendu();
+        TradePriceType price = new TradePriceType();
+        price.getChargeAmount().add(amount("8.00"));
+        agreement.setNetPriceProductTradePrice(price);
+
+        com.cii.messaging.unece.orderresponse.LineTradeAgreementType converted = CopyPlans.convert(agreement,
+                com.cii.messaging.unece.orderresponse.LineTradeAgreementType.class);
+
+        assertEquals(new BigDecimal("8.00"),
+                converted.getNetPriceProductTradePrice().getChargeAmount().get(0).getValue());
+    }
+
+    private static AmountType amount(String value) {
+        AmountType amount = new AmountType();
+        amount.setValue(new BigDecimal(value));
+        amount.setCurrencyID("EUR");
+        return amount;
+    }
+
+    static class AccordEtendu extends LineTradeAgreementType {
+    }
+}
@@ -0,0 +1,137 @@
+package com.cii.messaging.writer.generation;
+
+import com.cii.messaging.model.order.Order;
+import com.cii.messaging.model.orderresponse.OrderResponse;
+import com.cii.messaging.reader.OrderReader;
+import com.cii.messaging.unece.orderresponse.SupplyChainTradeLineItemType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LineDecisionTableTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void appliqueLaPremiereRegleCorrespondanteParProduitPuisLesReglesGeneriques() {
+        LineDecisionTable table = LineDecisionTable.compile(List.of(
+                rule("P1", LineAction.REJECT, "100", null, null),
+                rule("P1", LineAction.ACCEPT, null, null, null),
+                rule("P2", LineAction.CHANGE, null, null, "10"),
+                rule(LineDecisionRule.ANY_PRODUCT, LineAction.REJECT, null, null, null)), null);
+
+        assertEquals(LineAction.REJECT, table.decide(List.of("P1"), new BigDecimal("150")).action());
+        assertEquals(BigDecimal.ZERO, table.decide(List.of("P1"), new BigDecimal("150")).agreedQuantity());
+        assertEquals(LineAction.ACCEPT, table.decide(List.of("P1"), new BigDecimal("20")).action());
+
+        LineDecision change = table.decide(List.of("X", "P2"), new BigDecimal("20"));
+        assertEquals(LineAction.CHANGE, change.action());
+        assertEquals("3", change.lineStatusCode());
+        assertEquals(new BigDecimal("10"), change.agreedQuantity());
+
+        assertEquals("7", table.decide(List.of("INCONNU"), BigDecimal.ONE).lineStatusCode());
+        assertEquals(2, table.indexedProducts());
+    }
+
+    @Test
+    void plafonneLaQuantiteConfirmeeAuStockDisponible() {
+        LineDecisionTable table = LineDecisionTable.compile(List.of(),
+                Map.of("P1", new BigDecimal("30"), "P2", BigDecimal.ZERO));
+
+        LineDecision capped = table.decide(List.of("P1"), new BigDecimal("50"));
+        assertEquals(LineAction.CHANGE, capped.action());
+        assertEquals(new BigDecimal("30"), capped.agreedQuantity());
+
+        assertEquals(LineAction.REJECT, table.decide(List.of("P2"), BigDecimal.ONE).action());
+        assertEquals(LineAction.ACCEPT, table.decide(List.of("P1"), new BigDecimal("30")).action());
+        assertEquals(LineAction.ACCEPT, table.decide(List.of("P3"), new BigDecimal("999")).action());
+    }
+
+    @Test
+    void chargeLesReglesCsvEtJsonEtLeStock() throws Exception {
+        Path csv = Files.writeString(tempDir.resolve("rules.csv"), """
+                # règles de test
+                productId;action;minQuantity;maxQuantity;agreedQuantity;lineStatusCode
+                P1;reject;;;;
+                P2;CHANGE;10;;5;6
+                """);
+        Path json = Files.writeString(tempDir.resolve("rules.json"), """
+                [{"productId": "P1", "action": "ACCEPT", "maxQuantity": 10}]
+                """);
+        Path stock = Files.writeString(tempDir.resolve("stock.csv"), "productId,quantity\nP1,4\n");
+
+        List<LineDecisionRule> csvRules = LineDecisionRules.lireRegles(csv);
+        assertEquals(2, csvRules.size());
+        assertEquals(LineAction.REJECT, csvRules.get(0).action());
+        assertEquals("6", csvRules.get(1).lineStatusCode());
+
+        LineDecisionTable table = LineDecisionRules.charger(json, stock);
+        LineDecision decision = table.decide(List.of("P1"), new BigDecimal("8"));
+        assertEquals(LineAction.CHANGE, decision.action());
+        assertEquals(new BigDecimal("4"), decision.agreedQuantity());
+    }
+
+    @Test
+    void litLesValeursEntreGuillemetsEtRejetteLesLignesMalFormees() throws Exception {
+        Path csv = Files.writeString(tempDir.resolve("rules.csv"), """
+                productId,action,lineStatusCode
+                "P1,bis",CHANGE,"6"
+                "P""2",ACCEPT,
+                """);
+        Path extra = Files.writeString(tempDir.resolve("extra.csv"), "productId;action\nP1;ACCEPT;6\n");
+        Path unclosed = Files.writeString(tempDir.resolve("unclosed.csv"), "productId;action\n\"P1;ACCEPT\n");
+
+        List<LineDecisionRule> rules = LineDecisionRules.lireRegles(csv);
+        assertEquals("P1,bis", rules.get(0).productId());
+        assertEquals("6", rules.get(0).lineStatusCode());
+        assertEquals("P\"2", rules.get(1).productId());
+        assertNull(rules.get(1).lineStatusCode());
+        assertThrows(IllegalArgumentException.class, () -> LineDecisionRules.lireRegles(extra));
+        assertThrows(IllegalArgumentException.class, () -> LineDecisionRules.lireRegles(unclosed));
+    }
+
+    @Test
+    void rejetteUneActionInconnue() throws Exception {
+        Path csv = Files.writeString(tempDir.resolve("rules.csv"), "productId;action\nP1;PEUT-ETRE\n");
+
+        assertThrows(IllegalArgumentException.class, () -> LineDecisionRules.lireRegles(csv));
+    }
+
+    @Test
+    void appliqueLesDecisionsParLigneLorsDeLaGeneration() throws Exception {
+        Order order;
+        try (InputStream stream = getClass().getResourceAsStream("/samples/order-sample.xml")) {
+            order = new OrderReader().read(stream);
+        }
+        LineDecisionTable table = LineDecisionTable.compile(
+                List.of(rule("4012345678902", LineAction.REJECT, null, null, null)),
+                Map.of("4012345678901", new BigDecimal("60")));
+
+        OrderResponse response = OrderResponseGenerator.genererDepuisOrder(order,
+                OrderResponseGenerationOptions.builder().withLineDecisions(table).build());
+
+        List<SupplyChainTradeLineItemType> lines =
+                response.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem();
+        assertEquals("3", lines.get(0).getAssociatedDocumentLineDocument().getLineStatusCode().getValue());
+        assertEquals(new BigDecimal("60"), lines.get(0).getSpecifiedLineTradeDelivery().getAgreedQuantity().getValue());
+        assertEquals("EA", lines.get(0).getSpecifiedLineTradeDelivery().getAgreedQuantity().getUnitCode());
+        assertEquals("7", lines.get(1).getAssociatedDocumentLineDocument().getLineStatusCode().getValue());
+        assertEquals(BigDecimal.ZERO, lines.get(1).getSpecifiedLineTradeDelivery().getAgreedQuantity().getValue());
+    }
+
+    private static LineDecisionRule rule(String productId, LineAction action, String min, String max, String agreed) {
+        return new LineDecisionRule(productId, action, min != null ? new BigDecimal(min) : null,
+                max != null ? new BigDecimal(max) : null, agreed != null ? new BigDecimal(agreed) : null, null);
+    }
+}
@@ -0,0 +1,81 @@
+package com.cii.messaging.writer.generation;
+
+import com.cii.messaging.model.order.Order;
+import com.cii.messaging.reader.OrderReader;
+import com.cii.messaging.unece.order.SupplyChainTradeLineItemType;
+import com.cii.messaging.writer.OrderWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Comparaison indicative des moteurs MAPPER et XSLT, exécutée uniquement avec {@code -Dcii.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "cii.benchmark", matches = "true")
+class OrderResponseEngineBenchmarkTest {
+
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+    private static final int HUGE_ORDER_LINES = 10_000;
+
+    private static final OrderResponseGenerationOptions OPTIONS = OrderResponseGenerationOptions.builder()
+            .withIssueDateTime(LocalDateTime.of(2024, 3, 5, 12, 0))
+            .withLineStatusCode("5")
+            .build();
+
+    @Test
+    void compareLesMoteursSurUnePetiteEtUneGrandeCommande() throws Exception {
+        Order small = lireOrder();
+        Order huge = agrandir(lireOrder(), HUGE_ORDER_LINES);
+        byte[] hugeXml = ecrire(huge);
+
+        mesurer("petite commande", small, 1);
+        mesurer("grande commande (" + HUGE_ORDER_LINES + " lignes, " + hugeXml.length / 1024 + " Ko)", huge, 10);
+    }
+
+    private void mesurer(String libelle, Order order, int divisor) throws Exception {
+        int warmup = Math.max(1, WARMUP / divisor);
+        int iterations = Math.max(2, ITERATIONS / divisor);
+        for (OrderResponseEngine engine : OrderResponseEngine.values()) {
+            for (int i = 0; i < warmup; i++) {
+                OrderResponseGenerator.genererDepuisOrder(order, OPTIONS, engine);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                assertNotNull(OrderResponseGenerator.genererDepuisOrder(order, OPTIONS, engine));
+            }
+            double averageMillis = (System.nanoTime() - start) / 1_000_000.0 / iterations;
+            System.out.printf("%s - moteur %s : %.3f ms/message%n", libelle, engine, averageMillis);
+        }
+    }
+
+    private static Order agrandir(Order order, int lines) {
+        List<SupplyChainTradeLineItemType> items =
+                order.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem();
+        List<SupplyChainTradeLineItemType> modeles = List.copyOf(items);
+        while (items.size() < lines) {
+            items.addAll(modeles);
+        }
+        return order;
+    }
+
+    private byte[] ecrire(Order order) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new OrderWriter().write(order, output);
+        return output.toByteArray();
+    }
+
+    private Order lireOrder() throws Exception {
+        try (InputStream inputStream = getClass().getResourceAsStream("/order-sample.xml")) {
+            assertNotNull(inputStream, "Ressource order-sample.xml introuvable");
+            return new OrderReader().read(new ByteArrayInputStream(inputStream.readAllBytes()));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.cii.messaging.writer.generation;
+
+import com.cii.messaging.model.common.MessageType;
+import com.cii.messaging.model.order.Order;
+import com.cii.messaging.model.orderresponse.OrderResponse;
+import com.cii.messaging.reader.OrderReader;
+import com.cii.messaging.reader.OrderResponseReader;
+import com.cii.messaging.unece.orderresponse.SupplyChainTradeLineItemType;
+import com.cii.messaging.validator.SchemaCache;
+import com.cii.messaging.validator.SchemaVersion;
+import com.cii.messaging.writer.CIIWriterException;
+import com.cii.messaging.writer.OrderResponseWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Validator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingOrderResponseGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/samples/order-sample.xml", "/samples/AMAZON_OUT.xml"})
+    void produitLeMemeEnTeteEtLesMemesLignesQueLeModeEnMemoire(String resource) throws Exception {
+        OrderResponseGenerationOptions options = OrderResponseGenerationOptions.builder()
+                .withResponseIdPrefix("RSP-")
+                .withIssueDateTime(LocalDateTime.of(2024, 3, 5, 12, 0))
+                .withAcknowledgementCode("42")
+                .withLineStatusCode("3")
+                .build();
+
+        byte[] orderXml = lireRessource(resource);
+        Order order = new OrderReader().read(new ByteArrayInputStream(orderXml));
+        OrderResponse expected = OrderResponseGenerator.genererDepuisOrder(order, options);
+        OrderResponse streamed = transformer(orderXml, options);
+
+        assertEquals(expected.getExchangedDocument().getID().getValue(),
+                streamed.getExchangedDocument().getID().getValue());
+        assertEquals("42", streamed.getExchangedDocument().getPurposeCode().getValue());
+        assertEquals("6", streamed.getExchangedDocument().getPurposeCode().getListAgencyID());
+        assertEquals(expected.getExchangedDocument().getTypeCode().getValue(),
+                streamed.getExchangedDocument().getTypeCode().getValue());
+        assertEquals("20240305", streamed.getExchangedDocument().getIssueDateTime().getDateTimeString().getValue());
+        assertEquals(expected.getSupplyChainTradeTransaction().getApplicableHeaderTradeAgreement()
+                        .getSellerOrderReferencedDocument().getIssuerAssignedID().getValue(),
+                streamed.getSupplyChainTradeTransaction().getApplicableHeaderTradeAgreement()
+                        .getSellerOrderReferencedDocument().getIssuerAssignedID().getValue());
+
+        List<SupplyChainTradeLineItemType> expectedLines =
+                expected.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem();
+        List<SupplyChainTradeLineItemType> streamedLines =
+                streamed.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem();
+        assertEquals(expectedLines.size(), streamedLines.size());
+        for (int i = 0; i < expectedLines.size(); i++) {
+            assertEquals(expectedLines.get(i).getAssociatedDocumentLineDocument().getLineID().getValue(),
+                    streamedLines.get(i).getAssociatedDocumentLineDocument().getLineID().getValue());
+            assertEquals("3", streamedLines.get(i).getAssociatedDocumentLineDocument().getLineStatusCode().getValue());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/samples/order-sample.xml", "/samples/AMAZON_OUT.xml"})
+    void produitLeDocumentDuMapperValideAuRegardDuSchema(String resource) throws Exception {
+        byte[] orderXml = lireRessource(resource);
+        Validator validator = SchemaCache.getSchema(MessageType.ORDER_RESPONSE, SchemaVersion.D23B).newValidator();
+        for (OrderResponseGenerationOptions options : List.of(OrderResponseGenerationOptions.builder()
+                        .withIssueDateTime(LocalDateTime.of(2024, 3, 5, 12, 0))
+                        .build(),
+                OrderResponseGenerationOptions.builder()
+                        .withResponseIdPrefix("RSP-")
+                        .withIssueDateTime(LocalDateTime.of(2024, 3, 5, 12, 0))
+                        .withLineStatusCode("3")
+                        .build())) {
+            Order order = new OrderReader().read(new ByteArrayInputStream(orderXml));
+            String expected = new OrderResponseWriter().writeToString(
+                    OrderResponseGenerator.genererDepuisOrder(order, options));
+            ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+            StreamingOrderResponseGenerator.transformer(new ByteArrayInputStream(orderXml), streamed, options);
+
+            validator.validate(new StreamSource(new ByteArrayInputStream(streamed.toByteArray())));
+            XsltOrderResponseGeneratorTest.assertMemeContenu(
+                    XsltOrderResponseGeneratorTest.parse(expected.getBytes(StandardCharsets.UTF_8)).getDocumentElement(),
+                    XsltOrderResponseGeneratorTest.parse(streamed.toByteArray()).getDocumentElement(), "");
+        }
+    }
+
+    @Test
+    void ecritLeFichierDeSortie() throws Exception {
+        Path input = tempDir.resolve("order.xml");
+        Files.write(input, lireRessource("/samples/order-sample.xml"));
+        Path output = tempDir.resolve("out/ordersp.xml");
+
+        String message = StreamingOrderResponseGenerator.genererOrderResponse(input, output, null);
+
+        assertTrue(message.contains(output.toAbsolutePath().toString()));
+        OrderResponse response = new OrderResponseReader().read(output.toFile());
+        assertNotNull(response.getExchangedDocument());
+        assertEquals(AcknowledgementCodes.DEFAULT_ACKNOWLEDGEMENT_CODE,
+                response.getExchangedDocument().getPurposeCode().getValue());
+    }
+
+    @Test
+    void rejetteUnDocumentQuiNestPasUneCommande() throws IOException {
+        byte[] invoice = lireRessource("/samples/invoice-sample.xml");
+
+        assertThrows(CIIWriterException.class, () -> StreamingOrderResponseGenerator.transformer(
+                new ByteArrayInputStream(invoice), new ByteArrayOutputStream(), null));
+    }
+
+    private OrderResponse transformer(byte[] orderXml, OrderResponseGenerationOptions options) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StreamingOrderResponseGenerator.transformer(new ByteArrayInputStream(orderXml), output, options);
+        return new OrderResponseReader().read(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    private byte[] lireRessource(String resource) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IOException("Ressource introuvable : " + resource);
+            }
+            return inputStream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.cii.messaging.writer.generation;
+
+import com.cii.messaging.model.order.Order;
+import com.cii.messaging.model.orderresponse.OrderResponse;
+import com.cii.messaging.reader.OrderReader;
+import com.cii.messaging.reader.OrderResponseReader;
+import com.cii.messaging.unece.orderresponse.SupplyChainTradeLineItemType;
+import com.cii.messaging.writer.CIIWriterException;
+import com.cii.messaging.writer.OrderResponseWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class XsltOrderResponseGeneratorTest {
+
+    private static final OrderResponseGenerationOptions OPTIONS = OrderResponseGenerationOptions.builder()
+            .withResponseIdPrefix("RSP-")
+            .withIssueDateTime(LocalDateTime.of(2024, 3, 5, 12, 0))
+            .withAcknowledgementCode("42")
+            .withLineStatusCode("3")
+            .build();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/samples/order-sample.xml", "/samples/AMAZON_OUT.xml"})
+    void produitLeMemeEnTeteEtLesMemesLignesQueLeMapper(String resource) throws Exception {
+        Order order = lireOrder(resource);
+
+        OrderResponse expected = OrderResponseGenerator.genererDepuisOrder(order, OPTIONS);
+        OrderResponse actual = OrderResponseGenerator.genererDepuisOrder(order, OPTIONS, OrderResponseEngine.XSLT);
+
+        assertEquals(expected.getExchangedDocument().getID().getValue(), actual.getExchangedDocument().getID().getValue());
+        assertEquals("42", actual.getExchangedDocument().getPurposeCode().getValue());
+        assertEquals(expected.getExchangedDocument().getTypeCode().getValue(),
+                actual.getExchangedDocument().getTypeCode().getValue());
+        assertEquals("20240305", actual.getExchangedDocument().getIssueDateTime().getDateTimeString().getValue());
+        assertEquals(expected.getSupplyChainTradeTransaction().getApplicableHeaderTradeAgreement()
+                        .getSellerOrderReferencedDocument().getIssuerAssignedID().getValue(),
+                actual.getSupplyChainTradeTransaction().getApplicableHeaderTradeAgreement()
+                        .getSellerOrderReferencedDocument().getIssuerAssignedID().getValue());
+
+        List<SupplyChainTradeLineItemType> expectedLines =
+                expected.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem();
+        List<SupplyChainTradeLineItemType> actualLines =
+                actual.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem();
+        assertEquals(expectedLines.size(), actualLines.size());
+        for (int i = 0; i < expectedLines.size(); i++) {
+            assertEquals(expectedLines.get(i).getAssociatedDocumentLineDocument().getLineID().getValue(),
+                    actualLines.get(i).getAssociatedDocumentLineDocument().getLineID().getValue());
+            assertEquals("3", actualLines.get(i).getAssociatedDocumentLineDocument().getLineStatusCode().getValue());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/samples/order-sample.xml", "/samples/AMAZON_OUT.xml"})
+    void produitLeMemeDocumentQueLeMapper(String resource) throws Exception {
+        byte[] orderXml = lireRessource(resource);
+        for (OrderResponseGenerationOptions options : List.of(OPTIONS, OrderResponseGenerationOptions.builder()
+                .withIssueDateTime(LocalDateTime.of(2024, 3, 5, 12, 0))
+                .build())) {
+            Order order = new OrderReader().read(new ByteArrayInputStream(orderXml));
+            String expected = new OrderResponseWriter().writeToString(
+                    OrderResponseGenerator.genererDepuisOrder(order, options));
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            XsltOrderResponseGenerator.transformer(new ByteArrayInputStream(orderXml), actual, options);
+
+            assertMemeContenu(parse(expected.getBytes(StandardCharsets.UTF_8)).getDocumentElement(),
+                    parse(actual.toByteArray()).getDocumentElement(), "");
+        }
+    }
+
+    @Test
+    void partageLExecutableEntreThreads() throws Exception {
+        byte[] orderXml = lireRessource("/samples/AMAZON_OUT.xml");
+        String reference = transformer(orderXml);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Callable<String> task = () -> transformer(orderXml);
+            List<Future<String>> results = executor.invokeAll(java.util.Collections.nCopies(16, task));
+            for (Future<String> result : results) {
+                assertEquals(reference, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        OrderResponse response = new OrderResponseReader().read(new ByteArrayInputStream(
+                reference.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+        assertEquals("RSP-", response.getExchangedDocument().getID().getValue().substring(0, 4));
+    }
+
+    @Test
+    void rejetteUnDocumentQuiNestPasUneCommande() throws IOException {
+        byte[] invoice = lireRessource("/samples/invoice-sample.xml");
+
+        assertThrows(CIIWriterException.class, () -> XsltOrderResponseGenerator.transformer(
+                new ByteArrayInputStream(invoice), new ByteArrayOutputStream(), OPTIONS));
+    }
+
+    /**
+     * Compare deux arbres XML par espace de noms, nom local, attributs et texte, sans tenir compte des préfixes
+     * ni de l'indentation.
+     */
+    static void assertMemeContenu(Element expected, Element actual, String parent) {
+        String path = parent + "/" + expected.getLocalName();
+        assertEquals(expected.getNamespaceURI() + "#" + expected.getLocalName(),
+                actual.getNamespaceURI() + "#" + actual.getLocalName(), path);
+        assertEquals(attributes(expected), attributes(actual), path);
+        List<Element> expectedChildren = children(expected);
+        List<Element> actualChildren = children(actual);
+        assertEquals(expectedChildren.stream().map(Element::getLocalName).toList(),
+                actualChildren.stream().map(Element::getLocalName).toList(), path);
+        if (expectedChildren.isEmpty()) {
+            assertEquals(expected.getTextContent().trim(), actual.getTextContent().trim(), path);
+        }
+        for (int i = 0; i < expectedChildren.size(); i++) {
+            assertMemeContenu(expectedChildren.get(i), actualChildren.get(i), path);
+        }
+    }
+
+    private static Map<String, String> attributes(Element element) {
+        Map<String, String> attributes = new TreeMap<>();
+        NamedNodeMap nodes = element.getAttributes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node attribute = nodes.item(i);
+            if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                attributes.put(attribute.getNamespaceURI() + "#" + attribute.getLocalName(), attribute.getNodeValue());
+            }
+        }
+        return attributes;
+    }
+
+    private static List<Element> children(Element element) {
+        List<Element> children = new ArrayList<>();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element childElement) {
+                children.add(childElement);
+            }
+        }
+        return children;
+    }
+
+    static Document parse(byte[] xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    private String transformer(byte[] orderXml) throws CIIWriterException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XsltOrderResponseGenerator.transformer(new ByteArrayInputStream(orderXml), output, OPTIONS);
+        return output.toString(java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    private Order lireOrder(String resource) throws Exception {
+        return new OrderReader().read(new ByteArrayInputStream(lireRessource(resource)));
+    }
+
+    private byte[] lireRessource(String resource) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IOException("Ressource introuvable : " + resource);
+            }
+            return inputStream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.cii.messaging.writer.mapping;
+
+import com.cii.messaging.model.despatchadvice.DespatchAdvice;
+import com.cii.messaging.model.invoice.Invoice;
+import com.cii.messaging.model.order.Order;
+import com.cii.messaging.model.orderresponse.OrderResponse;
+import com.cii.messaging.reader.CIIReaderException;
+import com.cii.messaging.reader.OrderReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OrderMessageSkeletonsTest {
+
+    @Test
+    void recopieLesStructuresCommunesVersLesTroisMessages() throws Exception {
+        Order order = lireEchantillonOrder("/samples/order-sample.xml");
+        String orderId = order.getExchangedDocument().getID().getValue();
+        int lineCount = order.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem().size();
+        assertFalse(order.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem().isEmpty());
+
+        OrderResponse response = OrderMessageSkeletons.orderResponse(order);
+        assertEquals(orderId, response.getExchangedDocument().getID().getValue());
+        assertEquals(lineCount, response.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem().size());
+
+        DespatchAdvice despatchAdvice = OrderMessageSkeletons.despatchAdvice(order);
+        assertEquals(orderId, despatchAdvice.getExchangedDocument().getID().getValue());
+        assertEquals(lineCount,
+                despatchAdvice.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem().size());
+
+        Invoice invoice = OrderMessageSkeletons.invoice(order);
+        assertEquals(orderId, invoice.getExchangedDocument().getID().getValue());
+        assertEquals(lineCount, invoice.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem().size());
+        assertEquals(order.getSupplyChainTradeTransaction().getApplicableHeaderTradeAgreement()
+                        .getSellerTradeParty().getName().getValue(),
+                invoice.getSupplyChainTradeTransaction().getApplicableHeaderTradeAgreement()
+                        .getSellerTradeParty().getName().getValue());
+    }
+
+    @Test
+    void laisseLesStructuresAbsentesANull() {
+        Order order = new Order();
+
+        Invoice invoice = OrderMessageSkeletons.invoice(order);
+
+        assertNull(invoice.getExchangedDocument());
+        assertNull(invoice.getSupplyChainTradeTransaction());
+    }
+
+    private Order lireEchantillonOrder(String resource) throws IOException, CIIReaderException {
+        try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IOException("Ressource introuvable : " + resource);
+            }
+            return new OrderReader().read(inputStream);
+        }
+    }
+}